@@ -7,7 +7,11 @@ import uuid
 
 # --- RAG 모듈 임포트 ---
 # ✅ Celery 태스크 임포트
-from app.rag.tasks import create_embedding_task, create_initial_embedding_task
+from app.rag.tasks import (
+    create_embedding_task,
+    create_initial_embedding_task,
+    apply_embedding_delta_task,
+)
 
 from app.rag.service import get_rag_chain
 
@@ -47,6 +51,14 @@ class EmbeddingRequest(BaseModel):
     s3_url: HttpUrl
 
 
+# 재발행 변경분 임베딩 요청 스키마 (Spring이 챕터 해시를 비교해 전달)
+class EmbeddingDeltaRequest(BaseModel):
+    document_id: str
+    s3_url: HttpUrl
+    upserted_chapter_keys: List[str] = Field(default_factory=list, description="추가/변경된 챕터 키 (유일한 id, 아니면 #순서)")
+    removed_chapter_keys: List[str] = Field(default_factory=list, description="삭제된 챕터 키")
+
+
 class ChatRequest(BaseModel):
     document_id: str
     question: str
@@ -209,6 +221,48 @@ async def api_create_embedding(
         raise HTTPException(status_code=500, detail=f"임베딩 작업 시작 실패: {str(e)}")
 
 
+# --- 재발행 변경분 임베딩 API (TEACHER 권한 필요) ---
+@router.post("/embeddings/delta", status_code=202)
+async def api_apply_embedding_delta(
+    request: EmbeddingDeltaRequest, current_user: User = Depends(get_current_user)
+):
+    """
+    (Spring 서버가 호출) 재발행 시 추가/변경/삭제된 챕터만 기존 컬렉션에 반영합니다.
+    바뀌지 않은 챕터의 청크는 그대로 두므로 전체 재임베딩보다 비용이 작습니다.
+    **TEACHER** 역할 사용자만 이 API를 호출할 수 있습니다.
+    """
+
+    if current_user.role != "TEACHER":
+        raise HTTPException(status_code=403, detail="임베딩을 생성할 권한이 없습니다.")
+
+    try:
+        print(
+            f"📤 '{request.document_id}' 변경분 임베딩 요청 "
+            f"(추가/변경: {len(request.upserted_chapter_keys)}, 삭제: {len(request.removed_chapter_keys)})"
+        )
+
+        task = apply_embedding_delta_task.delay(
+            document_id=request.document_id,
+            s3_url=str(request.s3_url),
+            upserted_chapter_keys=request.upserted_chapter_keys,
+            removed_chapter_keys=request.removed_chapter_keys,
+        )
+
+        print(f"✅ 변경분 임베딩 Celery 태스크 시작됨. Task ID: {task.id}")
+
+        return {
+            "status": "processing",
+            "message": "변경분 임베딩 작업이 시작되었습니다.",
+            "document_id": request.document_id,
+            "task_id": task.id,
+            "check_status_url": f"/rag/embeddings/status/{task.id}",
+        }
+
+    except Exception as e:
+        print(f"❌ 변경분 임베딩 태스크 시작 실패: {e}")
+        raise HTTPException(status_code=500, detail=f"임베딩 작업 시작 실패: {str(e)}")
+
+
 # --- (신규) 임베딩 작업 상태 확인 API ---
 @router.get("/embeddings/status/{task_id}")
 async def check_embedding_status(
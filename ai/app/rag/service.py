@@ -3,7 +3,8 @@ import httpx
 import json
 import re
 import html
-from typing import List
+from collections import Counter
+from typing import List, Optional, Set
 from sqlalchemy.orm import Session
 from app.config import GMS_KEY
 from app.config import HUGGINGFACE_TOKEN
@@ -151,10 +152,33 @@ def _clean_html_content(html_text: str) -> str:
     return text
 
 
+def chapter_keys(chapters: list) -> List[str]:
+    """
+    챕터별 키 (Spring이 챕터 해시를 기록할 때와 같은 규칙)
+    id가 있고 문서 안에서 유일하면 id, 없거나 겹치면 "#순서"를 씁니다.
+    """
+    counts = Counter(
+        str(chapter.get("id"))
+        for chapter in chapters
+        if isinstance(chapter, dict) and chapter.get("id") is not None
+    )
+    keys = []
+    for index, chapter in enumerate(chapters):
+        chapter_id = chapter.get("id") if isinstance(chapter, dict) else None
+        if chapter_id is not None and counts[str(chapter_id)] == 1:
+            keys.append(str(chapter_id))
+        else:
+            keys.append(f"#{index}")
+    return keys
+
+
 # --- 메인 데이터 추출 함수 (chapters 스키마) ---
-def extract_data_from_json(json_data: dict) -> List[Document]:
+def extract_data_from_json(
+    json_data: dict, only_keys: Optional[Set[str]] = None
+) -> List[Document]:
     """
     JSON 데이터('chapters' 스키마)에서 Document 객체 리스트를 추출합니다.
+    only_keys가 있으면 해당 챕터 키의 챕터만 추출합니다. (키는 전체 챕터 목록 기준으로 계산)
     """
     documents = []
     chapters = json_data.get("chapters", [])
@@ -164,7 +188,10 @@ def extract_data_from_json(json_data: dict) -> List[Document]:
 
     print(f"📖 'chapters' 스키마 감지: 총 {len(chapters)}개 챕터 처리 시작")
 
-    for chapter in chapters:
+    for chapter, chapter_key in zip(chapters, chapter_keys(chapters)):
+        if only_keys is not None and chapter_key not in only_keys:
+            continue
+
         chapter_id = chapter.get("id")
         title = chapter.get("title")
         content_html = chapter.get("content", "")
@@ -172,6 +199,7 @@ def extract_data_from_json(json_data: dict) -> List[Document]:
 
         base_metadata = {
             "chapter_id": str(chapter_id),
+            "chapter_key": chapter_key,
             "title": title or "제목 없음",
             "type": chapter_type,
         }
@@ -278,17 +306,10 @@ def extract_initial_data_from_json(json_data: dict) -> List[Document]:
     return documents
 
 
-def create_and_store_embeddings(document_id: str, documents: List[Document]):
+def _split_documents(documents: List[Document]):
     """
-    Document 리스트를 청크로 분할하고 임베딩을 생성하여 Chroma DB에 저장합니다.
+    타입별 청크 크기 최적화 (퀴즈 QA는 분할하지 않음)
     """
-    if not documents:
-        raise ValueError("임베딩할 Document가 없습니다.")
-
-    if not embedding_model:
-        raise ValueError("임베딩 모델이 초기화되지 않았습니다.")
-
-    # 타입별 청크 크기 최적화
     content_chunks = []
     quiz_chunks = []
 
@@ -301,6 +322,20 @@ def create_and_store_embeddings(document_id: str, documents: List[Document]):
             )
             content_chunks.extend(text_splitter.split_documents([doc]))
 
+    return content_chunks, quiz_chunks
+
+
+def create_and_store_embeddings(document_id: str, documents: List[Document]):
+    """
+    Document 리스트를 청크로 분할하고 임베딩을 생성하여 Chroma DB에 저장합니다.
+    """
+    if not documents:
+        raise ValueError("임베딩할 Document가 없습니다.")
+
+    if not embedding_model:
+        raise ValueError("임베딩 모델이 초기화되지 않았습니다.")
+
+    content_chunks, quiz_chunks = _split_documents(documents)
     all_chunks = content_chunks + quiz_chunks
 
     if not all_chunks:
@@ -337,6 +372,45 @@ def create_and_store_embeddings(document_id: str, documents: List[Document]):
     print(f"✅ '{document_id}' (컬렉션: {collection_name}) 임베딩 및 저장 완료.")
 
 
+def apply_embedding_delta(
+    document_id: str, documents: List[Document], chapter_keys_to_delete: List[str]
+):
+    """
+    재발행 시 바뀐 챕터만 반영합니다.
+    chapter_keys_to_delete(변경 + 삭제된 챕터)의 기존 청크를 지우고,
+    documents(추가 + 변경된 챕터)만 새로 임베딩해 같은 컬렉션에 추가합니다.
+    """
+    if not embedding_model:
+        raise ValueError("임베딩 모델이 초기화되지 않았습니다.")
+
+    collection_name = _get_collection_name(document_id)
+    vector_store = Chroma(
+        persist_directory=CHROMA_PERSIST_DIRECTORY,
+        embedding_function=embedding_model,
+        collection_name=collection_name,
+    )
+
+    if chapter_keys_to_delete:
+        collection = vector_store._collection
+        existing = collection.get(where={"chapter_key": {"$in": chapter_keys_to_delete}})
+        if existing["ids"]:
+            collection.delete(ids=existing["ids"])
+        print(
+            f"🗑️ '{collection_name}' 챕터 {len(chapter_keys_to_delete)}개의 "
+            f"기존 청크 {len(existing['ids'])}개 삭제"
+        )
+
+    content_chunks, quiz_chunks = _split_documents(documents)
+    all_chunks = content_chunks + quiz_chunks
+    if all_chunks:
+        vector_store.add_documents(all_chunks)
+
+    print(
+        f"✅ '{document_id}' (컬렉션: {collection_name}) 변경분 임베딩 완료. "
+        f"추가 청크 {len(all_chunks)}개 (콘텐츠: {len(content_chunks)}, 퀴즈: {len(quiz_chunks)})"
+    )
+
+
 # --- 초기 임베딩 전용 함수 (단순 래퍼) ---
 def create_initial_embeddings(pdf_id: str, documents: List[Document]):
     """
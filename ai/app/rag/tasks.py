@@ -4,6 +4,7 @@ from app.celery_config import celery_app
 from app.rag.service import (
     extract_data_from_json,
     create_and_store_embeddings,
+    apply_embedding_delta,
     extract_initial_data_from_json,  # ✅ 추가
     create_initial_embeddings,
     _get_collection_name,  # (service.py의 헬퍼 함수 임포트)
@@ -108,3 +109,47 @@ def create_embedding_task(self, document_id: str, s3_url: str):
         log.error(f"[Task Failed] 임베딩 작업 실패. DocID: {document_id}. Error: {e}")
         # (수정) 3회 재시도 (예: 네트워크 오류 시)
         raise self.retry(exc=e, countdown=60)  # 60초 후 재시도
+
+
+@celery_app.task(name="apply_embedding_delta_task", bind=True, max_retries=3)
+def apply_embedding_delta_task(
+    self,
+    document_id: str,
+    s3_url: str,
+    upserted_chapter_keys: list,
+    removed_chapter_keys: list,
+):
+    """
+    재발행 변경분 임베딩 Celery 백그라운드 작업
+    추가/변경된 챕터만 파싱해 임베딩하고, 변경/삭제된 챕터의 기존 청크는 지웁니다.
+    챕터는 청크 메타데이터 chapter_key로 구분합니다. (id가 없거나 겹치는 챕터도 서로 덮어쓰지 않도록)
+    """
+    try:
+        log.info(
+            f"[Delta Task Start] DocID: {document_id}, "
+            f"upserted={upserted_chapter_keys}, removed={removed_chapter_keys}"
+        )
+
+        upserted = {str(chapter_key) for chapter_key in upserted_chapter_keys}
+        documents = []
+        if upserted:
+            json_data = download_json_sync(s3_url)
+            documents = extract_data_from_json(json_data, only_keys=upserted)
+
+        apply_embedding_delta(
+            document_id,
+            documents,
+            list(upserted) + [str(chapter_key) for chapter_key in removed_chapter_keys],
+        )
+        log.info(f"[Delta Task Success] DocID: {document_id}")
+
+        return {
+            "status": "success",
+            "document_id": document_id,
+            "upserted": len(upserted),
+            "removed": len(removed_chapter_keys),
+        }
+
+    except Exception as e:
+        log.error(f"[Delta Task Failed] DocID: {document_id}. Error: {e}")
+        raise self.retry(exc=e, countdown=60)
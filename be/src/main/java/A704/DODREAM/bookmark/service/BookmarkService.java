@@ -8,24 +8,20 @@ import A704.DODREAM.bookmark.entity.Bookmark;
 import A704.DODREAM.bookmark.repository.BookmarkRepository;
 import A704.DODREAM.file.entity.UploadedFile;
 import A704.DODREAM.file.repository.UploadedFileRepository;
+import A704.DODREAM.file.service.ParsedJsonStore;
 import A704.DODREAM.file.service.PdfService;
 import A704.DODREAM.global.exception.CustomException;
 import A704.DODREAM.global.exception.constant.ErrorCode;
 import A704.DODREAM.material.entity.Material;
 import A704.DODREAM.material.repository.MaterialRepository;
+import A704.DODREAM.material.service.MaterialShardService;
 import A704.DODREAM.user.entity.User;
 import A704.DODREAM.user.repository.UserRepository;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.core.ResponseInputStream;
-import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.GetObjectRequest;
-import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 
 import java.util.List;
 import java.util.Map;
@@ -43,11 +39,8 @@ public class BookmarkService {
     private final UserRepository userRepository;
     private final UploadedFileRepository uploadedFileRepository;
     private final PdfService pdfService;
-    private final ObjectMapper objectMapper;
-    private final S3Client s3Client;
-
-    @Value("${aws.s3.bucket}")
-    private String bucketName;
+    private final ParsedJsonStore parsedJsonStore;
+    private final MaterialShardService materialShardService;
 
     @Transactional
     public BookmarkResponse toggleBookmark(Long userId, BookmarkRequest request){
@@ -69,10 +62,7 @@ public class BookmarkService {
         }
         else {
             //S3에서 JSON 내용 가져오기
-            Map<String, Object> content = getContentById(
-                    material.getUploadedFile().getId(),
-                    request.getTitleId()
-            );
+            Map<String, Object> content = getContentById(material, request.getTitleId());
 
             //북마크 생성
             Bookmark bookmark = Bookmark.builder()
@@ -122,69 +112,47 @@ public class BookmarkService {
         }
 
         try {
-            GetObjectRequest getRequest = GetObjectRequest.builder()
-                    .bucket(bucketName)
-                    .key(uploadedFile.getJsonS3Key())
-                    .build();
-
-            ResponseInputStream<GetObjectResponse> response = s3Client.getObject(getRequest);
-            String jsonString = new String(response.readAllBytes());
-
-            return objectMapper.readValue(jsonString, Map.class);
+            return parsedJsonStore.get(uploadedFile.getJsonS3Key());
 
         } catch (Exception e) {
             throw new RuntimeException("JSON 조회 실패: " + e.getMessage());
         }
     }
 
-    private Map<String, Object> getContentById(Long pdfId, String titleId){
-
-        Map<String, Object> fullJson = getJsonFromS3(pdfId);
-
-        List<Map<String, Object>> chapters = (List<Map<String, Object>>) fullJson.get("chapters");
-
-        if(chapters == null || chapters.isEmpty()) {
-            throw new CustomException(ErrorCode.INVALID_JSON_STRUCTURE);
-        }
-
-        for (Map<String, Object> chapter : chapters) {
-            String chapterId = String.valueOf(chapter.get("id"));
-
-            if (titleId.equals(chapterId)) {
-                String type = (String) chapter.get("type");
-                String title = (String) chapter.getOrDefault("title", "");
-                String contents = "";
-
-                if("quiz".equals(type)) {
-                    List<Map<String, Object>> qaList = (List<Map<String, Object>>) chapter.get("qa");
-                    if(qaList != null && !qaList.isEmpty()) {
-                        StringBuilder sb = new StringBuilder();
-                        for(int i = 0; i < qaList.size(); i++) {
-                            Map<String, Object> qa = qaList.get(i);
-                            sb.append("Q").append(i+1).append(". ")
-                                    .append(qa.getOrDefault("question", ""))
-                                    .append("\n\n정답: ")
-                                    .append(qa.getOrDefault("answer", ""))
-                                    .append("\n\n---\n\n");
-                        }
-                        contents = sb.toString().trim();
-                    }
-                } else if("content".equals(type)) {
-                    // content 타입
-                    contents = (String) chapter.getOrDefault("content", "");
-                } else {
-                    // 기타 타입
-                    contents = (String) chapter.getOrDefault("content", "");
+    private Map<String, Object> getContentById(Material material, String titleId){
+
+        // 발행된 자료는 현재 버전의 해당 챕터 객체만 읽는다 (버전이 없으면 통짜 JSON)
+        Map<String, Object> chapter = materialShardService.getChapter(material, titleId);
+        String type = (String) chapter.get("type");
+        String title = (String) chapter.getOrDefault("title", "");
+        String contents = "";
+
+        if("quiz".equals(type)) {
+            List<Map<String, Object>> qaList = (List<Map<String, Object>>) chapter.get("qa");
+            if(qaList != null && !qaList.isEmpty()) {
+                StringBuilder sb = new StringBuilder();
+                for(int i = 0; i < qaList.size(); i++) {
+                    Map<String, Object> qa = qaList.get(i);
+                    sb.append("Q").append(i+1).append(". ")
+                            .append(qa.getOrDefault("question", ""))
+                            .append("\n\n정답: ")
+                            .append(qa.getOrDefault("answer", ""))
+                            .append("\n\n---\n\n");
                 }
-
-                return Map.of(
-                        "title", title,
-                        "contents", contents
-                );
+                contents = sb.toString().trim();
             }
+        } else if("content".equals(type)) {
+            // content 타입
+            contents = (String) chapter.getOrDefault("content", "");
+        } else {
+            // 기타 타입
+            contents = (String) chapter.getOrDefault("content", "");
         }
 
-        throw new CustomException(ErrorCode.CONTENT_NOT_FOUND);
+        return Map.of(
+                "title", title,
+                "contents", contents
+        );
     }
 
     @Transactional
@@ -0,0 +1,26 @@
+package A704.DODREAM.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import A704.DODREAM.file.service.ParsedJsonStore;
+
+@Configuration
+public class RedisConfig {
+
+	/**
+	 * 노드 간 캐시 무효화 메시지 수신 (Pub/Sub)
+	 */
+	@Bean
+	public RedisMessageListenerContainer redisMessageListenerContainer(
+		RedisConnectionFactory connectionFactory,
+		ParsedJsonStore parsedJsonStore) {
+		RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+		container.setConnectionFactory(connectionFactory);
+		container.addMessageListener(parsedJsonStore, new ChannelTopic(ParsedJsonStore.INVALIDATION_CHANNEL));
+		return container;
+	}
+}
@@ -27,11 +27,13 @@ import A704.DODREAM.file.dto.OcrResultResponse;
 import A704.DODREAM.file.entity.DocumentSection;
 import A704.DODREAM.file.entity.OcrStatus;
 import A704.DODREAM.file.entity.UploadedFile;
+import A704.DODREAM.file.enums.JobType;
 import A704.DODREAM.file.repository.DocumentSectionRepository;
+import A704.DODREAM.file.repository.OcrPageRepository;
 import A704.DODREAM.file.repository.UploadedFileRepository;
 import A704.DODREAM.file.service.CloudFrontService;
 import A704.DODREAM.file.service.FileStorageService;
-import A704.DODREAM.file.service.OcrProcessService;
+import A704.DODREAM.file.service.DocumentJobService;
 import A704.DODREAM.file.service.S3Service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -46,11 +48,12 @@ import org.springframework.web.bind.annotation.*;
 public class FileUploadController {
 
     private final FileStorageService fileStorageService;
-    private final OcrProcessService ocrProcessService;
+    private final DocumentJobService documentJobService;
     private final UploadedFileRepository uploadedFileRepository;
     private final S3Service s3Service;
     private final CloudFrontService cloudFrontService;
     private final DocumentSectionRepository documentSectionRepository;
+    private final OcrPageRepository ocrPageRepository;
 
     private static final long MAX_FILE_SIZE = 100 * 1024 * 1024; // 100MB
 
@@ -144,8 +147,8 @@ public class FileUploadController {
                         .body("S3 key not found for this file. Please upload via presigned URL first.");
             }
 
-            // 비동기 OCR 처리 시작
-            ocrProcessService.processOcrAsyncFromS3(fileId);
+            // OCR 작업 등록 (워커가 처리)
+            documentJobService.enqueue(JobType.OCR_S3, fileId, uploadedFile.getUploaderId(), null);
 
             log.info("OCR processing started for file ID: {}", fileId);
 
@@ -211,8 +214,8 @@ public class FileUploadController {
 
             uploadedFile = uploadedFileRepository.save(uploadedFile);
 
-            // 4. 비동기 OCR 프로세스 시작
-            ocrProcessService.processOcrAsync(uploadedFile.getId());
+            // 4. OCR 작업 등록 (워커가 처리)
+            documentJobService.enqueue(JobType.OCR_LOCAL, uploadedFile.getId(), uploaderId, null);
 
             // 5. 응답 생성
             FileUploadResponse response = FileUploadResponse.builder()
@@ -328,9 +331,9 @@ public class FileUploadController {
                         .body("OCR is not completed yet. Current status: " + uploadedFile.getOcrStatus());
             }
 
+            // 페이지 번호 + 텍스트만 조회 (OcrPage/OcrWord 엔티티 로딩 없음)
             StringBuilder fullText = new StringBuilder();
-            uploadedFile.getOcrPages().stream()
-                    .sorted((p1, p2) -> p1.getPageNumber().compareTo(p2.getPageNumber()))
+            ocrPageRepository.findTextByUploadedFileId(fileId)
                     .forEach(page -> {
                         fullText.append("=== Page ").append(page.getPageNumber()).append(" ===\n");
                         fullText.append(page.getFullText()).append("\n\n");
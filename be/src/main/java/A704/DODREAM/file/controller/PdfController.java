@@ -1,13 +1,23 @@
 package A704.DODREAM.file.controller;
 
 import A704.DODREAM.auth.dto.request.UserPrincipal;
+import A704.DODREAM.file.dto.DocumentJobResponse;
+import A704.DODREAM.file.dto.TempSavePatchRequest;
+import A704.DODREAM.file.entity.DocumentJob;
 import A704.DODREAM.file.entity.UploadedFile;
+import A704.DODREAM.file.enums.JobStatus;
+import A704.DODREAM.file.service.DocumentJobService;
+import A704.DODREAM.file.service.DocumentJobWatcher;
+import A704.DODREAM.file.service.PdfOutlineService;
 import A704.DODREAM.file.service.PdfService;
 import A704.DODREAM.file.service.TempPdfDataService;
+import A704.DODREAM.file.service.TtsTextService;
 import A704.DODREAM.material.dto.PublishRequest;
 import A704.DODREAM.material.service.PublishService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletRequest;
 
@@ -15,13 +25,14 @@ import java.io.IOException;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.util.StreamUtils;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -29,7 +40,10 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/pdf")
@@ -42,12 +56,56 @@ public class PdfController {
 	@Autowired
 	private TempPdfDataService tempPdfDataService;
 
+	@Autowired
+	private TtsTextService ttsTextService;
+
+	@Autowired
+	private PdfOutlineService pdfOutlineService;
+
 	@Autowired
 	private PublishService publishService;
 
+	@Autowired
+	private DocumentJobService documentJobService;
+
+	@Autowired
+	private DocumentJobWatcher documentJobWatcher;
+
+	@Value("${job.watch.await-timeout-ms:600000}")
+	private long awaitTimeoutMs;
+
+	/**
+	 * PDF 업로드 + 파싱 작업 등록 (바이너리 직접 전송 - 권장)
+	 * 업로드 직후 작업 ID를 반환하고, 파싱은 워커가 처리한다.
+	 */
+	@Operation(
+		summary = "PDF 업로드 및 파싱 작업 등록",
+		description = "PDF 바이너리를 S3에 업로드하고 파싱 작업을 등록한 뒤 즉시 작업 정보를 반환합니다. " +
+			"Content-Type을 application/pdf로 설정하고 body에 PDF 바이너리를 직접 전송합니다. " +
+			"진행 상태는 GET /api/pdf/jobs/{jobId} 또는 SSE(GET /api/pdf/jobs/{jobId}/events)로 확인합니다. " +
+			"작업은 서버 재시작 후에도 유지되며 실패 시 백오프 후 자동 재시도됩니다."
+	)
+	@PostMapping(value = "/upload", consumes = "application/pdf")
+	@io.swagger.v3.oas.annotations.parameters.RequestBody(
+		description = "PDF 바이너리",
+		content = @Content(mediaType = "application/pdf", schema = @Schema(type = "string", format = "binary"))
+	)
+	public ResponseEntity<DocumentJobResponse> uploadPdf(
+		@Parameter(description = "PDF 파일명 (예: document.pdf)")
+		@RequestParam(value = "filename", defaultValue = "document.pdf") String filename,
+		@AuthenticationPrincipal UserPrincipal userPrincipal,
+		HttpServletRequest httpServletRequest
+	) throws IOException {
+		Long userId = (userPrincipal != null) ? userPrincipal.userId() : 1L; // 기본값 1L (테스트용)
+		String authorizationHeader = httpServletRequest.getHeader("Authorization");
+		DocumentJob job = pdfService.uploadPdfAndEnqueueParse(httpServletRequest.getInputStream(), filename, userId,
+			authorizationHeader);
+		return ResponseEntity.accepted().body(DocumentJobResponse.from(job));
+	}
+
 	/**
-	 * PDF 업로드 + 파싱 통합 API (바이너리 직접 전송 - 권장)
-	 * Content-Type: application/pdf로 바이너리 직접 전송
+	 * PDF 업로드 + 파싱 통합 API (바이너리 직접 전송 - 기존 호환)
+	 * 작업을 등록한 뒤 완료될 때까지 응답을 보류한다. (대기 중 Tomcat 스레드/DB 트랜잭션 점유 없음)
 	 */
 	@Operation(
 		summary = "PDF 업로드 및 파싱 (바이너리 직접 전송)",
@@ -55,20 +113,80 @@ public class PdfController {
 			"Content-Type을 application/pdf로 설정하고 body에 PDF 바이너리를 직접 전송합니다. " +
 			"파일명은 filename 쿼리 파라미터로 전달합니다. " +
 			"한 번의 요청으로 S3 업로드, DB 저장, AI 파싱, JSON 저장이 모두 처리됩니다. " +
-			"파싱 처리 시간은 PDF 크기에 따라 수십 초에서 수 분이 걸릴 수 있습니다."
+			"파싱 처리 시간은 PDF 크기에 따라 수십 초에서 수 분이 걸릴 수 있습니다. " +
+			"대기 시간을 초과하면 202와 함께 jobId를 반환하므로 작업 조회 API로 이어서 확인합니다."
 	)
 	@PostMapping(value = "/upload-and-parse", consumes = "application/pdf")
-	public ResponseEntity<Map<String, Object>> uploadAndParsePdfBinary(
-		@RequestBody byte[] pdfBytes,
+	@io.swagger.v3.oas.annotations.parameters.RequestBody(
+		description = "PDF 바이너리",
+		content = @Content(mediaType = "application/pdf", schema = @Schema(type = "string", format = "binary"))
+	)
+	public DeferredResult<ResponseEntity<Map<String, Object>>> uploadAndParsePdfBinary(
 		@Parameter(description = "PDF 파일명 (예: document.pdf)")
 		@RequestParam(value = "filename", defaultValue = "document.pdf") String filename,
 		@AuthenticationPrincipal UserPrincipal userPrincipal,
 		HttpServletRequest httpServletRequest
-	) {
+	) throws IOException {
 		Long userId = (userPrincipal != null) ? userPrincipal.userId() : 1L; // 기본값 1L (테스트용)
 		String authorizationHeader = httpServletRequest.getHeader("Authorization");
-		Map<String, Object> result = pdfService.uploadAndParsePdfFromBytes(pdfBytes, filename, userId, authorizationHeader);
-		return ResponseEntity.ok(result);
+		// 요청 본문을 byte[]로 바인딩하지 않고 스트림 그대로 전달 (힙 사용량 고정)
+		DocumentJob job = pdfService.uploadPdfAndEnqueueParse(httpServletRequest.getInputStream(), filename, userId,
+			authorizationHeader);
+
+		DeferredResult<ResponseEntity<Map<String, Object>>> result = new DeferredResult<>(awaitTimeoutMs);
+		Runnable unsubscribe = documentJobWatcher.onFinished(job, finished -> {
+			if (finished.getStatus() != JobStatus.SUCCEEDED) {
+				result.setErrorResult(new RuntimeException("PDF 업로드 및 파싱 실패: " + finished.getLastError()));
+				return;
+			}
+			try {
+				Map<String, Object> json = pdfService.getJsonFromS3(finished.getPdfId(), userId);
+				result.setResult(ResponseEntity.ok(
+					Map.of("pdfId", finished.getPdfId(), "filename", filename, "parsedData", json.get("parsedData"))));
+			} catch (Exception e) {
+				result.setErrorResult(e);
+			}
+		});
+		result.onTimeout(() -> {
+			unsubscribe.run();
+			result.setResult(ResponseEntity.accepted().body(
+				Map.of("jobId", job.getId(), "pdfId", job.getUploadedFileId(), "filename", filename, "message",
+					"파싱이 진행 중입니다. 작업 조회 API로 상태를 확인하세요.")));
+		});
+		return result;
+	}
+
+	/**
+	 * 작업 상태 조회
+	 */
+	@Operation(
+		summary = "PDF 처리 작업 상태 조회",
+		description = "파싱/OCR 작업의 현재 상태(QUEUED, RUNNING, SUCCEEDED, FAILED)와 시도 횟수, 마지막 오류를 반환합니다."
+	)
+	@GetMapping("/jobs/{jobId}")
+	public ResponseEntity<DocumentJobResponse> getJob(
+		@PathVariable Long jobId,
+		@AuthenticationPrincipal UserPrincipal userPrincipal
+	) {
+		Long userId = (userPrincipal != null) ? userPrincipal.userId() : 1L;
+		return ResponseEntity.ok(DocumentJobResponse.from(documentJobService.getJob(jobId, userId)));
+	}
+
+	/**
+	 * 작업 상태 스트리밍 (SSE)
+	 */
+	@Operation(
+		summary = "PDF 처리 작업 상태 스트리밍 (SSE)",
+		description = "작업 상태가 바뀔 때마다 'status' 이벤트를 전송합니다. " +
+			"작업이 완료(SUCCEEDED) 또는 최종 실패(FAILED)하면 스트림이 종료됩니다."
+	)
+	@GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter streamJob(
+		@PathVariable Long jobId,
+		@AuthenticationPrincipal UserPrincipal userPrincipal
+	) {
+		Long userId = (userPrincipal != null) ? userPrincipal.userId() : 1L;
+		return documentJobWatcher.subscribe(documentJobService.getJob(jobId, userId));
 	}
 
 	/**
@@ -214,6 +332,31 @@ public class PdfController {
 		));
 	}
 
+	/**
+	 * 임시 저장 - 바뀐 챕터만 (Redis)
+	 */
+	@Operation(
+		summary = "PDF 수정 내용 임시 저장 (변경분)",
+		description = "추가/수정된 챕터와 삭제된 챕터 id만 보내 임시 저장합니다. " +
+			"자동 저장은 이 API를 사용하고, 처음 한 번은 전체 임시 저장(POST temp-save)이 필요합니다. " +
+			"챕터 순서가 바뀐 경우 chapterOrder에 전체 순서를 보냅니다."
+	)
+	@PatchMapping("/{pdfId}/temp-save")
+	public ResponseEntity<Map<String, Object>> patchTempData(
+		@PathVariable Long pdfId,
+		@RequestBody TempSavePatchRequest request,
+		@AuthenticationPrincipal UserPrincipal userPrincipal
+	) {
+		Long userId = (userPrincipal != null) ? userPrincipal.userId() : 1L;
+		tempPdfDataService.patch(pdfId, userId, request);
+
+		return ResponseEntity.ok(Map.of(
+			"success", true,
+			"message", "임시 저장이 완료되었습니다.",
+			"pdfId", pdfId
+		));
+	}
+
 	/**
 	 * 임시 저장 데이터 조회 (Redis)
 	 */
@@ -250,32 +393,69 @@ public class PdfController {
 	 */
 	@Operation(
 		summary = "텍스트 추출 (JSON → TXT 다운로드)",
-		description = "파싱된 PDF의 JSON 데이터에서 텍스트를 추출하여 TXT 파일로 다운로드합니다. " +
+		description = "파싱된 PDF의 읽기 쉬운 TXT(TTS 텍스트)를 다운로드합니다. " +
 			"프론트엔드에서 '텍스트 추출' 버튼 클릭 시 호출합니다. " +
-			"JSON 구조에서 텍스트 내용을 추출하여 읽기 쉬운 TXT 형태로 변환합니다."
+			"TXT는 파싱/발행 시 미리 만들어 두며 Range 요청을 지원하므로, " +
+			"챕터 목록(GET /{pdfId}/tts-text/chapters)의 바이트 범위로 필요한 부분만 받을 수 있습니다."
 	)
 	@GetMapping("/{pdfId}/extract-text")
-	public ResponseEntity<ByteArrayResource> extractTextToFile(
+	public ResponseEntity<StreamingResponseBody> extractTextToFile(
 		@PathVariable Long pdfId,
+		@RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
 		@AuthenticationPrincipal UserPrincipal userPrincipal
 	) {
 		Long userId = (userPrincipal != null) ? userPrincipal.userId() : 1L;
 
-		// 서비스에서 텍스트 추출
-		String textContent = pdfService.extractTextFromJson(pdfId, userId);
-
-		// 바이트 배열로 변환
-		byte[] textBytes = textContent.getBytes(java.nio.charset.StandardCharsets.UTF_8);
-		ByteArrayResource resource = new ByteArrayResource(textBytes);
+		TtsTextService.TextStream text = ttsTextService.open(pdfService.getTtsTextKey(pdfId, userId), range);
 
 		// 파일명 생성 (pdfId 기반)
 		String filename = "extracted_text_" + pdfId + ".txt";
 
-		// 다운로드 응답 생성
-		return ResponseEntity.ok()
+		// 다운로드 응답 생성 (S3 본문을 그대로 전달)
+		ResponseEntity.BodyBuilder response = ResponseEntity.status(text.status())
 			.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-			.contentType(MediaType.TEXT_PLAIN)
-			.contentLength(textBytes.length)
-			.body(resource);
+			.header(HttpHeaders.ACCEPT_RANGES, "bytes")
+			.contentType(new MediaType(MediaType.TEXT_PLAIN, java.nio.charset.StandardCharsets.UTF_8))
+			.contentLength(text.contentLength())
+			.eTag(text.eTag());
+		if (text.contentRange() != null) {
+			response.header(HttpHeaders.CONTENT_RANGE, text.contentRange());
+		}
+		return response.body(text.toBody());
+	}
+
+	/**
+	 * 읽기용 TXT 챕터 목록 (바이트 범위)
+	 */
+	@Operation(
+		summary = "TTS 텍스트 챕터 목록",
+		description = "TXT 안에서 챕터별 바이트 범위(start 포함, end 미포함)를 조회합니다. " +
+			"Range: bytes={start}-{end-1} 헤더로 extract-text를 호출하면 해당 챕터만 받습니다."
+	)
+	@GetMapping("/{pdfId}/tts-text/chapters")
+	public ResponseEntity<Map<String, Object>> getTtsTextChapters(
+		@PathVariable Long pdfId,
+		@AuthenticationPrincipal UserPrincipal userPrincipal
+	) {
+		Long userId = (userPrincipal != null) ? userPrincipal.userId() : 1L;
+		return ResponseEntity.ok(ttsTextService.getIndex(pdfService.getTtsTextKey(pdfId, userId)));
+	}
+
+	/**
+	 * 목차 초안 조회 (PDF 북마크/글자 크기 기반, LLM 파싱 전에도 조회 가능)
+	 */
+	@Operation(
+		summary = "PDF 목차 초안 조회",
+		description = "업로드 직후 PDF 북마크 또는 글자 크기로 만든 섹션 트리(대/중/소단원)와 목차 목록을 반환합니다. " +
+			"LLM 파싱을 기다리지 않고 구조 편집을 시작할 수 있으며, 파싱이 끝나면 indexes는 파싱 결과로 바뀝니다. " +
+			"outlinedAt이 null이면 아직 목차 초안을 만드는 중입니다."
+	)
+	@GetMapping("/{pdfId}/outline")
+	public ResponseEntity<Map<String, Object>> getOutline(
+		@PathVariable Long pdfId,
+		@AuthenticationPrincipal UserPrincipal userPrincipal
+	) {
+		Long userId = (userPrincipal != null) ? userPrincipal.userId() : 1L;
+		return ResponseEntity.ok(pdfOutlineService.getOutline(pdfId, userId));
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,43 @@
+package A704.DODREAM.file.dto;
+
+import java.time.LocalDateTime;
+
+import A704.DODREAM.file.entity.DocumentJob;
+import A704.DODREAM.file.enums.JobStatus;
+import A704.DODREAM.file.enums.JobType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentJobResponse {
+	private Long jobId;
+	private Long pdfId;
+	private JobType type;
+	private JobStatus status;
+	private int attempts;
+	private int maxAttempts;
+	private String lastError;
+	private LocalDateTime nextRunAt;
+	private LocalDateTime createdAt;
+	private LocalDateTime finishedAt;
+
+	public static DocumentJobResponse from(DocumentJob job) {
+		return DocumentJobResponse.builder()
+			.jobId(job.getId())
+			.pdfId(job.getUploadedFileId())
+			.type(job.getType())
+			.status(job.getStatus())
+			.attempts(job.getAttempts())
+			.maxAttempts(job.getMaxAttempts())
+			.lastError(job.getLastError())
+			.nextRunAt(job.getNextRunAt())
+			.createdAt(job.getCreatedAt())
+			.finishedAt(job.getFinishedAt())
+			.build();
+	}
+}
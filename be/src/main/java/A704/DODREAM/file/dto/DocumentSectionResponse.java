@@ -1,5 +1,7 @@
 package A704.DODREAM.file.dto;
 
+import java.util.List;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -17,4 +19,5 @@ public class DocumentSectionResponse {
 	private Integer endPage;
 	private Integer fontSize;
 	private String summaryText;
+	private List<DocumentSectionResponse> children; // 하위 섹션 (목차 트리 응답용)
 }
\ No newline at end of file
@@ -0,0 +1,82 @@
+package A704.DODREAM.file.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * 자료 JSON 표준 모델 (schemaVersion 기준)
+ * <p>
+ * 파싱 결과(data / parsedData.data)와 발행 결과(chapters) 구조를 하나로 맞춘 형태.
+ * 기존 구조는 {@link A704.DODREAM.file.service.MaterialDocumentUpgrader}가 읽을 때 한 번 변환한다.
+ *
+ * @param schemaVersion: 모델 버전
+ * @param layout:        원본 구조 (파싱 결과 / 발행 결과)
+ * @param indexes:       목차
+ * @param chapters:      챕터 목록
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record MaterialDocument(
+	int schemaVersion,
+	Layout layout,
+	List<String> indexes,
+	List<Chapter> chapters
+) {
+
+	public static final int CURRENT_VERSION = 1;
+
+	public enum Layout {
+		PARSED,    // FastAPI 파싱 결과 (index / titles / s_titles / ss_titles / concept_checks)
+		PUBLISHED  // 선생님이 편집/발행한 결과 (id / title / type / content / qa)
+	}
+
+	public enum ChapterType {
+		@JsonProperty("content") CONTENT,
+		@JsonProperty("quiz") QUIZ
+	}
+
+	/**
+	 * 챕터
+	 *
+	 * @param id:            챕터 id (파싱 결과는 index)
+	 * @param title:         챕터 제목 (파싱 결과는 index_title)
+	 * @param type:          content / quiz (파싱 결과는 개념 Check가 있으면 quiz)
+	 * @param sections:      진행률 계산용 섹션 수 (퀴즈는 0)
+	 * @param content:       본문 (발행 결과)
+	 * @param headings:      제목 트리 (파싱 결과 titles → s_titles → ss_titles)
+	 * @param conceptChecks: 개념 Check 등 문항 묶음 (파싱 결과)
+	 * @param qa:            퀴즈 문항 (발행 결과)
+	 */
+	@JsonIgnoreProperties(ignoreUnknown = true)
+	public record Chapter(
+		String id,
+		String title,
+		ChapterType type,
+		int sections,
+		String content,
+		List<Heading> headings,
+		List<ConceptCheck> conceptChecks,
+		List<QuestionAnswer> qa
+	) {
+
+		public boolean isQuiz() {
+			return type == ChapterType.QUIZ;
+		}
+	}
+
+	/**
+	 * 제목 (하위 제목을 children으로 가짐)
+	 */
+	@JsonIgnoreProperties(ignoreUnknown = true)
+	public record Heading(String title, String contents, List<Heading> children) {
+	}
+
+	@JsonIgnoreProperties(ignoreUnknown = true)
+	public record ConceptCheck(String title, List<QuestionAnswer> questions) {
+	}
+
+	@JsonIgnoreProperties(ignoreUnknown = true)
+	public record QuestionAnswer(String question, String answer) {
+	}
+}
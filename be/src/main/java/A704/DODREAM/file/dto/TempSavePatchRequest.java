@@ -0,0 +1,23 @@
+package A704.DODREAM.file.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import A704.DODREAM.material.enums.LabelColor;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * 챕터 단위 임시 저장 요청 (바뀐 챕터만 전송)
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TempSavePatchRequest {
+	private String materialTitle;
+	private LabelColor labelColor;
+	private List<Map<String, Object>> chapters;  // 추가/수정된 챕터 (id 필수, 챕터 전체)
+	private List<String> removedChapterIds;      // 삭제된 챕터 id
+	private List<String> chapterOrder;           // 챕터 순서 (순서가 바뀐 경우만, 없으면 새 챕터는 뒤에 추가)
+}
@@ -0,0 +1,184 @@
+package A704.DODREAM.file.entity;
+
+import java.time.LocalDateTime;
+
+import A704.DODREAM.file.enums.JobStatus;
+import A704.DODREAM.file.enums.JobType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * 문서 처리 작업 (파싱/OCR, 발행 후처리)
+ * <p>
+ * 워커는 status/nextRunAt 기준으로 작업을 선점(SELECT ... FOR UPDATE SKIP LOCKED)하고
+ * leaseExpiresAt까지 리스를 갱신하며 처리한다. 리스가 만료된 RUNNING 작업은 다른 노드가 다시 가져간다.
+ */
+@Entity
+@Table(name = "document_jobs", indexes = {
+	@Index(name = "idx_job_claim", columnList = "status, next_run_at"),
+	@Index(name = "idx_job_file", columnList = "uploaded_file_id")
+}, uniqueConstraints = {
+	@UniqueConstraint(name = "uk_job_idempotency", columnNames = "idempotency_key")
+})
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor
+@Builder
+public class DocumentJob {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Enumerated(EnumType.STRING)
+	@Column(nullable = false, length = 20)
+	private JobType type;
+
+	@Enumerated(EnumType.STRING)
+	@Column(nullable = false, length = 20)
+	@Builder.Default
+	private JobStatus status = JobStatus.QUEUED;
+
+	@Column(name = "uploaded_file_id", nullable = false)
+	private Long uploadedFileId;
+
+	@Column(nullable = false)
+	private Long userId;
+
+	@Column(nullable = false)
+	@Builder.Default
+	private int attempts = 0;
+
+	@Column(nullable = false)
+	@Builder.Default
+	private int maxAttempts = 5;
+
+	@Column(name = "next_run_at", nullable = false)
+	private LocalDateTime nextRunAt;
+
+	@Column(length = 100)
+	private String leaseOwner; // 처리 중인 워커 (host:uuid)
+
+	private LocalDateTime leaseExpiresAt;
+
+	@Column(columnDefinition = "TEXT")
+	private String lastError;
+
+	@Column(nullable = false)
+	@Builder.Default
+	private boolean actAsUser = false; // 요청자 권한으로 FastAPI 호출 (토큰은 저장하지 않고 실행할 때마다 단기 토큰 발급)
+
+	@Column(columnDefinition = "TEXT")
+	private String payload; // 작업 파라미터 JSON (발행 후처리: materialId, jsonS3Key 등)
+
+	@Column(name = "idempotency_key", length = 200)
+	private String idempotencyKey; // 같은 키의 작업은 한 번만 등록 (발행 후처리는 발행 순번 단위)
+
+	@Column(nullable = false, updatable = false)
+	private LocalDateTime createdAt;
+
+	private LocalDateTime updatedAt;
+
+	private LocalDateTime startedAt;
+
+	private LocalDateTime finishedAt;
+
+	// 비즈니스 메서드
+	public void claim(String owner, LocalDateTime leaseExpiresAt) {
+		this.status = JobStatus.RUNNING;
+		this.leaseOwner = owner;
+		this.leaseExpiresAt = leaseExpiresAt;
+		this.attempts++;
+		if (this.startedAt == null) {
+			this.startedAt = LocalDateTime.now();
+		}
+	}
+
+	public void extendLease(LocalDateTime leaseExpiresAt) {
+		this.leaseExpiresAt = leaseExpiresAt;
+	}
+
+	public boolean isLeasedBy(String owner) {
+		return this.status == JobStatus.RUNNING && owner.equals(this.leaseOwner);
+	}
+
+	public void succeed() {
+		this.status = JobStatus.SUCCEEDED;
+		this.finishedAt = LocalDateTime.now();
+		this.lastError = null;
+		releaseLease();
+	}
+
+	/**
+	 * 실패 처리 - 재시도 가능하면 nextRunAt 이후 다시 대기열로, 아니면 최종 실패
+	 */
+	public void fail(String error, LocalDateTime nextRunAt) {
+		this.lastError = error;
+		if (this.attempts >= this.maxAttempts) {
+			this.status = JobStatus.FAILED;
+			this.finishedAt = LocalDateTime.now();
+		} else {
+			this.status = JobStatus.QUEUED;
+			this.nextRunAt = nextRunAt;
+		}
+		releaseLease();
+	}
+
+	/**
+	 * 지금 처리할 수 없어 뒤로 미룸 (시도 횟수에 포함하지 않음)
+	 */
+	public void defer(LocalDateTime nextRunAt) {
+		this.status = JobStatus.QUEUED;
+		this.nextRunAt = nextRunAt;
+		this.attempts = Math.max(0, this.attempts - 1);
+		releaseLease();
+	}
+
+	/**
+	 * 실행 중 진행 상태 기록 (예: 제출한 외부 작업 ID, 다음 실행에서 이어서 확인)
+	 */
+	public void updatePayload(String payload) {
+		this.payload = payload;
+	}
+
+	/**
+	 * 워커가 죽어 리스가 만료된 작업을 회수할 수 있는지 (재시도 횟수가 남았는지)
+	 */
+	public boolean hasAttemptsLeft() {
+		return this.attempts < this.maxAttempts;
+	}
+
+	private void releaseLease() {
+		this.leaseOwner = null;
+		this.leaseExpiresAt = null;
+	}
+
+	@PrePersist
+	protected void onCreate() {
+		this.createdAt = LocalDateTime.now();
+		this.updatedAt = LocalDateTime.now();
+		if (this.nextRunAt == null) {
+			this.nextRunAt = this.createdAt;
+		}
+	}
+
+	@PreUpdate
+	protected void onUpdate() {
+		this.updatedAt = LocalDateTime.now();
+	}
+}
@@ -1,7 +1,10 @@
 package A704.DODREAM.file.entity;
 
+import A704.DODREAM.file.enums.SectionSource;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -41,7 +44,7 @@ public class DocumentSection {
 	private Integer startPage; // 시작 페이지
 
 	@Column(nullable = false)
-	private Integer endPage; // 끝 페이지 (현재는 같은 페이지)
+	private Integer endPage; // 끝 페이지 (같은 레벨 이상의 다음 섹션 직전)
 
 	private Integer fontSize; // 감지된 글자 크기
 
@@ -51,4 +54,16 @@ public class DocumentSection {
 	@Column(nullable = false)
 	private Integer sectionOrder; // 섹션 순서
 
+	@Enumerated(EnumType.STRING)
+	@Column(length = 20)
+	private SectionSource source; // 만든 경로 (null이면 이전에 OCR 제목 감지로 만든 섹션)
+
+	// 비즈니스 메서드
+	public void updateEndPage(Integer endPage) {
+		this.endPage = endPage;
+	}
+
+	public void updateSectionOrder(Integer sectionOrder) {
+		this.sectionOrder = sectionOrder;
+	}
 }
\ No newline at end of file
@@ -11,6 +11,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
+import jakarta.persistence.Lob;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
@@ -42,6 +43,13 @@ public class OcrPage {
 	@Column(columnDefinition = "TEXT")
 	private String fullText; // 페이지 전체 텍스트
 
+	// 단어 좌표/신뢰도/순서/텍스트 패킹 (PackedWords). null이면 단어가 ocr_words 행으로 저장된 페이지
+	@Lob
+	@Column(columnDefinition = "MEDIUMBLOB")
+	private byte[] packedWords;
+
+	private Integer wordCount;
+
 	@OneToMany(mappedBy = "ocrPage", cascade = CascadeType.ALL, orphanRemoval = true)
 	@Builder.Default
 	private List<OcrWord> words = new ArrayList<>();
@@ -56,7 +64,16 @@ public class OcrPage {
 		word.setOcrPage(this);
 	}
 
+	public void clearWords() {
+		this.words.clear();
+	}
+
 	public void setFullText(String fullText) {
 		this.fullText = fullText;
 	}
+
+	public void setPackedWords(byte[] packedWords, int wordCount) {
+		this.packedWords = packedWords;
+		this.wordCount = wordCount;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package A704.DODREAM.file.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * 내용 해시(SHA-256) 단위 PDF 원본 및 공용 파싱 결과
+ * <p>
+ * 같은 PDF를 여러 선생님이 올려도 S3 원본과 FastAPI 파싱 결과는 하나만 유지한다.
+ * 파싱 결과(parsedJsonS3Key)는 수정되지 않는 기준본이며, 각 UploadedFile은 이를 복사한 자기 JSON을 편집/발행한다.
+ */
+@Entity
+@Table(name = "pdf_contents", indexes = {
+	@Index(name = "idx_pdf_content_s3_key", columnList = "s3_key")
+})
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor
+@Builder
+public class PdfContent {
+
+	@Id
+	@Column(length = 64)
+	private String contentHash;
+
+	@Column(nullable = false)
+	private String s3Key;
+
+	private Long fileSize;
+
+	private String parsedJsonS3Key; // 공용 파싱 결과 (기준본)
+
+	@Column(columnDefinition = "TEXT")
+	private String indexes;
+
+	private LocalDateTime parsedAt;
+
+	private Long parsingJobId; // 현재 파싱 중인 작업 (동일 해시 파싱 합치기용)
+
+	@Column(nullable = false, updatable = false)
+	private LocalDateTime createdAt;
+
+	public boolean isParsed() {
+		return parsedJsonS3Key != null;
+	}
+
+	public void startParsing(Long jobId) {
+		this.parsingJobId = jobId;
+	}
+
+	public void completeParsing(String parsedJsonS3Key, String indexes) {
+		this.parsedJsonS3Key = parsedJsonS3Key;
+		this.indexes = indexes;
+		this.parsedAt = LocalDateTime.now();
+		this.parsingJobId = null;
+	}
+
+	public void releaseParsing(Long jobId) {
+		if (jobId != null && jobId.equals(this.parsingJobId)) {
+			this.parsingJobId = null;
+		}
+	}
+
+	@PrePersist
+	protected void onCreate() {
+		this.createdAt = LocalDateTime.now();
+	}
+}
@@ -0,0 +1,62 @@
+package A704.DODREAM.file.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * 삭제 예정 S3 객체
+ * <p>
+ * 자료 삭제 트랜잭션에서는 이 행만 남기고, 실제 삭제는 {@code S3GarbageCollector}가 모아서
+ * DeleteObjects(최대 1000개) 요청으로 처리한다. 실패한 키는 nextAttemptAt 이후 다시 시도한다.
+ * 행은 S3GarbageCollector가 INSERT IGNORE로만 만든다 (같은 키는 한 행).
+ */
+@Entity
+@Table(name = "s3_tombstones", indexes = {
+	@Index(name = "idx_tombstone_due", columnList = "next_attempt_at")
+}, uniqueConstraints = {
+	@UniqueConstraint(name = "uk_tombstone_key", columnNames = "s3_key")
+})
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class S3Tombstone {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "s3_key", nullable = false, length = 512)
+	private String s3Key;
+
+	@Column(nullable = false, length = 30)
+	private String reason; // material-deleted, orphan 등
+
+	@Column(nullable = false)
+	private int attempts;
+
+	@Column(name = "next_attempt_at", nullable = false)
+	private LocalDateTime nextAttemptAt;
+
+	@Column(columnDefinition = "TEXT")
+	private String lastError;
+
+	@Column(nullable = false, updatable = false)
+	private LocalDateTime createdAt;
+
+	// 비즈니스 메서드
+	public void fail(String error, LocalDateTime nextAttemptAt) {
+		this.attempts++;
+		this.lastError = error;
+		this.nextAttemptAt = nextAttemptAt;
+	}
+}
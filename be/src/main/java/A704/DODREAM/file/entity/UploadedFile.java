@@ -12,6 +12,7 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
@@ -23,7 +24,9 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "uploaded_files")
+@Table(name = "uploaded_files", indexes = {
+	@Index(name = "idx_uploaded_file_content_hash", columnList = "content_hash")
+})
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @AllArgsConstructor
@@ -51,6 +54,9 @@ public class UploadedFile {
 
 	private String s3Bucket;
 
+	@Column(name = "content_hash", length = 64)
+	private String contentHash; // SHA-256 (pdf_contents 참조, 중복 업로드 판별)
+
 	private String contentType;
 
 	@Enumerated(EnumType.STRING)
@@ -79,6 +85,8 @@ public class UploadedFile {
 
 	private LocalDateTime parsedAt; // 파싱 완료 시각
 
+	private LocalDateTime outlinedAt; // PDF 북마크/글자 크기 목차 초안 생성 시각
+
 	@Column(columnDefinition = "TEXT")
 	private String indexes; // 목차 (검색용)
 
@@ -86,6 +94,10 @@ public class UploadedFile {
 
 	private String questionJsonS3Key; // Quiz JSON의 S3 경로 (type: "quiz"인 데이터)
 
+	private String ttsTextS3Key; // 읽기용 TXT(TTS 텍스트)의 S3 경로 (작업 중인 JSON 기준, 파싱/발행 시 생성)
+
+	private String conceptCheckItemsS3Key; // 개념 Check 항목의 S3 경로 (작업 중인 JSON 기준, 파싱/발행 시 생성)
+
 	// 비즈니스 메서드
 	public void updateOcrStatus(OcrStatus status) {
 		this.ocrStatus = status;
@@ -119,6 +131,10 @@ public class UploadedFile {
 		this.indexes = indexes;
 	}
 
+	public void setConceptCheckItemsS3Key(String conceptCheckItemsS3Key) {
+		this.conceptCheckItemsS3Key = conceptCheckItemsS3Key;
+	}
+
 	public void setConceptCheckJsonS3Key(String conceptCheckJsonS3Key) {
 		this.conceptCheckJsonS3Key = conceptCheckJsonS3Key;
 	}
@@ -0,0 +1,12 @@
+package A704.DODREAM.file.enums;
+
+public enum JobStatus {
+	QUEUED,       // 대기 중 (재시도 대기 포함)
+	RUNNING,      // 워커가 리스를 잡고 처리 중
+	SUCCEEDED,    // 완료
+	FAILED;       // 최대 재시도 초과로 최종 실패
+
+	public boolean isTerminal() {
+		return this == SUCCEEDED || this == FAILED;
+	}
+}
@@ -0,0 +1,27 @@
+package A704.DODREAM.file.enums;
+
+public enum JobType {
+	PDF_PARSE(false),         // FastAPI 파싱 + JSON S3 저장 + 초기 임베딩
+	OCR_S3(false),            // S3(CloudFront) PDF OCR 처리
+	OCR_LOCAL(false),         // 로컬 파일 OCR 처리
+	PUBLISH_JSON(true),       // 발행 후처리: 발행한 JSON을 작업 중인 JSON 키에 반영 (발행 순번 순서)
+	PUBLISH_SHARDS(true),     // 발행 후처리: 챕터 분할 저장 (manifest + 챕터 객체)
+	PUBLISH_QUIZ_JSON(true),  // 발행 후처리: quiz 챕터만 별도 JSON 저장
+	EMBEDDING_CREATE(true),   // 발행 후처리: FastAPI 임베딩 생성 요청
+	TTS_TEXT(true),           // 파싱 후처리: 읽기용 TXT(TTS 텍스트) 생성
+	CONCEPT_CHECK(true),      // 파싱 후처리: 개념 Check 항목 저장
+	PDF_OUTLINE(true);        // 업로드 후처리: PDF 북마크/글자 크기로 목차 초안 생성
+
+	private final boolean outbox;
+
+	JobType(boolean outbox) {
+		this.outbox = outbox;
+	}
+
+	/**
+	 * 발행 트랜잭션에서 함께 등록되는 후처리 작업 여부 (실패해도 파일 상태를 FAILED로 바꾸지 않음)
+	 */
+	public boolean isOutbox() {
+		return outbox;
+	}
+}
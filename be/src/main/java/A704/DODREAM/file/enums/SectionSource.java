@@ -0,0 +1,7 @@
+package A704.DODREAM.file.enums;
+
+public enum SectionSource {
+	OUTLINE,  // PDF 북마크/글자 크기로 만든 목차 초안 (업로드 직후)
+	OCR,      // OCR 단어 배치로 감지한 제목
+	MANUAL    // 선생님이 편집한 섹션 (자동 경로가 지우거나 바꾸지 않음)
+}
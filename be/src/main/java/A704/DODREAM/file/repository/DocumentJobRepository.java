@@ -0,0 +1,60 @@
+package A704.DODREAM.file.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import A704.DODREAM.file.entity.DocumentJob;
+import A704.DODREAM.file.enums.JobStatus;
+import A704.DODREAM.file.enums.JobType;
+
+@Repository
+public interface DocumentJobRepository extends JpaRepository<DocumentJob, Long> {
+
+	/**
+	 * 실행 가능한 작업 선점
+	 * - 대기 중이고 실행 시각이 지난 작업
+	 * - 또는 RUNNING이지만 리스가 만료된 작업 (워커가 죽은 경우)
+	 * SKIP LOCKED로 다른 노드가 잡고 있는 행은 건너뛴다. (MySQL 8+)
+	 */
+	@Query(value = """
+		SELECT * FROM document_jobs
+		WHERE (status = 'QUEUED' AND next_run_at <= :now)
+		   OR (status = 'RUNNING' AND lease_expires_at < :now)
+		ORDER BY next_run_at
+		LIMIT :limit
+		FOR UPDATE SKIP LOCKED
+		""", nativeQuery = true)
+	List<DocumentJob> findClaimable(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+	// 내 워커가 리스를 잡고 있는 작업 (리스 갱신용)
+	List<DocumentJob> findByLeaseOwnerAndStatus(String leaseOwner, JobStatus status);
+
+	Optional<DocumentJob> findTopByUploadedFileIdAndTypeOrderByIdDesc(Long uploadedFileId, JobType type);
+
+	Optional<DocumentJob> findByIdempotencyKey(String idempotencyKey);
+
+	// 같은 파일의 먼저 등록된 미완료 작업 (같은 대상의 외부 작업이 겹치지 않도록)
+	List<DocumentJob> findByUploadedFileIdAndTypeAndStatusInAndIdLessThan(Long uploadedFileId, JobType type,
+		Collection<JobStatus> statuses, Long id);
+
+	// 같은 idempotency_key의 작업이 이미 있으면 무시 (MySQL), 동시 등록도 유니크 키 위반 없이 한 행만 남는다
+	@Modifying
+	@Query(value = """
+		INSERT IGNORE INTO document_jobs (type, status, uploaded_file_id, user_id, attempts, max_attempts,
+			next_run_at, act_as_user, payload, idempotency_key, created_at, updated_at)
+		VALUES (:type, 'QUEUED', :uploadedFileId, :userId, 0, :maxAttempts,
+			:now, :actAsUser, :payload, :idempotencyKey, :now, :now)
+		""", nativeQuery = true)
+	int insertIfAbsent(@Param("type") String type, @Param("uploadedFileId") Long uploadedFileId,
+		@Param("userId") Long userId, @Param("maxAttempts") int maxAttempts, @Param("actAsUser") boolean actAsUser,
+		@Param("payload") String payload, @Param("idempotencyKey") String idempotencyKey,
+		@Param("now") LocalDateTime now);
+}
@@ -1,11 +1,16 @@
 package A704.DODREAM.file.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import A704.DODREAM.file.entity.DocumentSection;
+import A704.DODREAM.file.enums.SectionSource;
 
 @Repository
 public interface DocumentSectionRepository extends JpaRepository<DocumentSection, Long> {
@@ -15,4 +20,25 @@ public interface DocumentSectionRepository extends JpaRepository<DocumentSection
 	List<DocumentSection> findByUploadedFileIdAndLevel(Long uploadedFileId, Integer level);
 
 	void deleteByUploadedFileId(Long uploadedFileId);
+
+	// 자동으로 만든 섹션 교체용 (source가 null인 이전 행은 OCR 감지 결과로 봄)
+	@Modifying
+	@Query("""
+		delete from DocumentSection s
+		where s.uploadedFile.id = :uploadedFileId and (s.source is null or s.source in :sources)
+		""")
+	int deleteBySources(@Param("uploadedFileId") Long uploadedFileId,
+		@Param("sources") Collection<SectionSource> sources);
+
+	// 목차 초안이 아닌 섹션(OCR 감지, 편집)이 있는지
+	@Query("""
+		select count(s) > 0 from DocumentSection s
+		where s.uploadedFile.id = :uploadedFileId
+		  and (s.source is null or s.source <> A704.DODREAM.file.enums.SectionSource.OUTLINE)
+		""")
+	boolean existsNonOutline(@Param("uploadedFileId") Long uploadedFileId);
+
+	// 남아 있는 섹션 뒤에 이어 붙일 순서 (없으면 -1)
+	@Query("select coalesce(max(s.sectionOrder), -1) from DocumentSection s where s.uploadedFile.id = :uploadedFileId")
+	int findMaxSectionOrder(@Param("uploadedFileId") Long uploadedFileId);
 }
\ No newline at end of file
@@ -3,6 +3,8 @@ package A704.DODREAM.file.repository;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import A704.DODREAM.file.entity.OcrPage;
@@ -16,4 +18,28 @@ public interface OcrPageRepository extends JpaRepository<OcrPage, Long> {
 
 	// 파일로 페이지 목록 조회
 	List<OcrPage> findByUploadedFileOrderByPageNumberAsc(UploadedFile uploadedFile);
+
+	// 단어 엔티티 없이 페이지 번호 + 패킹된 단어만 조회 (페이지 순서대로)
+	@Query("SELECT p.id AS id, p.pageNumber AS pageNumber, p.packedWords AS packedWords "
+		+ "FROM OcrPage p WHERE p.uploadedFile.id = :fileId ORDER BY p.pageNumber")
+	List<PackedPage> findPackedByUploadedFileId(@Param("fileId") Long fileId);
+
+	// 페이지 번호 + 전체 텍스트만 조회 (페이지 순서대로)
+	@Query("SELECT p.pageNumber AS pageNumber, p.fullText AS fullText "
+		+ "FROM OcrPage p WHERE p.uploadedFile.id = :fileId ORDER BY p.pageNumber")
+	List<PageText> findTextByUploadedFileId(@Param("fileId") Long fileId);
+
+	interface PackedPage {
+		Long getId();
+
+		Integer getPageNumber();
+
+		byte[] getPackedWords();
+	}
+
+	interface PageText {
+		Integer getPageNumber();
+
+		String getFullText();
+	}
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package A704.DODREAM.file.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import A704.DODREAM.file.entity.PdfContent;
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface PdfContentRepository extends JpaRepository<PdfContent, String> {
+
+	// 파싱 선점 판단용 행 잠금
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select c from PdfContent c where c.contentHash = :contentHash")
+	Optional<PdfContent> findForUpdate(@Param("contentHash") String contentHash);
+
+	// 같은 해시가 동시에 업로드돼도 한 행만 생성 (MySQL)
+	@Modifying
+	@Query(value = """
+		INSERT IGNORE INTO pdf_contents (content_hash, s3_key, file_size, created_at)
+		VALUES (:contentHash, :s3Key, :fileSize, :createdAt)
+		""", nativeQuery = true)
+	int insertIfAbsent(@Param("contentHash") String contentHash, @Param("s3Key") String s3Key,
+		@Param("fileSize") long fileSize, @Param("createdAt") LocalDateTime createdAt);
+
+	// 같은 원본 키를 가리키는 공용 내용 (원본 삭제 시 함께 정리, 같은 해시 재업로드와 겹치지 않도록 잠금)
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select c from PdfContent c where c.s3Key in :keys")
+	List<PdfContent> findByS3KeyInForUpdate(@Param("keys") Collection<String> keys);
+
+	@Query("select c.s3Key from PdfContent c where c.s3Key in :keys")
+	List<String> findS3KeysIn(@Param("keys") Collection<String> keys);
+}
@@ -0,0 +1,48 @@
+package A704.DODREAM.file.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import A704.DODREAM.file.entity.S3Tombstone;
+
+@Repository
+public interface S3TombstoneRepository extends JpaRepository<S3Tombstone, Long> {
+
+	/**
+	 * 삭제할 차례가 된 키 선점 (다른 노드가 잡고 있는 행은 건너뜀, MySQL 8+)
+	 */
+	@Query(value = """
+		SELECT * FROM s3_tombstones
+		WHERE next_attempt_at <= :now
+		ORDER BY next_attempt_at
+		LIMIT :limit
+		FOR UPDATE SKIP LOCKED
+		""", nativeQuery = true)
+	List<S3Tombstone> findDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+	// 같은 키가 여러 번 삭제 요청돼도 한 행만 (MySQL), runAt 이후에 삭제
+	@Modifying
+	@Query(value = """
+		INSERT IGNORE INTO s3_tombstones (s3_key, reason, attempts, next_attempt_at, created_at)
+		VALUES (:s3Key, :reason, 0, :runAt, :now)
+		""", nativeQuery = true)
+	int insertIfAbsent(@Param("s3Key") String s3Key, @Param("reason") String reason,
+		@Param("runAt") LocalDateTime runAt, @Param("now") LocalDateTime now);
+
+	// 삭제 예약 취소 (정리 대상이던 내용 해시 객체를 새 버전이 다시 쓰는 경우)
+	@Transactional
+	@Modifying
+	@Query("delete from S3Tombstone t where t.s3Key in :keys")
+	int deleteByS3KeyIn(@Param("keys") Collection<String> keys);
+
+	@Query("select t.s3Key from S3Tombstone t where t.s3Key in :keys")
+	List<String> findS3KeysIn(@Param("keys") Collection<String> keys);
+}
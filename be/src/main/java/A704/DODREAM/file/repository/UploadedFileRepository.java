@@ -1,16 +1,30 @@
 package A704.DODREAM.file.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import A704.DODREAM.file.entity.OcrStatus;
 import A704.DODREAM.file.entity.UploadedFile;
+import jakarta.persistence.LockModeType;
 
 @Repository
 public interface UploadedFileRepository extends JpaRepository<UploadedFile, Long> {
 
+	// 파일 단위 작업 직렬화용 행 잠금 (목차 초안/OCR 섹션 교체)
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select f from UploadedFile f where f.id = :id")
+	Optional<UploadedFile> findForUpdate(@Param("id") Long id);
+
 	// 업로더 ID로 파일 목록 조회
 	List<UploadedFile> findByUploaderId(Long uploaderId);
 
@@ -19,4 +33,70 @@ public interface UploadedFileRepository extends JpaRepository<UploadedFile, Long
 
 	// 업로더 ID와 상태로 파일 목록 조회
 	List<UploadedFile> findByUploaderIdAndOcrStatus(Long uploaderId, OcrStatus status);
-}
\ No newline at end of file
+
+	// 같은 내용(해시)의 파일 수 (원본 공유 여부 확인)
+	long countByContentHash(String contentHash);
+
+	/**
+	 * 아직 쓰이는 원본 키 (자료가 없거나 삭제되지 않은 자료가 있는 파일이 가리키는 키)
+	 * 같은 내용의 원본은 여러 파일이 공유하므로 실제 삭제 직전에 다시 센다.
+	 */
+	@Query("""
+		select distinct f.s3Key from UploadedFile f
+		where f.s3Key in :keys
+		  and (not exists (select m.id from Material m where m.uploadedFile = f)
+		       or exists (select m.id from Material m where m.uploadedFile = f and m.deletedAt is null))
+		""")
+	List<String> findLiveS3Keys(@Param("keys") Collection<String> keys);
+
+	/**
+	 * 파일 행이 가리키는 원본 키 (presigned URL만 받고 업로드가 끝나지 않은 PENDING 행은 cutoff 이전이면 제외)
+	 */
+	@Query("""
+		select distinct f.s3Key from UploadedFile f
+		where f.s3Key in :keys
+		  and not (f.ocrStatus = A704.DODREAM.file.entity.OcrStatus.PENDING
+		           and f.jsonS3Key is null and f.createdAt < :cutoff)
+		""")
+	List<String> findReferencedS3Keys(@Param("keys") Collection<String> keys, @Param("cutoff") LocalDateTime cutoff);
+
+	// 업로드가 끝나지 않은 채 원본이 정리된 파일 행은 실패로 표시
+	@Transactional
+	@Modifying
+	@Query("""
+		update UploadedFile f set f.ocrStatus = A704.DODREAM.file.entity.OcrStatus.FAILED,
+		  f.errorMessage = :errorMessage, f.updatedAt = CURRENT_TIMESTAMP
+		where f.s3Key in :keys and f.ocrStatus = A704.DODREAM.file.entity.OcrStatus.PENDING
+		  and f.jsonS3Key is null and f.createdAt < :cutoff
+		""")
+	int markAbandoned(@Param("keys") Collection<String> keys, @Param("cutoff") LocalDateTime cutoff,
+		@Param("errorMessage") String errorMessage);
+
+	// 발행 후처리 작업 결과 반영 (같은 파일의 다른 작업과 엔티티 전체를 덮어쓰지 않도록 컬럼 단위 갱신)
+	@Transactional
+	@Modifying
+	@Query("update UploadedFile f set f.questionJsonS3Key = :questionJsonS3Key where f.id = :id")
+	int updateQuestionJsonS3Key(@Param("id") Long id, @Param("questionJsonS3Key") String questionJsonS3Key);
+
+	@Transactional
+	@Modifying
+	@Query("update UploadedFile f set f.ttsTextS3Key = :ttsTextS3Key where f.id = :id")
+	int updateTtsTextS3Key(@Param("id") Long id, @Param("ttsTextS3Key") String ttsTextS3Key);
+
+	@Transactional
+	@Modifying
+	@Query("update UploadedFile f set f.conceptCheckItemsS3Key = :conceptCheckItemsS3Key where f.id = :id")
+	int updateConceptCheckItemsS3Key(@Param("id") Long id,
+		@Param("conceptCheckItemsS3Key") String conceptCheckItemsS3Key);
+
+	// 업로드 후처리: 목차 초안 (LLM 파싱 결과가 아직 없을 때만 목차를 채우고, 파싱이 끝나면 파싱 결과로 덮어씀)
+	@Transactional
+	@Modifying
+	@Query("update UploadedFile f set f.outlinedAt = :outlinedAt where f.id = :id")
+	int updateOutlinedAt(@Param("id") Long id, @Param("outlinedAt") LocalDateTime outlinedAt);
+
+	@Transactional
+	@Modifying
+	@Query("update UploadedFile f set f.indexes = :indexes where f.id = :id and f.parsedAt is null")
+	int updateDraftIndexes(@Param("id") Long id, @Param("indexes") String indexes);
+}
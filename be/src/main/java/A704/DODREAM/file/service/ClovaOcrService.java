@@ -6,7 +6,9 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.client.MultipartBodyBuilder;
@@ -18,6 +20,7 @@ import A704.DODREAM.file.dto.ClovaOcrResponse;
 import A704.DODREAM.file.dto.PageOcrResult;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
 
 @Slf4j
 @Service
@@ -39,32 +42,52 @@ public class ClovaOcrService {
 		log.info("Processing OCR for page {}: {}", pageNumber, imageFile.getName());
 
 		try {
+			return recognize(new FileSystemResource(imageFile), pageNumber).block();
+		} catch (Exception e) {
+			log.error("OCR processing failed for page {}: {}", pageNumber, e.getMessage(), e);
+			throw new RuntimeException("OCR processing failed: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * 메모리의 이미지(PNG)를 Clova OCR로 전송 (논블로킹)
+	 */
+	public Mono<PageOcrResult> recognize(byte[] image, int pageNumber) {
+		// multipart 파일 파트에는 파일명이 있어야 한다
+		return recognize(new ByteArrayResource(image) {
+			@Override
+			public String getFilename() {
+				return "page_" + pageNumber + ".png";
+			}
+		}, pageNumber);
+	}
+
+	/**
+	 * 이미지를 Clova OCR로 전송 (논블로킹, 재시도·속도 제한은 호출자가 처리)
+	 * HTTP 오류는 WebClientResponseException 그대로 전달한다.
+	 */
+	public Mono<PageOcrResult> recognize(Resource image, int pageNumber) {
+		return Mono.defer(() -> {
 			// Multipart 요청 생성
 			MultipartBodyBuilder builder = new MultipartBodyBuilder();
-			builder.part("file", new FileSystemResource(imageFile));
+			builder.part("file", image);
 			builder.part("message", createRequestMessage());
 
 			// API 호출
-			ClovaOcrResponse response = webClient.post()
+			return webClient.post()
 				.uri(apiUrl)
 				.header(HttpHeaders.CONTENT_TYPE, MediaType.MULTIPART_FORM_DATA_VALUE)
 				.header("X-OCR-SECRET", secretKey)
 				.body(BodyInserters.fromMultipartData(builder.build()))
 				.retrieve()
-				.bodyToMono(ClovaOcrResponse.class)
-				.block();
-
-			if (response == null || response.getImages() == null || response.getImages().isEmpty()) {
-				throw new RuntimeException("Empty OCR response");
+				.bodyToMono(ClovaOcrResponse.class);
+		}).map(response -> {
+			if (response.getImages() == null || response.getImages().isEmpty()) {
+				throw new IllegalStateException("Empty OCR response");
 			}
-
 			// OCR 결과 파싱
 			return parseOcrResponse(response, pageNumber);
-
-		} catch (Exception e) {
-			log.error("OCR processing failed for page {}: {}", pageNumber, e.getMessage(), e);
-			throw new RuntimeException("OCR processing failed: " + e.getMessage(), e);
-		}
+		}).switchIfEmpty(Mono.error(() -> new IllegalStateException("Empty OCR response")));
 	}
 
 	/**
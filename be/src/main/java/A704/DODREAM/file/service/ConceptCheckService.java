@@ -0,0 +1,155 @@
+package A704.DODREAM.file.service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import A704.DODREAM.file.dto.MaterialDocument;
+import A704.DODREAM.file.entity.UploadedFile;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+/**
+ * 개념 Check 항목 산출물
+ * <p>
+ * 파싱/발행 시점에 자료 JSON에서 개념 Check 항목을 한 번 골라 S3에 저장하고,
+ * 조회는 저장된 객체 하나만 읽는다 (ParsedJsonStore 캐시 → S3, 재파싱 없음).
+ * concept-check-json/{fileId}/items-{sha256}.json: {"data": [{index, index_title, questions}]}
+ * <p>
+ * 내용 해시 키라 한 번 쓰면 바뀌지 않는다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ConceptCheckService {
+
+	private static final String ITEMS_PREFIX = "concept-check-json/";
+
+	private final S3Client s3Client;
+	private final StoredJsonCodec storedJsonCodec;
+	private final ParsedJsonStore parsedJsonStore;
+
+	@Value("${aws.s3.bucket}")
+	private String bucketName;
+
+	/**
+	 * 자료 JSON으로 개념 Check 항목 생성 후 저장
+	 *
+	 * @return 항목 객체 S3 키
+	 */
+	public String generate(UploadedFile uploadedFile, MaterialDocument document) {
+		Map<String, Object> items = Map.of("data", filter(document));
+		StoredJsonCodec.Encoded encoded = storedJsonCodec.encode(items, StoredJsonCodec.Format.SMILE_GZIP);
+		String itemsKey = ITEMS_PREFIX + uploadedFile.getId() + "/items-" + sha256(encoded.body()) + ".json";
+
+		s3Client.putObject(PutObjectRequest.builder()
+			.bucket(bucketName)
+			.key(itemsKey)
+			.contentType(encoded.contentType())
+			.contentEncoding(encoded.contentEncoding())
+			.metadata(encoded.metadata(Map.of()))
+			.build(), RequestBody.fromBytes(encoded.body()));
+
+		log.info("✅ 개념 Check 항목 저장 완료: fileId={}, key={}", uploadedFile.getId(), itemsKey);
+		return itemsKey;
+	}
+
+	/**
+	 * 저장된 개념 Check 항목 (캐시 → S3)
+	 */
+	@SuppressWarnings("unchecked")
+	public List<Map<String, Object>> get(String itemsKey) {
+		Object data = parsedJsonStore.get(itemsKey).get("data");
+		return data instanceof List<?> list ? (List<Map<String, Object>>)list : List.of();
+	}
+
+	/**
+	 * 개념 Check 항목을 index별로 그룹화
+	 * - 파싱된 자료: concept_checks 중 title == "개념 Check"인 문항 (답의 "1. " 번호 제거)
+	 * - 발행된 자료: type == "quiz"인 챕터의 qa
+	 * <p>
+	 * 반환 형식:
+	 * [
+	 * {
+	 * "index": "01",
+	 * "index_title": "사회·문화 현상의 이해",
+	 * "questions": [
+	 * {"question": "...", "answer": "..."},
+	 * {"question": "...", "answer": "..."}
+	 * ]
+	 * }
+	 * ]
+	 * 챕터가 없으면 빈 목록
+	 */
+	public List<Map<String, Object>> filter(MaterialDocument document) {
+		// 챕터가 없는 자료(파싱 결과가 비었거나 다른 구조)는 항목 없음 - 발행 후처리 작업이 계속 실패하지 않도록
+		if (document.chapters().isEmpty()) {
+			log.info("ℹ️ 챕터가 없는 자료라 개념 Check 항목이 없습니다.");
+			return List.of();
+		}
+
+		boolean published = document.layout() == MaterialDocument.Layout.PUBLISHED;
+		List<Map<String, Object>> groupedConceptCheckItems = new ArrayList<>();
+
+		for (MaterialDocument.Chapter chapter : document.chapters()) {
+			List<Map<String, Object>> questions = new ArrayList<>();
+
+			if (published) {
+				if (chapter.isQuiz()) {
+					chapter.qa().forEach(qa -> questions.add(toQuestion(qa, false)));
+				}
+			} else {
+				for (MaterialDocument.ConceptCheck conceptCheck : chapter.conceptChecks()) {
+					if ("개념 Check".equals(conceptCheck.title())) {
+						conceptCheck.questions().forEach(qa -> questions.add(toQuestion(qa, true)));
+					}
+				}
+			}
+
+			// questions가 있는 경우에만 결과에 추가
+			if (!questions.isEmpty()) {
+				Map<String, Object> groupedItem = new HashMap<>();
+				groupedItem.put("index", chapter.id() != null ? chapter.id() : "");
+				groupedItem.put("index_title", chapter.title() != null ? chapter.title() : "");
+				groupedItem.put("questions", questions);
+				groupedConceptCheckItems.add(groupedItem);
+			}
+		}
+
+		log.info("✅ 총 {} 개의 개념 Check 그룹 추출 완료", groupedConceptCheckItems.size());
+		return groupedConceptCheckItems;
+	}
+
+	// ===== 내부 =====
+
+	private Map<String, Object> toQuestion(MaterialDocument.QuestionAnswer qa, boolean stripNumbering) {
+		String answer = qa.answer() != null ? qa.answer() : "";
+		if (stripNumbering && !answer.isEmpty()) {
+			// "1. ", "2. ", "3. " 등의 패턴 제거
+			answer = answer.replaceAll("^\\d+\\.\\s*", "");
+		}
+
+		Map<String, Object> question = new HashMap<>();
+		question.put("question", qa.question() != null ? qa.question() : "");
+		question.put("answer", answer);
+		return question;
+	}
+
+	private static String sha256(byte[] body) {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,299 @@
+package A704.DODREAM.file.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import A704.DODREAM.auth.util.JwtUtil;
+import A704.DODREAM.file.entity.DocumentJob;
+import A704.DODREAM.file.enums.JobStatus;
+import A704.DODREAM.file.enums.JobType;
+import A704.DODREAM.file.repository.DocumentJobRepository;
+import A704.DODREAM.file.repository.UploadedFileRepository;
+import A704.DODREAM.global.exception.CustomException;
+import A704.DODREAM.global.exception.constant.ErrorCode;
+import A704.DODREAM.user.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 문서 처리 작업 큐 (DB 기반)
+ * <p>
+ * 작업 상태는 모두 document_jobs 테이블에 저장되므로 재배포/재시작 후에도 유지되고,
+ * 여러 노드의 워커가 같은 테이블에서 리스를 잡아 나눠 처리한다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DocumentJobService {
+
+	private final DocumentJobRepository documentJobRepository;
+	private final UploadedFileRepository uploadedFileRepository;
+	private final UserRepository userRepository;
+	private final JwtUtil jwtUtil;
+	private final ObjectMapper objectMapper;
+
+	@Value("${job.worker.lease-seconds:120}")
+	private long leaseSeconds;
+
+	@Value("${job.retry.max-attempts:5}")
+	private int maxAttempts;
+
+	@Value("${job.retry.base-delay-seconds:30}")
+	private long baseDelaySeconds;
+
+	@Value("${job.retry.max-delay-seconds:1800}")
+	private long maxDelaySeconds;
+
+	/**
+	 * 작업 등록
+	 *
+	 * @param type:                작업 종류
+	 * @param uploadedFileId:      대상 파일 ID
+	 * @param userId:              요청한 사용자 ID
+	 * @param authorizationHeader: 요청의 Authorization 헤더 (있으면 실행 시 요청자 권한으로 FastAPI 호출, 헤더 자체는 저장하지 않음)
+	 * @return 등록된 작업
+	 */
+	@Transactional
+	public DocumentJob enqueue(JobType type, Long uploadedFileId, Long userId, String authorizationHeader) {
+		DocumentJob job = documentJobRepository.save(DocumentJob.builder()
+			.type(type)
+			.uploadedFileId(uploadedFileId)
+			.userId(userId)
+			.maxAttempts(maxAttempts)
+			.actAsUser(isBearer(authorizationHeader))
+			.build());
+
+		log.info("✅ 작업 등록: jobId={}, type={}, fileId={}", job.getId(), type, uploadedFileId);
+		return job;
+	}
+
+	/**
+	 * 후처리 작업 등록 (outbox)
+	 * 호출한 쪽의 트랜잭션에 참여하므로 본 작업(예: 자료 발행)과 함께 커밋/롤백된다.
+	 * 같은 idempotencyKey의 작업이 이미 있으면 새로 만들지 않고 기존 작업을 반환한다.
+	 * (조회 후 저장은 동시 등록 시 유니크 키 위반으로 호출한 트랜잭션 전체가 롤백되므로 INSERT IGNORE 후 다시 조회)
+	 *
+	 * @param payload:        작업 파라미터 (JSON으로 저장)
+	 * @param idempotencyKey: 중복 등록 방지 키 (FastAPI 호출 시 Idempotency-Key 헤더로도 전달)
+	 */
+	@Transactional
+	public DocumentJob enqueue(JobType type, Long uploadedFileId, Long userId, String authorizationHeader,
+		Map<String, Object> payload, String idempotencyKey) {
+		int inserted = documentJobRepository.insertIfAbsent(type.name(), uploadedFileId, userId, maxAttempts,
+			isBearer(authorizationHeader), toJson(payload), idempotencyKey, LocalDateTime.now());
+
+		DocumentJob job = documentJobRepository.findByIdempotencyKey(idempotencyKey)
+			.orElseThrow(() -> new IllegalStateException("후처리 작업 등록 실패: " + idempotencyKey));
+
+		if (inserted == 0) {
+			log.info("♻️ 이미 등록된 작업: jobId={}, key={}", job.getId(), idempotencyKey);
+		} else {
+			log.info("✅ 후처리 작업 등록: jobId={}, type={}, key={}", job.getId(), type, idempotencyKey);
+		}
+		return job;
+	}
+
+	/**
+	 * 작업 파라미터 조회
+	 */
+	@SuppressWarnings("unchecked")
+	public Map<String, Object> payloadOf(DocumentJob job) {
+		if (job.getPayload() == null) {
+			return Map.of();
+		}
+		try {
+			return objectMapper.readValue(job.getPayload(), Map.class);
+		} catch (JsonProcessingException e) {
+			throw new RuntimeException("작업 파라미터 파싱 실패: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * 작업 파라미터 갱신 (리스를 잡고 있는 동안만, 제출한 외부 작업 ID처럼 다음 실행에서 이어받을 상태 기록)
+	 *
+	 * @return 반영 여부 (리스를 잃었으면 false)
+	 */
+	@Transactional
+	public boolean updatePayload(DocumentJob job, Map<String, Object> payload) {
+		DocumentJob leased = findLeasedJob(job.getId(), job.getLeaseOwner());
+		if (leased == null) {
+			return false;
+		}
+		leased.updatePayload(toJson(payload));
+		return true;
+	}
+
+	/**
+	 * 같은 파일·같은 종류의 먼저 등록된 미완료 작업 중 payloadKey가 기록된(외부 작업 진행 중인) 작업이 있는지
+	 */
+	@Transactional(readOnly = true)
+	public boolean hasEarlierInFlight(DocumentJob job, String payloadKey) {
+		return documentJobRepository.findByUploadedFileIdAndTypeAndStatusInAndIdLessThan(job.getUploadedFileId(),
+				job.getType(), List.of(JobStatus.QUEUED, JobStatus.RUNNING), job.getId()).stream()
+			.anyMatch(earlier -> payloadOf(earlier).containsKey(payloadKey));
+	}
+
+	/**
+	 * FastAPI 호출용 Authorization 헤더 (실행할 때마다 요청자 이름으로 단기 토큰 발급)
+	 * 사용자 JWT를 작업 행에 저장하지 않으므로 백오프 재시도가 토큰 만료보다 늦어져도 호출할 수 있다.
+	 *
+	 * @return "Bearer ..." (요청자 권한 호출이 아닌 작업이면 null)
+	 */
+	@Transactional(readOnly = true)
+	public String authorizationFor(DocumentJob job) {
+		if (!job.isActAsUser()) {
+			return null;
+		}
+		return userRepository.findById(job.getUserId())
+			.map(user -> "Bearer " + jwtUtil.createAccessToken(user))
+			.orElseThrow(() -> new CustomException(ErrorCode.USER_NOT_FOUND));
+	}
+
+	/**
+	 * 작업 조회 (본인 작업만)
+	 */
+	@Transactional(readOnly = true)
+	public DocumentJob getJob(Long jobId, Long userId) {
+		DocumentJob job = documentJobRepository.findById(jobId)
+			.orElseThrow(() -> new CustomException(ErrorCode.JOB_NOT_FOUND));
+
+		if (!job.getUserId().equals(userId)) {
+			throw new CustomException(ErrorCode.FORBIDDEN);
+		}
+		return job;
+	}
+
+	/**
+	 * 실행 가능한 작업을 최대 limit개 선점
+	 * 행 잠금은 이 트랜잭션 안에서만 유지되고, 이후에는 리스(leaseExpiresAt)로 소유권을 표시한다.
+	 * 리스가 만료된 작업은 재시도 횟수가 남아 있을 때만 회수하고, 다 썼으면 최종 실패로 처리한다.
+	 * (처리 중 워커를 죽이는 작업이 무한히 재시도되지 않도록)
+	 */
+	@Transactional
+	public List<DocumentJob> claim(String workerId, int limit) {
+		LocalDateTime now = LocalDateTime.now();
+		List<DocumentJob> claimed = new ArrayList<>();
+
+		for (DocumentJob job : documentJobRepository.findClaimable(now, limit)) {
+			if (job.getStatus() == JobStatus.RUNNING) {
+				log.warn("⚠️ 리스 만료 작업 회수: jobId={}, 이전 워커={}", job.getId(), job.getLeaseOwner());
+				if (!job.hasAttemptsLeft()) {
+					String error = "작업 처리 중 리스 만료 (재시도 " + job.getAttempts() + "회 초과)";
+					job.fail(error, now);
+					onFinalFailure(job, error);
+					continue;
+				}
+			}
+			job.claim(workerId, now.plusSeconds(leaseSeconds));
+			claimed.add(job);
+		}
+		return claimed;
+	}
+
+	/**
+	 * 처리 중인 작업의 리스 연장 (하트비트)
+	 */
+	@Transactional
+	public void renewLeases(String workerId) {
+		LocalDateTime leaseExpiresAt = LocalDateTime.now().plusSeconds(leaseSeconds);
+		for (DocumentJob job : documentJobRepository.findByLeaseOwnerAndStatus(workerId, JobStatus.RUNNING)) {
+			job.extendLease(leaseExpiresAt);
+		}
+	}
+
+	@Transactional
+	public void markSucceeded(Long jobId, String workerId) {
+		DocumentJob job = findLeasedJob(jobId, workerId);
+		if (job == null) {
+			return;
+		}
+		job.succeed();
+		log.info("✅ 작업 완료: jobId={}, attempts={}", jobId, job.getAttempts());
+	}
+
+	/**
+	 * 실패 처리 - 지수 백오프(+지터)로 재시도 예약, 최대 횟수 초과 시 최종 실패
+	 */
+	@Transactional
+	public void markFailed(Long jobId, String workerId, String error) {
+		DocumentJob job = findLeasedJob(jobId, workerId);
+		if (job == null) {
+			return;
+		}
+
+		job.fail(error, LocalDateTime.now().plus(backoff(job.getAttempts())));
+
+		if (job.getStatus() == JobStatus.FAILED) {
+			onFinalFailure(job, error);
+		} else {
+			log.warn("⚠️ 작업 실패, 재시도 예약: jobId={}, attempts={}, nextRunAt={}", jobId, job.getAttempts(),
+				job.getNextRunAt());
+		}
+	}
+
+	/**
+	 * 작업 미루기 (같은 내용을 다른 작업이 처리 중인 경우 등)
+	 */
+	@Transactional
+	public void markDeferred(Long jobId, String workerId, long delaySeconds) {
+		DocumentJob job = findLeasedJob(jobId, workerId);
+		if (job == null) {
+			return;
+		}
+		job.defer(LocalDateTime.now().plusSeconds(delaySeconds));
+		log.info("⏸️ 작업 대기: jobId={}, nextRunAt={}", jobId, job.getNextRunAt());
+	}
+
+	/**
+	 * 리스를 잃은 작업(만료 후 다른 워커가 가져감)의 결과는 반영하지 않는다.
+	 */
+	private DocumentJob findLeasedJob(Long jobId, String workerId) {
+		DocumentJob job = documentJobRepository.findById(jobId).orElse(null);
+		if (job == null || !job.isLeasedBy(workerId)) {
+			log.warn("⚠️ 리스를 잃은 작업 결과 무시: jobId={}, worker={}", jobId, workerId);
+			return null;
+		}
+		return job;
+	}
+
+	private void onFinalFailure(DocumentJob job, String error) {
+		log.error("❌ 작업 최종 실패: jobId={}, type={}, attempts={}, error={}", job.getId(), job.getType(),
+			job.getAttempts(), error);
+		// 발행 후처리 실패는 파일 자체의 처리 실패가 아니므로 파일 상태는 그대로 둔다
+		if (!job.getType().isOutbox()) {
+			uploadedFileRepository.findById(job.getUploadedFileId())
+				.ifPresent(file -> file.setError(error));
+		}
+	}
+
+	private static boolean isBearer(String authorizationHeader) {
+		return authorizationHeader != null && authorizationHeader.startsWith("Bearer ");
+	}
+
+	private String toJson(Map<String, Object> payload) {
+		try {
+			return objectMapper.writeValueAsString(payload);
+		} catch (JsonProcessingException e) {
+			throw new RuntimeException("작업 파라미터 직렬화 실패: " + e.getMessage());
+		}
+	}
+
+	private Duration backoff(int attempts) {
+		long delay = baseDelaySeconds << Math.min(attempts - 1, 16);
+		delay = Math.min(delay, maxDelaySeconds);
+		// ±20% 지터로 동시에 실패한 작업들이 같은 시각에 몰리지 않도록 분산
+		long jitter = (long)(delay * 0.2 * (ThreadLocalRandom.current().nextDouble() * 2 - 1));
+		return Duration.ofSeconds(Math.max(1, delay + jitter));
+	}
+}
@@ -0,0 +1,186 @@
+package A704.DODREAM.file.service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import A704.DODREAM.file.dto.DocumentJobResponse;
+import A704.DODREAM.file.entity.DocumentJob;
+import A704.DODREAM.file.repository.DocumentJobRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 작업 상태 구독 관리 (SSE / 완료 대기)
+ * <p>
+ * 작업은 어느 노드에서든 처리될 수 있으므로 로컬 콜백이 아니라 DB를 주기적으로 조회해
+ * 상태가 바뀐 작업만 구독자에게 전달한다. Tomcat 스레드는 구독 등록 후 바로 반환된다.
+ * 완료 콜백은 결과 JSON을 S3에서 읽는 등 오래 걸릴 수 있으므로 스케줄러 스레드가 아닌 전용 스레드에서 실행한다.
+ */
+@Slf4j
+@Component
+public class DocumentJobWatcher {
+
+	private final DocumentJobRepository documentJobRepository;
+	private final ThreadPoolTaskExecutor callbackExecutor;
+	private final long sseTimeoutMs;
+
+	private final Map<Long, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+	public DocumentJobWatcher(
+		DocumentJobRepository documentJobRepository,
+		@Value("${job.watch.sse-timeout-ms:1800000}") long sseTimeoutMs,
+		@Value("${job.watch.callback-threads:2}") int callbackThreads) {
+		this.documentJobRepository = documentJobRepository;
+		this.sseTimeoutMs = sseTimeoutMs;
+
+		// 워커와 같은 이유로 빈이 아닌 직접 소유 스레드풀
+		this.callbackExecutor = new ThreadPoolTaskExecutor();
+		this.callbackExecutor.setCorePoolSize(callbackThreads);
+		this.callbackExecutor.setMaxPoolSize(callbackThreads);
+		this.callbackExecutor.setThreadNamePrefix("job-callback-");
+		this.callbackExecutor.initialize();
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		callbackExecutor.shutdown();
+	}
+
+	/**
+	 * SSE 구독 - 상태가 바뀔 때마다 "status" 이벤트 전송, 종료 상태가 되면 스트림 종료
+	 */
+	public SseEmitter subscribe(DocumentJob job) {
+		SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+		DocumentJobResponse current = DocumentJobResponse.from(job);
+
+		if (!send(emitter, current)) {
+			return emitter;
+		}
+		if (job.getStatus().isTerminal()) {
+			emitter.complete();
+			return emitter;
+		}
+
+		Subscriber subscriber = new Subscriber(current, response -> {
+			if (send(emitter, response) && response.getStatus().isTerminal()) {
+				emitter.complete();
+			}
+		});
+		register(job.getId(), subscriber);
+		emitter.onCompletion(() -> unregister(job.getId(), subscriber));
+		emitter.onTimeout(() -> unregister(job.getId(), subscriber));
+		emitter.onError(e -> unregister(job.getId(), subscriber));
+		return emitter;
+	}
+
+	/**
+	 * 작업이 종료 상태(SUCCEEDED/FAILED)가 되면 한 번 호출 (콜백 전용 스레드에서 실행)
+	 *
+	 * @return 구독 해제 (대기 타임아웃 시 호출)
+	 */
+	public Runnable onFinished(DocumentJob job, Consumer<DocumentJobResponse> callback) {
+		DocumentJobResponse current = DocumentJobResponse.from(job);
+		if (job.getStatus().isTerminal()) {
+			callback.accept(current);
+			return () -> {
+			};
+		}
+
+		Subscriber[] self = new Subscriber[1];
+		self[0] = new Subscriber(current, response -> {
+			if (response.getStatus().isTerminal()) {
+				unregister(job.getId(), self[0]);
+				callbackExecutor.execute(() -> {
+					try {
+						callback.accept(response);
+					} catch (Exception e) {
+						log.warn("⚠️ 작업 완료 콜백 실패: jobId={}, {}", response.getJobId(), e.getMessage());
+					}
+				});
+			}
+		});
+		register(job.getId(), self[0]);
+		return () -> unregister(job.getId(), self[0]);
+	}
+
+	/**
+	 * 구독 중인 작업 상태 조회 후 변경분 전달
+	 */
+	@Scheduled(fixedDelayString = "${job.watch.poll-interval-ms:1000}")
+	public void pushUpdates() {
+		if (subscribers.isEmpty()) {
+			return;
+		}
+
+		List<DocumentJob> jobs;
+		try {
+			jobs = documentJobRepository.findAllById(subscribers.keySet());
+		} catch (Exception e) {
+			log.warn("⚠️ 작업 상태 조회 실패: {}", e.getMessage());
+			return;
+		}
+
+		for (DocumentJob job : jobs) {
+			DocumentJobResponse response = DocumentJobResponse.from(job);
+			for (Subscriber subscriber : subscribers.getOrDefault(job.getId(), List.of())) {
+				subscriber.offer(response);
+			}
+		}
+	}
+
+	private void register(Long jobId, Subscriber subscriber) {
+		subscribers.computeIfAbsent(jobId, id -> new CopyOnWriteArrayList<>()).add(subscriber);
+	}
+
+	private void unregister(Long jobId, Subscriber subscriber) {
+		subscribers.computeIfPresent(jobId, (id, list) -> {
+			list.remove(subscriber);
+			return list.isEmpty() ? null : list;
+		});
+	}
+
+	private boolean send(SseEmitter emitter, DocumentJobResponse response) {
+		try {
+			emitter.send(SseEmitter.event().name("status").data(response));
+			return true;
+		} catch (IOException | IllegalStateException e) {
+			emitter.completeWithError(e);
+			return false;
+		}
+	}
+
+	/**
+	 * 마지막으로 전달한 상태와 비교해 바뀐 경우에만 전달
+	 */
+	private static final class Subscriber {
+		private DocumentJobResponse last;
+		private final Consumer<DocumentJobResponse> listener;
+
+		private Subscriber(DocumentJobResponse last, Consumer<DocumentJobResponse> listener) {
+			this.last = last;
+			this.listener = listener;
+		}
+
+		private synchronized void offer(DocumentJobResponse response) {
+			if (last.getStatus() == response.getStatus() && last.getAttempts() == response.getAttempts()) {
+				return;
+			}
+			last = response;
+			try {
+				listener.accept(response);
+			} catch (Exception e) {
+				log.warn("⚠️ 작업 상태 전달 실패: jobId={}, {}", response.getJobId(), e.getMessage());
+			}
+		}
+	}
+}
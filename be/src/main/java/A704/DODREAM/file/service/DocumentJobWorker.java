@@ -0,0 +1,158 @@
+package A704.DODREAM.file.service;
+
+import java.net.InetAddress;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import A704.DODREAM.file.entity.DocumentJob;
+import A704.DODREAM.global.exception.JobDeferredException;
+import A704.DODREAM.material.service.PublishOutboxDispatcher;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 문서 처리 작업 워커
+ * <p>
+ * 주기적으로 빈 슬롯 수만큼 작업을 선점해 전용 스레드풀에서 실행하고,
+ * 처리 중인 작업의 리스를 하트비트로 연장한다. 노드가 죽으면 리스가 만료되어 다른 노드가 이어받는다.
+ */
+@Slf4j
+@Component
+public class DocumentJobWorker {
+
+	private final DocumentJobService documentJobService;
+	private final PdfService pdfService;
+	private final OcrProcessService ocrProcessService;
+	private final PdfOutlineService pdfOutlineService;
+	private final PublishOutboxDispatcher publishOutboxDispatcher;
+	private final ThreadPoolTaskExecutor documentJobExecutor;
+	private final int concurrency;
+	private final String workerId;
+	private final AtomicInteger running = new AtomicInteger();
+
+	public DocumentJobWorker(
+		DocumentJobService documentJobService,
+		PdfService pdfService,
+		OcrProcessService ocrProcessService,
+		PdfOutlineService pdfOutlineService,
+		PublishOutboxDispatcher publishOutboxDispatcher,
+		@Value("${job.worker.concurrency:4}") int concurrency) {
+		this.documentJobService = documentJobService;
+		this.pdfService = pdfService;
+		this.ocrProcessService = ocrProcessService;
+		this.pdfOutlineService = pdfOutlineService;
+		this.publishOutboxDispatcher = publishOutboxDispatcher;
+		this.concurrency = concurrency;
+		this.workerId = resolveHostName() + ":" + UUID.randomUUID().toString().substring(0, 8);
+
+		// 전용 스레드풀 (빈으로 등록하면 Boot 기본 applicationTaskExecutor가 빠지므로 워커가 직접 소유)
+		this.documentJobExecutor = new ThreadPoolTaskExecutor();
+		this.documentJobExecutor.setCorePoolSize(concurrency);
+		this.documentJobExecutor.setMaxPoolSize(concurrency);
+		this.documentJobExecutor.setQueueCapacity(concurrency);
+		this.documentJobExecutor.setThreadNamePrefix("doc-job-");
+		this.documentJobExecutor.setWaitForTasksToCompleteOnShutdown(true);
+		this.documentJobExecutor.setAwaitTerminationSeconds(30);
+		this.documentJobExecutor.initialize();
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		// 종료 시간 내 끝나지 않은 작업은 리스 만료 후 다른 노드가 재시도
+		documentJobExecutor.shutdown();
+	}
+
+	/**
+	 * 대기 중인 작업 선점 후 실행
+	 */
+	@Scheduled(fixedDelayString = "${job.worker.poll-interval-ms:2000}")
+	public void poll() {
+		int free = concurrency - running.get();
+		if (free <= 0) {
+			return;
+		}
+
+		List<DocumentJob> jobs;
+		try {
+			jobs = documentJobService.claim(workerId, free);
+		} catch (Exception e) {
+			log.error("❌ 작업 선점 실패: {}", e.getMessage());
+			return;
+		}
+
+		for (DocumentJob job : jobs) {
+			running.incrementAndGet();
+			try {
+				documentJobExecutor.execute(() -> run(job));
+			} catch (Exception e) {
+				// 실행 거부 시 리스가 만료되면 다시 선점됨
+				running.decrementAndGet();
+				log.error("❌ 작업 실행 거부: jobId={}, {}", job.getId(), e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * 처리 중인 작업의 리스 연장
+	 */
+	@Scheduled(fixedDelayString = "${job.worker.heartbeat-interval-ms:30000}")
+	public void heartbeat() {
+		if (running.get() == 0) {
+			return;
+		}
+		try {
+			documentJobService.renewLeases(workerId);
+		} catch (Exception e) {
+			log.warn("⚠️ 리스 연장 실패: {}", e.getMessage());
+		}
+	}
+
+	private void run(DocumentJob job) {
+		log.info("🔵 작업 시작: jobId={}, type={}, fileId={}, attempt={}", job.getId(), job.getType(),
+			job.getUploadedFileId(), job.getAttempts());
+		try {
+			switch (job.getType()) {
+				case PDF_PARSE -> pdfService.parseUploadedPdf(job.getUploadedFileId(),
+					documentJobService.authorizationFor(job), job.getId());
+				case OCR_S3 -> ocrProcessService.processOcrFromS3(job.getUploadedFileId());
+				case OCR_LOCAL -> ocrProcessService.processOcr(job.getUploadedFileId());
+				case PDF_OUTLINE -> pdfOutlineService.buildOutline(job.getUploadedFileId());
+				case PUBLISH_JSON, PUBLISH_SHARDS, PUBLISH_QUIZ_JSON, EMBEDDING_CREATE, TTS_TEXT, CONCEPT_CHECK ->
+					publishOutboxDispatcher.dispatch(job);
+			}
+			documentJobService.markSucceeded(job.getId(), workerId);
+
+		} catch (JobDeferredException e) {
+			log.info("⏸️ 작업 미룸: jobId={}, {}", job.getId(), e.getMessage());
+			try {
+				documentJobService.markDeferred(job.getId(), workerId, e.getDelaySeconds());
+			} catch (Exception markError) {
+				log.error("❌ 작업 대기 기록 실패: jobId={}, {}", job.getId(), markError.getMessage());
+			}
+		} catch (Exception e) {
+			log.error("❌ 작업 실패: jobId={}, {}", job.getId(), e.getMessage(), e);
+			try {
+				documentJobService.markFailed(job.getId(), workerId, String.valueOf(e.getMessage()));
+			} catch (Exception markError) {
+				// 상태 기록 실패 시 리스 만료 후 재시도됨
+				log.error("❌ 작업 실패 기록 실패: jobId={}, {}", job.getId(), markError.getMessage());
+			}
+		} finally {
+			running.decrementAndGet();
+		}
+	}
+
+	private static String resolveHostName() {
+		try {
+			return InetAddress.getLocalHost().getHostName();
+		} catch (Exception e) {
+			return "unknown";
+		}
+	}
+}
@@ -58,10 +58,8 @@ public class FileStorageService {
 		Path tempFilePath = this.tempPath.resolve(fileName);
 		Files.write(tempFilePath, imageData);
 
-		File tempFile = tempFilePath.toFile();
-		tempFile.deleteOnExit(); // JVM 종료 시 자동 삭제
-
-		return tempFile;
+		// 호출자가 deleteTempFile로 정리 (deleteOnExit는 JVM 종료까지 항목이 쌓이므로 쓰지 않음)
+		return tempFilePath.toFile();
 	}
 
 	/**
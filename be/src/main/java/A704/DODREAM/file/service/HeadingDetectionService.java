@@ -2,177 +2,175 @@ package A704.DODREAM.file.service;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Pattern;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import A704.DODREAM.file.entity.DocumentSection;
-import A704.DODREAM.file.entity.OcrPage;
-import A704.DODREAM.file.entity.OcrWord;
 import A704.DODREAM.file.entity.UploadedFile;
+import A704.DODREAM.file.enums.SectionSource;
 import A704.DODREAM.file.repository.DocumentSectionRepository;
-import lombok.RequiredArgsConstructor;
+import A704.DODREAM.file.repository.OcrPageRepository;
+import A704.DODREAM.file.repository.OcrWordRepository;
+import A704.DODREAM.file.repository.UploadedFileRepository;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * OCR 단어 배치로 제목 감지
+ * <p>
+ * 감지한 섹션은 메모리에 모았다가 호출자(OCR) 트랜잭션이 커밋된 뒤 별도 트랜잭션으로 저장한다.
+ * 섹션 저장이 실패해도 OCR 트랜잭션이 롤백 전용으로 바뀌지 않고, OCR이 롤백되면 섹션도 남지 않는다.
+ * 저장할 때 자동으로 만든 섹션(목차 초안, 이전 OCR 감지)만 바꾸고 선생님이 편집한 섹션은 남긴다.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class HeadingDetectionService {
 
 	private final DocumentSectionRepository documentSectionRepository;
+	private final OcrPageRepository ocrPageRepository;
+	private final OcrWordRepository ocrWordRepository;
+	private final LayoutAnalyzer layoutAnalyzer;
+	private final UploadedFileRepository uploadedFileRepository;
+	private final TransactionTemplate requiresNew;
+
+	public HeadingDetectionService(
+		DocumentSectionRepository documentSectionRepository,
+		OcrPageRepository ocrPageRepository,
+		OcrWordRepository ocrWordRepository,
+		LayoutAnalyzer layoutAnalyzer,
+		UploadedFileRepository uploadedFileRepository,
+		PlatformTransactionManager transactionManager) {
+		this.documentSectionRepository = documentSectionRepository;
+		this.ocrPageRepository = ocrPageRepository;
+		this.ocrWordRepository = ocrWordRepository;
+		this.layoutAnalyzer = layoutAnalyzer;
+		this.uploadedFileRepository = uploadedFileRepository;
+		this.requiresNew = new TransactionTemplate(transactionManager);
+		this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+	}
 
-	// 제목 패턴들
-	private static final Pattern[] HEADING_PATTERNS = {
-		Pattern.compile("^\\d+\\.\\s*.+"),              // "1. 서론"
-		Pattern.compile("^제\\s*\\d+\\s*장.+"),         // "제1장", "제 1 장"
-		Pattern.compile("^Chapter\\s+\\d+.+", Pattern.CASE_INSENSITIVE), // "Chapter 1"
-		Pattern.compile("^[IVX]+\\.\\s*.+"),            // "I. Introduction"
-		Pattern.compile("^\\d+-\\d+.+"),                // "1-1 개념"
-		Pattern.compile("^\\[.*\\]"),                   // "[단원명]"
-		Pattern.compile("^\\d+\\)\\s*.+"),              // "1) 제목"
-		Pattern.compile("^[가-힣]{1,10}\\s*\\d+"),      // "단원 1", "Chapter 1"
-	};
+	/**
+	 * OCR 중 페이지가 끝나는 대로 제목 감지 (호출자 트랜잭션 안에서 사용)
+	 * 끝 페이지는 이후 페이지/finish에서 갱신되고, 저장은 호출자 트랜잭션 커밋 후 한 번에 한다.
+	 */
+	public Detection start(UploadedFile uploadedFile) {
+		log.info("Starting heading detection for file ID: {}", uploadedFile.getId());
+		return new Detection(uploadedFile, layoutAnalyzer.begin(uploadedFile));
+	}
 
 	/**
-	 * OCR 완료 후 제목 감지 및 섹션 생성
+	 * 저장된 OCR 페이지로 제목 감지 및 섹션 생성
+	 * 페이지는 패킹된 단어 블롭만 조회해서 읽는다 (OcrPage/OcrWord 엔티티 로딩 없음)
 	 */
 	@Transactional
 	public List<DocumentSection> detectAndCreateSections(UploadedFile uploadedFile) {
-		log.info("Starting heading detection for file ID: {}", uploadedFile.getId());
-
-		List<DocumentSection> sections = new ArrayList<>();
-		int sectionOrder = 0;
-
-		for (OcrPage page : uploadedFile.getOcrPages()) {
-			List<HeadingCandidate> candidates = findHeadingCandidates(page);
-
-			for (HeadingCandidate candidate : candidates) {
-				DocumentSection section = DocumentSection.builder()
-					.uploadedFile(uploadedFile)
-					.title(candidate.getText())
-					.level(candidate.getLevel())
-					.startPage(page.getPageNumber())
-					.endPage(page.getPageNumber()) // 나중에 업데이트 가능
-					.fontSize(candidate.getFontSize())
-					.sectionOrder(sectionOrder++)
-					.build();
-
-				sections.add(section);
-				log.info("Detected heading: '{}' (Level: {}, Page: {}, Size: {})",
-					candidate.getText(), candidate.getLevel(), page.getPageNumber(), candidate.getFontSize());
-			}
-		}
-
-		// DB 저장
-		if (!sections.isEmpty()) {
-			documentSectionRepository.saveAll(sections);
-			log.info("Saved {} sections for file ID: {}", sections.size(), uploadedFile.getId());
-		} else {
-			log.warn("No headings detected for file ID: {}", uploadedFile.getId());
+		Detection detection = start(uploadedFile);
+		for (OcrPageRepository.PackedPage page : ocrPageRepository.findPackedByUploadedFileId(uploadedFile.getId())) {
+			detection.accept(page.getPageNumber(), wordsOf(page));
 		}
-
-		return sections;
+		return detection.finish();
 	}
 
 	/**
-	 * 페이지에서 제목 후보 찾기
+	 * 페이지 단어 (행 저장 방식으로 남은 페이지는 ocr_words를 읽어 패킹)
 	 */
-	private List<HeadingCandidate> findHeadingCandidates(OcrPage page) {
-		List<HeadingCandidate> candidates = new ArrayList<>();
-
-		if (page.getWords().isEmpty()) {
-			return candidates;
-		}
-
-		// 1. 평균 글자 크기 계산
-		double avgHeight = calculateAverageHeight(page.getWords());
-		log.debug("Page {} average height: {}", page.getPageNumber(), avgHeight);
-
-		// 2. 큰 글자 찾기
-		for (OcrWord word : page.getWords()) {
-			int height = word.getY3() - word.getY1();
-
-			// 조건 1: 평균보다 1.4배 이상 큰 글자 (임계값 낮춤)
-			if (height >= avgHeight * 1.4) {
-				String text = word.getText().trim();
-
-				// 조건 2: 제목 패턴 매칭 또는 충분히 큰 글자
-				if (isHeadingPattern(text) || height >= avgHeight * 1.8) {
-					int level = determineLevel(text, height, avgHeight);
-
-					candidates.add(HeadingCandidate.builder()
-						.text(text)
-						.fontSize(height)
-						.level(level)
-						.build());
-
-					log.debug("Heading candidate: '{}' (size: {}, avg: {}, ratio: {})",
-						text, height, avgHeight, height / avgHeight);
-				}
-			}
+	private PackedWords wordsOf(OcrPageRepository.PackedPage page) {
+		if (page.getPackedWords() != null) {
+			return PackedWords.read(page.getPackedWords());
 		}
-
-		return candidates;
+		return PackedWords.read(PackedWords.encodeRows(ocrWordRepository.findByOcrPageIdOrderByWordOrderAsc(page.getId())));
 	}
 
 	/**
-	 * 평균 글자 높이 계산
+	 * 감지한 섹션으로 자동 섹션 교체 (새 트랜잭션, 실패해도 예외를 밖으로 던지지 않음)
+	 * 목차 초안 작업과 겹치지 않도록 파일 행을 잠그고, 남은 편집 섹션 뒤에 이어 붙인다.
 	 */
-	private double calculateAverageHeight(List<OcrWord> words) {
-		if (words.isEmpty()) {
-			return 0;
-		}
-
-		int totalHeight = 0;
-		for (OcrWord word : words) {
-			totalHeight += (word.getY3() - word.getY1());
+	private void save(UploadedFile uploadedFile, List<DocumentSection> sections) {
+		Long fileId = uploadedFile.getId();
+		try {
+			requiresNew.executeWithoutResult(status -> {
+				uploadedFileRepository.findForUpdate(fileId);
+				documentSectionRepository.deleteBySources(fileId, List.of(SectionSource.OUTLINE, SectionSource.OCR));
+				int base = documentSectionRepository.findMaxSectionOrder(fileId) + 1;
+				for (int i = 0; i < sections.size(); i++) {
+					sections.get(i).updateSectionOrder(base + i);
+				}
+				documentSectionRepository.saveAll(sections);
+			});
+			log.info("Saved {} sections for file ID: {}", sections.size(), uploadedFile.getId());
+		} catch (Exception e) {
+			log.error("Failed to save detected sections for file ID {}: {}", uploadedFile.getId(), e.getMessage(), e);
 		}
-
-		return (double)totalHeight / words.size();
 	}
 
 	/**
-	 * 제목 패턴 매칭
+	 * 문서 하나의 진행 중인 제목 감지
+	 * 감지가 실패해도 OCR은 계속되도록 예외를 삼키고 이후 페이지는 건너뛴다 (그때까지 감지한 섹션은 남김).
 	 */
-	private boolean isHeadingPattern(String text) {
-		if (text == null || text.isEmpty()) {
-			return false;
+	public final class Detection {
+
+		private final UploadedFile uploadedFile;
+		private final LayoutAnalyzer.Document document;
+		private final List<DocumentSection> sections = new ArrayList<>();
+		private boolean failed;
+
+		private Detection(UploadedFile uploadedFile, LayoutAnalyzer.Document document) {
+			this.uploadedFile = uploadedFile;
+			this.document = document;
 		}
 
-		for (Pattern pattern : HEADING_PATTERNS) {
-			if (pattern.matcher(text).matches()) {
-				return true;
+		/**
+		 * 페이지 하나 분석 (페이지 순서대로 호출)
+		 */
+		public void accept(int pageNumber, PackedWords words) {
+			if (failed) {
+				return;
+			}
+			try {
+				List<DocumentSection> opened = document.page(pageNumber, words);
+				if (!opened.isEmpty()) {
+					sections.addAll(opened);
+					opened.forEach(section -> log.info("Detected heading: '{}' (Level: {}, Page: {}, Size: {})",
+						section.getTitle(), section.getLevel(), pageNumber, section.getFontSize()));
+				}
+			} catch (Exception e) {
+				failed = true;
+				log.error("Heading detection failed for file ID {} at page {}: {}", uploadedFile.getId(), pageNumber,
+					e.getMessage(), e);
 			}
 		}
 
-		return false;
-	}
+		/**
+		 * 남은 섹션의 끝 페이지 확정 후 저장 예약 (감지가 중간에 실패했어도 열린 섹션은 닫는다)
+		 * 호출자 트랜잭션이 있으면 커밋된 뒤에, 없으면 바로 저장한다.
+		 */
+		public List<DocumentSection> finish() {
+			try {
+				document.finish();
+			} catch (Exception e) {
+				log.error("Failed to close sections for file ID {}: {}", uploadedFile.getId(), e.getMessage(), e);
+			}
+			if (sections.isEmpty()) {
+				log.warn("No headings detected for file ID: {}", uploadedFile.getId());
+				return sections;
+			}
 
-	/**
-	 * 제목 레벨 결정
-	 */
-	private int determineLevel(String text, int fontSize, double avgHeight) {
-		double ratio = fontSize / avgHeight;
-
-		// 크기 비율로 레벨 결정
-		if (ratio >= 2.5) {
-			return 1; // 대단원
-		} else if (ratio >= 1.8) {
-			return 2; // 중단원
-		} else {
-			return 3; // 소단원
+			if (TransactionSynchronizationManager.isSynchronizationActive()) {
+				TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+					@Override
+					public void afterCommit() {
+						save(uploadedFile, sections);
+					}
+				});
+			} else {
+				save(uploadedFile, sections);
+			}
+			return sections;
 		}
 	}
-
-	/**
-	 * 제목 후보 내부 클래스
-	 */
-	@lombok.Data
-	@lombok.Builder
-	private static class HeadingCandidate {
-		private String text;
-		private Integer fontSize;
-		private Integer level;
-	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,196 @@
+package A704.DODREAM.file.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+/**
+ * S3 자료 JSON 부분 조회 (토큰 스트림)
+ * <p>
+ * 전체 Map을 만들지 않고 {@link JsonSelector}에 맞는 배열 원소만 하나씩 만든다.
+ * 조건에 맞지 않는 원소는 조건 필드를 읽는 즉시 건너뛰고, 필요한 개수를 찾으면 나머지 본문은 받지 않고 연결을 끊는다.
+ * 조건 필드보다 앞에 나온 필드는 원소 버퍼에 담아 두었다가 조건이 맞지 않으면 버린다 (다시 조회하지 않음).
+ * 메모리 사용은 문서 크기가 아니라 원소 하나 크기에 비례한다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class JsonProjectionReader {
+
+	private final S3Client s3Client;
+	private final ObjectMapper objectMapper;
+	private final StoredJsonCodec storedJsonCodec;
+
+	@Value("${aws.s3.bucket}")
+	private String bucketName;
+
+	/**
+	 * 조건에 맞는 첫 원소 (찾으면 바로 읽기 중단)
+	 */
+	public Optional<Map<String, Object>> first(String s3Key, JsonSelector selector) {
+		List<Map<String, Object>> found = new ArrayList<>(1);
+		scan(s3Key, selector, 1, found::add);
+		return found.stream().findFirst();
+	}
+
+	/**
+	 * 조건에 맞는 모든 원소를 순서대로 전달
+	 *
+	 * @return 경로의 배열이 있었는지 (없으면 false, 다른 구조의 문서)
+	 */
+	public boolean forEach(String s3Key, JsonSelector selector, Consumer<Map<String, Object>> consumer) {
+		return scan(s3Key, selector, Integer.MAX_VALUE, consumer);
+	}
+
+	/**
+	 * 최상위 객체에서 path를 따라 배열 시작 위치로 이동 (다른 필드는 건너뜀)
+	 */
+	public static boolean seekArray(JsonParser parser, List<String> path) throws IOException {
+		if (parser.nextToken() != JsonToken.START_OBJECT) {
+			return false;
+		}
+		for (int depth = 0; depth < path.size(); depth++) {
+			boolean last = depth == path.size() - 1;
+			if (!seekField(parser, path.get(depth), last ? JsonToken.START_ARRAY : JsonToken.START_OBJECT)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// ===== 내부 =====
+
+	private boolean scan(String s3Key, JsonSelector selector, int limit, Consumer<Map<String, Object>> consumer) {
+		ResponseInputStream<GetObjectResponse> object = open(s3Key);
+
+		int matched = 0;
+		boolean complete = false;
+		try (JsonParser parser = storedJsonCodec.openParser(object)) {
+			if (!seekArray(parser, selector.path())) {
+				return false;
+			}
+
+			JsonToken token;
+			while (matched < limit && (token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+				if (token != JsonToken.START_OBJECT) {
+					parser.skipChildren();
+					continue;
+				}
+				Map<String, Object> element = readIfMatches(parser, selector);
+				if (element != null) {
+					matched++;
+					consumer.accept(element);
+				}
+			}
+			complete = matched < limit;
+		} catch (IOException e) {
+			throw new RuntimeException("JSON 조회 실패: " + e.getMessage());
+		} finally {
+			// 끝까지 읽지 않았으면 남은 본문을 받지 않고 연결 종료
+			if (!complete) {
+				object.abort();
+			}
+			closeQuietly(object);
+			log.debug("🔍 JSON 부분 조회: key={}, selector={}, matched={}", s3Key, selector, matched);
+		}
+		return true;
+	}
+
+	/**
+	 * 현재 START_OBJECT 원소를 읽어 조건에 맞으면 남길 필드만 담은 Map으로 반환
+	 * 남길 필드는 조건이 정해지기 전에도 버퍼에 담고, 조건 필드가 맞지 않으면 버퍼를 버리고 나머지를 건너뛴다.
+	 *
+	 * @return 조건에 맞는 원소 (맞지 않으면 null)
+	 */
+	private Map<String, Object> readIfMatches(JsonParser parser, JsonSelector selector) throws IOException {
+		TokenBuffer buffer = new TokenBuffer(parser);
+		buffer.writeStartObject();
+
+		int accepted = 0;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.currentName();
+			JsonToken value = parser.nextToken();
+
+			if (selector.hasPredicate(field)) {
+				if (!value.isScalarValue() || !selector.accepts(field, parser.getText())) {
+					buffer.close();
+					parser.skipChildren();
+					skipRemainingFields(parser);
+					return null;
+				}
+				accepted++;
+			}
+
+			if (selector.keeps(field)) {
+				buffer.writeFieldName(field);
+				buffer.copyCurrentStructure(parser);
+			} else {
+				parser.skipChildren();
+			}
+		}
+		buffer.writeEndObject();
+
+		// 조건 필드가 아예 없는 원소는 불일치
+		if (accepted < selector.predicateCount()) {
+			return null;
+		}
+		return toMap(buffer);
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<String, Object> toMap(TokenBuffer buffer) throws IOException {
+		return objectMapper.readValue(buffer.asParser(), Map.class);
+	}
+
+	private ResponseInputStream<GetObjectResponse> open(String s3Key) {
+		return s3Client.getObject(GetObjectRequest.builder()
+			.bucket(bucketName)
+			.key(s3Key)
+			.build());
+	}
+
+	private static boolean seekField(JsonParser parser, String name, JsonToken expected) throws IOException {
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.currentName();
+			JsonToken value = parser.nextToken();
+			if (name.equals(field)) {
+				return value == expected;
+			}
+			parser.skipChildren();
+		}
+		return false;
+	}
+
+	private static void skipRemainingFields(JsonParser parser) throws IOException {
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			parser.nextToken();
+			parser.skipChildren();
+		}
+	}
+
+	private void closeQuietly(ResponseInputStream<GetObjectResponse> object) {
+		try {
+			object.close();
+		} catch (IOException ignored) {
+			// 이미 종료된 스트림
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package A704.DODREAM.file.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 자료 JSON 부분 조회용 선택자
+ * <p>
+ * 경로로 배열을 지정하고, 배열 원소 중 필드 값이 일치하는 것만 고른다.
+ * 예) chapters 중 id == "3"    : JsonSelector.array("chapters").where("id", "3")
+ * 예) chapters 중 type == quiz : JsonSelector.array("chapters").where("type", "quiz")
+ * 예) 챕터 type만               : JsonSelector.array("chapters").fields("type")
+ * <p>
+ * 같은 선택자를 S3 객체 토큰 스트림({@link JsonProjectionReader})과 메모리 Map({@link #select}) 양쪽에 쓸 수 있다.
+ */
+public final class JsonSelector {
+
+	private final List<String> path;
+	private final Map<String, String> predicates;
+	private final Set<String> fields;
+
+	private JsonSelector(List<String> path, Map<String, String> predicates, Set<String> fields) {
+		this.path = path;
+		this.predicates = predicates;
+		this.fields = fields;
+	}
+
+	/**
+	 * @param dottedPath: 최상위 객체 기준 배열 경로 (예: "chapters", "parsedData.data")
+	 */
+	public static JsonSelector array(String dottedPath) {
+		return new JsonSelector(List.of(dottedPath.split("\\.")), Map.of(), Set.of());
+	}
+
+	/**
+	 * 원소의 field 값이 value와 같은 것만 (숫자 값은 문자열로 비교)
+	 */
+	public JsonSelector where(String field, String value) {
+		Map<String, String> merged = new LinkedHashMap<>(predicates);
+		merged.put(field, value);
+		return new JsonSelector(path, Map.copyOf(merged), fields);
+	}
+
+	/**
+	 * 결과 원소에 남길 필드 (지정하지 않으면 전체)
+	 */
+	public JsonSelector fields(String... names) {
+		Set<String> merged = new LinkedHashSet<>(fields);
+		merged.addAll(List.of(names));
+		return new JsonSelector(path, predicates, Set.copyOf(merged));
+	}
+
+	List<String> path() {
+		return path;
+	}
+
+	boolean hasPredicate(String field) {
+		return predicates.containsKey(field);
+	}
+
+	boolean accepts(String field, String value) {
+		return predicates.get(field).equals(value);
+	}
+
+	int predicateCount() {
+		return predicates.size();
+	}
+
+	boolean keeps(String field) {
+		return fields.isEmpty() || fields.contains(field);
+	}
+
+	/**
+	 * 이미 메모리에 있는 JSON에 같은 선택자 적용 (경로가 없으면 빈 목록)
+	 */
+	@SuppressWarnings("unchecked")
+	public List<Map<String, Object>> select(Map<String, Object> root) {
+		Object node = root;
+		for (String segment : path) {
+			if (!(node instanceof Map<?, ?> map)) {
+				return List.of();
+			}
+			node = map.get(segment);
+		}
+		if (!(node instanceof List<?> elements)) {
+			return List.of();
+		}
+
+		List<Map<String, Object>> selected = new ArrayList<>();
+		for (Object element : elements) {
+			if (element instanceof Map<?, ?> map && matches((Map<String, Object>)map)) {
+				selected.add(project((Map<String, Object>)map));
+			}
+		}
+		return selected;
+	}
+
+	private boolean matches(Map<String, Object> element) {
+		for (Map.Entry<String, String> predicate : predicates.entrySet()) {
+			Object value = element.get(predicate.getKey());
+			if (value == null || !predicate.getValue().equals(value.toString())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private Map<String, Object> project(Map<String, Object> element) {
+		if (fields.isEmpty()) {
+			return element;
+		}
+		Map<String, Object> projected = new LinkedHashMap<>();
+		for (String field : fields) {
+			if (element.containsKey(field)) {
+				projected.put(field, element.get(field));
+			}
+		}
+		return projected;
+	}
+
+	@Override
+	public String toString() {
+		return String.join(".", path) + predicates + (fields.isEmpty() ? "" : fields);
+	}
+}
@@ -0,0 +1,369 @@
+package A704.DODREAM.file.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.springframework.stereotype.Component;
+
+import A704.DODREAM.file.entity.DocumentSection;
+import A704.DODREAM.file.entity.UploadedFile;
+import A704.DODREAM.file.enums.SectionSource;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 줄 단위 레이아웃 분석 → 제목 섹션
+ * <p>
+ * 페이지 단어를 위쪽 Y 순으로 훑으며(sweep) 세로로 겹치는 단어를 한 줄로 묶고, 가로 간격이 크면 단(column)으로 나눈다.
+ * 이어지는 비슷한 높이의 줄은 블록으로 묶어 여러 줄 제목도 하나로 본다.
+ * <p>
+ * - 본문 글자 높이: 지금까지 처리한 모든 페이지 단어 높이 히스토그램의 중앙값 (표지처럼 큰 글자만 있는 페이지에 덜 흔들림)
+ * - 제목 판정: 블록 높이 / 본문 높이 비율 + 줄 전체에 대한 합친 제목 패턴 하나
+ * - 끝 페이지: 같은 레벨 이상의 다음 제목이 나오면 그 앞에서 닫고, 남은 섹션은 마지막 페이지에서 닫는다
+ * <p>
+ * 페이지는 {@link Document#page}로 OCR이 끝나는 대로 페이지 순서대로 넣는다 (문서 전체를 다시 읽지 않음).
+ */
+@Slf4j
+@Component
+public class LayoutAnalyzer {
+
+	// 제목 패턴 (줄 전체에 한 번 매칭)
+	private static final Pattern HEADING_PATTERN = Pattern.compile("(?:"
+		+ "\\d+\\.\\s*.+"                 // "1. 서론"
+		+ "|제\\s*\\d+\\s*장.+"            // "제1장", "제 1 장"
+		+ "|(?i:chapter)\\s+\\d+.+"       // "Chapter 1"
+		+ "|[IVX]+\\.\\s*.+"              // "I. Introduction"
+		+ "|\\d+-\\d+.+"                  // "1-1 개념"
+		+ "|\\[.*\\]"                     // "[단원명]"
+		+ "|\\d+\\)\\s*.+"                // "1) 제목"
+		+ "|[가-힣]{1,10}\\s*\\d+"         // "단원 1"
+		+ ")");
+
+	private static final double CANDIDATE_RATIO = 1.4;  // 본문보다 이만큼 크면 제목 후보 (패턴이 맞을 때)
+	private static final double LARGE_RATIO = 1.8;      // 패턴 없이도 제목으로 보는 비율
+	private static final double CHAPTER_RATIO = 2.5;    // 대단원 비율
+	private static final double LINE_OVERLAP = 0.5;     // 같은 줄로 볼 세로 겹침 비율 (작은 쪽 높이 기준)
+	private static final double COLUMN_GAP = 2.5;       // 줄 안의 가로 간격이 높이의 이 배수를 넘으면 다른 단
+	private static final double BLOCK_GAP = 1.0;        // 줄 사이 세로 간격이 높이의 이 배수 이내면 같은 블록
+	private static final double BLOCK_HEIGHT_RATIO = 1.25;
+	private static final int MAX_HEADING_LINES = 3;
+	private static final int MAX_TITLE_LENGTH = 255;
+	private static final int MAX_HEIGHT = 2047;
+
+	/**
+	 * 문서 하나의 분석 시작
+	 */
+	public Document begin(UploadedFile uploadedFile) {
+		return new Document(uploadedFile);
+	}
+
+	/**
+	 * 문서 단위 분석 상태 (페이지 순서대로 호출, 스레드 안전하지 않음)
+	 */
+	public static final class Document {
+
+		private final UploadedFile uploadedFile;
+		private final int[] heightHistogram = new int[MAX_HEIGHT + 1];
+		private long heightCount;
+		private final List<DocumentSection> open = new ArrayList<>();
+		private int sectionOrder;
+		private int lastPage;
+
+		private Document(UploadedFile uploadedFile) {
+			this.uploadedFile = uploadedFile;
+		}
+
+		/**
+		 * 페이지 하나 분석
+		 *
+		 * @return 이 페이지에서 새로 시작된 섹션 (끝 페이지는 이후 페이지/finish에서 갱신)
+		 */
+		public List<DocumentSection> page(int pageNumber, PackedWords words) {
+			lastPage = Math.max(lastPage, pageNumber);
+			if (words.isEmpty()) {
+				return List.of();
+			}
+
+			// 좌표가 없는 단어는 위치를 알 수 없으므로 줄/크기 판단에서 뺀다
+			for (int i = 0; i < words.size(); i++) {
+				if (words.hasBox(i)) {
+					heightHistogram[Math.min(MAX_HEIGHT, Math.max(1, bottom(words, i) - top(words, i)))]++;
+					heightCount++;
+				}
+			}
+			if (heightCount == 0) {
+				return List.of();
+			}
+			double bodyHeight = medianHeight();
+
+			List<DocumentSection> opened = new ArrayList<>();
+			boolean contentAbove = false;
+			for (Block block : blocks(lines(words))) {
+				double ratio = block.height() / bodyHeight;
+				if (ratio >= CANDIDATE_RATIO && block.lines.size() <= MAX_HEADING_LINES) {
+					String title = block.text();
+					if (!title.isEmpty() && title.length() <= MAX_TITLE_LENGTH
+						&& (ratio >= LARGE_RATIO || HEADING_PATTERN.matcher(title).matches())) {
+						int level = levelOf(ratio);
+						// 페이지 맨 위 제목이면 이전 섹션은 앞 페이지에서 끝남
+						close(level, contentAbove ? pageNumber : pageNumber - 1);
+
+						DocumentSection section = DocumentSection.builder()
+							.uploadedFile(uploadedFile)
+							.title(title)
+							.level(level)
+							.startPage(pageNumber)
+							.endPage(pageNumber)
+							.fontSize((int)Math.round(block.height()))
+							.sectionOrder(sectionOrder++)
+							.source(SectionSource.OCR)
+							.build();
+						open.add(section);
+						opened.add(section);
+
+						log.debug("Heading: '{}' (Level: {}, Page: {}, Size: {}, ratio: {})", title, level, pageNumber,
+							section.getFontSize(), ratio);
+					}
+				}
+				contentAbove = true;
+			}
+			return opened;
+		}
+
+		/**
+		 * 남은 섹션을 마지막 페이지에서 닫기
+		 */
+		public void finish() {
+			close(Integer.MIN_VALUE, lastPage);
+		}
+
+		private void close(int level, int endPage) {
+			Iterator<DocumentSection> iterator = open.iterator();
+			while (iterator.hasNext()) {
+				DocumentSection section = iterator.next();
+				if (section.getLevel() >= level) {
+					section.updateEndPage(Math.max(section.getStartPage(), endPage));
+					iterator.remove();
+				}
+			}
+		}
+
+		private double medianHeight() {
+			long half = (heightCount + 1) / 2;
+			long seen = 0;
+			for (int height = 1; height <= MAX_HEIGHT; height++) {
+				seen += heightHistogram[height];
+				if (seen >= half) {
+					return height;
+				}
+			}
+			return MAX_HEIGHT;
+		}
+	}
+
+	// ===== 줄/블록 묶기 =====
+
+	/**
+	 * 위쪽 Y 순으로 훑으며 세로로 겹치는 단어를 띠로 모은 뒤, 띠 안을 X 순으로 정렬해 단 간격에서 자른다
+	 */
+	private static List<Line> lines(PackedWords words) {
+		long[] byTop = new long[words.size()];
+		int count = 0;
+		for (int i = 0; i < words.size(); i++) {
+			if (words.hasBox(i)) {
+				byTop[count++] = ((long)top(words, i) << 32) | i;
+			}
+		}
+		byTop = Arrays.copyOf(byTop, count);
+		Arrays.sort(byTop);
+
+		List<Line> lines = new ArrayList<>();
+		List<Integer> band = new ArrayList<>();
+		int bandTop = 0;
+		int bandBottom = 0;
+		for (long key : byTop) {
+			int index = (int)key;
+			int top = top(words, index);
+			int bottom = bottom(words, index);
+			if (!band.isEmpty()) {
+				int overlap = Math.min(bandBottom, bottom) - Math.max(bandTop, top);
+				int smaller = Math.min(bandBottom - bandTop, bottom - top);
+				if (overlap < LINE_OVERLAP * Math.max(1, smaller)) {
+					splitColumns(words, band, lines);
+					band.clear();
+				}
+			}
+			if (band.isEmpty()) {
+				bandTop = top;
+				bandBottom = bottom;
+			} else {
+				bandBottom = Math.max(bandBottom, bottom);
+			}
+			band.add(index);
+		}
+		if (!band.isEmpty()) {
+			splitColumns(words, band, lines);
+		}
+		return lines;
+	}
+
+	private static void splitColumns(PackedWords words, List<Integer> band, List<Line> lines) {
+		band.sort((a, b) -> Integer.compare(left(words, a), left(words, b)));
+
+		int[] heights = new int[band.size()];
+		for (int i = 0; i < band.size(); i++) {
+			heights[i] = bottom(words, band.get(i)) - top(words, band.get(i));
+		}
+		double maxGap = COLUMN_GAP * Math.max(1, median(heights));
+
+		Line line = null;
+		for (int index : band) {
+			if (line != null && left(words, index) - line.right > maxGap) {
+				lines.add(line.seal());
+				line = null;
+			}
+			if (line == null) {
+				line = new Line();
+			}
+			line.add(words, index);
+		}
+		lines.add(line.seal());
+	}
+
+	/**
+	 * 위에서부터 줄을 이어 붙일 블록 찾기 (가로로 겹치고, 바로 아래이고, 높이가 비슷하면 같은 블록)
+	 */
+	private static List<Block> blocks(List<Line> lines) {
+		lines.sort((a, b) -> Integer.compare(a.top, b.top));
+
+		List<Block> blocks = new ArrayList<>();
+		for (Line line : lines) {
+			Block target = null;
+			for (int i = blocks.size() - 1; i >= 0 && target == null; i--) {
+				Block block = blocks.get(i);
+				Line last = block.last();
+				double height = Math.min(last.height, line.height);
+				boolean overlapsX = line.left < block.right && line.right > block.left;
+				boolean close = line.top - last.bottom <= BLOCK_GAP * height;
+				boolean similar = Math.max(last.height, line.height) <= BLOCK_HEIGHT_RATIO * Math.max(1, height);
+				if (overlapsX && close && similar) {
+					target = block;
+				}
+			}
+			if (target == null) {
+				target = new Block();
+				blocks.add(target);
+			}
+			target.add(line);
+		}
+		return blocks;
+	}
+
+	private static int levelOf(double ratio) {
+		if (ratio >= CHAPTER_RATIO) {
+			return 1; // 대단원
+		} else if (ratio >= LARGE_RATIO) {
+			return 2; // 중단원
+		} else {
+			return 3; // 소단원
+		}
+	}
+
+	private static int top(PackedWords words, int i) {
+		return Math.min(words.y1(i), words.y2(i));
+	}
+
+	private static int bottom(PackedWords words, int i) {
+		return Math.max(words.y3(i), words.y4(i));
+	}
+
+	private static int left(PackedWords words, int i) {
+		return Math.min(words.x1(i), words.x4(i));
+	}
+
+	private static int right(PackedWords words, int i) {
+		return Math.max(words.x2(i), words.x3(i));
+	}
+
+	private static double median(int[] values) {
+		int[] sorted = values.clone();
+		Arrays.sort(sorted);
+		int mid = sorted.length / 2;
+		return sorted.length % 2 == 1 ? sorted[mid] : (sorted[mid - 1] + sorted[mid]) / 2.0;
+	}
+
+	/**
+	 * 한 줄 (X 순 단어)
+	 */
+	private static final class Line {
+		private final StringBuilder text = new StringBuilder();
+		private final List<Integer> heights = new ArrayList<>();
+		private int top = Integer.MAX_VALUE;
+		private int bottom = Integer.MIN_VALUE;
+		private int left = Integer.MAX_VALUE;
+		private int right = Integer.MIN_VALUE;
+		private double height;
+
+		void add(PackedWords words, int i) {
+			String word = words.text(i).trim();
+			if (!word.isEmpty()) {
+				if (!text.isEmpty()) {
+					text.append(' ');
+				}
+				text.append(word);
+			}
+			top = Math.min(top, top(words, i));
+			bottom = Math.max(bottom, bottom(words, i));
+			left = Math.min(left, left(words, i));
+			right = Math.max(right, right(words, i));
+			heights.add(bottom(words, i) - top(words, i));
+		}
+
+		Line seal() {
+			height = median(heights.stream().mapToInt(Integer::intValue).toArray());
+			return this;
+		}
+	}
+
+	/**
+	 * 이어지는 줄 묶음 (여러 줄 제목 포함)
+	 */
+	private static final class Block {
+		private final List<Line> lines = new ArrayList<>();
+		private int left = Integer.MAX_VALUE;
+		private int right = Integer.MIN_VALUE;
+
+		void add(Line line) {
+			lines.add(line);
+			left = Math.min(left, line.left);
+			right = Math.max(right, line.right);
+		}
+
+		Line last() {
+			return lines.get(lines.size() - 1);
+		}
+
+		double height() {
+			double sum = 0;
+			for (Line line : lines) {
+				sum += line.height;
+			}
+			return sum / lines.size();
+		}
+
+		String text() {
+			StringBuilder text = new StringBuilder();
+			for (Line line : lines) {
+				if (!line.text.isEmpty()) {
+					if (!text.isEmpty()) {
+						text.append(' ');
+					}
+					text.append(line.text);
+				}
+			}
+			return text.toString();
+		}
+	}
+}
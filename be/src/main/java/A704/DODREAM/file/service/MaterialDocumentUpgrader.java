@@ -0,0 +1,229 @@
+package A704.DODREAM.file.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import A704.DODREAM.file.dto.MaterialDocument;
+import A704.DODREAM.file.dto.MaterialDocument.Chapter;
+import A704.DODREAM.file.dto.MaterialDocument.ChapterType;
+import A704.DODREAM.file.dto.MaterialDocument.ConceptCheck;
+import A704.DODREAM.file.dto.MaterialDocument.Heading;
+import A704.DODREAM.file.dto.MaterialDocument.Layout;
+import A704.DODREAM.file.dto.MaterialDocument.QuestionAnswer;
+import A704.DODREAM.global.exception.CustomException;
+import A704.DODREAM.global.exception.constant.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 자료 JSON → {@link MaterialDocument} 변환
+ * <p>
+ * 구조 판별(parsedData.data / data / chapters)과 문자열로 들어온 JSON 파싱은 여기서 한 번만 수행한다.
+ * 결과는 {@link ParsedJsonStore}의 캐시 항목에 붙어 같은 버전의 객체에 대해 다시 계산하지 않는다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MaterialDocumentUpgrader {
+
+	private final ObjectMapper objectMapper;
+
+	@SuppressWarnings("unchecked")
+	public MaterialDocument upgrade(Map<String, Object> json) {
+		// 이미 표준 구조
+		if (json.get("schemaVersion") instanceof Number version) {
+			if (version.intValue() > MaterialDocument.CURRENT_VERSION) {
+				throw new IllegalStateException("지원하지 않는 schemaVersion: " + version);
+			}
+			return objectMapper.convertValue(json, MaterialDocument.class);
+		}
+
+		// 패턴 1: parsedData.data (이전 구조)
+		if (json.get("parsedData") instanceof Map<?, ?> parsedData && parsedData.get("data") instanceof List<?>) {
+			return fromParsed((Map<String, Object>)parsedData);
+		}
+		// 패턴 2: data (파싱 결과)
+		if (json.get("data") instanceof List<?>) {
+			return fromParsed(json);
+		}
+		// 패턴 3: chapters (발행 결과)
+		if (json.get("chapters") instanceof List<?>) {
+			return fromPublished(json);
+		}
+
+		log.error("❌ 알 수 없는 자료 JSON 구조: keys={}", json.keySet());
+		throw new CustomException(ErrorCode.INVALID_JSON_STRUCTURE);
+	}
+
+	// ===== 파싱 결과 (data) =====
+
+	private MaterialDocument fromParsed(Map<String, Object> parsed) {
+		List<Chapter> chapters = new ArrayList<>();
+		for (Map<String, Object> item : maps(parsed.get("data"))) {
+			List<Heading> headings = headings(item.get("titles"), 0);
+			List<ConceptCheck> conceptChecks = conceptChecks(item.get("concept_checks"));
+
+			chapters.add(new Chapter(
+				text(item.get("index")),
+				text(item.get("index_title")),
+				conceptChecks.isEmpty() ? ChapterType.CONTENT : ChapterType.QUIZ,
+				parsedSections(headings, !conceptChecks.isEmpty()),
+				null,
+				headings,
+				conceptChecks,
+				List.of()));
+		}
+		return new MaterialDocument(MaterialDocument.CURRENT_VERSION, Layout.PARSED, strings(parsed.get("indexes")),
+			List.copyOf(chapters));
+	}
+
+	private static final String[] HEADING_FIELDS = {"title", "s_title", "ss_title"};
+	private static final String[] CHILD_FIELDS = {"s_titles", "ss_titles", null};
+
+	/**
+	 * titles → s_titles → ss_titles 를 한 가지 Heading 트리로
+	 */
+	private List<Heading> headings(Object value, int depth) {
+		List<Heading> headings = new ArrayList<>();
+		for (Map<String, Object> item : maps(value)) {
+			String childField = CHILD_FIELDS[depth];
+			headings.add(new Heading(
+				text(item.get(HEADING_FIELDS[depth])),
+				text(item.get("contents")),
+				childField != null ? headings(item.get(childField), depth + 1) : List.of()));
+		}
+		return List.copyOf(headings);
+	}
+
+	/**
+	 * 섹션 수: title, s_title, ss_title 각각 1 섹션 (개념 Check는 제외)
+	 * 퀴즈만 있는 챕터는 0, 콘텐츠가 있으면 최소 1
+	 */
+	private int parsedSections(List<Heading> titles, boolean hasConceptChecks) {
+		int count = 0;
+		for (Heading title : titles) {
+			count++;
+			for (Heading sTitle : title.children()) {
+				count += 1 + sTitle.children().size();
+			}
+		}
+		if (count == 0 && hasConceptChecks) {
+			return 0;
+		}
+		return Math.max(1, count);
+	}
+
+	private List<ConceptCheck> conceptChecks(Object value) {
+		List<ConceptCheck> conceptChecks = new ArrayList<>();
+		if (!(value instanceof List<?> list)) {
+			return List.of();
+		}
+		for (Object element : list) {
+			Map<String, Object> conceptCheck = asMap(element);
+			if (conceptCheck != null) {
+				conceptChecks.add(new ConceptCheck(text(conceptCheck.get("title")),
+					questions(conceptCheck.get("questions"))));
+			}
+		}
+		return List.copyOf(conceptChecks);
+	}
+
+	// ===== 발행 결과 (chapters) =====
+
+	private MaterialDocument fromPublished(Map<String, Object> published) {
+		List<Chapter> chapters = new ArrayList<>();
+		for (Map<String, Object> item : maps(published.get("chapters"))) {
+			boolean quiz = "quiz".equals(item.get("type"));
+			chapters.add(new Chapter(
+				text(item.get("id")),
+				text(item.get("title")),
+				quiz ? ChapterType.QUIZ : ChapterType.CONTENT,
+				quiz ? 0 : 1,
+				text(item.get("content")),
+				List.of(),
+				List.of(),
+				questions(item.get("qa"))));
+		}
+		return new MaterialDocument(MaterialDocument.CURRENT_VERSION, Layout.PUBLISHED,
+			strings(published.get("indexes")), List.copyOf(chapters));
+	}
+
+	// ===== 공통 =====
+
+	/**
+	 * 문항 목록 (배열 / JSON 문자열 / 문항별 JSON 문자열 모두 허용)
+	 */
+	private List<QuestionAnswer> questions(Object value) {
+		Object list = value;
+		if (value instanceof String json) {
+			try {
+				list = objectMapper.readValue(json, List.class);
+			} catch (JsonProcessingException e) {
+				log.warn("⚠️ questions JSON 파싱 실패: {}", e.getMessage());
+				return List.of();
+			}
+		}
+		if (!(list instanceof List<?> elements)) {
+			return List.of();
+		}
+
+		List<QuestionAnswer> questions = new ArrayList<>(elements.size());
+		for (Object element : elements) {
+			Map<String, Object> question = asMap(element);
+			if (question != null) {
+				questions.add(new QuestionAnswer(text(question.get("question")), text(question.get("answer"))));
+			}
+		}
+		return List.copyOf(questions);
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<String, Object> asMap(Object value) {
+		if (value instanceof Map<?, ?> map) {
+			return (Map<String, Object>)map;
+		}
+		if (value instanceof String json) {
+			try {
+				return objectMapper.readValue(json, Map.class);
+			} catch (JsonProcessingException e) {
+				log.warn("⚠️ 문자열 JSON 파싱 실패: {}", e.getMessage());
+			}
+		}
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Map<String, Object>> maps(Object value) {
+		if (!(value instanceof List<?> list)) {
+			return List.of();
+		}
+		List<Map<String, Object>> maps = new ArrayList<>(list.size());
+		for (Object element : list) {
+			if (element instanceof Map<?, ?> map) {
+				maps.add((Map<String, Object>)map);
+			}
+		}
+		return maps;
+	}
+
+	private static List<String> strings(Object value) {
+		if (!(value instanceof List<?> list)) {
+			return List.of();
+		}
+		List<String> strings = new ArrayList<>(list.size());
+		for (Object element : list) {
+			strings.add(String.valueOf(element));
+		}
+		return List.copyOf(strings);
+	}
+
+	private static String text(Object value) {
+		return value != null ? value.toString() : null;
+	}
+}
@@ -1,12 +1,17 @@
 package A704.DODREAM.file.service;
 
-import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,6 +23,7 @@ import A704.DODREAM.file.entity.UploadedFile;
 import A704.DODREAM.file.repository.UploadedFileRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
 
 @Slf4j
 @Service
@@ -25,20 +31,25 @@ import lombok.extern.slf4j.Slf4j;
 public class OcrProcessService {
 
 	private final PdfProcessService pdfProcessService;
-	private final ClovaOcrService clovaOcrService;
+	private final ParallelOcrService parallelOcrService;
+	private final PdfTextLayerService pdfTextLayerService;
 	private final FileStorageService fileStorageService;
 	private final UploadedFileRepository uploadedFileRepository;
 	private final CloudFrontService cloudFrontService;
 	private final HeadingDetectionService headingDetectionService;
 
+	// packed = 페이지당 단어 블롭 하나 (ocr_pages.packed_words), rows = 단어마다 ocr_words 행
+	@Value("${ocr.word-storage:packed}")
+	private String wordStorage;
+
 	/**
-	 * 비동기로 OCR 프로세스 실행 (S3/CloudFront 사용)
+	 * OCR 프로세스 실행 (S3/CloudFront 사용) - OCR_S3 작업 워커에서 호출
 	 * 새로운 플로우: CloudFront에서 파일 다운로드 → OCR 처리
+	 * 실패 시 예외를 던져 트랜잭션을 롤백하고, 작업 큐가 백오프 후 재시도한다.
 	 */
-	@Async
 	@Transactional
-	public void processOcrAsyncFromS3(Long fileId) {
-		log.info("Starting async OCR process from S3 for file ID: {}", fileId);
+	public void processOcrFromS3(Long fileId) {
+		log.info("Starting OCR process from S3 for file ID: {}", fileId);
 
 		UploadedFile uploadedFile = uploadedFileRepository.findById(fileId)
 			.orElseThrow(() -> new RuntimeException("File not found: " + fileId));
@@ -47,9 +58,6 @@ public class OcrProcessService {
 			throw new RuntimeException("S3 key not found for file ID: " + fileId);
 		}
 
-		Path tempPdfFile = null;
-		List<File> imageFiles = null;
-
 		try {
 			// 상태 업데이트: PROCESSING
 			uploadedFile.updateOcrStatus(OcrStatus.PROCESSING);
@@ -59,47 +67,21 @@ public class OcrProcessService {
 			log.info("Step 1: Downloading PDF from CloudFront - S3 Key: {}", uploadedFile.getS3Key());
 			byte[] pdfBytes = cloudFrontService.downloadFile(uploadedFile.getS3Key());
 
-			// 2. 임시 파일로 저장
-			tempPdfFile = Files.createTempFile("ocr-", ".pdf");
-			Files.write(tempPdfFile, pdfBytes);
-			log.info("PDF downloaded and saved to temp file: {}", tempPdfFile);
-
-			// 3. PDF를 이미지로 변환
-			log.info("Step 2: Converting PDF to images");
-			imageFiles = pdfProcessService.convertPdfToImages(tempPdfFile.toFile());
-
-			// 4. 각 페이지를 OCR 처리
-			log.info("Step 3: Processing {} pages with OCR", imageFiles.size());
-			for (int i = 0; i < imageFiles.size(); i++) {
-				File imageFile = imageFiles.get(i);
-				int pageNumber = i + 1;
-
-				try {
-					// OCR 실행
-					PageOcrResult pageResult = clovaOcrService.processImage(imageFile, pageNumber);
+			log.info("PDF downloaded: {} bytes", pdfBytes.length);
 
-					// 결과를 DB에 저장
-					saveOcrResult(uploadedFile, pageResult);
+			// 2. 텍스트 레이어 추출, 텍스트가 없는 페이지만 메모리에서 렌더링하면서 OCR 처리 (병렬, 속도 제한)
+			log.info("Step 2: Extracting text layer and processing image pages with OCR");
+			HeadingDetectionService.Detection detection = headingDetectionService.start(uploadedFile);
+			// 결과를 DB에 저장 (페이지 순서대로), 저장하는 대로 제목 감지 (실패해도 OCR은 계속)
+			savePages(uploadedFile, pdfTextLayerService.extract(pdfBytes),
+				(pages, dpi) -> pdfProcessService.renderPages(pdfBytes, pages, dpi), detection::accept);
 
-					log.info("Page {} OCR completed", pageNumber);
-
-				} catch (Exception e) {
-					log.error("Failed to process page {}: {}", pageNumber, e.getMessage(), e);
-					// 페이지 하나 실패해도 계속 진행
-				}
-			}
-
-			// 5. 제목 및 섹션 감지
-			log.info("Step 4: Detecting headings and creating sections");
-			try {
-				headingDetectionService.detectAndCreateSections(uploadedFile);
-				log.info("Heading detection completed for file ID: {}", fileId);
-			} catch (Exception e) {
-				log.error("Heading detection failed for file ID {}: {}", fileId, e.getMessage(), e);
-				// 제목 감지 실패해도 OCR은 완료로 처리
-			}
+			// 3. 섹션 끝 페이지 확정 (제목 감지 실패해도 OCR은 완료로 처리)
+			log.info("Step 3: Closing detected sections");
+			detection.finish();
+			log.info("Heading detection completed for file ID: {}", fileId);
 
-			// 6. 상태 업데이트: COMPLETED
+			// 4. 상태 업데이트: COMPLETED
 			uploadedFile.updateOcrStatus(OcrStatus.COMPLETED);
 			uploadedFileRepository.save(uploadedFile);
 
@@ -107,74 +89,37 @@ public class OcrProcessService {
 
 		} catch (Exception e) {
 			log.error("OCR process failed for file ID {}: {}", fileId, e.getMessage(), e);
-			uploadedFile.setError(e.getMessage());
-			uploadedFileRepository.save(uploadedFile);
-
-		} finally {
-			// 6. 임시 파일 정리
-			if (tempPdfFile != null) {
-				try {
-					Files.deleteIfExists(tempPdfFile);
-					log.info("Temp PDF file deleted");
-				} catch (IOException e) {
-					log.warn("Failed to delete temp PDF file: {}", tempPdfFile, e);
-				}
-			}
-
-			if (imageFiles != null) {
-				for (File imageFile : imageFiles) {
-					fileStorageService.deleteTempFile(imageFile);
-				}
-				log.info("Temp image files cleaned up");
-			}
+			// 최종 실패 시 파일 상태(FAILED)는 작업 큐에서 기록
+			throw new RuntimeException("OCR 처리 실패: " + e.getMessage(), e);
 		}
 	}
 
 	/**
-	 * 비동기로 OCR 프로세스 실행 (로컬 파일 시스템 사용)
+	 * OCR 프로세스 실행 (로컬 파일 시스템 사용) - OCR_LOCAL 작업 워커에서 호출
 	 * 기존 플로우: 로컬 파일 시스템에서 파일 읽기 → OCR 처리
 	 */
-	@Async
 	@Transactional
-	public void processOcrAsync(Long fileId) {
-		log.info("Starting async OCR process for file ID: {}", fileId);
+	public void processOcr(Long fileId) {
+		log.info("Starting OCR process for file ID: {}", fileId);
 
 		UploadedFile uploadedFile = uploadedFileRepository.findById(fileId)
 			.orElseThrow(() -> new RuntimeException("File not found: " + fileId));
 
-		List<File> imageFiles = null;
-
 		try {
 			// 상태 업데이트: PROCESSING
 			uploadedFile.updateOcrStatus(OcrStatus.PROCESSING);
 			uploadedFileRepository.save(uploadedFile);
 
-			// 1. PDF를 이미지로 변환
-			log.info("Step 1: Converting PDF to images - File ID: {}", fileId);
-			imageFiles = pdfProcessService.convertPdfToImages(uploadedFile.getStoredFileName());
-
-			// 2. 각 페이지를 OCR 처리
-			log.info("Step 2: Processing {} pages with OCR", imageFiles.size());
-			for (int i = 0; i < imageFiles.size(); i++) {
-				File imageFile = imageFiles.get(i);
-				int pageNumber = i + 1;
+			// 1. 텍스트 레이어 추출, 텍스트가 없는 페이지만 메모리에서 렌더링하면서 OCR 처리 (병렬, 속도 제한)
+			log.info("Step 1: Extracting text layer and processing image pages with OCR - File ID: {}", fileId);
+			String storedFileName = uploadedFile.getStoredFileName();
+			PdfTextLayerService.TextLayer textLayer = pdfTextLayerService.extract(
+				fileStorageService.getFilePath(storedFileName).toFile());
+			// 결과를 DB에 저장 (페이지 순서대로, 제목 감지 없음)
+			savePages(uploadedFile, textLayer, (pages, dpi) -> pdfProcessService.renderPages(storedFileName, pages, dpi),
+				(pageNumber, words) -> {});
 
-				try {
-					// OCR 실행
-					PageOcrResult pageResult = clovaOcrService.processImage(imageFile, pageNumber);
-
-					// 결과를 DB에 저장
-					saveOcrResult(uploadedFile, pageResult);
-
-					log.info("Page {} OCR completed", pageNumber);
-
-				} catch (Exception e) {
-					log.error("Failed to process page {}: {}", pageNumber, e.getMessage(), e);
-					// 페이지 하나 실패해도 계속 진행
-				}
-			}
-
-			// 3. 상태 업데이트: COMPLETED
+			// 2. 상태 업데이트: COMPLETED
 			uploadedFile.updateOcrStatus(OcrStatus.COMPLETED);
 			uploadedFileRepository.save(uploadedFile);
 
@@ -182,33 +127,76 @@ public class OcrProcessService {
 
 		} catch (Exception e) {
 			log.error("OCR process failed for file ID {}: {}", fileId, e.getMessage(), e);
-			uploadedFile.setError(e.getMessage());
-			uploadedFileRepository.save(uploadedFile);
+			// 최종 실패 시 파일 상태(FAILED)는 작업 큐에서 기록
+			throw new RuntimeException("OCR 처리 실패: " + e.getMessage(), e);
+		}
+	}
 
-		} finally {
-			// 4. 임시 파일 정리
-			if (imageFiles != null) {
-				for (File imageFile : imageFiles) {
-					fileStorageService.deleteTempFile(imageFile);
+	/**
+	 * 페이지 결과를 페이지 순서대로 저장: 텍스트 레이어가 있는 페이지는 그대로, 이미지 페이지는 OCR이 끝나는 대로
+	 * 신뢰도가 낮은 OCR 페이지는 모든 페이지를 저장한 뒤 높은 DPI로 다시 인식하고, 나아진 결과로 저장한 내용만 바꾼다.
+	 * (onSaved는 첫 결과로 한 번씩만 호출)
+	 *
+	 * @param renderer: (페이지 번호 목록, DPI) → 렌더링된 페이지
+	 * @param onSaved:  (페이지 번호, 저장한 단어) → 저장하는 대로 호출 (제목 감지)
+	 */
+	private void savePages(UploadedFile uploadedFile, PdfTextLayerService.TextLayer textLayer,
+		BiFunction<List<Integer>, Integer, Flux<PdfProcessService.PageImage>> renderer,
+		BiConsumer<Integer, PackedWords> onSaved) {
+		Map<Integer, OcrPage> saved = new HashMap<>();
+		Consumer<PageOcrResult> save = pageResult -> {
+			OcrPage ocrPage = OcrPage.builder()
+				.pageNumber(pageResult.getPageNumber())
+				.build();
+			uploadedFile.addOcrPage(ocrPage);
+			saved.put(pageResult.getPageNumber(), ocrPage);
+			onSaved.accept(pageResult.getPageNumber(), writeOcrResult(ocrPage, pageResult));
+		};
+
+		Deque<PageOcrResult> textPages = new ArrayDeque<>(textLayer.pages().stream()
+			.sorted(Comparator.comparing(PageOcrResult::getPageNumber))
+			.toList());
+		List<PageOcrResult> lowConfidence = new ArrayList<>();
+		if (!textLayer.imagePages().isEmpty()) {
+			for (PageOcrResult pageResult : parallelOcrService.recognize(
+				renderer.apply(textLayer.imagePages(), pdfProcessService.getBaseDpi())).toIterable()) {
+				while (!textPages.isEmpty() && textPages.peek().getPageNumber() < pageResult.getPageNumber()) {
+					save.accept(textPages.poll());
+				}
+				save.accept(pageResult);
+				if (parallelOcrService.isLowConfidence(pageResult)) {
+					lowConfidence.add(pageResult);
 				}
-				log.info("Temp files cleaned up");
+			}
+		}
+		textPages.forEach(save);
+
+		// 후속 단계: 신뢰도가 낮았던 페이지 재인식
+		if (!lowConfidence.isEmpty()) {
+			for (PageOcrResult retried : parallelOcrService.rerecognize(lowConfidence,
+				lowPages -> renderer.apply(lowPages, pdfProcessService.getRetryDpi()))) {
+				writeOcrResult(saved.get(retried.getPageNumber()), retried);
 			}
 		}
 	}
 
 	/**
-	 * OCR 결과를 DB에 저장
+	 * OCR 결과를 페이지에 기록 (ocr.word-storage에 따라 패킹 블롭 또는 단어 행, 다시 기록하면 교체)
+	 *
+	 * @return 페이지 단어 (제목 감지용)
 	 */
-	private void saveOcrResult(UploadedFile uploadedFile, PageOcrResult pageResult) {
-		// OcrPage 생성
-		OcrPage ocrPage = OcrPage.builder()
-			.pageNumber(pageResult.getPageNumber())
-			.fullText(pageResult.getFullText())
-			.build();
-
-		uploadedFile.addOcrPage(ocrPage);
+	private PackedWords writeOcrResult(OcrPage ocrPage, PageOcrResult pageResult) {
+		ocrPage.setFullText(pageResult.getFullText());
+
+		// 단어 패킹: 페이지당 블롭 하나 (단어별 INSERT 없음)
+		byte[] packedWords = PackedWords.encode(pageResult.getWords());
+		if (!"rows".equalsIgnoreCase(wordStorage)) {
+			ocrPage.setPackedWords(packedWords, pageResult.getWords().size());
+			return PackedWords.read(packedWords);
+		}
 
 		// OcrWord 생성
+		ocrPage.clearWords();
 		for (PageOcrResult.WordInfo wordInfo : pageResult.getWords()) {
 			OcrWord ocrWord = OcrWord.builder()
 				.text(wordInfo.getText())
@@ -226,5 +214,6 @@ public class OcrProcessService {
 
 			ocrPage.addWord(ocrWord);
 		}
+		return PackedWords.read(packedWords);
 	}
-}
\ No newline at end of file
+}
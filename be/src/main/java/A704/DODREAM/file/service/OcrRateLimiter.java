@@ -0,0 +1,71 @@
+package A704.DODREAM.file.service;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Clova OCR 호출 속도 제한 (토큰 버킷)
+ * <p>
+ * 초당 ratePerSecond개씩 토큰이 차고 최대 burst개까지 쌓인다. 토큰이 없으면 스레드를 막지 않고
+ * 다음 토큰이 찰 때까지 지연한 뒤 진행한다. 대기 순서대로 미리 예약하므로 동시에 몰려도 속도가 넘지 않는다.
+ * 노드별 제한이라 여러 노드를 띄우면 쿼터를 노드 수로 나눠 설정한다.
+ */
+@Component
+public class OcrRateLimiter {
+
+	private final double ratePerSecond;
+	private final double burst;
+	private final LongSupplier nanoClock;
+
+	private double tokens;
+	private long lastRefillNanos;
+
+	@Autowired
+	public OcrRateLimiter(
+		@Value("${clova.ocr.rate-per-second:5}") double ratePerSecond,
+		@Value("${clova.ocr.burst:5}") int burst) {
+		this(ratePerSecond, burst, System::nanoTime);
+	}
+
+	/**
+	 * @param nanoClock: 현재 시각 (System.nanoTime 단위, 테스트에서 고정 시계 주입)
+	 */
+	OcrRateLimiter(double ratePerSecond, int burst, LongSupplier nanoClock) {
+		this.ratePerSecond = ratePerSecond;
+		this.burst = Math.max(1, burst);
+		this.nanoClock = nanoClock;
+		this.tokens = this.burst;
+		this.lastRefillNanos = nanoClock.getAsLong();
+	}
+
+	/**
+	 * 토큰 하나 획득 (필요하면 지연 후 완료)
+	 */
+	public Mono<Void> acquire() {
+		return Mono.defer(() -> {
+			long waitNanos = reserve();
+			return waitNanos == 0 ? Mono.empty() : Mono.delay(Duration.ofNanos(waitNanos)).then();
+		});
+	}
+
+	/**
+	 * 토큰 하나 예약 (모자라면 빚으로 달고 갚을 때까지의 대기 시간 반환)
+	 */
+	synchronized long reserve() {
+		long now = nanoClock.getAsLong();
+		tokens = Math.min(burst, tokens + (now - lastRefillNanos) / 1_000_000_000.0 * ratePerSecond);
+		lastRefillNanos = now;
+
+		tokens -= 1;
+		if (tokens >= 0) {
+			return 0;
+		}
+		return (long)(-tokens / ratePerSecond * 1_000_000_000L);
+	}
+}
@@ -0,0 +1,152 @@
+package A704.DODREAM.file.service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Service;
+
+import A704.DODREAM.file.dto.PageOcrResult;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 페이지 이미지 지문(SHA-256) 기준 OCR 결과 캐시 (Redis)
+ * <p>
+ * 표지·부록·답안지 양식처럼 책마다 같은 페이지와, 일부 페이지 실패 후 다시 처리하는 작업이 이미 인식한 페이지를
+ * Clova로 다시 보내지 않도록 한다. 조회는 속도 제한 토큰을 받기 전에 한다.
+ * <p>
+ * - 값: "Base64(PackedWords)\n페이지 전체 텍스트", 좌표는 렌더링 DPI 그대로 (환산 전)
+ * - 크기 제한: 최근 사용 시각 ZSET으로 max-entries를 넘으면 가장 오래 안 쓴 항목부터 삭제, 항목마다 TTL
+ * - Redis 장애 시 캐시 없이 Clova로 인식한다.
+ */
+@Slf4j
+@Service
+public class OcrResultCache {
+
+	private static final String KEY_PREFIX = "ocr-result:";
+	private static final String LRU_KEY = "ocr-result:lru";
+
+	private final StringRedisTemplate redis;
+	private final long maxEntries;
+	private final Duration ttl;
+
+	public OcrResultCache(
+		StringRedisTemplate redis,
+		@Value("${cache.ocr-result.max-entries:50000}") long maxEntries,
+		@Value("${cache.ocr-result.ttl-days:30}") long ttlDays) {
+		this.redis = redis;
+		this.maxEntries = maxEntries;
+		this.ttl = Duration.ofDays(ttlDays);
+	}
+
+	/**
+	 * 캐시에 있으면 그 결과, 없으면 loader로 인식한 뒤 저장
+	 *
+	 * @param loader: 캐시 미스일 때만 구독되는 실제 인식 (Clova 호출)
+	 * @return 매번 새로 만든 결과 (호출자가 좌표를 바꿔도 캐시에 영향 없음)
+	 */
+	public Mono<PageOcrResult> cached(byte[] image, int pageNumber, Supplier<Mono<PageOcrResult>> loader) {
+		if (maxEntries <= 0) {
+			return loader.get();
+		}
+		String fingerprint = fingerprint(image);
+		return Mono.fromCallable(() -> get(fingerprint, pageNumber))
+			.subscribeOn(Schedulers.boundedElastic())
+			.doOnNext(result -> log.info("Page {} OCR cache hit", pageNumber))
+			.switchIfEmpty(Mono.defer(loader)
+				.flatMap(result -> put(fingerprint, result).thenReturn(result)));
+	}
+
+	// ===== 내부 =====
+
+	/**
+	 * 조회 (있으면 최근 사용 시각 갱신)
+	 */
+	private PageOcrResult get(String fingerprint, int pageNumber) {
+		String value;
+		try {
+			value = redis.opsForValue().get(KEY_PREFIX + fingerprint);
+			if (value != null) {
+				redis.opsForZSet().add(LRU_KEY, fingerprint, System.currentTimeMillis());
+			}
+		} catch (Exception e) {
+			log.warn("⚠️ OCR 캐시 조회 실패 (Clova로 인식): {}", e.getMessage());
+			return null;
+		}
+		if (value == null) {
+			return null;
+		}
+
+		int newline = value.indexOf('\n');
+		if (newline < 0) {
+			return null;
+		}
+		try {
+			PackedWords words = PackedWords.read(Base64.getDecoder().decode(value.substring(0, newline)));
+			return PageOcrResult.builder()
+				.pageNumber(pageNumber)
+				.fullText(value.substring(newline + 1))
+				.words(words.toWordInfos())
+				.build();
+		} catch (IllegalArgumentException e) {
+			log.warn("⚠️ OCR 캐시 항목 손상 (무시): {}, {}", fingerprint, e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * 저장 후 한도를 넘은 만큼 오래된 항목 삭제
+	 * 값은 호출 시점에 인코딩하므로 이후 결과가 바뀌어도 캐시에는 원본이 남는다.
+	 */
+	private Mono<Void> put(String fingerprint, PageOcrResult result) {
+		List<PageOcrResult.WordInfo> words = result.getWords() != null ? result.getWords() : List.of();
+		String value = Base64.getEncoder().encodeToString(PackedWords.encode(words)) + "\n"
+			+ (result.getFullText() != null ? result.getFullText() : "");
+
+		return Mono.fromRunnable(() -> {
+			try {
+				redis.opsForValue().set(KEY_PREFIX + fingerprint, value, ttl);
+				redis.opsForZSet().add(LRU_KEY, fingerprint, System.currentTimeMillis());
+				evictOverflow();
+			} catch (Exception e) {
+				log.warn("⚠️ OCR 캐시 저장 실패: {}", e.getMessage());
+			}
+		}).subscribeOn(Schedulers.boundedElastic()).then();
+	}
+
+	private void evictOverflow() {
+		Long size = redis.opsForZSet().zCard(LRU_KEY);
+		if (size == null || size <= maxEntries) {
+			return;
+		}
+		Set<ZSetOperations.TypedTuple<String>> evicted = redis.opsForZSet().popMin(LRU_KEY, size - maxEntries);
+		if (evicted == null || evicted.isEmpty()) {
+			return;
+		}
+		List<String> keys = new ArrayList<>(evicted.size());
+		for (ZSetOperations.TypedTuple<String> tuple : evicted) {
+			keys.add(KEY_PREFIX + tuple.getValue());
+		}
+		redis.delete(keys);
+		log.debug("OCR 캐시 {}개 항목 삭제 (한도 {})", keys.size(), maxEntries);
+	}
+
+	private static String fingerprint(byte[] image) {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(image));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
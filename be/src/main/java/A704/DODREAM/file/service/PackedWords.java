@@ -0,0 +1,428 @@
+package A704.DODREAM.file.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import A704.DODREAM.file.dto.PageOcrResult;
+import A704.DODREAM.file.entity.OcrWord;
+
+/**
+ * 페이지 단어 패킹 (ocr_pages.packed_words)
+ * <p>
+ * 단어마다 ocr_words 행을 만드는 대신 페이지 단어 전체를 열(column) 단위 바이너리 하나로 저장한다.
+ * [매직 'W'][버전][단어 수][열 13개 바이트 길이] + 열 본문
+ * - x1, y1: 이전 단어 대비 차분 (zigzag varint)
+ * - x2~x4, y2~y4: 같은 단어의 x1/y1 기준 오프셋 (zigzag varint)
+ * - 신뢰도: 1/10000 단위 정수 (varint), 순서: 이전 단어 대비 차분 (zigzag varint)
+ * - 텍스트: 단어별 UTF-8 길이 열 + 이어 붙인 UTF-8 블록
+ * - 누락: 단어별 값이 없는(null) 필드 비트 (varint, 비트 순서는 열 순서). 누락이 없는 페이지는 길이 0
+ * 누락된 값은 열에 0으로 들어가고, {@link #word}는 null로 되돌린다.
+ * <p>
+ * 읽을 때는 헤더만 해석하고, 각 열은 처음 접근할 때 그 열만 풀어 둔다 (스레드 안전하지 않음).
+ */
+public final class PackedWords {
+
+	private static final byte MAGIC = 'W';
+	private static final byte VERSION = 2;
+	private static final double CONFIDENCE_SCALE = 10_000d;
+
+	private static final int X1 = 0;
+	private static final int Y1 = 1;
+	private static final int X2 = 2;
+	private static final int Y2 = 3;
+	private static final int X3 = 4;
+	private static final int Y3 = 5;
+	private static final int X4 = 6;
+	private static final int Y4 = 7;
+	private static final int CONFIDENCE = 8;
+	private static final int ORDER = 9;
+	private static final int TEXT_LENGTH = 10;
+	private static final int TEXT = 11;
+	private static final int MISSING = 12;
+	private static final int COLUMNS = 13;
+
+	private static final int BOX_MASK = (1 << CONFIDENCE) - 1; // x1~y4
+
+	private final byte[] blob;
+	private final int size;
+	private final int[] offsets = new int[COLUMNS + 1];
+	private final int[][] decoded = new int[TEXT][];
+	private int[] textOffsets;
+	private int[] missing;
+
+	private PackedWords(byte[] blob) {
+		if (blob.length < 2 || blob[0] != MAGIC || blob[1] != VERSION) {
+			throw new IllegalArgumentException("지원하지 않는 단어 패킹 형식입니다.");
+		}
+		int[] cursor = {2};
+		this.blob = blob;
+		this.size = readVarint(blob, cursor);
+
+		int[] lengths = new int[COLUMNS];
+		for (int column = 0; column < COLUMNS; column++) {
+			lengths[column] = readVarint(blob, cursor);
+		}
+		offsets[0] = cursor[0];
+		for (int column = 0; column < COLUMNS; column++) {
+			offsets[column + 1] = offsets[column] + lengths[column];
+		}
+		if (offsets[COLUMNS] > blob.length) {
+			throw new IllegalArgumentException("단어 패킹 데이터가 잘렸습니다.");
+		}
+	}
+
+	/**
+	 * 패킹된 단어 읽기 (헤더만 해석)
+	 */
+	public static PackedWords read(byte[] blob) {
+		return new PackedWords(blob);
+	}
+
+	/**
+	 * OCR 결과 단어 패킹
+	 */
+	public static byte[] encode(List<PageOcrResult.WordInfo> words) {
+		Builder builder = new Builder(words.size());
+		for (PageOcrResult.WordInfo word : words) {
+			builder.add(word.getText(), word.getConfidence(),
+				word.getX1(), word.getY1(), word.getX2(), word.getY2(),
+				word.getX3(), word.getY3(), word.getX4(), word.getY4(),
+				word.getOrder());
+		}
+		return builder.build();
+	}
+
+	/**
+	 * 기존 ocr_words 행 패킹 (행 저장 방식으로 남은 페이지 읽기용)
+	 */
+	public static byte[] encodeRows(List<OcrWord> words) {
+		Builder builder = new Builder(words.size());
+		for (OcrWord word : words) {
+			builder.add(word.getText(), word.getConfidence(),
+				word.getX1(), word.getY1(), word.getX2(), word.getY2(),
+				word.getX3(), word.getY3(), word.getX4(), word.getY4(),
+				word.getWordOrder());
+		}
+		return builder.build();
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public int x1(int index) {
+		return column(X1)[index];
+	}
+
+	public int y1(int index) {
+		return column(Y1)[index];
+	}
+
+	public int x2(int index) {
+		return column(X2)[index];
+	}
+
+	public int y2(int index) {
+		return column(Y2)[index];
+	}
+
+	public int x3(int index) {
+		return column(X3)[index];
+	}
+
+	public int y3(int index) {
+		return column(Y3)[index];
+	}
+
+	public int x4(int index) {
+		return column(X4)[index];
+	}
+
+	public int y4(int index) {
+		return column(Y4)[index];
+	}
+
+	/**
+	 * 네 꼭짓점 좌표가 모두 있는지 (없는 좌표는 0으로 읽힘)
+	 */
+	public boolean hasBox(int index) {
+		return (missing(index) & BOX_MASK) == 0;
+	}
+
+	/**
+	 * 신뢰도가 있는지 (없으면 {@link #confidence}는 0)
+	 */
+	public boolean hasConfidence(int index) {
+		return (missing(index) & (1 << CONFIDENCE)) == 0;
+	}
+
+	/**
+	 * 단어 높이 (우하단 Y - 좌상단 Y)
+	 */
+	public int height(int index) {
+		return y3(index) - y1(index);
+	}
+
+	public double confidence(int index) {
+		return column(CONFIDENCE)[index] / CONFIDENCE_SCALE;
+	}
+
+	public int order(int index) {
+		return column(ORDER)[index];
+	}
+
+	/**
+	 * 단어 텍스트 (해당 단어 바이트만 디코딩)
+	 */
+	public String text(int index) {
+		if (textOffsets == null) {
+			int[] lengths = column(TEXT_LENGTH);
+			int[] starts = new int[size + 1];
+			for (int i = 0; i < size; i++) {
+				starts[i + 1] = starts[i] + lengths[i];
+			}
+			textOffsets = starts;
+		}
+		int start = offsets[TEXT] + textOffsets[index];
+		return new String(blob, start, textOffsets[index + 1] - textOffsets[index], StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * 단어 하나를 DTO로 (응답 변환용, 누락된 값은 null)
+	 */
+	public PageOcrResult.WordInfo word(int index) {
+		int absent = missing(index);
+		return PageOcrResult.WordInfo.builder()
+			.text(text(index))
+			.confidence((absent & (1 << CONFIDENCE)) == 0 ? confidence(index) : null)
+			.x1(orNull(x1(index), absent, X1))
+			.y1(orNull(y1(index), absent, Y1))
+			.x2(orNull(x2(index), absent, X2))
+			.y2(orNull(y2(index), absent, Y2))
+			.x3(orNull(x3(index), absent, X3))
+			.y3(orNull(y3(index), absent, Y3))
+			.x4(orNull(x4(index), absent, X4))
+			.y4(orNull(y4(index), absent, Y4))
+			.order(orNull(order(index), absent, ORDER))
+			.build();
+	}
+
+	public List<PageOcrResult.WordInfo> toWordInfos() {
+		List<PageOcrResult.WordInfo> words = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			words.add(word(i));
+		}
+		return words;
+	}
+
+	// ===== 내부 =====
+
+	/**
+	 * 열 하나를 처음 접근할 때 풀어 둔다
+	 */
+	private int[] column(int column) {
+		int[] values = decoded[column];
+		if (values != null) {
+			return values;
+		}
+
+		values = new int[size];
+		int[] cursor = {offsets[column]};
+		switch (column) {
+			case X1, Y1, ORDER -> {
+				int previous = 0;
+				for (int i = 0; i < size; i++) {
+					previous += unzigzag(readVarint(blob, cursor));
+					values[i] = previous;
+				}
+			}
+			case X2, Y2, X3, Y3, X4, Y4 -> {
+				int[] base = column(column % 2 == 0 ? X1 : Y1);
+				for (int i = 0; i < size; i++) {
+					values[i] = base[i] + unzigzag(readVarint(blob, cursor));
+				}
+			}
+			default -> {
+				for (int i = 0; i < size; i++) {
+					values[i] = readVarint(blob, cursor);
+				}
+			}
+		}
+		decoded[column] = values;
+		return values;
+	}
+
+	/**
+	 * 단어의 누락 필드 비트 (누락 열이 비어 있으면 0)
+	 */
+	private int missing(int index) {
+		if (offsets[MISSING + 1] == offsets[MISSING]) {
+			return 0;
+		}
+		if (missing == null) {
+			int[] values = new int[size];
+			int[] cursor = {offsets[MISSING]};
+			for (int i = 0; i < size; i++) {
+				values[i] = readVarint(blob, cursor);
+			}
+			missing = values;
+		}
+		return missing[index];
+	}
+
+	private static Integer orNull(int value, int absent, int column) {
+		return (absent & (1 << column)) == 0 ? value : null;
+	}
+
+	private static int zigzag(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+
+	private static int unzigzag(int value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private static void writeVarint(ByteArrayOutputStream out, int value) {
+		while ((value & ~0x7F) != 0) {
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	private static int readVarint(byte[] blob, int[] cursor) {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			if (cursor[0] >= blob.length) {
+				throw new IllegalArgumentException("단어 패킹 데이터가 잘렸습니다.");
+			}
+			byte b = blob[cursor[0]++];
+			value |= (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("잘못된 varint입니다.");
+	}
+
+	/**
+	 * 단어를 열 단위 원시 배열에 모았다가 한 번에 인코딩
+	 */
+	public static final class Builder {
+
+		private final int[][] columns = new int[TEXT][];
+		private final ByteArrayOutputStream text;
+		private int[] missing;
+		private boolean anyMissing;
+		private int size;
+
+		public Builder(int capacity) {
+			int initial = Math.max(capacity, 8);
+			for (int column = 0; column < TEXT; column++) {
+				columns[column] = new int[initial];
+			}
+			this.missing = new int[initial];
+			this.text = new ByteArrayOutputStream(initial * 8);
+		}
+
+		/**
+		 * 단어 추가 (null인 값은 누락으로 기록)
+		 */
+		public Builder add(String word, Double confidence, Integer x1, Integer y1, Integer x2, Integer y2,
+			Integer x3, Integer y3, Integer x4, Integer y4, Integer order) {
+			if (size == columns[X1].length) {
+				for (int column = 0; column < TEXT; column++) {
+					columns[column] = Arrays.copyOf(columns[column], size * 2);
+				}
+				missing = Arrays.copyOf(missing, size * 2);
+			}
+			byte[] bytes = (word != null ? word : "").getBytes(StandardCharsets.UTF_8);
+			text.writeBytes(bytes);
+
+			set(X1, x1);
+			set(Y1, y1);
+			set(X2, x2);
+			set(Y2, y2);
+			set(X3, x3);
+			set(Y3, y3);
+			set(X4, x4);
+			set(Y4, y4);
+			set(CONFIDENCE, confidence != null
+				? Integer.valueOf((int)Math.round(Math.max(0d, confidence) * CONFIDENCE_SCALE)) : null);
+			set(ORDER, order);
+			columns[TEXT_LENGTH][size] = bytes.length;
+			size++;
+			return this;
+		}
+
+		private void set(int column, Integer value) {
+			if (value != null) {
+				columns[column][size] = value;
+				return;
+			}
+			columns[column][size] = 0;
+			missing[size] |= 1 << column;
+			anyMissing = true;
+		}
+
+		public byte[] build() {
+			ByteArrayOutputStream[] bodies = new ByteArrayOutputStream[TEXT];
+			for (int column = 0; column < TEXT; column++) {
+				ByteArrayOutputStream body = new ByteArrayOutputStream(size * 2);
+				int[] values = columns[column];
+				switch (column) {
+					case X1, Y1, ORDER -> {
+						int previous = 0;
+						for (int i = 0; i < size; i++) {
+							writeVarint(body, zigzag(values[i] - previous));
+							previous = values[i];
+						}
+					}
+					case X2, Y2, X3, Y3, X4, Y4 -> {
+						int[] base = columns[column % 2 == 0 ? X1 : Y1];
+						for (int i = 0; i < size; i++) {
+							writeVarint(body, zigzag(values[i] - base[i]));
+						}
+					}
+					default -> {
+						for (int i = 0; i < size; i++) {
+							writeVarint(body, values[i]);
+						}
+					}
+				}
+				bodies[column] = body;
+			}
+
+			// 누락이 없으면 열 길이 0
+			ByteArrayOutputStream absent = new ByteArrayOutputStream(anyMissing ? size : 0);
+			if (anyMissing) {
+				for (int i = 0; i < size; i++) {
+					writeVarint(absent, missing[i]);
+				}
+			}
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream(64 + text.size() + size * 16);
+			out.write(MAGIC);
+			out.write(VERSION);
+			writeVarint(out, size);
+			for (ByteArrayOutputStream body : bodies) {
+				writeVarint(out, body.size());
+			}
+			writeVarint(out, text.size());
+			writeVarint(out, absent.size());
+			for (ByteArrayOutputStream body : bodies) {
+				out.writeBytes(body.toByteArray());
+			}
+			out.writeBytes(text.toByteArray());
+			out.writeBytes(absent.toByteArray());
+			return out.toByteArray();
+		}
+	}
+}
@@ -0,0 +1,186 @@
+package A704.DODREAM.file.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import A704.DODREAM.file.dto.PageOcrResult;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+/**
+ * 페이지 단위 병렬 OCR
+ * <p>
+ * 페이지를 최대 parallelism개까지 동시에 Clova로 보내고, 호출마다 {@link OcrRateLimiter} 토큰을 받는다.
+ * 페이지 제한 시간(page-timeout)은 토큰을 받은 뒤 Clova 호출부터 잰다.
+ * 429/5xx/네트워크 오류는 지터를 둔 지수 백오프로 페이지별 재시도한다 (재시도도 토큰을 다시 받음).
+ * 결과는 끝난 순서와 상관없이 페이지 순서대로, 앞 페이지가 끝나는 대로 흘려보낸다. 끝내 실패한 페이지는 빠진다.
+ * <p>
+ * 렌더링(생산)과 OCR(소비)은 크기 render-ahead인 큐로 이어진다. OCR 중에도 다음 페이지를 미리 렌더링하고,
+ * 큐가 차면 렌더링이 멈춘다. 메모리에 동시에 올라가는 이미지는 페이지 수가 아니라 render-ahead + parallelism 개다.
+ * <p>
+ * 같은 이미지를 이미 인식했으면 {@link OcrResultCache}에서 꺼내 쓰고 토큰도 받지 않는다.
+ * 단어 좌표는 렌더링 DPI와 상관없이 {@link PdfProcessService#COORDINATE_DPI} 기준으로 환산한다.
+ * 평균 신뢰도가 낮은 페이지는 전체 인식이 끝난 뒤 후속 단계({@link #rerecognize})에서 높은 DPI로 다시 렌더링해
+ * 한 번 더 인식하고, 더 나아진 결과만 돌려준다.
+ */
+@Slf4j
+@Service
+public class ParallelOcrService {
+
+	private final ClovaOcrService clovaOcrService;
+	private final OcrRateLimiter ocrRateLimiter;
+	private final OcrResultCache ocrResultCache;
+	private final int parallelism;
+	private final int renderAhead;
+	private final int maxRetries;
+	private final Duration retryBackoff;
+	private final Duration pageTimeout;
+	private final double lowConfidence;
+
+	public ParallelOcrService(
+		ClovaOcrService clovaOcrService,
+		OcrRateLimiter ocrRateLimiter,
+		OcrResultCache ocrResultCache,
+		@Value("${clova.ocr.parallelism:4}") int parallelism,
+		@Value("${clova.ocr.render-ahead:2}") int renderAhead,
+		@Value("${clova.ocr.max-retries:3}") int maxRetries,
+		@Value("${clova.ocr.retry-backoff-ms:500}") long retryBackoffMs,
+		@Value("${clova.ocr.page-timeout-seconds:60}") long pageTimeoutSeconds,
+		@Value("${ocr.render.low-confidence:0.85}") double lowConfidence) {
+		this.clovaOcrService = clovaOcrService;
+		this.ocrRateLimiter = ocrRateLimiter;
+		this.ocrResultCache = ocrResultCache;
+		this.parallelism = Math.max(1, parallelism);
+		this.renderAhead = Math.max(1, renderAhead);
+		this.maxRetries = maxRetries;
+		this.retryBackoff = Duration.ofMillis(retryBackoffMs);
+		this.pageTimeout = Duration.ofSeconds(pageTimeoutSeconds);
+		this.lowConfidence = lowConfidence;
+	}
+
+	/**
+	 * 렌더링되는 페이지를 받는 대로 OCR
+	 * 렌더링 실패(문서 오류)는 그대로 에러로 전달한다.
+	 *
+	 * @return 성공한 페이지 결과 (페이지 순서, 앞 페이지가 끝나는 대로 방출)
+	 */
+	public Flux<PageOcrResult> recognize(Flux<PdfProcessService.PageImage> pages) {
+		return Flux.defer(() -> {
+			long startedAt = System.currentTimeMillis();
+			AtomicInteger recognized = new AtomicInteger();
+			return pages
+				.publishOn(Schedulers.parallel(), renderAhead)
+				.flatMapSequential(page -> recognizePage(page.bytes(), page.pageNumber())
+					.map(result -> toCoordinateDpi(result, page.dpi())), parallelism, 1)
+				.doOnNext(result -> recognized.incrementAndGet())
+				.doOnComplete(() -> log.info("OCR pipeline completed: {} pages in {} ms (parallelism={}, renderAhead={})",
+					recognized.get(), System.currentTimeMillis() - startedAt, parallelism, renderAhead));
+		});
+	}
+
+	/**
+	 * 평균 신뢰도가 낮아 다시 인식할 페이지인지
+	 */
+	public boolean isLowConfidence(PageOcrResult result) {
+		return meanConfidence(result) < lowConfidence;
+	}
+
+	/**
+	 * 신뢰도가 낮았던 페이지를 높은 DPI로 다시 렌더링해 재인식 (후속 단계)
+	 *
+	 * @param results:       첫 인식 결과
+	 * @param retryRenderer: 페이지 번호 목록 → 높은 DPI로 다시 렌더링한 페이지
+	 * @return 첫 인식보다 나아진 페이지 결과 (페이지 순서)
+	 */
+	public List<PageOcrResult> rerecognize(List<PageOcrResult> results,
+		Function<List<Integer>, Flux<PdfProcessService.PageImage>> retryRenderer) {
+		Map<Integer, Double> previous = new LinkedHashMap<>();
+		results.forEach(result -> previous.put(result.getPageNumber(), meanConfidence(result)));
+
+		log.info("Re-rendering {} low-confidence pages: {}", previous.size(), previous.keySet());
+		List<PageOcrResult> improved = recognize(retryRenderer.apply(new ArrayList<>(previous.keySet())))
+			.filter(retry -> meanConfidence(retry) > previous.get(retry.getPageNumber()))
+			.collectList()
+			.block();
+		return improved != null ? improved : List.of();
+	}
+
+	/**
+	 * 한 페이지: 캐시 조회 → (미스) 토큰 획득 → Clova 호출, 일시 오류면 재시도, 최종 실패면 건너뜀
+	 */
+	private Mono<PageOcrResult> recognizePage(byte[] image, int pageNumber) {
+		// 제한 시간은 토큰을 받은 뒤의 Clova 호출에만 건다 (토큰 대기로 시간 초과·재시도가 나지 않도록)
+		return ocrResultCache.cached(image, pageNumber, () -> Mono.defer(() -> ocrRateLimiter.acquire()
+					.then(Mono.defer(() -> clovaOcrService.recognize(image, pageNumber)).timeout(pageTimeout)))
+				.retryWhen(Retry.backoff(maxRetries, retryBackoff)
+					.jitter(0.5)
+					.filter(ParallelOcrService::isRetryable)
+					.doBeforeRetry(signal -> log.warn("Retrying OCR for page {} (attempt {}): {}", pageNumber,
+						signal.totalRetries() + 1, signal.failure().getMessage()))))
+			.doOnSuccess(result -> log.info("Page {} OCR completed", pageNumber))
+			.onErrorResume(e -> {
+				// 페이지 하나 실패해도 계속 진행
+				log.error("Failed to process page {}: {}", pageNumber, e.getMessage());
+				return Mono.empty();
+			});
+	}
+
+	/**
+	 * 단어 평균 신뢰도 (단어가 없는 빈 페이지는 다시 인식할 필요 없으므로 1)
+	 */
+	private static double meanConfidence(PageOcrResult result) {
+		return result.getWords().stream()
+			.map(PageOcrResult.WordInfo::getConfidence)
+			.filter(Objects::nonNull)
+			.mapToDouble(Double::doubleValue)
+			.average()
+			.orElse(1.0);
+	}
+
+	/**
+	 * 렌더링 DPI 좌표 → 기준 DPI 좌표
+	 */
+	private static PageOcrResult toCoordinateDpi(PageOcrResult result, int dpi) {
+		if (dpi <= 0 || dpi == PdfProcessService.COORDINATE_DPI) {
+			return result;
+		}
+		double scale = (double)PdfProcessService.COORDINATE_DPI / dpi;
+		for (PageOcrResult.WordInfo word : result.getWords()) {
+			word.setX1(scaled(word.getX1(), scale));
+			word.setY1(scaled(word.getY1(), scale));
+			word.setX2(scaled(word.getX2(), scale));
+			word.setY2(scaled(word.getY2(), scale));
+			word.setX3(scaled(word.getX3(), scale));
+			word.setY3(scaled(word.getY3(), scale));
+			word.setX4(scaled(word.getX4(), scale));
+			word.setY4(scaled(word.getY4(), scale));
+		}
+		return result;
+	}
+
+	private static Integer scaled(Integer value, double scale) {
+		return value != null ? (int)Math.round(value * scale) : null;
+	}
+
+	private static boolean isRetryable(Throwable e) {
+		if (e instanceof WebClientResponseException response) {
+			return response.getStatusCode().value() == 429 || response.getStatusCode().is5xxServerError();
+		}
+		return e instanceof WebClientRequestException || e instanceof TimeoutException;
+	}
+}
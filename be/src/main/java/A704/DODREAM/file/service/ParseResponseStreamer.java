@@ -0,0 +1,432 @@
+package A704.DODREAM.file.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+/**
+ * FastAPI 파싱 응답 → S3 스트리밍 저장
+ * <p>
+ * 응답 본문({"parsed_data": {...}})을 Map으로 만들지 않고, 비동기(non-blocking) 파서에 조각 단위로 넣으면서
+ * parsed_data 부분만 gzip JSON으로 다시 써서 S3 멀티파트 업로드로 흘려보낸다.
+ * 같은 토큰 흐름에서 indexes와 챕터 목록(index, index_title)을 뽑는다.
+ * concept_checks / questions 값이 JSON 문자열로 들어오면 저장 전에 실제 배열·객체로 풀어 둔다 (조회 시 재파싱 없음).
+ * <p>
+ * 메모리 사용은 파트 버퍼 하나 + 토큰 하나 크기로, 문서 크기와 무관하다.
+ * 파트 하나에 들어가는 작은 결과는 멀티파트 대신 PUT 한 번으로 저장한다.
+ */
+@Slf4j
+@Service
+public class ParseResponseStreamer {
+
+	private static final int MIN_PART_SIZE = 5 * 1024 * 1024; // S3 멀티파트 최소 파트 크기 (마지막 파트 제외)
+	private static final int PREFETCH = 16;                    // 응답 버퍼 선반입 개수 (배압)
+	private static final Set<String> EMBEDDED_JSON_FIELDS = Set.of("concept_checks", "questions");
+
+	private final S3Client s3Client;
+	private final ObjectMapper objectMapper;
+	private final String bucketName;
+	private final int partSize;
+
+	public ParseResponseStreamer(
+		S3Client s3Client,
+		ObjectMapper objectMapper,
+		@Value("${aws.s3.bucket}") String bucketName,
+		@Value("${file.upload.part-size-mb:8}") int partSizeMb) {
+		this.s3Client = s3Client;
+		this.objectMapper = objectMapper;
+		this.bucketName = bucketName;
+		this.partSize = Math.max(MIN_PART_SIZE, partSizeMb * 1024 * 1024);
+	}
+
+	/**
+	 * 스트리밍 저장 결과
+	 *
+	 * @param jsonS3Key: 저장된 JSON 키
+	 * @param indexes:   목차 (parsed_data에 indexes가 없으면 null)
+	 * @param chapters:  챕터 목록 (data[].index, data[].index_title)
+	 * @param size:      저장된 바이트 수 (압축 후)
+	 */
+	public record StreamedParse(String jsonS3Key, List<String> indexes, List<ChapterSummary> chapters, long size) {
+
+		/**
+		 * DB 저장용 목차 문자열 (콤마 구분)
+		 */
+		public String joinedIndexes() {
+			return indexes != null ? String.join(",", indexes) : null;
+		}
+	}
+
+	public record ChapterSummary(String index, String indexTitle) {
+	}
+
+	/**
+	 * 응답 본문을 읽으면서 parsed_data를 S3에 저장
+	 *
+	 * @param body:      FastAPI 응답 본문
+	 * @param jsonS3Key: 저장할 키
+	 * @param metadata:  S3 오브젝트 메타데이터 (저장 형식 표시는 여기서 추가)
+	 */
+	public StreamedParse stream(Flux<DataBuffer> body, String jsonS3Key, Map<String, String> metadata) {
+		Map<String, String> objectMetadata = new HashMap<>(metadata);
+		objectMetadata.put(StoredJsonCodec.FORMAT_METADATA, StoredJsonCodec.Format.JSON_GZIP.marker());
+
+		PartUploader uploader = new PartUploader(jsonS3Key, objectMetadata);
+		ResponseScanner scanner = new ResponseScanner(uploader);
+
+		try (Stream<DataBuffer> buffers = body
+			.doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+			.toStream(PREFETCH)) {
+
+			buffers.forEach(buffer -> {
+				try {
+					byte[] chunk = new byte[buffer.readableByteCount()];
+					buffer.read(chunk);
+					scanner.feed(chunk);
+				} finally {
+					DataBufferUtils.release(buffer);
+				}
+			});
+			scanner.finish();
+
+			if (!scanner.captured) {
+				throw new RuntimeException("FastAPI 응답에 parsed_data가 없습니다.");
+			}
+			long size = uploader.complete();
+
+			log.info("✅ 파싱 결과 스트리밍 저장 완료: {} ({} bytes, chapters={})", jsonS3Key, size,
+				scanner.chapters.size());
+			return new StreamedParse(jsonS3Key, scanner.indexes, List.copyOf(scanner.chapters), size);
+
+		} catch (RuntimeException e) {
+			uploader.abort();
+			throw e;
+		} catch (IOException e) {
+			uploader.abort();
+			throw new RuntimeException("FastAPI 응답 처리 실패: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * 응답 토큰 처리 (parsed_data 복사 + indexes / 챕터 목록 추출)
+	 * <p>
+	 * depth: 루트 객체 1, parsed_data 객체 2, indexes·data 배열 3, data 원소 4
+	 */
+	private class ResponseScanner {
+
+		private final JsonParser parser;
+		private final ByteArrayFeeder feeder;
+		private final GZIPOutputStream gzip;
+		private final JsonGenerator generator;
+
+		private int depth;
+		private boolean capturing;
+		private boolean captured;
+		private String section;       // parsed_data 바로 아래 필드명
+		private String chapterField;  // data 원소 안 필드명
+		private String chapterIndex;
+		private String chapterTitle;
+
+		private List<String> indexes;
+		private final List<ChapterSummary> chapters = new ArrayList<>();
+
+		ResponseScanner(OutputStream target) {
+			try {
+				this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+				this.feeder = (ByteArrayFeeder)parser.getNonBlockingInputFeeder();
+				this.gzip = new GZIPOutputStream(target, 64 * 1024);
+				this.generator = objectMapper.getFactory().createGenerator(gzip);
+				this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			} catch (IOException e) {
+				throw new RuntimeException("JSON 파서 생성 실패: " + e.getMessage());
+			}
+		}
+
+		void feed(byte[] chunk) {
+			try {
+				feeder.feedInput(chunk, 0, chunk.length);
+				drain();
+			} catch (IOException e) {
+				throw new RuntimeException("FastAPI 응답 JSON 파싱 실패: " + e.getMessage());
+			}
+		}
+
+		void finish() throws IOException {
+			feeder.endOfInput();
+			drain();
+			generator.close();
+			gzip.finish();
+		}
+
+		private void drain() throws IOException {
+			JsonToken token;
+			while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+				if (token.isStructStart()) {
+					depth++;
+				}
+				handle(token);
+				if (token.isStructEnd()) {
+					depth--;
+				}
+			}
+		}
+
+		private void handle(JsonToken token) throws IOException {
+			// parsed_data 시작
+			if (!capturing && !captured && depth == 1 && token == JsonToken.FIELD_NAME
+				&& "parsed_data".equals(parser.currentName())) {
+				capturing = true;
+				return;
+			}
+			if (!capturing) {
+				return;
+			}
+
+			// parsed_data가 객체가 아니면(null/스칼라/배열) 없는 것으로 처리 (배열 안 토큰은 depth가 깊어 무시됨)
+			if (generator.getOutputContext().inRoot() && token != JsonToken.START_OBJECT) {
+				capturing = false;
+				return;
+			}
+
+			if (token == JsonToken.VALUE_STRING && EMBEDDED_JSON_FIELDS.contains(fieldOf(parser))) {
+				generator.writeTree(normalize(TextNode.valueOf(parser.getText()), fieldOf(parser)));
+			} else {
+				generator.copyCurrentEvent(parser);
+			}
+			extract(token);
+
+			// parsed_data 끝
+			if (depth == 2 && token == JsonToken.END_OBJECT) {
+				capturing = false;
+				captured = true;
+			}
+		}
+
+		private void extract(JsonToken token) throws IOException {
+			if (depth == 2 && token == JsonToken.FIELD_NAME) {
+				section = parser.currentName();
+				if ("indexes".equals(section)) {
+					indexes = new ArrayList<>();
+				}
+				return;
+			}
+
+			if ("indexes".equals(section)) {
+				if (depth == 3 && token.isScalarValue()) {
+					indexes.add(parser.getText());
+				}
+				return;
+			}
+
+			if ("data".equals(section) && depth == 4) {
+				switch (token) {
+					case START_OBJECT -> {
+						chapterIndex = null;
+						chapterTitle = null;
+					}
+					case FIELD_NAME -> chapterField = parser.currentName();
+					case END_OBJECT -> chapters.add(new ChapterSummary(chapterIndex, chapterTitle));
+					default -> {
+						if (token.isScalarValue() && "index".equals(chapterField)) {
+							chapterIndex = parser.getText();
+						} else if (token.isScalarValue() && "index_title".equals(chapterField)) {
+							chapterTitle = parser.getText();
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * 현재 값이 속한 필드명 (배열 원소면 배열의 필드명)
+	 */
+	private static String fieldOf(JsonParser parser) {
+		JsonStreamContext context = parser.getParsingContext();
+		if (context.inArray()) {
+			context = context.getParent();
+		}
+		return context != null ? context.getCurrentName() : null;
+	}
+
+	/**
+	 * concept_checks / questions 아래의 JSON 문자열을 실제 구조로 (중첩된 문자열까지, 파싱 실패 시 원래 문자열 유지)
+	 */
+	private JsonNode normalize(JsonNode node, String field) {
+		if (node.isTextual()) {
+			if (!EMBEDDED_JSON_FIELDS.contains(field)) {
+				return node;
+			}
+			String text = node.textValue().trim();
+			if (!text.startsWith("[") && !text.startsWith("{")) {
+				return node;
+			}
+			try {
+				return normalize(objectMapper.readTree(text), field);
+			} catch (JsonProcessingException e) {
+				log.warn("⚠️ {} JSON 문자열 파싱 실패, 문자열로 저장: {}", field, e.getOriginalMessage());
+				return node;
+			}
+		}
+		if (node instanceof ObjectNode object) {
+			List<String> names = new ArrayList<>();
+			object.fieldNames().forEachRemaining(names::add);
+			for (String name : names) {
+				object.set(name, normalize(object.get(name), name));
+			}
+		} else if (node instanceof ArrayNode array) {
+			for (int i = 0; i < array.size(); i++) {
+				array.set(i, normalize(array.get(i), field));
+			}
+		}
+		return node;
+	}
+
+	/**
+	 * 파트 크기만큼 모아서 S3에 올리는 출력 스트림
+	 * 첫 파트가 가득 차기 전에 끝나면 PUT 한 번으로 저장한다.
+	 */
+	private class PartUploader extends OutputStream {
+
+		private final String s3Key;
+		private final Map<String, String> metadata;
+		private final byte[] partBuffer = new byte[partSize];
+		private final List<CompletedPart> completedParts = new ArrayList<>();
+
+		private int position;
+		private long totalSize;
+		private String uploadId;
+
+		PartUploader(String s3Key, Map<String, String> metadata) {
+			this.s3Key = s3Key;
+			this.metadata = metadata;
+		}
+
+		@Override
+		public void write(int b) {
+			if (position == partBuffer.length) {
+				uploadPart();
+			}
+			partBuffer[position++] = (byte)b;
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) {
+			while (length > 0) {
+				if (position == partBuffer.length) {
+					uploadPart();
+				}
+				int n = Math.min(length, partBuffer.length - position);
+				System.arraycopy(bytes, offset, partBuffer, position, n);
+				position += n;
+				offset += n;
+				length -= n;
+			}
+		}
+
+		long complete() {
+			if (uploadId == null) {
+				s3Client.putObject(PutObjectRequest.builder()
+						.bucket(bucketName)
+						.key(s3Key)
+						.contentType("application/json")
+						.contentEncoding("gzip")
+						.metadata(metadata)
+						.build(),
+					RequestBody.fromInputStream(new ByteArrayInputStream(partBuffer, 0, position), position));
+				return position;
+			}
+
+			uploadPart();
+			s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+				.bucket(bucketName)
+				.key(s3Key)
+				.uploadId(uploadId)
+				.multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+				.build());
+			return totalSize;
+		}
+
+		void abort() {
+			if (uploadId == null) {
+				return;
+			}
+			try {
+				s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+					.bucket(bucketName)
+					.key(s3Key)
+					.uploadId(uploadId)
+					.build());
+				log.info("멀티파트 업로드 취소: {}", s3Key);
+			} catch (Exception e) {
+				log.warn("멀티파트 업로드 취소 실패: {}, {}", s3Key, e.getMessage());
+			}
+		}
+
+		private void uploadPart() {
+			if (uploadId == null) {
+				uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+						.bucket(bucketName)
+						.key(s3Key)
+						.contentType("application/json")
+						.contentEncoding("gzip")
+						.metadata(metadata)
+						.build())
+					.uploadId();
+			}
+
+			int partNumber = completedParts.size() + 1;
+			String eTag = s3Client.uploadPart(UploadPartRequest.builder()
+						.bucket(bucketName)
+						.key(s3Key)
+						.uploadId(uploadId)
+						.partNumber(partNumber)
+						.contentLength((long)position)
+						.build(),
+					RequestBody.fromInputStream(new ByteArrayInputStream(partBuffer, 0, position), position))
+				.eTag();
+
+			completedParts.add(CompletedPart.builder().partNumber(partNumber).eTag(eTag).build());
+			log.debug("Part {} uploaded ({} bytes) for {}", partNumber, position, s3Key);
+
+			totalSize += position;
+			position = 0;
+		}
+	}
+}
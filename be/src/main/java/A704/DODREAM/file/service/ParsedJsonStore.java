@@ -0,0 +1,415 @@
+package A704.DODREAM.file.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import A704.DODREAM.file.dto.MaterialDocument;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+/**
+ * 파싱된 자료 JSON 조회 저장소 (L1: 프로세스 내 LRU, L2: Redis, 원본: S3)
+ * <p>
+ * - L1은 파싱된 Map의 힙 사용량 추정치 합계로 제한하고, 불변 Map을 공유하므로 호출자는 수정하면 안 된다.
+ * (파싱된 트리는 원본 JSON 바이트의 몇 배를 차지하므로 바이트 크기로 세면 설정보다 훨씬 많은 메모리를 쓴다)
+ * - 일정 시간이 지난 L1 항목은 S3에 ETag 조건부 GET(If-None-Match)으로 재검증한다. (304면 본문 없음)
+ * - 같은 키의 동시 미스는 하나의 로딩만 수행하고 결과를 공유한다. (single-flight)
+ * - S3의 JSON을 덮어쓰는 쪽은 {@link #invalidate}를 호출해 L2 삭제 + 다른 노드의 L1 무효화를 전파한다.
+ * - 기존 pretty-print JSON을 읽으면 {@link StoredJsonCodec} 형식으로 백그라운드에서 다시 저장한다.
+ */
+@Slf4j
+@Service
+public class ParsedJsonStore implements MessageListener {
+
+	public static final String INVALIDATION_CHANNEL = "parsed-json:invalidate";
+	private static final String L2_PREFIX = "parsed-json:b64:";
+
+	private final S3Client s3Client;
+	private final StringRedisTemplate redis;
+	private final StoredJsonCodec codec;
+	private final MaterialDocumentUpgrader upgrader;
+	private final String bucketName;
+	private final long l1MaxBytes;
+	private final long revalidateAfterNanos;
+	private final Duration l2Ttl;
+	private final boolean lazyRewrite;
+
+	// 기존 형식 재저장 (한 번에 하나, 대기열이 차면 다음 조회 때 다시 시도)
+	private final ThreadPoolExecutor rewriteExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+		new ArrayBlockingQueue<>(256), new ThreadPoolExecutor.DiscardPolicy());
+	private final Set<String> rewriting = ConcurrentHashMap.newKeySet();
+
+	private final LinkedHashMap<String, Entry> l1 = new LinkedHashMap<>(64, 0.75f, true);
+	private long l1Bytes;
+	private final ConcurrentHashMap<String, CompletableFuture<Entry>> inflight = new ConcurrentHashMap<>();
+
+	public ParsedJsonStore(
+		S3Client s3Client,
+		StringRedisTemplate redis,
+		StoredJsonCodec codec,
+		MaterialDocumentUpgrader upgrader,
+		@Value("${aws.s3.bucket}") String bucketName,
+		@Value("${cache.parsed-json.l1-max-mb:64}") long l1MaxMb,
+		@Value("${cache.parsed-json.revalidate-seconds:30}") long revalidateSeconds,
+		@Value("${cache.parsed-json.l2-ttl-minutes:60}") long l2TtlMinutes,
+		@Value("${storage.json.lazy-rewrite:true}") boolean lazyRewrite) {
+		this.s3Client = s3Client;
+		this.redis = redis;
+		this.codec = codec;
+		this.upgrader = upgrader;
+		this.bucketName = bucketName;
+		this.l1MaxBytes = l1MaxMb * 1024 * 1024;
+		this.revalidateAfterNanos = Duration.ofSeconds(revalidateSeconds).toNanos();
+		this.l2Ttl = Duration.ofMinutes(l2TtlMinutes);
+		this.lazyRewrite = lazyRewrite;
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		rewriteExecutor.shutdownNow();
+	}
+
+	/**
+	 * 파싱된 JSON 조회
+	 *
+	 * @param jsonS3Key: JSON의 S3 키
+	 * @return 불변 Map (수정 불가)
+	 */
+	public Map<String, Object> get(String jsonS3Key) {
+		return entry(jsonS3Key).data();
+	}
+
+	/**
+	 * 표준 모델로 조회 (구조 변환은 객체 버전당 한 번, 캐시 항목과 함께 유지)
+	 */
+	public MaterialDocument getDocument(String jsonS3Key) {
+		Entry entry = entry(jsonS3Key);
+		MaterialDocument document = entry.document().get();
+		if (document == null) {
+			document = upgrader.upgrade(entry.data());
+			entry.document().compareAndSet(null, document);
+		}
+		return document;
+	}
+
+	private Entry entry(String jsonS3Key) {
+		Entry cached = l1Get(jsonS3Key);
+		if (cached != null && !cached.isStale(revalidateAfterNanos)) {
+			return cached;
+		}
+
+		CompletableFuture<Entry> mine = new CompletableFuture<>();
+		CompletableFuture<Entry> running = inflight.putIfAbsent(jsonS3Key, mine);
+		if (running != null) {
+			return join(running);
+		}
+
+		try {
+			Entry loaded = (cached != null) ? revalidate(jsonS3Key, cached) : load(jsonS3Key);
+			mine.complete(loaded);
+			return loaded;
+		} catch (RuntimeException e) {
+			mine.completeExceptionally(e);
+			throw e;
+		} finally {
+			inflight.remove(jsonS3Key, mine);
+		}
+	}
+
+	/**
+	 * JSON이 변경되었을 때 호출 (L1/L2 삭제 + 다른 노드에 전파)
+	 */
+	public void invalidate(String jsonS3Key) {
+		if (jsonS3Key == null) {
+			return;
+		}
+		l1Remove(jsonS3Key);
+		try {
+			redis.delete(L2_PREFIX + jsonS3Key);
+			redis.convertAndSend(INVALIDATION_CHANNEL, jsonS3Key);
+		} catch (Exception e) {
+			log.warn("⚠️ 파싱 JSON 캐시 무효화 전파 실패: {}, {}", jsonS3Key, e.getMessage());
+		}
+	}
+
+	/**
+	 * 다른 노드의 무효화 메시지 수신
+	 */
+	@Override
+	public void onMessage(Message message, byte[] pattern) {
+		String jsonS3Key = new String(message.getBody(), StandardCharsets.UTF_8);
+		l1Remove(jsonS3Key);
+	}
+
+	// ===== 로딩 =====
+
+	/**
+	 * L1 미스: L2 → S3 순으로 조회
+	 */
+	private Entry load(String jsonS3Key) {
+		String l2Value = l2Get(jsonS3Key);
+		if (l2Value != null) {
+			int newline = l2Value.indexOf('\n');
+			if (newline > 0) {
+				String eTag = l2Value.substring(0, newline);
+				byte[] stored = Base64.getDecoder().decode(l2Value.substring(newline + 1));
+				Entry entry = toEntry(jsonS3Key, stored, eTag);
+				l1Put(jsonS3Key, entry);
+				return entry;
+			}
+		}
+		return fetch(jsonS3Key, null);
+	}
+
+	/**
+	 * L1 항목이 오래됨: ETag 조건부 GET으로 변경 여부만 확인
+	 */
+	private Entry revalidate(String jsonS3Key, Entry cached) {
+		Entry refreshed = fetch(jsonS3Key, cached);
+		if (refreshed == cached) {
+			log.debug("파싱 JSON 캐시 재검증 (304): {}", jsonS3Key);
+		}
+		return refreshed;
+	}
+
+	/**
+	 * S3 조회 (cached가 있으면 If-None-Match 조건부 요청)
+	 */
+	private Entry fetch(String jsonS3Key, Entry cached) {
+		GetObjectRequest.Builder request = GetObjectRequest.builder().bucket(bucketName).key(jsonS3Key);
+		if (cached != null && cached.eTag() != null) {
+			request.ifNoneMatch(cached.eTag());
+		}
+
+		ResponseBytes<GetObjectResponse> response;
+		try {
+			response = s3Client.getObjectAsBytes(request.build());
+		} catch (S3Exception e) {
+			if (cached != null && e.statusCode() == 304) {
+				Entry touched = cached.touch();
+				l1Put(jsonS3Key, touched);
+				return touched;
+			}
+			throw new RuntimeException("JSON 조회 실패: " + e.getMessage());
+		}
+
+		byte[] stored = response.asByteArray();
+		String eTag = response.response().eTag();
+		Entry entry = toEntry(jsonS3Key, stored, eTag);
+
+		l1Put(jsonS3Key, entry);
+		l2Put(jsonS3Key, eTag, stored);
+		return entry;
+	}
+
+	private Entry toEntry(String jsonS3Key, byte[] stored, String eTag) {
+		StoredJsonCodec.Decoded decoded = codec.decode(stored);
+		if (!decoded.upToDate()) {
+			scheduleRewrite(jsonS3Key, decoded.data(), eTag);
+		}
+		long[] weight = {0};
+		Map<String, Object> data = freeze(decoded.data(), weight);
+		// 표준 모델(getDocument)은 문자열을 Map과 공유하므로 구조 객체만큼 여유를 둔다
+		return new Entry(data, eTag, weight[0] + weight[0] / 4, System.nanoTime(), new AtomicReference<>());
+	}
+
+	// ===== 기존 형식 재저장 =====
+
+	private void scheduleRewrite(String jsonS3Key, Map<String, Object> data, String eTag) {
+		if (!lazyRewrite || eTag == null || !rewriting.add(jsonS3Key)) {
+			return;
+		}
+		rewriteExecutor.execute(() -> {
+			try {
+				rewrite(jsonS3Key, data, eTag);
+			} finally {
+				rewriting.remove(jsonS3Key);
+			}
+		});
+	}
+
+	/**
+	 * 읽은 뒤 다른 곳에서 덮어쓰지 않았을 때만(ETag 동일) 같은 키에 새 형식으로 저장
+	 * (If-Match 조건부 PUT이라 그사이 발행이 새로 쓴 객체를 되돌리지 않는다. 조건이 어긋나면 건너뜀)
+	 */
+	private void rewrite(String jsonS3Key, Map<String, Object> data, String eTag) {
+		try {
+			HeadObjectResponse head = s3Client.headObject(
+				HeadObjectRequest.builder().bucket(bucketName).key(jsonS3Key).build());
+			if (!eTag.equals(head.eTag())) {
+				return;
+			}
+
+			StoredJsonCodec.Encoded encoded = codec.encode(data, codec.formatFor(jsonS3Key));
+			s3Client.putObject(PutObjectRequest.builder()
+				.bucket(bucketName)
+				.key(jsonS3Key)
+				.ifMatch(eTag)
+				.contentType(encoded.contentType())
+				.contentEncoding(encoded.contentEncoding())
+				.metadata(encoded.metadata(head.metadata()))
+				.build(), RequestBody.fromBytes(encoded.body()));
+
+			invalidate(jsonS3Key);
+			log.info("♻️ 저장 형식 변환 완료: {} ({})", jsonS3Key, encoded.format().marker());
+		} catch (S3Exception e) {
+			// 412: 그사이 다른 곳에서 덮어씀, 409: 동시에 다른 쓰기가 진행 중 → 새 객체를 다시 읽을 때 판단
+			if (e.statusCode() == 412 || e.statusCode() == 409) {
+				log.info("⏭️ 저장 형식 변환 건너뜀 (객체가 바뀜): {}", jsonS3Key);
+				return;
+			}
+			log.warn("⚠️ 저장 형식 변환 실패 (다음 조회 때 재시도): {}, {}", jsonS3Key, e.getMessage());
+		} catch (Exception e) {
+			log.warn("⚠️ 저장 형식 변환 실패 (다음 조회 때 재시도): {}, {}", jsonS3Key, e.getMessage());
+		}
+	}
+
+	/**
+	 * 공유되는 결과가 호출자에 의해 바뀌지 않도록 전체를 불변으로 감싼다.
+	 * 복사하면서 힙 사용량을 추정해 weight[0]에 더한다. (64비트 JVM, 압축 포인터 기준 근사치)
+	 * - Map: LinkedHashMap + 불변 래퍼 + 테이블, 항목당 LinkedHashMap.Entry
+	 * - List: ArrayList + 불변 래퍼 + 배열
+	 * - 문자열: String + byte[] (한글이 섞이면 UTF-16이므로 글자당 2바이트로 계산), 필드명은 Jackson이 intern하므로 제외
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> T freeze(T value, long[] weight) {
+		if (value instanceof Map<?, ?> map) {
+			Map<Object, Object> copy = new LinkedHashMap<>(map.size());
+			map.forEach((k, v) -> copy.put(k, freeze(v, weight)));
+			weight[0] += 56 + 16 + 16 + 4L * tableSize(map.size()) + 40L * map.size();
+			return (T)Collections.unmodifiableMap(copy);
+		}
+		if (value instanceof List<?> list) {
+			List<Object> copy = new ArrayList<>(list.size());
+			list.forEach(v -> copy.add(freeze(v, weight)));
+			weight[0] += 24 + 16 + 16 + 4L * list.size();
+			return (T)Collections.unmodifiableList(copy);
+		}
+		if (value instanceof String text) {
+			weight[0] += 24 + 16 + 2L * text.length();
+		} else if (value instanceof Number) {
+			weight[0] += 24;
+		}
+		return value;
+	}
+
+	private static int tableSize(int entries) {
+		return Integer.highestOneBit(Math.max(1, (int)(entries / 0.75f)) * 2 - 1);
+	}
+
+	private static Entry join(CompletableFuture<Entry> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw e;
+		}
+	}
+
+	// ===== L1 (크기 제한 LRU) =====
+
+	private synchronized Entry l1Get(String key) {
+		return l1.get(key);
+	}
+
+	private synchronized void l1Put(String key, Entry entry) {
+		if (entry.weight() > l1MaxBytes) {
+			return;
+		}
+		Entry previous = l1.put(key, entry);
+		if (previous != null) {
+			l1Bytes -= previous.weight();
+		}
+		l1Bytes += entry.weight();
+
+		Iterator<Map.Entry<String, Entry>> eldest = l1.entrySet().iterator();
+		while (l1Bytes > l1MaxBytes && eldest.hasNext()) {
+			Map.Entry<String, Entry> evicted = eldest.next();
+			l1Bytes -= evicted.getValue().weight();
+			eldest.remove();
+		}
+	}
+
+	private synchronized void l1Remove(String key) {
+		Entry removed = l1.remove(key);
+		if (removed != null) {
+			l1Bytes -= removed.weight();
+		}
+	}
+
+	// ===== L2 (Redis: "ETag\n저장 바이트(Base64)") - 장애 시 S3로 우회 =====
+
+	private String l2Get(String jsonS3Key) {
+		try {
+			return redis.opsForValue().get(L2_PREFIX + jsonS3Key);
+		} catch (Exception e) {
+			log.warn("⚠️ Redis 조회 실패 (S3로 조회): {}", e.getMessage());
+			return null;
+		}
+	}
+
+	private void l2Put(String jsonS3Key, String eTag, byte[] stored) {
+		if (eTag == null) {
+			return;
+		}
+		try {
+			redis.opsForValue()
+				.set(L2_PREFIX + jsonS3Key, eTag + "\n" + Base64.getEncoder().encodeToString(stored), l2Ttl);
+		} catch (Exception e) {
+			log.warn("⚠️ Redis 저장 실패: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * 캐시 항목
+	 *
+	 * @param data:        불변 JSON Map
+	 * @param eTag:        S3 ETag (재검증용)
+	 * @param weight:      힙 사용량 추정치 (L1 용량 계산용)
+	 * @param validatedAt: 마지막 검증 시각 (System.nanoTime)
+	 * @param document:    표준 모델 (처음 요청될 때 변환)
+	 */
+	private record Entry(Map<String, Object> data, String eTag, long weight, long validatedAt,
+						 AtomicReference<MaterialDocument> document) {
+
+		boolean isStale(long revalidateAfterNanos) {
+			return System.nanoTime() - validatedAt > revalidateAfterNanos;
+		}
+
+		Entry touch() {
+			return new Entry(data, eTag, weight, System.nanoTime(), document);
+		}
+	}
+}
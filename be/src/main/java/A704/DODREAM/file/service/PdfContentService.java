@@ -0,0 +1,110 @@
+package A704.DODREAM.file.service;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import A704.DODREAM.file.entity.PdfContent;
+import A704.DODREAM.file.enums.JobStatus;
+import A704.DODREAM.file.repository.DocumentJobRepository;
+import A704.DODREAM.file.repository.PdfContentRepository;
+import A704.DODREAM.file.repository.S3TombstoneRepository;
+import A704.DODREAM.global.exception.CustomException;
+import A704.DODREAM.global.exception.constant.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 내용 해시 기반 PDF 중복 제거
+ * <p>
+ * 같은 해시의 파싱은 pdf_contents 행 잠금으로 하나의 작업만 수행하고,
+ * 나머지 작업은 완료될 때까지 미뤄졌다가 공용 파싱 결과를 재사용한다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PdfContentService {
+
+	private final PdfContentRepository pdfContentRepository;
+	private final DocumentJobRepository documentJobRepository;
+	private final S3TombstoneRepository s3TombstoneRepository;
+
+	public enum ParseDecision {
+		REUSE,  // 공용 파싱 결과가 이미 있음
+		PARSE,  // 이 작업이 파싱 담당
+		BUSY    // 다른 작업이 파싱 중
+	}
+
+	/**
+	 * 업로드된 내용 등록 (이미 있으면 무시)
+	 * <p>
+	 * 같은 원본에 걸린 삭제 예약을 취소하고 pdf_contents 행을 잠근다. 호출한 트랜잭션이 파일 행을 저장하고
+	 * 커밋할 때까지 원본 정리(S3GarbageCollector)는 이 해시의 사용 여부를 판단하지 못한다.
+	 * 잠금 순서(삭제 예약 → pdf_contents)는 정리 쪽과 같다.
+	 */
+	@Transactional
+	public void register(String contentHash, String s3Key, long fileSize) {
+		s3TombstoneRepository.deleteByS3KeyIn(Set.of(s3Key));
+
+		int inserted = pdfContentRepository.insertIfAbsent(contentHash, s3Key, fileSize, LocalDateTime.now());
+		if (inserted == 0) {
+			log.info("♻️ 이미 등록된 PDF 내용: {}", contentHash);
+		}
+		pdfContentRepository.findForUpdate(contentHash);
+	}
+
+	@Transactional(readOnly = true)
+	public PdfContent get(String contentHash) {
+		return pdfContentRepository.findById(contentHash)
+			.orElseThrow(() -> new CustomException(ErrorCode.FILE_NOT_FOUND));
+	}
+
+	/**
+	 * 파싱 담당 결정
+	 *
+	 * @param contentHash: PDF 내용 해시
+	 * @param jobId:       요청한 작업 ID (동기 호출은 null)
+	 */
+	@Transactional
+	public ParseDecision acquireParse(String contentHash, Long jobId) {
+		PdfContent content = pdfContentRepository.findForUpdate(contentHash)
+			.orElseThrow(() -> new CustomException(ErrorCode.FILE_NOT_FOUND));
+
+		if (content.isParsed()) {
+			return ParseDecision.REUSE;
+		}
+
+		Long holder = content.getParsingJobId();
+		if (holder != null && !holder.equals(jobId) && isActive(holder)) {
+			return ParseDecision.BUSY;
+		}
+
+		content.startParsing(jobId);
+		return ParseDecision.PARSE;
+	}
+
+	@Transactional
+	public void completeParse(String contentHash, String parsedJsonS3Key, String indexes) {
+		pdfContentRepository.findForUpdate(contentHash)
+			.ifPresent(content -> content.completeParsing(parsedJsonS3Key, indexes));
+	}
+
+	@Transactional
+	public void releaseParse(String contentHash, Long jobId) {
+		pdfContentRepository.findForUpdate(contentHash)
+			.ifPresent(content -> content.releaseParsing(jobId));
+	}
+
+	/**
+	 * 파싱 담당 작업이 아직 살아있는지 (리스 유효)
+	 */
+	private boolean isActive(Long jobId) {
+		return documentJobRepository.findById(jobId)
+			.map(job -> job.getStatus() == JobStatus.RUNNING
+				&& job.getLeaseExpiresAt() != null
+				&& job.getLeaseExpiresAt().isAfter(LocalDateTime.now()))
+			.orElse(false);
+	}
+}
@@ -0,0 +1,392 @@
+package A704.DODREAM.file.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import A704.DODREAM.global.exception.CustomException;
+import A704.DODREAM.global.exception.constant.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+/**
+ * PDF 스트리밍 업로드 서비스
+ * <p>
+ * 요청 본문을 힙에 모두 올리지 않고, 고정 크기 버퍼 하나로 S3 멀티파트 업로드에 흘려보낸다.
+ * 같은 바이트는 임시 파일(spill file)에도 기록되어, 업로드 완료 전에 PDF 유효성을 검증하고
+ * 이후 단계(로컬 분석 등)에서 재다운로드 없이 사용할 수 있다.
+ * <p>
+ * 스트리밍 중 SHA-256을 계산하고, 최종 S3 키는 내용 해시로 결정한다. ({uploadPrefix}/sha256/{hash}.pdf)
+ * 해시는 업로드가 끝나야 알 수 있으므로 멀티파트는 staging 키로 올린 뒤 서버 측 복사로 옮기며,
+ * 같은 해시의 객체가 이미 있으면 복사하지 않고 staging 객체만 지운다.
+ */
+@Slf4j
+@Service
+public class PdfIngestService {
+
+	private static final int MIN_PART_SIZE = 5 * 1024 * 1024; // S3 멀티파트 최소 파트 크기 (마지막 파트 제외)
+	private static final byte[] PDF_MAGIC = "%PDF-".getBytes(StandardCharsets.US_ASCII);
+
+	private final S3Client s3Client;
+	private final String bucketName;
+	private final String uploadPrefix;
+	private final Path tempPath;
+	private final int partSize;
+	private final long maxSize;
+
+	public PdfIngestService(
+		S3Client s3Client,
+		@Value("${aws.s3.bucket}") String bucketName,
+		@Value("${aws.s3.upload-prefix:pdfs}") String uploadPrefix,
+		@Value("${file.upload.temp-dir}") String tempDir,
+		@Value("${file.upload.part-size-mb:8}") int partSizeMb,
+		@Value("${file.upload.max-size-mb:2048}") long maxSizeMb) throws IOException {
+		this.s3Client = s3Client;
+		this.bucketName = bucketName;
+		this.uploadPrefix = uploadPrefix;
+		this.tempPath = Paths.get(tempDir).toAbsolutePath().normalize();
+		this.partSize = Math.max(MIN_PART_SIZE, partSizeMb * 1024 * 1024);
+		this.maxSize = maxSizeMb * 1024 * 1024;
+
+		Files.createDirectories(this.tempPath);
+	}
+
+	/**
+	 * 입력 스트림을 S3에 업로드 (내용 해시 기반 키)
+	 *
+	 * @param body:     PDF 바이너리 스트림 (요청 본문)
+	 * @param metadata: S3 오브젝트 메타데이터
+	 * @return 업로드 결과 (키, 해시, 크기, 임시 파일) - 사용 후 반드시 close 해야 임시 파일이 삭제됨
+	 */
+	public IngestedPdf ingest(InputStream body, Map<String, String> metadata) {
+		Path spillFile = null;
+		try {
+			spillFile = Files.createTempFile(tempPath, "ingest-", ".pdf");
+
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			byte[] partBuffer = new byte[partSize];
+			long totalSize;
+			String contentHash;
+			String s3Key;
+			boolean deduplicated;
+
+			try (OutputStream spill = Files.newOutputStream(spillFile)) {
+				int read = body.readNBytes(partBuffer, 0, partSize);
+				if (read == 0) {
+					throw new CustomException(ErrorCode.INVALID_INPUT);
+				}
+				if (!startsWithPdfMagic(partBuffer, read)) {
+					throw new CustomException(ErrorCode.INVALID_FILE_EXTENSION);
+				}
+				spill.write(partBuffer, 0, read);
+				digest.update(partBuffer, 0, read);
+
+				if (read < partSize) {
+					// 파트 하나에 들어가는 작은 파일은 해시를 먼저 알 수 있으므로 최종 키로 바로 PUT
+					validatePdf(spillFile);
+					contentHash = HexFormat.of().formatHex(digest.digest());
+					s3Key = contentKey(contentHash);
+					deduplicated = exists(s3Key);
+					if (!deduplicated) {
+						s3Client.putObject(putRequest(s3Key, metadata),
+							RequestBody.fromInputStream(new ByteArrayInputStream(partBuffer, 0, read), read));
+					}
+					totalSize = read;
+				} else {
+					String stagingKey = uploadPrefix + "/staging/" + UUID.randomUUID() + ".pdf";
+					totalSize = uploadMultipart(body, spill, spillFile, digest, partBuffer, read, stagingKey, metadata);
+					contentHash = HexFormat.of().formatHex(digest.digest());
+					s3Key = contentKey(contentHash);
+					deduplicated = promote(stagingKey, s3Key);
+				}
+			}
+
+			log.info("✅ PDF 스트리밍 업로드 완료: {} ({} bytes, 중복={})", s3Key, totalSize, deduplicated);
+			return new IngestedPdf(s3Key, contentHash, totalSize, deduplicated, spillFile);
+
+		} catch (CustomException e) {
+			deleteQuietly(spillFile);
+			throw e;
+		} catch (Exception e) {
+			deleteQuietly(spillFile);
+			log.error("❌ PDF 스트리밍 업로드 실패: {}", e.getMessage(), e);
+			throw new CustomException(ErrorCode.FILE_UPLOAD_FAILED);
+		}
+	}
+
+	/**
+	 * 업로드된 PDF를 임시 파일로 내려받기 (힙에 올리지 않고 파일 기반으로 여는 작업용)
+	 *
+	 * @param s3Key: PDF S3 키
+	 * @return 임시 파일 - 사용 후 반드시 close 해야 삭제됨
+	 */
+	public DownloadedPdf download(String s3Key) {
+		Path file = null;
+		try {
+			file = Files.createTempFile(tempPath, "download-", ".pdf");
+			try (ResponseInputStream<GetObjectResponse> object = s3Client.getObject(GetObjectRequest.builder()
+				.bucket(bucketName)
+				.key(s3Key)
+				.build())) {
+				Files.copy(object, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+			return new DownloadedPdf(file);
+		} catch (IOException e) {
+			deleteQuietly(file);
+			throw new RuntimeException("PDF 다운로드 실패: " + e.getMessage(), e);
+		} catch (RuntimeException e) {
+			deleteQuietly(file);
+			throw e;
+		}
+	}
+
+	/**
+	 * 내용 해시 기반 S3 키
+	 */
+	public String contentKey(String contentHash) {
+		return uploadPrefix + "/sha256/" + contentHash + ".pdf";
+	}
+
+	/**
+	 * staging 객체를 해시 키로 이동 (이미 있으면 복사 생략)
+	 *
+	 * @return 같은 내용의 객체가 이미 있었는지 여부
+	 */
+	private boolean promote(String stagingKey, String s3Key) {
+		try {
+			boolean exists = exists(s3Key);
+			if (!exists) {
+				// 단일 CopyObject는 5GB까지 지원 (업로드 최대 크기보다 큼)
+				s3Client.copyObject(CopyObjectRequest.builder()
+					.sourceBucket(bucketName)
+					.sourceKey(stagingKey)
+					.destinationBucket(bucketName)
+					.destinationKey(s3Key)
+					.build());
+			}
+			return exists;
+		} finally {
+			try {
+				s3Client.deleteObject(DeleteObjectRequest.builder().bucket(bucketName).key(stagingKey).build());
+			} catch (Exception e) {
+				log.warn("staging 객체 삭제 실패: {}, {}", stagingKey, e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * 중복이라 올리지 않았던 원본이 그사이 정리되었으면 임시 파일로 다시 업로드
+	 * (pdf_contents 행 잠금을 쥔 채 호출 - 잠금 없이 확인하면 정리 작업이 확인 직후에 지울 수 있음)
+	 */
+	public void restoreIfMissing(IngestedPdf ingested, Map<String, String> metadata) {
+		if (exists(ingested.s3Key())) {
+			return;
+		}
+		log.warn("⚠️ 정리된 원본 재업로드: {}", ingested.s3Key());
+		s3Client.putObject(putRequest(ingested.s3Key(), metadata), RequestBody.fromFile(ingested.spillFile()));
+	}
+
+	private boolean exists(String s3Key) {
+		try {
+			s3Client.headObject(HeadObjectRequest.builder().bucket(bucketName).key(s3Key).build());
+			return true;
+		} catch (NoSuchKeyException e) {
+			return false;
+		} catch (S3Exception e) {
+			if (e.statusCode() == 404) {
+				return false;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * 멀티파트 업로드 (첫 파트는 이미 버퍼에 읽혀 있음)
+	 * 모든 파트 전송 후 임시 파일로 PDF를 검증하고, 검증에 실패하면 업로드를 취소한다.
+	 */
+	private long uploadMultipart(InputStream body, OutputStream spill, Path spillFile, MessageDigest digest,
+		byte[] partBuffer, int firstRead, String s3Key, Map<String, String> metadata) throws IOException {
+
+		String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+				.bucket(bucketName)
+				.key(s3Key)
+				.contentType("application/pdf")
+				.metadata(metadata)
+				.build())
+			.uploadId();
+
+		List<CompletedPart> completedParts = new ArrayList<>();
+		long totalSize = 0;
+
+		try {
+			int read = firstRead;
+			int partNumber = 1;
+
+			while (read > 0) {
+				totalSize += read;
+				if (totalSize > maxSize) {
+					throw new CustomException(ErrorCode.FILE_TOO_LARGE);
+				}
+
+				String eTag = s3Client.uploadPart(UploadPartRequest.builder()
+							.bucket(bucketName)
+							.key(s3Key)
+							.uploadId(uploadId)
+							.partNumber(partNumber)
+							.contentLength((long)read)
+							.build(),
+						RequestBody.fromInputStream(new ByteArrayInputStream(partBuffer, 0, read), read))
+					.eTag();
+
+				completedParts.add(CompletedPart.builder().partNumber(partNumber).eTag(eTag).build());
+				log.debug("Part {} uploaded ({} bytes) for {}", partNumber, read, s3Key);
+
+				read = body.readNBytes(partBuffer, 0, partSize);
+				if (read > 0) {
+					spill.write(partBuffer, 0, read);
+					digest.update(partBuffer, 0, read);
+				}
+				partNumber++;
+			}
+
+			spill.flush();
+			validatePdf(spillFile);
+
+			s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+				.bucket(bucketName)
+				.key(s3Key)
+				.uploadId(uploadId)
+				.multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+				.build());
+
+			return totalSize;
+
+		} catch (Exception e) {
+			abortQuietly(s3Key, uploadId);
+			throw e;
+		}
+	}
+
+	private PutObjectRequest putRequest(String s3Key, Map<String, String> metadata) {
+		return PutObjectRequest.builder()
+			.bucket(bucketName)
+			.key(s3Key)
+			.contentType("application/pdf")
+			.metadata(metadata)
+			.build();
+	}
+
+	/**
+	 * 임시 파일로 PDF 구조 검증 (파일 기반 로딩이라 전체를 메모리에 올리지 않음)
+	 */
+	private void validatePdf(Path spillFile) {
+		try (PDDocument document = Loader.loadPDF(spillFile.toFile())) {
+			if (document.getNumberOfPages() == 0) {
+				throw new CustomException(ErrorCode.INVALID_FILE_EXTENSION);
+			}
+		} catch (IOException e) {
+			log.warn("⚠️ 유효하지 않은 PDF: {}", e.getMessage());
+			throw new CustomException(ErrorCode.INVALID_FILE_EXTENSION);
+		}
+	}
+
+	private boolean startsWithPdfMagic(byte[] buffer, int length) {
+		if (length < PDF_MAGIC.length) {
+			return false;
+		}
+		for (int i = 0; i < PDF_MAGIC.length; i++) {
+			if (buffer[i] != PDF_MAGIC[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void abortQuietly(String s3Key, String uploadId) {
+		try {
+			s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+				.bucket(bucketName)
+				.key(s3Key)
+				.uploadId(uploadId)
+				.build());
+			log.info("멀티파트 업로드 취소: {}", s3Key);
+		} catch (Exception e) {
+			log.warn("멀티파트 업로드 취소 실패: {}, {}", s3Key, e.getMessage());
+		}
+	}
+
+	private static void deleteQuietly(Path file) {
+		if (file == null) {
+			return;
+		}
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			log.warn("Failed to delete temp file: {}", file, e);
+		}
+	}
+
+	/**
+	 * 업로드 결과
+	 *
+	 * @param s3Key:        업로드된 S3 키 (내용 해시 기반)
+	 * @param contentHash:  SHA-256 (hex)
+	 * @param size:         전체 바이트 수
+	 * @param deduplicated: 같은 내용의 객체가 이미 있어 새로 저장하지 않았는지 여부
+	 * @param spillFile:    검증에 사용한 임시 파일 (close 시 삭제)
+	 */
+	public record IngestedPdf(String s3Key, String contentHash, long size, boolean deduplicated, Path spillFile)
+		implements AutoCloseable {
+
+		@Override
+		public void close() {
+			deleteQuietly(spillFile);
+		}
+	}
+
+	/**
+	 * 내려받은 PDF 임시 파일
+	 *
+	 * @param file: 임시 파일 (close 시 삭제)
+	 */
+	public record DownloadedPdf(Path file) implements AutoCloseable {
+
+		@Override
+		public void close() {
+			deleteQuietly(file);
+		}
+	}
+}
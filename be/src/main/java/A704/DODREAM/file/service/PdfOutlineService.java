@@ -0,0 +1,449 @@
+package A704.DODREAM.file.service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDDocumentOutline;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineItem;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineNode;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.text.TextPosition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import A704.DODREAM.file.dto.DocumentSectionResponse;
+import A704.DODREAM.file.entity.DocumentSection;
+import A704.DODREAM.file.entity.UploadedFile;
+import A704.DODREAM.file.enums.SectionSource;
+import A704.DODREAM.file.repository.DocumentSectionRepository;
+import A704.DODREAM.file.repository.UploadedFileRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * PDF 자체 정보로 만드는 목차 초안 (LLM 파싱 전 빠른 경로)
+ * <p>
+ * 1. 북마크(PDDocumentOutline)가 있으면 그 계층을 그대로 섹션 트리로 쓴다 (깊이 = 레벨, 최대 3단계).
+ * 2. 없으면 텍스트 레이어의 글자 크기(TextPosition)를 모아 본문 크기(글자 수 기준 최빈값)를 구하고,
+ * 본문보다 큰 짧은 줄의 크기를 큰 순서로 묶어 대/중/소단원으로 본다.
+ * <p>
+ * 업로드 직후 PDF_OUTLINE 작업으로 수 초 안에 document_sections와 목차 초안(indexes)을 채운다.
+ * LLM 파싱이 끝나면 indexes는 파싱 결과로 덮어쓰고, 섹션은 선생님이 편집할 초안으로 남는다.
+ * 섹션은 source = OUTLINE 행만 바꾸고, OCR 제목 감지나 편집으로 만든 섹션이 이미 있으면 섹션은 쓰지 않는다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PdfOutlineService {
+
+	private static final int MAX_LEVEL = 3;
+	private static final int MAX_BOOKMARKS = 2000;   // 순환 참조가 있는 깨진 북마크 방어
+	private static final int MAX_TITLE_LENGTH = 255;
+	private static final int MAX_REPEATED_TEXT = 3;  // 이보다 많은 페이지에 같은 줄이 있으면 머리글/바닥글
+	private static final float SIZE_STEP = 0.5f;     // 글자 크기 반올림 단위 (pt)
+	private static final float CLUSTER_GAP = 1.0f;   // 이 차이 이내 글자 크기는 같은 레벨
+
+	private final UploadedFileRepository uploadedFileRepository;
+	private final DocumentSectionRepository documentSectionRepository;
+	private final PdfIngestService pdfIngestService;
+	private final TransactionTemplate transactionTemplate;
+
+	@Value("${outline.min-bookmarks:2}")
+	private int minBookmarks;
+
+	@Value("${outline.heading-size-ratio:1.15}")
+	private double headingSizeRatio;
+
+	@Value("${outline.max-heading-length:80}")
+	private int maxHeadingLength;
+
+	public enum Source {
+		BOOKMARKS, FONT_SIZE, NONE
+	}
+
+	/**
+	 * 목차 제목
+	 *
+	 * @param topOfPage: 페이지 첫 줄이면 true (앞 섹션이 이전 페이지에서 끝남)
+	 * @param fontSize:  글자 크기 (pt, 북마크는 null)
+	 */
+	public record Heading(String title, int level, int page, boolean topOfPage, Integer fontSize) {
+	}
+
+	public record Outline(Source source, List<Heading> headings, int pageCount) {
+	}
+
+	/**
+	 * 업로드된 PDF로 목차 초안 생성 (PDF_OUTLINE 작업 워커에서 호출)
+	 * 같은 파일의 이전 초안 섹션만 새 초안으로 바꾼다 (작업 재시도에도 편집/OCR 섹션은 그대로).
+	 */
+	public void buildOutline(Long pdfId) {
+		UploadedFile uploadedFile = uploadedFileRepository.findById(pdfId)
+			.orElseThrow(() -> new RuntimeException("PDF not found"));
+
+		long startedAt = System.currentTimeMillis();
+
+		// 교재 PDF는 수백 MB일 수 있으므로 힙이 아닌 임시 파일에서 연다
+		Outline outline;
+		try (PdfIngestService.DownloadedPdf pdf = pdfIngestService.download(uploadedFile.getS3Key());
+			PDDocument document = Loader.loadPDF(new RandomAccessReadBufferedFile(pdf.file().toFile()))) {
+			outline = extract(document);
+		} catch (IOException e) {
+			throw new RuntimeException("PDF 목차 추출 실패: " + e.getMessage(), e);
+		}
+
+		transactionTemplate.executeWithoutResult(status -> save(uploadedFile, outline));
+
+		log.info("✅ PDF 목차 초안 생성 완료: pdfId={}, source={}, sections={}, {} ms", pdfId, outline.source(),
+			outline.headings().size(), System.currentTimeMillis() - startedAt);
+	}
+
+	/**
+	 * 북마크 → 없으면 글자 크기 순으로 목차 추출
+	 */
+	public Outline extract(PDDocument document) throws IOException {
+		int pageCount = document.getNumberOfPages();
+
+		List<Heading> bookmarks = bookmarks(document);
+		if (bookmarks.size() >= minBookmarks) {
+			return new Outline(Source.BOOKMARKS, bookmarks, pageCount);
+		}
+
+		List<Heading> headings = fontSizeHeadings(document);
+		return new Outline(headings.isEmpty() ? Source.NONE : Source.FONT_SIZE, headings, pageCount);
+	}
+
+	/**
+	 * 목차 트리 조회
+	 */
+	public Map<String, Object> getOutline(Long pdfId, Long userId) {
+		UploadedFile uploadedFile = uploadedFileRepository.findById(pdfId)
+			.orElseThrow(() -> new RuntimeException("PDF not found"));
+
+		// 권한 검증
+		if (!uploadedFile.getUploaderId().equals(userId)) {
+			throw new RuntimeException("Not your PDF");
+		}
+
+		List<DocumentSectionResponse> roots = new ArrayList<>();
+		Deque<DocumentSectionResponse> parents = new ArrayDeque<>();
+		for (DocumentSection section : documentSectionRepository.findByUploadedFileIdOrderBySectionOrder(pdfId)) {
+			DocumentSectionResponse node = DocumentSectionResponse.builder()
+				.sectionId(section.getId())
+				.title(section.getTitle())
+				.level(section.getLevel())
+				.startPage(section.getStartPage())
+				.endPage(section.getEndPage())
+				.fontSize(section.getFontSize())
+				.summaryText(section.getSummaryText())
+				.children(new ArrayList<>())
+				.build();
+
+			while (!parents.isEmpty() && parents.peek().getLevel() >= node.getLevel()) {
+				parents.pop();
+			}
+			if (parents.isEmpty()) {
+				roots.add(node);
+			} else {
+				parents.peek().getChildren().add(node);
+			}
+			parents.push(node);
+		}
+
+		List<String> indexes = uploadedFile.getIndexes() != null && !uploadedFile.getIndexes().isBlank()
+			? Arrays.asList(uploadedFile.getIndexes().split(","))
+			: List.of();
+
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("pdfId", pdfId);
+		result.put("filename", uploadedFile.getOriginalFileName());
+		result.put("outlinedAt", uploadedFile.getOutlinedAt());
+		result.put("parsedAt", uploadedFile.getParsedAt());
+		result.put("indexes", indexes);
+		result.put("sections", roots);
+		return result;
+	}
+
+	// ===== 저장 =====
+
+	private void save(UploadedFile uploadedFile, Outline outline) {
+		Long pdfId = uploadedFile.getId();
+		// OCR 섹션 교체와 겹치지 않도록 파일 행 잠금
+		UploadedFile locked = uploadedFileRepository.findForUpdate(pdfId)
+			.orElseThrow(() -> new RuntimeException("PDF not found"));
+		if (documentSectionRepository.existsNonOutline(pdfId)) {
+			log.info("⏭️ OCR/편집 섹션이 있어 목차 초안 섹션은 저장하지 않습니다: pdfId={}", pdfId);
+		} else {
+			documentSectionRepository.deleteBySources(pdfId, List.of(SectionSource.OUTLINE));
+			documentSectionRepository.saveAll(toSections(locked, outline));
+		}
+
+		// 최상위 제목을 목차 초안으로 (LLM 파싱 결과가 이미 있으면 그대로 둠)
+		String draftIndexes = outline.headings().stream()
+			.filter(heading -> heading.level() == 1)
+			.map(Heading::title)
+			.collect(Collectors.joining(","));
+		if (!draftIndexes.isEmpty()) {
+			uploadedFileRepository.updateDraftIndexes(pdfId, draftIndexes);
+		}
+		uploadedFileRepository.updateOutlinedAt(pdfId, LocalDateTime.now());
+	}
+
+	/**
+	 * 제목 → 섹션 (끝 페이지: 같은 레벨 이상의 다음 제목 직전, 없으면 마지막 페이지)
+	 */
+	private static List<DocumentSection> toSections(UploadedFile uploadedFile, Outline outline) {
+		List<Heading> headings = outline.headings();
+		List<DocumentSection> sections = new ArrayList<>(headings.size());
+
+		for (int i = 0; i < headings.size(); i++) {
+			Heading heading = headings.get(i);
+			int endPage = outline.pageCount();
+			for (int j = i + 1; j < headings.size(); j++) {
+				Heading next = headings.get(j);
+				if (next.level() <= heading.level()) {
+					endPage = next.topOfPage() ? next.page() - 1 : next.page();
+					break;
+				}
+			}
+
+			sections.add(DocumentSection.builder()
+				.uploadedFile(uploadedFile)
+				.title(heading.title())
+				.level(heading.level())
+				.startPage(heading.page())
+				.endPage(Math.max(heading.page(), endPage))
+				.fontSize(heading.fontSize())
+				.sectionOrder(i)
+				.source(SectionSource.OUTLINE)
+				.build());
+		}
+		return sections;
+	}
+
+	// ===== 북마크 =====
+
+	private static List<Heading> bookmarks(PDDocument document) throws IOException {
+		List<Heading> headings = new ArrayList<>();
+		PDDocumentOutline outline = document.getDocumentCatalog().getDocumentOutline();
+		if (outline != null) {
+			collectBookmarks(document, outline, 1, headings, new int[] {0});
+		}
+		return headings;
+	}
+
+	private static void collectBookmarks(PDDocument document, PDOutlineNode node, int level, List<Heading> headings,
+		int[] visited) throws IOException {
+		for (PDOutlineItem item : node.children()) {
+			if (++visited[0] > MAX_BOOKMARKS) {
+				return;
+			}
+			PDPage page = item.findDestinationPage(document);
+			int pageNumber = page != null ? document.getPages().indexOf(page) + 1 : 0;
+			String title = clean(item.getTitle());
+			if (pageNumber > 0 && !title.isEmpty()) {
+				headings.add(new Heading(title, level, pageNumber, true, null));
+			}
+			if (level < MAX_LEVEL) {
+				collectBookmarks(document, item, level + 1, headings, visited);
+			}
+		}
+	}
+
+	// ===== 글자 크기 =====
+
+	/**
+	 * 글자 크기 군집으로 제목 찾기
+	 * - 본문 크기: 글자 수 기준 최빈 크기
+	 * - 제목 후보: 본문보다 heading-size-ratio배 이상 큰 짧은 줄 (여러 페이지에 반복되는 머리글 제외)
+	 * - 후보 크기를 큰 순서로 CLUSTER_GAP 이내끼리 묶고, 두 번 이상 나온 군집 상위 3개를 레벨 1~3으로
+	 */
+	private List<Heading> fontSizeHeadings(PDDocument document) throws IOException {
+		LineCollector collector = new LineCollector();
+		collector.writeText(document, Writer.nullWriter());
+		List<Line> lines = collector.lines;
+		if (lines.isEmpty()) {
+			return List.of();
+		}
+
+		Map<Float, Integer> charsBySize = new HashMap<>();
+		Map<String, Integer> textRepeats = new HashMap<>();
+		for (Line line : lines) {
+			charsBySize.merge(line.size(), line.chars(), Integer::sum);
+			textRepeats.merge(line.text(), 1, Integer::sum);
+		}
+		float bodySize = charsBySize.entrySet().stream()
+			.max(Map.Entry.comparingByValue())
+			.map(Map.Entry::getKey)
+			.orElse(0f);
+
+		// 후보 크기별 줄 수 (큰 크기부터)
+		TreeMap<Float, Integer> candidateSizes = new TreeMap<>((a, b) -> Float.compare(b, a));
+		for (Line line : lines) {
+			if (isCandidate(line, bodySize, textRepeats)) {
+				candidateSizes.merge(line.size(), 1, Integer::sum);
+			}
+		}
+
+		// 크기 군집 → 레벨
+		Map<Float, Integer> levelBySize = new HashMap<>();
+		List<Float> cluster = new ArrayList<>();
+		int clusterLines = 0;
+		int level = 1;
+		for (Map.Entry<Float, Integer> entry : candidateSizes.entrySet()) {
+			if (!cluster.isEmpty() && cluster.get(0) - entry.getKey() > CLUSTER_GAP) {
+				if (clusterLines >= 2) {
+					for (Float size : cluster) {
+						levelBySize.put(size, level);
+					}
+					level++;
+				}
+				cluster.clear();
+				clusterLines = 0;
+			}
+			if (level > MAX_LEVEL) {
+				break;
+			}
+			cluster.add(entry.getKey());
+			clusterLines += entry.getValue();
+		}
+		if (level <= MAX_LEVEL && clusterLines >= 2) {
+			for (Float size : cluster) {
+				levelBySize.put(size, level);
+			}
+		}
+		if (levelBySize.isEmpty()) {
+			return List.of();
+		}
+
+		// 제목 줄 (같은 페이지에서 바로 이어지는 같은 레벨 줄은 여러 줄 제목으로 합침)
+		List<Heading> headings = new ArrayList<>();
+		Line previous = null;
+		for (Line line : lines) {
+			Integer headingLevel = isCandidate(line, bodySize, textRepeats) ? levelBySize.get(line.size()) : null;
+			if (headingLevel != null) {
+				Heading last = headings.isEmpty() ? null : headings.get(headings.size() - 1);
+				if (last != null && previous != null && previous.page() == line.page()
+					&& previous.index() + 1 == line.index() && last.level() == headingLevel
+					&& last.page() == line.page()) {
+					headings.set(headings.size() - 1, new Heading(truncate(last.title() + " " + line.text()),
+						last.level(), last.page(), last.topOfPage(), last.fontSize()));
+				} else {
+					headings.add(new Heading(truncate(line.text()), headingLevel, line.page(), line.index() == 0,
+						Math.round(line.size())));
+				}
+				previous = line;
+			} else {
+				previous = null;
+			}
+		}
+		return headings;
+	}
+
+	private boolean isCandidate(Line line, float bodySize, Map<String, Integer> textRepeats) {
+		return line.size() >= bodySize * headingSizeRatio
+			&& line.text().length() <= maxHeadingLength
+			&& textRepeats.getOrDefault(line.text(), 0) <= MAX_REPEATED_TEXT;
+	}
+
+	private static String clean(String title) {
+		return title != null ? truncate(title.replaceAll("\\s+", " ").trim()) : "";
+	}
+
+	private static String truncate(String title) {
+		return title.length() > MAX_TITLE_LENGTH ? title.substring(0, MAX_TITLE_LENGTH) : title;
+	}
+
+	/**
+	 * 텍스트 한 줄
+	 *
+	 * @param index: 페이지 안에서 줄 순서 (0 = 첫 줄)
+	 * @param size:  글자 크기 중앙값 (pt, SIZE_STEP 단위)
+	 * @param chars: 공백 아닌 글자 수
+	 */
+	private record Line(int page, int index, String text, float size, int chars) {
+	}
+
+	/**
+	 * 줄 단위로 글자 크기를 모으는 stripper (위치순 정렬, 출력은 버림)
+	 */
+	private static final class LineCollector extends PDFTextStripper {
+
+		private final List<Line> lines = new ArrayList<>();
+		private final StringBuilder text = new StringBuilder();
+		private final List<Float> sizes = new ArrayList<>();
+		private int lineIndex;
+
+		private LineCollector() {
+			setSortByPosition(true);
+		}
+
+		@Override
+		protected void startPage(PDPage page) throws IOException {
+			super.startPage(page);
+			lineIndex = 0;
+		}
+
+		@Override
+		protected void writeString(String string, List<TextPosition> textPositions) {
+			if (!text.isEmpty()) {
+				text.append(' ');
+			}
+			text.append(string);
+			for (TextPosition position : textPositions) {
+				if (!position.getUnicode().isBlank()) {
+					sizes.add(position.getFontSizeInPt());
+				}
+			}
+		}
+
+		@Override
+		protected void writeLineSeparator() {
+			flush();
+		}
+
+		// 문단 경계에서는 줄 구분자 대신 문단 시작/끝만 호출된다
+		@Override
+		protected void writeParagraphStart() throws IOException {
+			flush();
+			super.writeParagraphStart();
+		}
+
+		@Override
+		protected void endPage(PDPage page) throws IOException {
+			flush();
+			super.endPage(page);
+		}
+
+		private void flush() {
+			String line = text.toString().replaceAll("\\s+", " ").trim();
+			if (!line.isEmpty() && !sizes.isEmpty()) {
+				float[] sorted = new float[sizes.size()];
+				for (int i = 0; i < sorted.length; i++) {
+					sorted[i] = sizes.get(i);
+				}
+				Arrays.sort(sorted);
+				float size = Math.round(sorted[sorted.length / 2] / SIZE_STEP) * SIZE_STEP;
+				lines.add(new Line(getCurrentPageNo(), lineIndex++, line, size, sorted.length));
+			}
+			text.setLength(0);
+			sizes.clear();
+		}
+	}
+}
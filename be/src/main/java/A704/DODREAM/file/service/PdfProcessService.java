@@ -4,20 +4,37 @@ import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
 
 import javax.imageio.ImageIO;
 
 import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
 import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SynchronousSink;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * PDF 페이지 렌더링 (OCR 입력용)
+ * <p>
+ * 흑백(GRAY)으로 기본 DPI에 렌더링하고, 인식 신뢰도가 낮은 페이지만 높은 DPI로 다시 렌더링한다.
+ * 워커마다 PDDocument를 따로 열어(PDFBox 문서는 스레드 안전하지 않음) 페이지를 나눠 맡고,
+ * 결과는 페이지 순서로 합친다. 문서는 열 때 xref만 읽고 객체는 맡은 페이지를 그릴 때 읽으므로,
+ * 워커가 늘어도 PDF 바이트는 복사되지 않고(같은 배열을 감쌈) 파싱 구조만 워커 수만큼 생긴다.
+ * 그래도 워커마다 폰트/이미지 캐시가 따로 생기므로 워커 수는 작은 설정값으로 제한한다.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
@@ -25,56 +42,69 @@ public class PdfProcessService {
 
 	private final FileStorageService fileStorageService;
 
-	private static final int DPI = 300; // 고해상도로 변환
+	public static final int COORDINATE_DPI = 300; // OCR 좌표 기준 (렌더링 DPI와 상관없이 이 해상도 좌표로 저장)
 	private static final String IMAGE_FORMAT = "png";
+	private static final int SKIP_PAGE = -1;
+	private static final PageImage SKIP = new PageImage(0, new byte[0], IMAGE_FORMAT, 0);
+
+	@Value("${ocr.render.base-dpi:200}")
+	private int baseDpi;
+
+	@Value("${ocr.render.retry-dpi:300}")
+	private int retryDpi;
+
+	@Value("${ocr.render.workers:2}")
+	private int workers; // CPU 코어 수를 넘지 않음
 
 	/**
-	 * PDF 파일을 페이지별 이미지로 변환 (저장된 파일명 사용)
+	 * 렌더링된 페이지 이미지 (메모리, PNG 인코딩)
+	 *
+	 * @param dpi: 렌더링 해상도 (OCR 좌표 환산용)
 	 */
-	public List<File> convertPdfToImages(String storedFileName) throws IOException {
-		Path pdfPath = fileStorageService.getFilePath(storedFileName);
-		File pdfFile = pdfPath.toFile();
-		return convertPdfToImages(pdfFile);
+	public record PageImage(int pageNumber, byte[] bytes, String format, int dpi) {
 	}
 
 	/**
-	 * PDF 파일을 페이지별 이미지로 변환 (File 객체 직접 사용)
+	 * PDF 파일을 페이지별 이미지로 렌더링 (저장된 파일명 사용)
 	 */
-	public List<File> convertPdfToImages(File pdfFile) throws IOException {
-		List<File> imageFiles = new ArrayList<>();
-
-		try (PDDocument document = Loader.loadPDF(pdfFile)) {
-			PDFRenderer pdfRenderer = new PDFRenderer(document);
-			int pageCount = document.getNumberOfPages();
-
-			log.info("Converting PDF to images: {} pages", pageCount);
-
-			for (int pageIndex = 0; pageIndex < pageCount; pageIndex++) {
-				BufferedImage image = pdfRenderer.renderImageWithDPI(pageIndex, DPI);
+	public Flux<PageImage> renderPages(String storedFileName) {
+		return renderPages(storedFileName, null, baseDpi);
+	}
 
-				// 이미지를 바이트 배열로 변환
-				ByteArrayOutputStream baos = new ByteArrayOutputStream();
-				ImageIO.write(image, IMAGE_FORMAT, baos);
-				byte[] imageData = baos.toByteArray();
+	/**
+	 * 지정한 페이지만 지정한 DPI로 렌더링 (저장된 파일명 사용, pageNumbers가 null이면 전체)
+	 */
+	public Flux<PageImage> renderPages(String storedFileName, List<Integer> pageNumbers, int dpi) {
+		File pdfFile = fileStorageService.getFilePath(storedFileName).toFile();
+		return render(() -> Loader.loadPDF(pdfFile), pageNumbers, dpi);
+	}
 
-				// 임시 파일로 저장
-				String prefix = String.format("page_%d", pageIndex + 1);
-				File imageFile = fileStorageService.saveTempFile(imageData, prefix, IMAGE_FORMAT);
-				imageFiles.add(imageFile);
+	/**
+	 * PDF 바이트를 페이지별 이미지로 렌더링 (다운로드한 PDF, 임시 파일 없음)
+	 */
+	public Flux<PageImage> renderPages(byte[] pdfBytes) {
+		return renderPages(pdfBytes, null, baseDpi);
+	}
 
-				log.debug("Page {} converted to image", pageIndex + 1);
-			}
+	/**
+	 * 지정한 페이지만 지정한 DPI로 렌더링 (pageNumbers가 null이면 전체)
+	 */
+	public Flux<PageImage> renderPages(byte[] pdfBytes, List<Integer> pageNumbers, int dpi) {
+		return render(() -> Loader.loadPDF(pdfBytes), pageNumbers, dpi);
+	}
 
-			log.info("PDF conversion completed: {} pages converted", pageCount);
-		} catch (IOException e) {
-			// 이미 생성된 임시 파일들 정리
-			for (File imageFile : imageFiles) {
-				fileStorageService.deleteTempFile(imageFile);
-			}
-			throw new IOException("Failed to convert PDF to images: " + e.getMessage(), e);
-		}
+	/**
+	 * 기본 렌더링 해상도
+	 */
+	public int getBaseDpi() {
+		return baseDpi;
+	}
 
-		return imageFiles;
+	/**
+	 * 신뢰도가 낮은 페이지 재렌더링 해상도
+	 */
+	public int getRetryDpi() {
+		return retryDpi;
 	}
 
 	/**
@@ -88,4 +118,134 @@ public class PdfProcessService {
 			return document.getNumberOfPages();
 		}
 	}
-}
\ No newline at end of file
+
+	// ===== 내부 =====
+
+	@FunctionalInterface
+	private interface DocumentOpener {
+		PDDocument open() throws IOException;
+	}
+
+	/**
+	 * 워커 하나의 렌더링 상태 (워커마다 문서 하나, 맡은 페이지만)
+	 */
+	private static final class RenderState {
+		private final PDDocument document;
+		private final PDFRenderer renderer;
+		private final List<Integer> pageIndexes;
+		private int position;
+
+		private RenderState(PDDocument document, List<Integer> pageIndexes) {
+			this.document = document;
+			this.renderer = new PDFRenderer(document);
+			this.pageIndexes = pageIndexes;
+		}
+	}
+
+	/**
+	 * 워커별로 페이지를 나눠 렌더링하고 페이지 순서로 합침
+	 * 페이지는 워커에 번갈아 배정(0, W, 2W... / 1, W+1...)해 순서대로 소비해도 모든 워커가 고르게 진행한다.
+	 * 각 워커는 요청받은 만큼만 렌더링(pull)하므로 메모리에는 워커당 한 장씩만 먼저 올라간다.
+	 */
+	private Flux<PageImage> render(DocumentOpener opener, List<Integer> pageNumbers, int dpi) {
+		return Flux.defer(() -> {
+			// 페이지 수를 세려고 연 문서는 닫지 않고 처음 시작하는 워커가 이어서 쓴다
+			PDDocument first = open(opener);
+			List<Integer> pageIndexes = pageNumbers != null
+				? pageNumbers.stream().map(pageNumber -> pageNumber - 1).sorted().toList()
+				: IntStream.range(0, first.getNumberOfPages()).boxed().toList();
+			if (pageIndexes.isEmpty()) {
+				closeQuietly(first);
+				return Flux.<PageImage>empty();
+			}
+			AtomicReference<PDDocument> unclaimed = new AtomicReference<>(first);
+
+			int workerCount = Math.min(pageIndexes.size(),
+				Math.min(Math.max(1, workers), Runtime.getRuntime().availableProcessors()));
+			log.info("Converting PDF to images: {} pages, {} dpi, {} workers", pageIndexes.size(), dpi, workerCount);
+
+			// 모든 워커가 같은 횟수만큼 내보내도록 모자란 자리는 SKIP으로 채움
+			int rounds = (pageIndexes.size() + workerCount - 1) / workerCount;
+			List<Flux<PageImage>> ranges = new ArrayList<>(workerCount);
+			for (int worker = 0; worker < workerCount; worker++) {
+				List<Integer> assigned = new ArrayList<>(rounds);
+				for (int round = 0; round < rounds; round++) {
+					int i = round * workerCount + worker;
+					assigned.add(i < pageIndexes.size() ? pageIndexes.get(i) : SKIP_PAGE);
+				}
+				ranges.add(Flux.<PageImage, RenderState>generate(
+						() -> {
+							PDDocument document = unclaimed.getAndSet(null);
+							return new RenderState(document != null ? document : opener.open(), assigned);
+						},
+						(state, sink) -> renderNext(state, sink, dpi),
+						this::close)
+					.subscribeOn(Schedulers.boundedElastic()));
+			}
+
+			// 번갈아 배정했으므로 워커 순서대로 한 장씩 꺼내면 페이지 순서
+			return Flux.zip(ranges, 1, images -> images)
+				.concatMapIterable(images -> {
+					List<PageImage> ordered = new ArrayList<>(images.length);
+					for (Object image : images) {
+						if (image != SKIP) {
+							ordered.add((PageImage)image);
+						}
+					}
+					return ordered;
+				})
+				.doOnComplete(() -> log.info("PDF conversion completed: {} pages converted", pageIndexes.size()))
+				.doFinally(signal -> closeQuietly(unclaimed.getAndSet(null)));
+		});
+	}
+
+	private RenderState renderNext(RenderState state, SynchronousSink<PageImage> sink, int dpi) {
+		if (state.position >= state.pageIndexes.size()) {
+			sink.complete();
+			return state;
+		}
+
+		int pageIndex = state.pageIndexes.get(state.position++);
+		if (pageIndex == SKIP_PAGE) {
+			sink.next(SKIP);
+			return state;
+		}
+		try {
+			// 글자 인식에는 색이 필요 없으므로 흑백으로 (픽셀·PNG 크기 감소)
+			BufferedImage image = state.renderer.renderImageWithDPI(pageIndex, dpi, ImageType.GRAY);
+
+			// 이미지를 바이트 배열로 변환
+			ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			ImageIO.write(image, IMAGE_FORMAT, baos);
+			sink.next(new PageImage(pageIndex + 1, baos.toByteArray(), IMAGE_FORMAT, dpi));
+
+			log.debug("Page {} converted to image ({} dpi, {} bytes)", pageIndex + 1, dpi, baos.size());
+		} catch (IOException e) {
+			sink.error(new IOException("Failed to convert PDF to images: " + e.getMessage(), e));
+		}
+		return state;
+	}
+
+	private PDDocument open(DocumentOpener opener) {
+		try {
+			return opener.open();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to open PDF: " + e.getMessage(), e);
+		}
+	}
+
+	private void close(RenderState state) {
+		closeQuietly(state.document);
+	}
+
+	private void closeQuietly(PDDocument document) {
+		if (document == null) {
+			return;
+		}
+		try {
+			document.close();
+		} catch (IOException e) {
+			log.warn("Failed to close PDF document: {}", e.getMessage());
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package A704.DODREAM.file.service;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -16,28 +17,33 @@ import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.reactive.function.client.WebClient;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
+import A704.DODREAM.file.dto.MaterialDocument;
+import A704.DODREAM.file.entity.DocumentJob;
 import A704.DODREAM.file.entity.OcrStatus;
+import A704.DODREAM.file.entity.PdfContent;
 import A704.DODREAM.file.entity.UploadedFile;
+import A704.DODREAM.file.enums.JobType;
 import A704.DODREAM.file.repository.UploadedFileRepository;
+import A704.DODREAM.global.exception.CustomException;
+import A704.DODREAM.global.exception.JobDeferredException;
+import A704.DODREAM.global.exception.constant.ErrorCode;
 import lombok.extern.slf4j.Slf4j;
-import software.amazon.awssdk.core.ResponseInputStream;
+import reactor.core.publisher.Flux;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.GetObjectRequest;
-import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.model.S3Exception;
 
@@ -57,6 +63,36 @@ public class PdfService {
 	@Autowired
 	private S3Client s3Client;  // AWS SDK v2
 
+	@Autowired
+	private PdfIngestService pdfIngestService;
+
+	@Autowired
+	private DocumentJobService documentJobService;
+
+	@Autowired
+	private PdfContentService pdfContentService;
+
+	@Autowired
+	private ParsedJsonStore parsedJsonStore;
+
+	@Autowired
+	private StoredJsonCodec storedJsonCodec;
+
+	@Autowired
+	private ParseResponseStreamer parseResponseStreamer;
+
+	@Autowired
+	private TtsTextService ttsTextService;
+
+	@Autowired
+	private ConceptCheckService conceptCheckService;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Value("${job.coalesce.recheck-seconds:10}")
+	private long coalesceDelaySeconds;
+
 	@Value("${fastapi.url}")
 	private String fastApiUrl;
 
@@ -72,130 +108,256 @@ public class PdfService {
 	@Value("${aws.cloudfront.private-key-pem}")
 	private String privateKeyPath;
 
-	@Autowired
-	private ObjectMapper objectMapper;  // JSON 직렬화용
-
 	@Value("${aws.s3.upload-prefix:pdfs}")
 	private String uploadPrefix;
 
 	/**
-	 * PDF 업로드 + 파싱 통합 API (바이너리 스트림 방식)
+	 * PDF 업로드 (S3 스트리밍 업로드 + DB 저장)
+	 * 파싱은 하지 않으며, 파싱은 PDF_PARSE 작업으로 등록해 워커가 처리한다.
 	 *
-	 * @param pdfBytes: PDF 바이너리 데이터
-	 * @param filename: 원본 파일명
-	 * @param userId:   사용자 ID
-	 * @return 파싱된 결과 및 메타데이터
+	 * @param pdfStream: PDF 바이너리 스트림
+	 * @param filename:  원본 파일명
+	 * @param userId:    사용자 ID
+	 * @return 저장된 UploadedFile
 	 */
-	@Transactional
-	public Map<String, Object> uploadAndParsePdfFromBytes(byte[] pdfBytes, String filename, Long userId,
-		String authorizationHeader) {
-		try {
-			// 1. 파일 검증
-			if (pdfBytes == null || pdfBytes.length == 0) {
-				throw new RuntimeException("파일이 비어있습니다.");
-			}
-
-			if (filename == null || !filename.toLowerCase().endsWith(".pdf")) {
-				throw new RuntimeException("PDF 파일만 업로드 가능합니다.");
-			}
-
-			// 2. S3 키 생성
-			String s3Key = generateS3Key(filename);
-
-			// 3. S3에 업로드 (한글 파일명 URL 인코딩 처리)
-			String encodedFilename = URLEncoder.encode(filename, StandardCharsets.UTF_8);
-
-			PutObjectRequest putRequest = PutObjectRequest.builder()
-				.bucket(bucketName)
-				.key(s3Key)
-				.contentType("application/pdf")
-				.metadata(Map.of("original-filename", encodedFilename, "uploaded-by", userId.toString(), "uploaded-at",
-					LocalDateTime.now().toString()))
-				.build();
-
-			s3Client.putObject(putRequest, RequestBody.fromBytes(pdfBytes));
-
-			log.info("✅ PDF S3 업로드 완료: {}", s3Key);
+	public UploadedFile uploadPdf(InputStream pdfStream, String filename, Long userId) {
+		// 1. 파일 검증
+		if (filename == null || !filename.toLowerCase().endsWith(".pdf")) {
+			throw new RuntimeException("PDF 파일만 업로드 가능합니다.");
+		}
+
+		// 2. S3에 스트리밍 업로드 (키는 내용 해시로 결정, 한글 파일명 URL 인코딩 처리)
+		String encodedFilename = URLEncoder.encode(filename, StandardCharsets.UTF_8);
+		Map<String, String> metadata = Map.of("original-filename", encodedFilename, "uploaded-by",
+			userId.toString(), "uploaded-at", LocalDateTime.now().toString());
+
+		UploadedFile savedFile;
+		try (PdfIngestService.IngestedPdf ingested = pdfIngestService.ingest(pdfStream, metadata)) {
+			log.info("✅ PDF S3 업로드 완료: {}", ingested.s3Key());
+
+			// 3~4. 내용 등록 + DB에 UploadedFile 레코드 생성 (한 트랜잭션)
+			// 마지막 자료가 막 삭제된 해시를 다시 올리면 원본 정리(S3GarbageCollector)와 겹칠 수 있으므로,
+			// 삭제 예약 취소 → pdf_contents 행 잠금 → 원본 확인(지워졌으면 임시 파일로 재업로드) → 파일 행 저장을
+			// 잠금을 쥔 채 커밋한다. 정리 쪽은 같은 행을 잠근 뒤 사용 중인지 다시 확인한다.
+			savedFile = transactionTemplate.execute(status -> {
+				pdfContentService.register(ingested.contentHash(), ingested.s3Key(), ingested.size());
+				pdfIngestService.restoreIfMissing(ingested, metadata);
+
+				UploadedFile uploadedFile = UploadedFile.builder()
+					.originalFileName(filename)
+					.s3Key(ingested.s3Key())
+					.contentHash(ingested.contentHash())
+					.s3Bucket(bucketName)
+					.contentType("application/pdf")
+					.fileSize(ingested.size())
+					.ocrStatus(OcrStatus.PENDING)
+					.uploaderId(userId)
+					.build();
+
+				return uploadedFileRepository.save(uploadedFile);
+			});
+		}
+
+		log.info("✅ DB 저장 완료: pdfId={}", savedFile.getId());
+
+		return savedFile;
+	}
 
-			// 4. DB에 UploadedFile 레코드 생성
-			UploadedFile uploadedFile = UploadedFile.builder()
-				.originalFileName(filename)
-				.s3Key(s3Key)
-				.s3Bucket(bucketName)
-				.contentType("application/pdf")
-				.fileSize((long)pdfBytes.length)
-				.ocrStatus(OcrStatus.PENDING)
-				.uploaderId(userId)
-				.build();
+	/**
+	 * PDF 업로드 후 목차 초안 + 파싱 작업 등록 (즉시 반환)
+	 * 목차 초안(북마크/글자 크기)은 수 초 안에 끝나므로 LLM 파싱을 기다리지 않고 구조 편집을 시작할 수 있다.
+	 *
+	 * @param pdfStream:           PDF 바이너리 스트림
+	 * @param filename:            원본 파일명
+	 * @param userId:              사용자 ID
+	 * @param authorizationHeader: 초기 임베딩 호출용 JWT
+	 * @return 등록된 PDF_PARSE 작업
+	 */
+	public DocumentJob uploadPdfAndEnqueueParse(InputStream pdfStream, String filename, Long userId,
+		String authorizationHeader) {
+		UploadedFile savedFile = uploadPdf(pdfStream, filename, userId);
+		documentJobService.enqueue(JobType.PDF_OUTLINE, savedFile.getId(), userId, null);
+		return documentJobService.enqueue(JobType.PDF_PARSE, savedFile.getId(), userId, authorizationHeader);
+	}
 
-			UploadedFile savedFile = uploadedFileRepository.save(uploadedFile);
+	/**
+	 * 업로드된 PDF 파싱 (동기 호출용 - 작업 ID 없음)
+	 */
+	public Map<String, Object> parseUploadedPdf(Long pdfId, String authorizationHeader) {
+		return parseUploadedPdf(pdfId, authorizationHeader, null);
+	}
 
-			log.info("✅ DB 저장 완료: pdfId={}", savedFile.getId());
+	/**
+	 * 업로드된 PDF 파싱 (FastAPI 호출 → JSON S3 저장 → DB 반영 → 초기 임베딩)
+	 * FastAPI 응답을 기다리는 동안 DB 트랜잭션을 잡지 않는다. (작업 워커에서 호출)
+	 * 같은 PDF에 대해 다시 실행해도 같은 JSON 키를 덮어쓰므로 재시도에 안전하다.
+	 * <p>
+	 * 같은 내용(해시)의 PDF가 이미 파싱되어 있으면 FastAPI를 호출하지 않고 공용 결과를 복사하며,
+	 * 다른 작업이 파싱 중이면 {@link JobDeferredException}으로 작업을 미룬다. (동기 호출은 파싱 리스를 잡지 못했으므로
+	 * 직접 파싱하지 않고 PARSE_IN_PROGRESS로 거절)
+	 *
+	 * @param pdfId:               PDF ID
+	 * @param authorizationHeader: 초기 임베딩 호출용 JWT (없으면 임베딩 생략)
+	 * @param jobId:               파싱 작업 ID (동기 호출은 null)
+	 * @return pdfId, filename, jsonS3Key, chapters (새로 파싱한 경우 챕터 목록, 본문은 S3에서 조회)
+	 */
+	public Map<String, Object> parseUploadedPdf(Long pdfId, String authorizationHeader, Long jobId) {
+		UploadedFile uploadedFile = uploadedFileRepository.findById(pdfId)
+			.orElseThrow(() -> new RuntimeException("PDF not found"));
 
-			// 5. CloudFront signed URL 생성
-			String cloudFrontUrl = cloudFrontService.generateSignedUrl(s3Key);
+		if (uploadedFile.getS3Key() == null) {
+			throw new RuntimeException("S3 key not found. Please upload via presigned URL first.");
+		}
 
-			// 6. FastAPI 호출하여 파싱
-			String fastApiEndpoint = fastApiUrl + "/document/parse-pdf-from-cloudfront";
+		String owner = uploadedFile.getUploaderId().toString();
+		String contentHash = uploadedFile.getContentHash();
+		String jsonS3Key = fileJsonKey(uploadedFile);
+		List<ParseResponseStreamer.ChapterSummary> chapters = List.of();
+		String indexes;
 
-			Map<String, String> request = new HashMap<>();
-			request.put("cloudfront_url", cloudFrontUrl);
+		if (contentHash == null) {
+			// 해시가 없는 기존 파일은 그대로 파싱
+			ParseResponseStreamer.StreamedParse parsed = requestParse(uploadedFile.getS3Key(), jsonS3Key, owner);
+			indexes = parsed.joinedIndexes();
+			chapters = parsed.chapters();
 
-			ResponseEntity<Map> response = webClient.post()
-				.uri(fastApiEndpoint)
-				.bodyValue(request)
-				.retrieve()
-				.onStatus(status -> status.is4xxClientError() || status.is5xxServerError(),
-					clientResponse -> clientResponse.bodyToMono(String.class)
-						.map(errorBody -> new RuntimeException("FastAPI 에러: " + errorBody)))
-				.toEntity(Map.class)
-				.block();
+		} else {
+			PdfContentService.ParseDecision decision = pdfContentService.acquireParse(contentHash, jobId);
 
-			if (response.getBody() == null) {
-				throw new RuntimeException("FastAPI 응답이 비어있습니다.");
+			if (decision == PdfContentService.ParseDecision.BUSY) {
+				if (jobId == null) {
+					throw new CustomException(ErrorCode.PARSE_IN_PROGRESS);
+				}
+				throw new JobDeferredException("같은 PDF를 다른 작업이 파싱 중입니다.", coalesceDelaySeconds);
 			}
 
-			Map<String, Object> parsedData = (Map<String, Object>)response.getBody().get("parsed_data");
-
-			if (parsedData == null) {
-				throw new RuntimeException("FastAPI 응답에 parsed_data가 없습니다.");
+			if (decision == PdfContentService.ParseDecision.REUSE) {
+				// 공용 파싱 결과를 이 파일의 JSON으로 복사 (발행 시 파일별 JSON만 덮어씀)
+				PdfContent content = pdfContentService.get(contentHash);
+				copyJson(content.getParsedJsonS3Key(), jsonS3Key);
+				indexes = content.getIndexes();
+				log.info("♻️ 기존 파싱 결과 재사용: pdfId={}, hash={}", pdfId, contentHash);
+
+			} else {
+				try {
+					String sharedJsonS3Key = "parsed-json/sha256/" + contentHash + ".json";
+					ParseResponseStreamer.StreamedParse parsed = requestParse(uploadedFile.getS3Key(), sharedJsonS3Key,
+						owner);
+					indexes = parsed.joinedIndexes();
+					chapters = parsed.chapters();
+
+					copyJson(sharedJsonS3Key, jsonS3Key);
+					pdfContentService.completeParse(contentHash, sharedJsonS3Key, indexes);
+
+				} catch (RuntimeException e) {
+					pdfContentService.releaseParse(contentHash, jobId);
+					throw e;
+				}
 			}
+		}
 
-			// 7. JSON을 S3에 저장
-			String jsonS3Key = uploadJsonToS3(s3Key, parsedData, userId.toString());
-
-			// 8. DB 업데이트 (파싱 결과 반영)
-			savedFile.setJsonS3Key(jsonS3Key);
-			savedFile.setParsedAt(LocalDateTime.now());
+		// DB 업데이트 (파싱 결과 반영, 필수 필드만 DB에 저장 - 검색용)
+		uploadedFile.setJsonS3Key(jsonS3Key);
+		uploadedFile.setParsedAt(LocalDateTime.now());
+		uploadedFile.setConceptCheckItemsS3Key(null);
+		if (indexes != null) {
+			uploadedFile.setIndexes(indexes);
+		}
 
-			// 필수 필드만 DB에 저장 (검색용)
-			if (parsedData.containsKey("indexes")) {
-				List<String> indexes = (List<String>)parsedData.get("indexes");
-				savedFile.setIndexes(String.join(",", indexes));
-			}
+		uploadedFileRepository.save(uploadedFile);
 
-			uploadedFileRepository.save(savedFile);
+		log.info("✅ 텍스트 추출 및 저장 완료: pdfId={}", pdfId);
 
-			log.info("✅ 텍스트 추출 및 저장 완료: pdfId={}", savedFile.getId());
+		// 읽기용 TXT, 개념 Check 항목은 후처리 작업으로 생성 (실패해도 파싱 결과에는 영향 없음)
+		documentJobService.enqueue(JobType.TTS_TEXT, pdfId, uploadedFile.getUploaderId(), null, Map.of(),
+			"tts-text:" + pdfId + ":" + uploadedFile.getParsedAt());
+		documentJobService.enqueue(JobType.CONCEPT_CHECK, pdfId, uploadedFile.getUploaderId(), null, Map.of(),
+			"concept-check:" + pdfId + ":" + uploadedFile.getParsedAt());
 
+		if (authorizationHeader != null) {
 			try {
 				// ✅ 초기 임베딩 API 호출 (pdf_id와 S3 URL 전달)
-				callFastApiInitialEmbedding(savedFile.getId(),           // pdf_id (Long 타입)
+				// 임베딩 컬렉션은 pdf_{pdfId} 단위로 조회되므로 중복 PDF도 파일별로 요청한다.
+				callFastApiInitialEmbedding(pdfId,           // pdf_id (Long 타입)
 					jsonS3Key,                    // 파싱된 JSON 파일의 S3 키
 					authorizationHeader           // JWT 토큰
 				);
 			} catch (Exception e) {
-				// 임베딩 실패가 파일 업로드 전체를 실패하게 하면 안 되므로 로그만 남김
-				log.error("⚠️ 초기 임베딩 생성 요청 실패 (pdfId={}): {}", savedFile.getId(), e.getMessage());
+				// 임베딩 실패가 파싱 전체를 실패하게 하면 안 되므로 로그만 남김
+				log.error("⚠️ 초기 임베딩 생성 요청 실패 (pdfId={}): {}", pdfId, e.getMessage());
 			}
+		}
 
-			log.info("✅ 전체 프로세스 완료: pdfId={}", savedFile.getId());
+		log.info("✅ 전체 프로세스 완료: pdfId={}", pdfId);
 
-			return Map.of("pdfId", savedFile.getId(), "filename", filename, "parsedData", parsedData);
+		return Map.of("pdfId", pdfId, "filename", uploadedFile.getOriginalFileName(), "jsonS3Key", jsonS3Key,
+			"chapters", chapters);
+	}
 
-		} catch (Exception e) {
-			throw new RuntimeException("PDF 업로드 및 파싱 실패: " + e.getMessage());
+	/**
+	 * FastAPI 파싱 호출 (응답을 Map으로 만들지 않고 parsed_data를 바로 S3에 저장)
+	 *
+	 * @param pdfS3Key:  원본 PDF의 S3 키
+	 * @param jsonS3Key: 파싱 결과를 저장할 S3 키
+	 * @param username:  사용자 ID (메타데이터용)
+	 * @return 저장 결과 (indexes, 챕터 목록)
+	 */
+	private ParseResponseStreamer.StreamedParse requestParse(String pdfS3Key, String jsonS3Key, String username) {
+		// 1. CloudFront signed URL 생성
+		String cloudFrontUrl = cloudFrontService.generateSignedUrl(pdfS3Key);
+
+		// 2. FastAPI 호출하여 파싱
+		String fastApiEndpoint = fastApiUrl + "/document/parse-pdf-from-cloudfront";
+
+		Map<String, String> request = new HashMap<>();
+		request.put("cloudfront_url", cloudFrontUrl);
+
+		// 3. 응답 본문을 조각 단위로 받아 S3에 스트리밍 저장 (WebClient 메모리 버퍼 한도와 무관)
+		Flux<DataBuffer> body = webClient.post()
+			.uri(fastApiEndpoint)
+			.bodyValue(request)
+			.retrieve()
+			.onStatus(status -> status.is4xxClientError() || status.is5xxServerError(),
+				clientResponse -> clientResponse.bodyToMono(String.class)
+					.map(errorBody -> new RuntimeException("FastAPI 에러: " + errorBody)))
+			.bodyToFlux(DataBuffer.class);
+
+		Map<String, String> metadata = Map.of("original-pdf", pdfS3Key, "parsed-at", LocalDateTime.now().toString(),
+			"owner", URLEncoder.encode(username, StandardCharsets.UTF_8));
+
+		ParseResponseStreamer.StreamedParse parsed = parseResponseStreamer.stream(body, jsonS3Key, metadata);
+		parsedJsonStore.invalidate(jsonS3Key);
+		return parsed;
+	}
+
+	/**
+	 * 파일별 JSON S3 키
+	 * 해시 기반 파일은 원본 PDF를 공유하므로 파일 ID로 구분한다.
+	 */
+	private String fileJsonKey(UploadedFile uploadedFile) {
+		if (uploadedFile.getJsonS3Key() != null) {
+			return uploadedFile.getJsonS3Key();
 		}
+		if (uploadedFile.getContentHash() != null) {
+			return "parsed-json/files/" + uploadedFile.getId() + ".json";
+		}
+		// 기존 방식: pdfs/abc123.pdf → parsed-json/abc123.json
+		String pdfS3Key = uploadedFile.getS3Key();
+		return pdfS3Key.replace(uploadPrefix + "/", "parsed-json/").replace(".pdf", ".json");
+	}
+
+	private void copyJson(String sourceKey, String destinationKey) {
+		s3Client.copyObject(CopyObjectRequest.builder()
+			.sourceBucket(bucketName)
+			.sourceKey(sourceKey)
+			.destinationBucket(bucketName)
+			.destinationKey(destinationKey)
+			.build());
+		parsedJsonStore.invalidate(destinationKey);
+	}
+
+	private Map<String, Object> readJsonFromS3(String jsonS3Key) {
+		return parsedJsonStore.get(jsonS3Key);
 	}
 
 	/**
@@ -205,7 +367,6 @@ public class PdfService {
 	 * @param userId: 사용자 ID
 	 * @return 파싱된 결과 및 메타데이터
 	 */
-	@Transactional
 	public Map<String, Object> uploadAndParsePdf(MultipartFile file, Long userId) {
 		try {
 			// 1. 파일 검증
@@ -214,118 +375,28 @@ public class PdfService {
 			}
 
 			String originalFilename = file.getOriginalFilename();
-			if (originalFilename == null || !originalFilename.toLowerCase().endsWith(".pdf")) {
-				throw new RuntimeException("PDF 파일만 업로드 가능합니다.");
-			}
-
-			// 2. S3 키 생성
-			String s3Key = generateS3Key(originalFilename);
-
-			// 3. S3에 업로드 (한글 파일명 URL 인코딩 처리)
-			String encodedFilename = URLEncoder.encode(originalFilename, StandardCharsets.UTF_8);
-
-			PutObjectRequest putRequest = PutObjectRequest.builder()
-				.bucket(bucketName)
-				.key(s3Key)
-				.contentType("application/pdf")
-				.metadata(Map.of("original-filename", encodedFilename, "uploaded-by", userId.toString(), "uploaded-at",
-					LocalDateTime.now().toString()))
-				.build();
-
-			s3Client.putObject(putRequest, RequestBody.fromInputStream(file.getInputStream(), file.getSize()));
-
-			log.info("✅ PDF S3 업로드 완료: {}", s3Key);
-
-			// 4. DB에 UploadedFile 레코드 생성
-			UploadedFile uploadedFile = UploadedFile.builder()
-				.originalFileName(originalFilename)
-				.s3Key(s3Key)
-				.s3Bucket(bucketName)
-				.contentType("application/pdf")
-				.fileSize(file.getSize())
-				.ocrStatus(OcrStatus.PENDING)
-				.uploaderId(userId)
-				.build();
-
-			UploadedFile savedFile = uploadedFileRepository.save(uploadedFile);
-
-			log.info("✅ DB 저장 완료: pdfId={}", savedFile.getId());
-
-			// 5. CloudFront signed URL 생성
-			String cloudFrontUrl = cloudFrontService.generateSignedUrl(s3Key);
 
-			// 6. FastAPI 호출하여 파싱
-			String fastApiEndpoint = fastApiUrl + "/document/parse-pdf-from-cloudfront";
+			// 2. S3 업로드 + DB 저장
+			UploadedFile savedFile = uploadPdf(file.getInputStream(), originalFilename, userId);
 
-			Map<String, String> request = new HashMap<>();
-			request.put("cloudfront_url", cloudFrontUrl);
+			// 3. 파싱
+			Map<String, Object> result = parseUploadedPdf(savedFile.getId(), null);
 
-			ResponseEntity<Map> response = webClient.post()
-				.uri(fastApiEndpoint)
-				.bodyValue(request)
-				.retrieve()
-				.onStatus(status -> status.is4xxClientError() || status.is5xxServerError(),
-					clientResponse -> clientResponse.bodyToMono(String.class)
-						.map(errorBody -> new RuntimeException("FastAPI 에러: " + errorBody)))
-				.toEntity(Map.class)
-				.block();
-
-			if (response.getBody() == null) {
-				throw new RuntimeException("FastAPI 응답이 비어있습니다.");
-			}
-
-			Map<String, Object> parsedData = (Map<String, Object>)response.getBody().get("parsed_data");
-
-			if (parsedData == null) {
-				throw new RuntimeException("FastAPI 응답에 parsed_data가 없습니다.");
-			}
-
-			// 7. JSON을 S3에 저장
-			String jsonS3Key = uploadJsonToS3(s3Key, parsedData, userId.toString());
-
-			// 8. DB 업데이트 (파싱 결과 반영)
-			savedFile.setJsonS3Key(jsonS3Key);
-			savedFile.setParsedAt(LocalDateTime.now());
-
-			// 필수 필드만 DB에 저장 (검색용)
-			if (parsedData.containsKey("indexes")) {
-				List<String> indexes = (List<String>)parsedData.get("indexes");
-				savedFile.setIndexes(String.join(",", indexes));
-			}
-
-			uploadedFileRepository.save(savedFile);
-
-			log.info("✅ 전체 프로세스 완료: pdfId={}", savedFile.getId());
-
-			return Map.of("pdfId", savedFile.getId(), "filename", originalFilename, "s3Key", s3Key, "jsonS3Key",
-				jsonS3Key, "parsedData", parsedData);
+			return Map.of("pdfId", savedFile.getId(), "filename", originalFilename, "s3Key", savedFile.getS3Key(),
+				"jsonS3Key", result.get("jsonS3Key"), "parsedData", readJsonFromS3((String)result.get("jsonS3Key")));
 
 		} catch (IOException e) {
 			throw new RuntimeException("파일 업로드 실패: " + e.getMessage());
+		} catch (CustomException e) {
+			throw e;
 		} catch (Exception e) {
 			throw new RuntimeException("PDF 업로드 및 파싱 실패: " + e.getMessage());
 		}
 	}
 
-	/**
-	 * S3 키 생성 (UUID 기반)
-	 */
-	private String generateS3Key(String originalFileName) {
-		String uuid = UUID.randomUUID().toString();
-		String extension = ".pdf";
-
-		int lastDotIndex = originalFileName.lastIndexOf('.');
-		if (lastDotIndex > 0) {
-			extension = originalFileName.substring(lastDotIndex);
-		}
-
-		return uploadPrefix + "/" + uuid + extension;
-	}
-
 	/**
 	 * PDF 파싱 및 JSON S3 저장 (기존 방식 - presigned URL 사용)
 	 */
-	@Transactional
 	public Map<String, Object> parsePdfAndSave(Long pdfId, Long userId) {
 		// 1. DB에서 PDF 정보 조회
 		UploadedFile uploadedFile = uploadedFileRepository.findById(pdfId)
@@ -336,111 +407,15 @@ public class PdfService {
 			throw new RuntimeException("Not your PDF");
 		}
 
-		// 3. S3 키 확인
-		if (uploadedFile.getS3Key() == null) {
-			throw new RuntimeException("S3 key not found. Please upload via presigned URL first.");
-		}
-
-		// 4. CloudFront signed URL 생성
-		//    String cloudFrontUrl = generateCloudFrontSignedUrl(uploadedFile.getS3Key());
-
-		String cloudFrontUrl = cloudFrontService.generateSignedUrl(uploadedFile.getS3Key());
-		// 5. FastAPI 호출
-		String fastApiEndpoint = fastApiUrl + "/document/parse-pdf-from-cloudfront";
-
-		Map<String, String> request = new HashMap<>();
-		request.put("cloudfront_url", cloudFrontUrl);
-
 		try {
-			ResponseEntity<Map> response = webClient.post()
-				.uri(fastApiEndpoint)
-				.bodyValue(request)
-				.retrieve()
-				.onStatus(status -> status.is4xxClientError() || status.is5xxServerError(),
-					clientResponse -> clientResponse.bodyToMono(String.class)
-						.map(errorBody -> new RuntimeException("FastAPI 에러: " + errorBody)))
-				.toEntity(Map.class)
-				.block();
-
-			if (response.getBody() == null) {
-				throw new RuntimeException("FastAPI 응답이 비어있습니다.");
-			}
-
-			Map<String, Object> parsedData = (Map<String, Object>)response.getBody().get("parsed_data");
-
-			if (parsedData == null) {
-				throw new RuntimeException("FastAPI 응답에 parsed_data가 없습니다.");
-			}
-
-			// ===== 6. JSON을 S3에 저장 =====
-			String jsonS3Key = uploadJsonToS3(uploadedFile.getS3Key(), parsedData, userId.toString());
-
-			// ===== 7. DB 업데이트 (메타데이터 + 필수 필드만) =====
-			uploadedFile.setJsonS3Key(jsonS3Key);  // S3에 저장된 JSON 경로
-			uploadedFile.setParsedAt(LocalDateTime.now());
-
-			// 필수 필드만 DB에 저장 (검색용)
-			if (parsedData.containsKey("indexes")) {
-				List<String> indexes = (List<String>)parsedData.get("indexes");
-				uploadedFile.setIndexes(String.join(",", indexes));  // 목차만 DB에
-			}
-
-			uploadedFileRepository.save(uploadedFile);
-
-			return Map.of("pdfId", pdfId, "filename", uploadedFile.getOriginalFileName(), "jsonS3Key", jsonS3Key,
-				// 프론트에 S3 경로 알려줌
-				"parsedData", parsedData  // 즉시 사용할 수 있게 전체 JSON도 반환
-			);
-
+			return parseUploadedPdf(pdfId, null);
+		} catch (CustomException e) {
+			throw e;
 		} catch (Exception e) {
 			throw new RuntimeException("PDF 파싱 실패: " + e.getMessage());
 		}
 	}
 
-	/**
-	 * JSON을 S3에 업로드
-	 *
-	 * @param pdfS3Key: 원본 PDF의 S3 키 (예: pdfs/user123/2024/01/abc123.pdf)
-	 * @param jsonData: 파싱된 JSON 데이터
-	 * @param username: 사용자 ID
-	 * @return S3에 저장된 JSON의 키
-	 */
-	private String uploadJsonToS3(String pdfS3Key, Map<String, Object> jsonData, String username) {
-		try {
-			// PDF 경로에서 파일명 추출
-			// pdfs/user123/2024/01/abc123.pdf → abc123
-			String filename = pdfS3Key.substring(pdfS3Key.lastIndexOf("/") + 1).replace(".pdf", "");
-
-			// JSON S3 키 생성 (같은 구조로)
-			// parsed-json/user123/2024/01/abc123.json
-			String jsonS3Key = pdfS3Key.replace(uploadPrefix + "/", "parsed-json/").replace(".pdf", ".json");
-
-			// JSON을 예쁘게 포맷팅
-			String jsonString = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(jsonData);
-			String encodedUsername = URLEncoder.encode(username, StandardCharsets.UTF_8);
-
-			// S3에 업로드
-			PutObjectRequest putRequest = PutObjectRequest.builder()
-				.bucket(bucketName)
-				.key(jsonS3Key)
-				.contentType("application/json")
-				.metadata(Map.of("original-pdf", pdfS3Key, "parsed-at", LocalDateTime.now().toString(), "owner",
-					encodedUsername))
-				.build();
-
-			s3Client.putObject(putRequest, RequestBody.fromString(jsonString));
-
-			System.out.println("✅ JSON S3 저장 완료: " + jsonS3Key);
-
-			return jsonS3Key;
-
-		} catch (JsonProcessingException e) {
-			throw new RuntimeException("JSON 직렬화 실패: " + e.getMessage());
-		} catch (S3Exception e) {
-			throw new RuntimeException("S3 업로드 실패: " + e.getMessage());
-		}
-	}
-
 	/**
 	 * S3에서 JSON 다운로드 (나중에 재조회할 때)
 	 */
@@ -458,17 +433,8 @@ public class PdfService {
 		}
 
 		try {
-			// S3에서 JSON 다운로드
-			GetObjectRequest getRequest = GetObjectRequest.builder()
-				.bucket(bucketName)
-				.key(uploadedFile.getJsonS3Key())
-				.build();
-
-			ResponseInputStream<GetObjectResponse> response = s3Client.getObject(getRequest);
-			String jsonString = new String(response.readAllBytes());
-
-			// JSON 파싱
-			Map<String, Object> jsonData = objectMapper.readValue(jsonString, Map.class);
+			// 캐시 → S3 순으로 조회
+			Map<String, Object> jsonData = parsedJsonStore.get(uploadedFile.getJsonS3Key());
 
 			return Map.of("pdfId", pdfId, "filename", uploadedFile.getOriginalFileName(), "parsedAt",
 				uploadedFile.getParsedAt(), "parsedData", jsonData);
@@ -609,8 +575,8 @@ public class PdfService {
 	 */
 	/**
 	 * 개념 Check 필터링만 수행 (GET - FastAPI 호출 없이 빠르게 반환)
+	 * 파싱/발행 시 저장해 둔 개념 Check 항목을 그대로 읽는다. 아직 없으면(후처리 전, 이전 자료) 여기서 만들어 저장한다.
 	 */
-	@Transactional(readOnly = true)
 	public Map<String, Object> getConceptCheckOnly(Long pdfId, Long userId) {
 		try {
 			// 1. DB에서 PDF 정보 조회
@@ -627,27 +593,17 @@ public class PdfService {
 				throw new RuntimeException("파싱된 JSON이 없습니다. 먼저 PDF를 파싱해주세요.");
 			}
 
-			// 4. S3에서 JSON 다운로드
-			GetObjectRequest getRequest = GetObjectRequest.builder()
-				.bucket(bucketName)
-				.key(uploadedFile.getJsonS3Key())
-				.build();
-
-			ResponseInputStream<GetObjectResponse> response = s3Client.getObject(getRequest);
-			String jsonString = new String(response.readAllBytes());
-
-			// 5. JSON 파싱
-			Map<String, Object> jsonData = objectMapper.readValue(jsonString, Map.class);
-
-			// ===== 디버깅: JSON 구조 확인 =====
-			log.info("📋 JSON 최상위 키 목록: {}", jsonData.keySet());
-			if (jsonData.containsKey("data")) {
-				log.info("📋 data 타입: {}", jsonData.get("data").getClass().getName());
+			// 4~6. 저장된 개념 Check 항목 조회 (캐시 → S3), 없으면 생성
+			List<Map<String, Object>> conceptCheckItems;
+			if (uploadedFile.getConceptCheckItemsS3Key() != null) {
+				conceptCheckItems = conceptCheckService.get(uploadedFile.getConceptCheckItemsS3Key());
+			} else {
+				MaterialDocument document = parsedJsonStore.getDocument(uploadedFile.getJsonS3Key());
+				conceptCheckItems = conceptCheckService.filter(document);
+				uploadedFileRepository.updateConceptCheckItemsS3Key(pdfId,
+					conceptCheckService.generate(uploadedFile, document));
 			}
 
-			// 6. 개념 Check 필터링
-			List<Map<String, Object>> conceptCheckItems = filterConceptCheckFromJson(jsonData);
-
 			if (conceptCheckItems.isEmpty()) {
 				throw new RuntimeException("개념 Check 항목을 찾을 수 없습니다.");
 			}
@@ -664,194 +620,6 @@ public class PdfService {
 		}
 	}
 
-	/**
-	 * JSON에서 concept_checks 배열의 title == "개념 Check"인 항목을 index별로 그룹화하는 메서드
-	 * <p>
-	 * 반환 형식:
-	 * [
-	 * {
-	 * "index": "01",
-	 * "index_title": "사회·문화 현상의 이해",
-	 * "questions": [
-	 * {"question": "...", "answer": "..."},
-	 * {"question": "...", "answer": "..."}
-	 * ]
-	 * }
-	 * ]
-	 */
-	private List<Map<String, Object>> filterConceptCheckFromJson(Map<String, Object> jsonData) {
-		// JSON 구조에 따라 분기 처리
-		// 1. data 배열 (upload-and-parse 응답) -> concept_checks 필터링
-		// 2. chapters 배열 (publish 응답) -> type == "quiz" 필터링
-
-		// ===== 1. chapters 배열 구조 (발행된 자료) 처리 =====
-		if (jsonData.containsKey("chapters")) {
-			log.info("📋 발행된 자료 형태 감지 (chapters 배열)");
-			return filterQuizFromChapters(jsonData);
-		}
-
-		// ===== 2. data 배열 구조 (파싱된 자료) 처리 =====
-		if (!jsonData.containsKey("data")) {
-			log.error("❌ JSON에 'data' 또는 'chapters' 키가 없습니다. 사용 가능한 키: {}", jsonData.keySet());
-			throw new RuntimeException("data 또는 chapters 배열이 없습니다. 사용 가능한 키: " + jsonData.keySet());
-		}
-
-		Object dataObj = jsonData.get("data");
-		if (!(dataObj instanceof List)) {
-			log.error("❌ 'data'가 배열이 아닙니다. 타입: {}", dataObj.getClass().getName());
-			throw new RuntimeException("data가 배열 형식이 아닙니다.");
-		}
-
-		List<Map<String, Object>> dataList = (List<Map<String, Object>>)dataObj;
-		if (dataList.isEmpty()) {
-			log.warn("⚠️ data 배열이 비어있습니다.");
-			throw new RuntimeException("data 배열이 비어있습니다.");
-		}
-
-		log.info("🔍 data 배열 크기: {}", dataList.size());
-
-		// ===== 디버깅: 첫 번째 data 항목의 구조 확인 =====
-		if (!dataList.isEmpty()) {
-			Map<String, Object> firstItem = dataList.get(0);
-			log.info("🔍 첫 번째 data 항목의 키: {}", firstItem.keySet());
-		}
-
-		// data -> concept_checks에서 개념 Check 찾고 index별로 그룹화
-		List<Map<String, Object>> groupedConceptCheckItems = new ArrayList<>();
-
-		for (Map<String, Object> dataItem : dataList) {
-			// index와 index_title 추출 (타입 안전하게 처리)
-			Object indexObj = dataItem.get("index");
-			Object indexTitleObj = dataItem.get("index_title");
-
-			String index = (indexObj != null) ? indexObj.toString() : "";
-			String indexTitle = (indexTitleObj != null) ? indexTitleObj.toString() : "";
-
-			log.info("🔍 처리 중인 index: '{}', index_title: '{}'", index, indexTitle);
-
-			// concept_checks 배열 가져오기
-			Object conceptChecksObj = dataItem.get("concept_checks");
-
-			if (conceptChecksObj == null) {
-				log.info("⚠️ concept_checks 키가 없습니다.");
-				continue;
-			}
-
-			if (!(conceptChecksObj instanceof List)) {
-				log.warn("⚠️ concept_checks가 배열이 아닙니다. 타입: {}", conceptChecksObj.getClass().getName());
-				continue;
-			}
-
-			List<?> conceptChecks = (List<?>)conceptChecksObj;
-			log.info("🔍 concept_checks 배열 크기: {}", conceptChecks.size());
-
-			// 이 index에 해당하는 모든 "개념 Check"의 questions를 모음
-			List<Map<String, Object>> allQuestions = new ArrayList<>();
-
-			for (Object conceptCheckObj : conceptChecks) {
-				// conceptCheck가 String인지 Map인지 확인
-				Map<String, Object> conceptCheck;
-
-				if (conceptCheckObj instanceof String) {
-					// JSON 문자열을 파싱
-					try {
-						conceptCheck = objectMapper.readValue((String)conceptCheckObj, Map.class);
-						log.info("🔄 concept_check를 JSON 문자열에서 파싱했습니다.");
-					} catch (JsonProcessingException e) {
-						log.warn("⚠️ concept_check JSON 파싱 실패: {}", e.getMessage());
-						continue;
-					}
-				} else if (conceptCheckObj instanceof Map) {
-					conceptCheck = (Map<String, Object>)conceptCheckObj;
-				} else {
-					log.warn("⚠️ concept_check 타입이 올바르지 않습니다: {}", conceptCheckObj.getClass().getName());
-					continue;
-				}
-
-				Object titleObj = conceptCheck.get("title");
-				String titleValue = (titleObj != null) ? titleObj.toString() : "";
-				log.info("🔍 concept_check title 값: '{}'", titleValue);
-
-				// title == "개념 Check"인 항목의 questions 추가
-				if ("개념 Check".equals(titleValue)) {
-					log.info("✅ 개념 Check 발견!");
-
-					Object questionsObj = conceptCheck.get("questions");
-					List<Map<String, Object>> questions = null;
-
-					if (questionsObj instanceof String) {
-						// JSON 문자열을 파싱
-						try {
-							questions = objectMapper.readValue((String)questionsObj, List.class);
-							log.info("🔄 questions를 JSON 문자열에서 파싱했습니다.");
-						} catch (JsonProcessingException e) {
-							log.warn("⚠️ questions JSON 파싱 실패: {}", e.getMessage());
-							continue;
-						}
-					} else if (questionsObj instanceof List) {
-						questions = (List<Map<String, Object>>)questionsObj;
-					}
-
-					if (questions != null) {
-						// answer에서 숫자 부분 제거하면서 추가
-						for (Object questionObj : questions) {
-							Map<String, Object> question;
-
-							if (questionObj instanceof String) {
-								// JSON 문자열을 파싱
-								try {
-									question = objectMapper.readValue((String)questionObj, Map.class);
-								} catch (JsonProcessingException e) {
-									log.warn("⚠️ question JSON 파싱 실패: {}", e.getMessage());
-									continue;
-								}
-							} else if (questionObj instanceof Map) {
-								question = (Map<String, Object>)questionObj;
-							} else {
-								log.warn("⚠️ question 타입이 올바르지 않습니다: {}", questionObj.getClass().getName());
-								continue;
-							}
-
-							Map<String, Object> cleanedQuestion = new HashMap<>();
-
-							// question 값 안전하게 처리
-							Object qObj = question.get("question");
-							String questionValue = (qObj != null) ? qObj.toString() : "";
-							cleanedQuestion.put("question", questionValue);
-
-							// answer에서 앞의 "숫자. " 패턴 제거
-							Object answerObj = question.get("answer");
-							String answer = (answerObj != null) ? answerObj.toString() : "";
-							if (!answer.isEmpty()) {
-								// "1. ", "2. ", "3. " 등의 패턴 제거 (정규식 사용)
-								answer = answer.replaceAll("^\\d+\\.\\s*", "");
-							}
-							cleanedQuestion.put("answer", answer);
-
-							allQuestions.add(cleanedQuestion);
-						}
-
-						log.info("✅ questions {} 개 추가됨", questions.size());
-					}
-				}
-			}
-
-			// questions가 있는 경우에만 결과에 추가
-			if (!allQuestions.isEmpty()) {
-				// LinkedHashMap을 사용하여 필드 순서 보장
-				Map<String, Object> groupedItem = new java.util.LinkedHashMap<>();
-				groupedItem.put("index", index);
-				groupedItem.put("index_title", indexTitle);
-				groupedItem.put("questions", allQuestions);
-
-				groupedConceptCheckItems.add(groupedItem);
-				log.info("✅ index '{}' 그룹 생성 완료 (총 {} 개 questions)", index, allQuestions.size());
-			}
-		}
-
-		return groupedConceptCheckItems;
-	}
-
 	@Transactional
 	public Map<String, Object> extractConceptCheck(Long pdfId, Long userId) {
 		try {
@@ -869,20 +637,11 @@ public class PdfService {
 				throw new RuntimeException("파싱된 JSON이 없습니다. 먼저 PDF를 파싱해주세요.");
 			}
 
-			// 4. S3에서 JSON 다운로드
-			GetObjectRequest getRequest = GetObjectRequest.builder()
-				.bucket(bucketName)
-				.key(uploadedFile.getJsonS3Key())
-				.build();
-
-			ResponseInputStream<GetObjectResponse> response = s3Client.getObject(getRequest);
-			String jsonString = new String(response.readAllBytes());
-
-			// 5. JSON 파싱
-			Map<String, Object> jsonData = objectMapper.readValue(jsonString, Map.class);
+			// 4~5. 표준 모델로 조회 (캐시 → S3)
+			MaterialDocument document = parsedJsonStore.getDocument(uploadedFile.getJsonS3Key());
 
 			// 6. 개념 Check 필터링 (공통 메서드 사용)
-			List<Map<String, Object>> conceptCheckItems = filterConceptCheckFromJson(jsonData);
+			List<Map<String, Object>> conceptCheckItems = conceptCheckService.filter(document);
 
 			if (conceptCheckItems.isEmpty()) {
 				throw new RuntimeException("개념 Check 항목을 찾을 수 없습니다.");
@@ -916,8 +675,8 @@ public class PdfService {
 			log.info("✅ FastAPI 가공 완료");
 
 			// 9. 가공된 JSON을 S3에 저장
-			String conceptCheckS3Key = uploadConceptCheckJsonToS3(uploadedFile.getS3Key(), processedData,
-				userId.toString());
+			String conceptCheckS3Key = uploadConceptCheckJsonToS3(uploadedFile.getS3Key(),
+				uploadedFile.getJsonS3Key(), processedData, userId.toString());
 
 			// 10. DB 업데이트
 			uploadedFile.setConceptCheckJsonS3Key(conceptCheckS3Key);
@@ -937,292 +696,74 @@ public class PdfService {
 	/**
 	 * 개념 Check JSON을 S3에 업로드
 	 *
-	 * @param pdfS3Key:         원본 PDF의 S3 키
+	 * @param pdfS3Key:         원본 PDF의 S3 키 (메타데이터용)
+	 * @param jsonS3Key:        파일별 파싱 JSON의 S3 키 (원본 PDF는 중복 업로드 간 공유되므로 이 키로 경로 결정)
 	 * @param conceptCheckData: 가공된 개념 Check 데이터
 	 * @param username:         사용자 ID
 	 * @return S3에 저장된 개념 Check JSON의 키
 	 */
-	private String uploadConceptCheckJsonToS3(String pdfS3Key, Map<String, Object> conceptCheckData, String username) {
+	private String uploadConceptCheckJsonToS3(String pdfS3Key, String jsonS3Key, Map<String, Object> conceptCheckData,
+		String username) {
 		try {
-			// PDF 경로에서 파일명 추출
-			String filename = pdfS3Key.substring(pdfS3Key.lastIndexOf("/") + 1).replace(".pdf", "");
-
 			// 개념 Check JSON S3 키 생성
-			// concept-check-json/UUID.json
-			String conceptCheckS3Key = pdfS3Key.replace(uploadPrefix + "/", "concept-check-json/")
-				.replace(".pdf", ".json");
+			// parsed-json/UUID.json → concept-check-json/UUID.json
+			String conceptCheckS3Key = jsonS3Key.replace("parsed-json/", "concept-check-json/");
 
-			// JSON을 예쁘게 포맷팅
-			String jsonString = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(conceptCheckData);
+			// 서버에서만 읽는 객체라 Smile + gzip으로 저장
+			StoredJsonCodec.Encoded encoded = storedJsonCodec.encode(conceptCheckData,
+				storedJsonCodec.formatFor(conceptCheckS3Key));
 
 			// S3에 업로드
 			PutObjectRequest putRequest = PutObjectRequest.builder()
 				.bucket(bucketName)
 				.key(conceptCheckS3Key)
-				.contentType("application/json")
-				.metadata(
+				.contentType(encoded.contentType())
+				.contentEncoding(encoded.contentEncoding())
+				.metadata(encoded.metadata(
 					Map.of("original-pdf", pdfS3Key, "processed-at", LocalDateTime.now().toString(), "owner", username,
-						"type", "concept-check"))
+						"type", "concept-check")))
 				.build();
 
-			s3Client.putObject(putRequest, RequestBody.fromString(jsonString));
+			s3Client.putObject(putRequest, RequestBody.fromBytes(encoded.body()));
 
 			log.info("✅ 개념 Check JSON S3 저장 완료: {}", conceptCheckS3Key);
 
 			return conceptCheckS3Key;
 
-		} catch (JsonProcessingException e) {
-			throw new RuntimeException("JSON 직렬화 실패: " + e.getMessage());
 		} catch (S3Exception e) {
 			throw new RuntimeException("S3 업로드 실패: " + e.getMessage());
 		}
 	}
 
 	/**
-	 * 스크린리더 친화 형태로 JSON → TXT 변환
+	 * 스크린리더 친화 형태 TXT(TTS 텍스트)의 S3 키
+	 * 파싱/발행 시 미리 만들어 두며, 산출물이 없는 기존 파일은 이 자리에서 한 번 만든다.
 	 *
 	 * @param pdfId  PDF ID
 	 * @param userId 사용자 ID
-	 * @return 읽기 최적화된 TXT
-	 */
-	public String extractTextFromJson(Long pdfId, Long userId) {
-
-		Map<String, Object> jsonResult = getJsonFromS3(pdfId, userId);
-		Map<String, Object> parsedData = (Map<String, Object>)jsonResult.get("parsedData");
-
-		if (parsedData == null) {
-			throw new RuntimeException("파싱된 데이터가 없습니다.");
-		}
-
-		StringBuilder text = new StringBuilder();
-
-		// -----------------------------
-		// 파일명
-		// -----------------------------
-		if (jsonResult.containsKey("filename")) {
-			text.append("파일명: ").append(jsonResult.get("filename")).append("\n\n");
-		}
-
-		// -----------------------------
-		// 목차
-		// -----------------------------
-		if (parsedData.containsKey("indexes")) {
-			List<String> indexes = (List<String>)parsedData.get("indexes");
-			if (indexes != null && !indexes.isEmpty()) {
-				text.append("목차\n\n");
-				for (String index : indexes) {
-					text.append(index).append("\n");
-				}
-				text.append("\n");
-			}
-		}
-
-		// -----------------------------
-		// 본문 내용
-		// -----------------------------
-		List<Map<String, Object>> dataList = (List<Map<String, Object>>)parsedData.get("data");
-
-		if (dataList != null) {
-			for (Map<String, Object> dataItem : dataList) {
-
-				// index + index_title
-				if (dataItem.containsKey("index") && dataItem.containsKey("index_title")) {
-					text.append(dataItem.get("index")).append(" ").append(dataItem.get("index_title")).append("\n\n");
-				}
-
-				// titles
-				List<Map<String, Object>> titles = (List<Map<String, Object>>)dataItem.get("titles");
-				if (titles != null) {
-					for (Map<String, Object> titleItem : titles) {
-
-						// title
-						if (titleItem.containsKey("title")) {
-							text.append(titleItem.get("title")).append("\n");
-						}
-
-						// s_titles
-						List<Map<String, Object>> sTitles = (List<Map<String, Object>>)titleItem.get("s_titles");
-						if (sTitles != null) {
-							for (Map<String, Object> sTitleItem : sTitles) {
-
-								// s_title
-								if (sTitleItem.containsKey("s_title")) {
-									text.append("  ").append(sTitleItem.get("s_title")).append("\n");
-								}
-
-								// contents
-								String contents = (String)sTitleItem.get("contents");
-								if (contents != null && !contents.isBlank()) {
-									text.append("    ").append(contents).append("\n");
-								}
-
-								// ss_titles
-								List<Map<String, Object>> ssTitles = (List<Map<String, Object>>)sTitleItem.get(
-									"ss_titles");
-
-								if (ssTitles != null) {
-									for (Map<String, Object> ssTitleItem : ssTitles) {
-
-										if (ssTitleItem.containsKey("ss_title")) {
-											text.append("    - ").append(ssTitleItem.get("ss_title")).append("\n");
-										}
-
-										String ssContents = (String)ssTitleItem.get("contents");
-										if (ssContents != null && !ssContents.isBlank()) {
-											text.append("      ").append(ssContents).append("\n");
-										}
-									}
-								}
-								text.append("\n");
-							}
-						}
-
-						text.append("\n");
-					}
-				}
-
-				// concept_checks 처리
-				List<Map<String, Object>> conceptChecks = (List<Map<String, Object>>)dataItem.get("concept_checks");
-				if (conceptChecks != null && !conceptChecks.isEmpty()) {
-					for (Map<String, Object> conceptCheck : conceptChecks) {
-
-						// title (예: "개념 Check")
-						if (conceptCheck.containsKey("title")) {
-							text.append(conceptCheck.get("title")).append("\n");
-						}
-
-						// questions
-						Object questionsObj = conceptCheck.get("questions");
-						if (questionsObj != null) {
-							List<Map<String, Object>> questions = null;
-
-							// questions가 List 또는 String으로 올 수 있음
-							if (questionsObj instanceof List) {
-								questions = (List<Map<String, Object>>)questionsObj;
-							} else if (questionsObj instanceof String) {
-								try {
-									questions = objectMapper.readValue((String)questionsObj, List.class);
-								} catch (JsonProcessingException e) {
-									log.warn("questions JSON 파싱 실패: {}", e.getMessage());
-								}
-							}
-
-							if (questions != null) {
-								for (Map<String, Object> questionItem : questions) {
-									String question =
-										questionItem.get("question") != null ? questionItem.get("question").toString() :
-											"";
-									String answer =
-										questionItem.get("answer") != null ? questionItem.get("answer").toString() : "";
-
-									if (!question.isBlank()) {
-										text.append("  질문: ").append(question).append("\n");
-									}
-									if (!answer.isBlank()) {
-										text.append("  답: ").append(answer).append("\n");
-									}
-									text.append("\n");
-								}
-							}
-						}
-
-						text.append("\n");
-					}
-				}
-			}
-		}
-
-		// -----------------------------
-		// 메타데이터
-		// -----------------------------
-		if (jsonResult.containsKey("parsedAt")) {
-			text.append("\n파싱 일시: ").append(jsonResult.get("parsedAt")).append("\n");
-		}
-
-		String result = text.toString().trim();
-		return result.isEmpty() ? "추출된 텍스트가 없습니다." : result;
-	}
-
-	/**
-	 * chapters 배열에서 type == "quiz"인 항목만 필터링
-	 * (발행된 자료용)
-	 *
-	 * @param jsonData chapters 배열을 포함한 JSON 데이터
-	 * @return 퀴즈 데이터 목록
+	 * @return 읽기 최적화된 TXT의 S3 키
 	 */
-	private List<Map<String, Object>> filterQuizFromChapters(Map<String, Object> jsonData) {
-		Object chaptersObj = jsonData.get("chapters");
+	public String getTtsTextKey(Long pdfId, Long userId) {
+		UploadedFile uploadedFile = uploadedFileRepository.findById(pdfId)
+			.orElseThrow(() -> new RuntimeException("PDF not found"));
 
-		if (!(chaptersObj instanceof List)) {
-			log.error("❌ 'chapters'가 배열이 아닙니다. 타입: {}", chaptersObj.getClass().getName());
-			throw new RuntimeException("chapters가 배열 형식이 아닙니다.");
+		// 권한 검증
+		if (!uploadedFile.getUploaderId().equals(userId)) {
+			throw new RuntimeException("Not your PDF");
 		}
 
-		List<Map<String, Object>> chapters = (List<Map<String, Object>>)chaptersObj;
-		if (chapters.isEmpty()) {
-			log.warn("⚠️ chapters 배열이 비어있습니다.");
-			throw new RuntimeException("chapters 배열이 비어있습니다.");
+		if (uploadedFile.getJsonS3Key() == null) {
+			throw new RuntimeException("파싱된 JSON이 없습니다.");
 		}
 
-		log.info("🔍 chapters 배열 크기: {}", chapters.size());
-
-		List<Map<String, Object>> quizItems = new ArrayList<>();
-
-		for (Map<String, Object> chapter : chapters) {
-			Object typeObj = chapter.get("type");
-			String type = (typeObj != null) ? typeObj.toString() : "";
-
-			// type == "quiz"인 항목만 추출
-			if ("quiz".equals(type)) {
-				log.info("✅ quiz 타입 챕터 발견! id={}", chapter.get("id"));
-
-				// qa 배열에서 question과 answer 추출
-				Object qaObj = chapter.get("qa");
-				List<Map<String, Object>> qaList = null;
-
-				if (qaObj instanceof List) {
-					qaList = (List<Map<String, Object>>)qaObj;
-				}
-
-				if (qaList != null && !qaList.isEmpty()) {
-					// 각 qa 항목을 questions 형태로 변환
-					List<Map<String, Object>> questions = new ArrayList<>();
-
-					for (Map<String, Object> qaItem : qaList) {
-						Map<String, Object> question = new HashMap<>();
-
-						Object questionObj = qaItem.get("question");
-						Object answerObj = qaItem.get("answer");
-
-						String questionValue = (questionObj != null) ? questionObj.toString() : "";
-						String answerValue = (answerObj != null) ? answerObj.toString() : "";
-
-						question.put("question", questionValue);
-						question.put("answer", answerValue);
-
-						questions.add(question);
-					}
-
-					// 챕터 제목을 index_title로 사용
-					Object titleObj = chapter.get("title");
-					String title = (titleObj != null) ? titleObj.toString() : "";
-
-					// 결과 항목 생성
-					Map<String, Object> quizItem = new java.util.LinkedHashMap<>();
-					quizItem.put("index", chapter.get("id"));  // id를 index로 사용
-					quizItem.put("index_title", title);
-					quizItem.put("questions", questions);
-
-					quizItems.add(quizItem);
-
-					log.info("✅ quiz 항목 추가 완료: {} questions", questions.size());
-				}
-			}
+		if (uploadedFile.getTtsTextS3Key() != null) {
+			return uploadedFile.getTtsTextS3Key();
 		}
 
-		log.info("✅ 총 {} 개의 quiz 항목 추출 완료", quizItems.size());
-
-		return quizItems;
+		String ttsTextKey = ttsTextService.generate(uploadedFile,
+			parsedJsonStore.getDocument(uploadedFile.getJsonS3Key()));
+		uploadedFileRepository.updateTtsTextS3Key(uploadedFile.getId(), ttsTextKey);
+		return ttsTextKey;
 	}
 
 	/**
@@ -0,0 +1,164 @@
+package A704.DODREAM.file.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.text.TextPosition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import A704.DODREAM.file.dto.PageOcrResult;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * PDF 텍스트 레이어 추출 (디지털 원본 PDF는 OCR 없이)
+ * <p>
+ * PDFTextStripper가 단어마다 넘겨주는 TextPosition으로 OCR과 같은 구조(단어 + 네 꼭짓점 좌표)를 만든다.
+ * 좌표는 OCR과 같이 {@link PdfProcessService#COORDINATE_DPI} 픽셀 기준이고, 신뢰도는 1.0이다.
+ * 글자가 거의 없거나 깨진 글자(대체 문자)가 많은 페이지는 스캔 이미지로 보고 OCR 대상으로 돌린다.
+ */
+@Slf4j
+@Service
+public class PdfTextLayerService {
+
+	private static final double POINTS_PER_INCH = 72.0;
+	private static final char REPLACEMENT_CHAR = '\uFFFD';
+
+	@Value("${ocr.text-layer.min-chars:20}")
+	private int minChars; // 이보다 글자가 적으면 이미지 페이지
+
+	@Value("${ocr.text-layer.max-garbled-ratio:0.1}")
+	private double maxGarbledRatio; // 대체 문자 비율이 이보다 높으면 이미지 페이지 (글꼴 매핑 없는 PDF)
+
+	/**
+	 * 추출 결과
+	 *
+	 * @param pages:      텍스트 레이어로 만든 페이지 결과 (페이지 순서)
+	 * @param imagePages: 텍스트가 없어 OCR이 필요한 페이지 번호
+	 */
+	public record TextLayer(List<PageOcrResult> pages, List<Integer> imagePages) {
+	}
+
+	public TextLayer extract(File pdfFile) throws IOException {
+		try (PDDocument document = Loader.loadPDF(pdfFile)) {
+			return extract(document);
+		}
+	}
+
+	public TextLayer extract(byte[] pdfBytes) throws IOException {
+		try (PDDocument document = Loader.loadPDF(pdfBytes)) {
+			return extract(document);
+		}
+	}
+
+	// ===== 내부 =====
+
+	private TextLayer extract(PDDocument document) throws IOException {
+		long startedAt = System.currentTimeMillis();
+		int pageCount = document.getNumberOfPages();
+
+		WordCollector collector = new WordCollector();
+		List<PageOcrResult> pages = new ArrayList<>();
+		List<Integer> imagePages = new ArrayList<>();
+
+		for (int pageNumber = 1; pageNumber <= pageCount; pageNumber++) {
+			collector.words.clear();
+			collector.setStartPage(pageNumber);
+			collector.setEndPage(pageNumber);
+			collector.getText(document);
+
+			if (isUsable(collector.words)) {
+				pages.add(toPageResult(pageNumber, collector.words));
+			} else {
+				imagePages.add(pageNumber);
+			}
+		}
+
+		log.info("Text layer extracted: {} text pages, {} image pages in {} ms", pages.size(), imagePages.size(),
+			System.currentTimeMillis() - startedAt);
+		return new TextLayer(pages, imagePages);
+	}
+
+	private boolean isUsable(List<PageOcrResult.WordInfo> words) {
+		int chars = 0;
+		int garbled = 0;
+		for (PageOcrResult.WordInfo word : words) {
+			for (char c : word.getText().toCharArray()) {
+				if (!Character.isWhitespace(c)) {
+					chars++;
+					if (c == REPLACEMENT_CHAR) {
+						garbled++;
+					}
+				}
+			}
+		}
+		return chars >= minChars && garbled <= chars * maxGarbledRatio;
+	}
+
+	private PageOcrResult toPageResult(int pageNumber, List<PageOcrResult.WordInfo> words) {
+		List<PageOcrResult.WordInfo> pageWords = new ArrayList<>(words);
+		return PageOcrResult.builder()
+			.pageNumber(pageNumber)
+			.fullText(pageWords.stream().map(PageOcrResult.WordInfo::getText).collect(Collectors.joining(" ")))
+			.words(pageWords)
+			.build();
+	}
+
+	/**
+	 * 단어 단위로 글자 위치를 모으는 stripper (위치순 정렬)
+	 */
+	private static final class WordCollector extends PDFTextStripper {
+
+		private static final double SCALE = PdfProcessService.COORDINATE_DPI / POINTS_PER_INCH;
+
+		private final List<PageOcrResult.WordInfo> words = new ArrayList<>();
+
+		private WordCollector() {
+			setSortByPosition(true);
+		}
+
+		@Override
+		protected void writeString(String text, List<TextPosition> textPositions) {
+			if (text.isBlank() || textPositions.isEmpty()) {
+				return;
+			}
+
+			float left = Float.MAX_VALUE;
+			float top = Float.MAX_VALUE;
+			float right = -Float.MAX_VALUE;
+			float bottom = -Float.MAX_VALUE;
+			for (TextPosition position : textPositions) {
+				left = Math.min(left, position.getXDirAdj());
+				right = Math.max(right, position.getXDirAdj() + position.getWidthDirAdj());
+				top = Math.min(top, position.getYDirAdj() - position.getHeightDir());
+				bottom = Math.max(bottom, position.getYDirAdj());
+			}
+
+			int x1 = pixels(left);
+			int y1 = pixels(top);
+			int x2 = pixels(right);
+			int y2 = pixels(bottom);
+
+			// Clova와 같은 꼭짓점 순서: 좌상 → 우상 → 우하 → 좌하
+			words.add(PageOcrResult.WordInfo.builder()
+				.text(text.strip())
+				.confidence(1.0)
+				.x1(x1).y1(y1)
+				.x2(x2).y2(y1)
+				.x3(x2).y3(y2)
+				.x4(x1).y4(y2)
+				.order(words.size())
+				.build());
+		}
+
+		private static int pixels(float points) {
+			return (int)Math.round(points * SCALE);
+		}
+	}
+}
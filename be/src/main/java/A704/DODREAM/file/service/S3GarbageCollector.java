@@ -0,0 +1,334 @@
+package A704.DODREAM.file.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import A704.DODREAM.file.entity.PdfContent;
+import A704.DODREAM.file.entity.S3Tombstone;
+import A704.DODREAM.file.repository.PdfContentRepository;
+import A704.DODREAM.file.repository.S3TombstoneRepository;
+import A704.DODREAM.file.repository.UploadedFileRepository;
+import A704.DODREAM.material.service.MaterialShardService;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.Delete;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.S3Error;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+/**
+ * S3 객체 지연 삭제 + 고아 객체 정리
+ * <p>
+ * 삭제: 요청 트랜잭션에서는 {@link #tombstone}으로 s3_tombstones 행만 남기고,
+ * {@link #purge}가 행을 선점(SKIP LOCKED)해 DeleteObjects 한 번에 최대 1000개씩 지운다.
+ * 원본 PDF는 내용 해시로 여러 파일이 공유하므로 지우기 직전에 아직 쓰는 파일이 있는지 다시 센다.
+ * 오래된 발행 버전의 객체(manifest, 챕터, 읽기용 TXT)도 내용 해시 키라 이후 버전이 다시 쓸 수 있으므로,
+ * 이전 manifest를 들고 있는 독자를 위해 일정 시간 뒤에 지우고 지우기 직전에 아직 참조하는 버전이 있는지 다시 확인한다.
+ * <p>
+ * 정리: {@link #reconcile}이 업로드 prefix를 페이지 단위로 훑어 uploaded_files / pdf_contents와 한 번에 비교하고,
+ * 어디에서도 가리키지 않는 객체(중단된 presigned 업로드, 스테이징 잔여물)를 실행당 정해진 개수까지만 삭제 대상으로 넘긴다.
+ * 페이지 위치(continuation token)는 Redis에 두어 다음 실행이 이어서 훑는다.
+ */
+@Slf4j
+@Service
+public class S3GarbageCollector {
+
+	public static final String REASON_MATERIAL_DELETED = "material-deleted";
+	public static final String REASON_CONTENT_RELEASED = "content-released";
+	public static final String REASON_ORPHAN = "orphan";
+	public static final String REASON_VERSION_PRUNED = "version-pruned";
+
+	private static final int MAX_DELETE_BATCH = 1000; // DeleteObjects 한 요청 최대 키 수
+	private static final String RECONCILE_LOCK_KEY = "s3-gc:reconcile:lock";
+	private static final String RECONCILE_CURSOR_PREFIX = "s3-gc:reconcile:cursor:";
+	private static final Duration CURSOR_TTL = Duration.ofDays(1);
+
+	private final S3Client s3Client;
+	private final S3TombstoneRepository s3TombstoneRepository;
+	private final UploadedFileRepository uploadedFileRepository;
+	private final PdfContentRepository pdfContentRepository;
+	private final ParsedJsonStore parsedJsonStore;
+	private final MaterialShardService materialShardService;
+	private final StringRedisTemplate redis;
+	private final TransactionTemplate transactionTemplate;
+	private final String bucketName;
+	private final int batchSize;
+	private final long retryMaxMinutes;
+	private final List<String> reconcilePrefixes;
+	private final int pageSize;
+	private final Duration orphanGrace;
+	private final int maxOrphansPerRun;
+	private final Duration reconcileLockTtl;
+
+	public S3GarbageCollector(
+		S3Client s3Client,
+		S3TombstoneRepository s3TombstoneRepository,
+		UploadedFileRepository uploadedFileRepository,
+		PdfContentRepository pdfContentRepository,
+		ParsedJsonStore parsedJsonStore,
+		MaterialShardService materialShardService,
+		StringRedisTemplate redis,
+		TransactionTemplate transactionTemplate,
+		@Value("${aws.s3.bucket}") String bucketName,
+		@Value("${s3-gc.batch-size:1000}") int batchSize,
+		@Value("${s3-gc.retry-max-minutes:60}") long retryMaxMinutes,
+		@Value("${s3-gc.reconcile-prefixes:pdfs/}") List<String> reconcilePrefixes,
+		@Value("${s3-gc.page-size:1000}") int pageSize,
+		@Value("${s3-gc.orphan-grace-hours:24}") long orphanGraceHours,
+		@Value("${s3-gc.max-orphans-per-run:200}") int maxOrphansPerRun,
+		@Value("${s3-gc.reconcile-interval-ms:600000}") long reconcileIntervalMs) {
+		this.s3Client = s3Client;
+		this.s3TombstoneRepository = s3TombstoneRepository;
+		this.uploadedFileRepository = uploadedFileRepository;
+		this.parsedJsonStore = parsedJsonStore;
+		this.pdfContentRepository = pdfContentRepository;
+		this.materialShardService = materialShardService;
+		this.redis = redis;
+		this.transactionTemplate = transactionTemplate;
+		this.bucketName = bucketName;
+		this.batchSize = Math.max(1, Math.min(batchSize, MAX_DELETE_BATCH));
+		this.retryMaxMinutes = retryMaxMinutes;
+		this.reconcilePrefixes = reconcilePrefixes;
+		this.pageSize = Math.max(1, Math.min(pageSize, 1000));
+		this.orphanGrace = Duration.ofHours(orphanGraceHours);
+		this.maxOrphansPerRun = maxOrphansPerRun;
+		this.reconcileLockTtl = Duration.ofMillis(reconcileIntervalMs);
+	}
+
+	/**
+	 * S3 객체 삭제 예약 (호출한 트랜잭션과 함께 커밋, 같은 키는 한 번만)
+	 */
+	@Transactional
+	public void tombstone(Collection<String> s3Keys, String reason) {
+		tombstone(s3Keys, reason, Duration.ZERO);
+	}
+
+	/**
+	 * S3 객체 삭제 예약 (delay 이후 삭제)
+	 */
+	@Transactional
+	public void tombstone(Collection<String> s3Keys, String reason, Duration delay) {
+		LocalDateTime now = LocalDateTime.now();
+		LocalDateTime runAt = now.plus(delay);
+		int added = 0;
+		for (String s3Key : new LinkedHashSet<>(s3Keys)) {
+			if (s3Key != null && !s3Key.isBlank()) {
+				added += s3TombstoneRepository.insertIfAbsent(s3Key, reason, runAt, now);
+			}
+		}
+		log.info("🪦 S3 삭제 예약: reason={}, keys={}, runAt={}", reason, added, runAt);
+	}
+
+	/**
+	 * 삭제 예약된 객체를 배치로 삭제 (밀린 양이 있으면 이번 실행에서 계속)
+	 */
+	@Scheduled(fixedDelayString = "${s3-gc.purge-interval-ms:10000}")
+	public void purge() {
+		try {
+			Integer claimed;
+			do {
+				claimed = transactionTemplate.execute(status -> purgeBatch());
+			} while (claimed != null && claimed >= batchSize);
+		} catch (Exception e) {
+			log.error("❌ S3 삭제 배치 실패: {}", e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * 업로드 prefix를 한 페이지씩 훑어 고아 객체를 삭제 예약 (노드 하나만 실행)
+	 */
+	@Scheduled(fixedDelayString = "${s3-gc.reconcile-interval-ms:600000}",
+		initialDelayString = "${s3-gc.reconcile-initial-delay-ms:60000}")
+	public void reconcile() {
+		String owner = UUID.randomUUID().toString();
+		if (!Boolean.TRUE.equals(redis.opsForValue().setIfAbsent(RECONCILE_LOCK_KEY, owner, reconcileLockTtl))) {
+			return;
+		}
+		try {
+			int budget = maxOrphansPerRun;
+			for (String prefix : reconcilePrefixes) {
+				if (budget <= 0) {
+					break;
+				}
+				budget -= reconcilePage(prefix, budget);
+			}
+		} catch (Exception e) {
+			log.error("❌ S3 고아 객체 점검 실패: {}", e.getMessage(), e);
+		} finally {
+			if (owner.equals(redis.opsForValue().get(RECONCILE_LOCK_KEY))) {
+				redis.delete(RECONCILE_LOCK_KEY);
+			}
+		}
+	}
+
+	// ===== 내부 =====
+
+	/**
+	 * @return 선점한 행 수 (batchSize면 더 남아 있을 수 있음)
+	 */
+	private int purgeBatch() {
+		List<S3Tombstone> due = s3TombstoneRepository.findDue(LocalDateTime.now(), batchSize);
+		if (due.isEmpty()) {
+			return 0;
+		}
+		Map<String, S3Tombstone> pending = new LinkedHashMap<>();
+		due.forEach(tombstone -> pending.put(tombstone.getS3Key(), tombstone));
+
+		// 자료 삭제로 예약된 원본은 아직 쓰는 파일이 있으면 남긴다 (같은 내용 해시 공유)
+		Set<String> released = due.stream()
+			.filter(tombstone -> REASON_MATERIAL_DELETED.equals(tombstone.getReason()))
+			.map(S3Tombstone::getS3Key)
+			.collect(Collectors.toSet());
+		if (!released.isEmpty()) {
+			// 같은 해시를 다시 올리는 업로드(PdfContentService.register)와 같은 순서로 pdf_contents를 잠근 뒤 확인한다.
+			// 잠금 뒤의 첫 일반 조회라 그 업로드가 커밋한 파일 행까지 보인다.
+			List<PdfContent> locked = pdfContentRepository.findByS3KeyInForUpdate(released);
+			for (String live : uploadedFileRepository.findLiveS3Keys(released)) {
+				s3TombstoneRepository.delete(pending.remove(live));
+				log.info("♻️ 다른 파일이 쓰는 원본이라 삭제하지 않음: {}", live);
+			}
+			// 마지막 참조가 사라진 원본은 공용 내용(해시 → 원본, 공용 파싱 결과)도 정리
+			List<PdfContent> contents = locked.stream()
+				.filter(content -> pending.containsKey(content.getS3Key()))
+				.toList();
+			tombstone(contents.stream().map(PdfContent::getParsedJsonS3Key).filter(Objects::nonNull).toList(),
+				REASON_CONTENT_RELEASED);
+			pdfContentRepository.deleteAll(contents);
+		}
+
+		// 정리한 버전의 객체는 이후 버전이 같은 내용으로 다시 가리키고 있으면 남긴다
+		Map<Long, List<String>> pruned = due.stream()
+			.filter(tombstone -> REASON_VERSION_PRUNED.equals(tombstone.getReason()))
+			.map(S3Tombstone::getS3Key)
+			.filter(key -> MaterialShardService.fileIdOf(key) != null)
+			.collect(Collectors.groupingBy(MaterialShardService::fileIdOf));
+		pruned.forEach((fileId, keys) -> {
+			Set<String> referenced = materialShardService.referencedKeys(fileId);
+			for (String key : keys) {
+				if (referenced.contains(key)) {
+					s3TombstoneRepository.delete(pending.remove(key));
+					log.info("♻️ 현재 버전이 쓰는 객체라 삭제하지 않음: {}", key);
+				}
+			}
+		});
+		if (pending.isEmpty()) {
+			return due.size();
+		}
+
+		Map<String, String> errors = deleteObjects(pending.keySet());
+		LocalDateTime now = LocalDateTime.now();
+		for (S3Tombstone tombstone : pending.values()) {
+			String error = errors.get(tombstone.getS3Key());
+			if (error == null) {
+				s3TombstoneRepository.delete(tombstone);
+				parsedJsonStore.invalidate(tombstone.getS3Key());
+			} else {
+				long delayMinutes = Math.min(1L << Math.min(tombstone.getAttempts(), 20), retryMaxMinutes);
+				tombstone.fail(error, now.plusMinutes(delayMinutes));
+			}
+		}
+
+		log.info("🗑️ S3 배치 삭제: deleted={}, failed={}", pending.size() - errors.size(), errors.size());
+		return due.size();
+	}
+
+	/**
+	 * DeleteObjects (quiet 모드: 실패한 키만 응답)
+	 *
+	 * @return 실패한 키 → 에러
+	 */
+	private Map<String, String> deleteObjects(Collection<String> keys) {
+		try {
+			DeleteObjectsResponse response = s3Client.deleteObjects(DeleteObjectsRequest.builder()
+				.bucket(bucketName)
+				.delete(Delete.builder()
+					.quiet(true)
+					.objects(keys.stream().map(key -> ObjectIdentifier.builder().key(key).build()).toList())
+					.build())
+				.build());
+			return response.errors().stream()
+				.collect(Collectors.toMap(S3Error::key, error -> error.code() + ": " + error.message(),
+					(first, second) -> first));
+		} catch (Exception e) {
+			// 요청 자체가 실패하면 전부 다음에 다시 시도
+			return keys.stream().collect(Collectors.toMap(key -> key, key -> String.valueOf(e.getMessage()),
+				(first, second) -> first));
+		}
+	}
+
+	/**
+	 * prefix의 다음 페이지 점검
+	 *
+	 * @return 삭제 예약한 고아 객체 수
+	 */
+	private int reconcilePage(String prefix, int budget) {
+		String cursorKey = RECONCILE_CURSOR_PREFIX + prefix;
+		ListObjectsV2Response page = s3Client.listObjectsV2(ListObjectsV2Request.builder()
+			.bucket(bucketName)
+			.prefix(prefix)
+			.maxKeys(pageSize)
+			.continuationToken(redis.opsForValue().get(cursorKey))
+			.build());
+
+		// 업로드 중이거나 방금 만든 객체는 건너뜀
+		Instant graceCutoff = Instant.now().minus(orphanGrace);
+		List<String> candidates = page.contents().stream()
+			.filter(object -> object.lastModified().isBefore(graceCutoff))
+			.map(S3Object::key)
+			.toList();
+
+		List<String> orphans = List.of();
+		if (!candidates.isEmpty()) {
+			LocalDateTime cutoff = LocalDateTime.ofInstant(graceCutoff, ZoneId.systemDefault());
+			Set<String> referenced = new HashSet<>(uploadedFileRepository.findReferencedS3Keys(candidates, cutoff));
+			referenced.addAll(pdfContentRepository.findS3KeysIn(candidates));
+			referenced.addAll(s3TombstoneRepository.findS3KeysIn(candidates));
+			orphans = candidates.stream().filter(key -> !referenced.contains(key)).toList();
+		}
+
+		List<String> reclaimed = orphans.stream().limit(budget).toList();
+		if (!reclaimed.isEmpty()) {
+			LocalDateTime cutoff = LocalDateTime.ofInstant(graceCutoff, ZoneId.systemDefault());
+			transactionTemplate.executeWithoutResult(status -> {
+				tombstone(reclaimed, REASON_ORPHAN);
+				uploadedFileRepository.markAbandoned(reclaimed, cutoff, "업로드가 완료되지 않아 원본을 정리했습니다.");
+			});
+		}
+
+		// 이번 페이지의 고아를 다 넘겼을 때만 다음 페이지로 (마지막 페이지면 처음부터 다시)
+		if (reclaimed.size() == orphans.size()) {
+			if (Boolean.TRUE.equals(page.isTruncated())) {
+				redis.opsForValue().set(cursorKey, page.nextContinuationToken(), CURSOR_TTL);
+			} else {
+				redis.delete(cursorKey);
+			}
+		}
+
+		log.info("🧹 S3 고아 객체 점검: prefix={}, scanned={}, orphans={}, reclaimed={}", prefix, page.keyCount(),
+			orphans.size(), reclaimed.size());
+		return reclaimed.size();
+	}
+}
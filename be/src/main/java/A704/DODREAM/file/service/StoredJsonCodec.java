@@ -0,0 +1,166 @@
+package A704.DODREAM.file.service;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+
+/**
+ * S3에 저장하는 문서 JSON 인코딩
+ * <p>
+ * - JSON_GZIP: 들여쓰기 없는 JSON + gzip (Content-Encoding: gzip).
+ * CloudFront URL로 FastAPI/클라이언트가 직접 받는 객체용 (HTTP 클라이언트가 자동 해제)
+ * - SMILE_GZIP: Smile(바이너리 JSON) + gzip. 이 서버만 읽는 객체용
+ * <p>
+ * 저장 형식은 메타데이터(doc-format)에 기록하고, 읽을 때는 매직 바이트로 판별하므로
+ * 기존 pretty-print JSON도 그대로 읽힌다.
+ */
+@Component
+public class StoredJsonCodec {
+
+	public static final String FORMAT_METADATA = "doc-format";
+
+	private static final byte[] SMILE_HEADER = {':', ')', '\n'};
+
+	private final ObjectMapper objectMapper;
+	private final SmileMapper smileMapper = new SmileMapper();
+
+	public StoredJsonCodec(ObjectMapper objectMapper) {
+		this.objectMapper = objectMapper;
+	}
+
+	public enum Format {
+		JSON_GZIP("json+gzip", "application/json"),
+		SMILE_GZIP("smile+gzip", "application/x-jackson-smile");
+
+		private final String marker;
+		private final String contentType;
+
+		Format(String marker, String contentType) {
+			this.marker = marker;
+			this.contentType = contentType;
+		}
+
+		public String marker() {
+			return marker;
+		}
+	}
+
+	/**
+	 * 저장용 인코딩 결과
+	 *
+	 * @param body:            S3에 올릴 바이트
+	 * @param format:          저장 형식
+	 * @param contentType:     S3 Content-Type
+	 * @param contentEncoding: S3 Content-Encoding (HTTP로 직접 받는 형식만 gzip, 아니면 null)
+	 */
+	public record Encoded(byte[] body, Format format, String contentType, String contentEncoding) {
+
+		/**
+		 * 기존 메타데이터에 형식 표시 추가
+		 */
+		public Map<String, String> metadata(Map<String, String> metadata) {
+			Map<String, String> merged = new HashMap<>(metadata);
+			merged.put(FORMAT_METADATA, format.marker);
+			return merged;
+		}
+	}
+
+	/**
+	 * 디코딩 결과
+	 *
+	 * @param data:     JSON Map
+	 * @param size:     압축 해제 후 바이트 수
+	 * @param upToDate: 현재 저장 형식 여부 (false면 기존 pretty-print JSON → 재저장 대상)
+	 */
+	public record Decoded(Map<String, Object> data, long size, boolean upToDate) {
+	}
+
+	public Encoded encode(Object value, Format format) {
+		try {
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			try (OutputStream gzip = new GZIPOutputStream(buffer)) {
+				if (format == Format.SMILE_GZIP) {
+					smileMapper.writeValue(gzip, value);
+				} else {
+					objectMapper.writeValue(gzip, value);
+				}
+			}
+			return new Encoded(buffer.toByteArray(), format, format.contentType,
+				format == Format.JSON_GZIP ? "gzip" : null);
+		} catch (IOException e) {
+			throw new RuntimeException("JSON 직렬화 실패: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * 저장된 바이트 디코딩 (gzip / Smile / 일반 JSON 자동 판별)
+	 */
+	@SuppressWarnings("unchecked")
+	public Decoded decode(byte[] stored) {
+		try {
+			boolean gzipped = isGzip(stored);
+			byte[] raw = gzipped ? gunzip(stored) : stored;
+
+			Map<String, Object> data = isSmile(raw)
+				? smileMapper.readValue(raw, Map.class)
+				: objectMapper.readValue(raw, Map.class);
+
+			return new Decoded(data, raw.length, gzipped);
+		} catch (IOException e) {
+			throw new RuntimeException("JSON 파싱 실패: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * 저장된 객체를 트리로 만들지 않고 토큰 단위로 읽는 파서 (gzip / Smile / 일반 JSON 자동 판별)
+	 */
+	public JsonParser openParser(InputStream stored) throws IOException {
+		BufferedInputStream in = new BufferedInputStream(stored);
+		in.mark(SMILE_HEADER.length);
+		byte[] head = in.readNBytes(SMILE_HEADER.length);
+		in.reset();
+
+		if (isGzip(head)) {
+			return openParser(new GZIPInputStream(in));
+		}
+		return isSmile(head) ? smileMapper.createParser(in) : objectMapper.createParser(in);
+	}
+
+	/**
+	 * 키별 저장 형식 (CloudFront로 외부에서 직접 읽는 객체는 JSON 유지)
+	 */
+	public Format formatFor(String s3Key) {
+		if (s3Key.startsWith("material-shards/") || s3Key.startsWith("concept-check-json/")) {
+			return Format.SMILE_GZIP;
+		}
+		return Format.JSON_GZIP;
+	}
+
+	private static boolean isGzip(byte[] body) {
+		return body.length > 2 && (body[0] & 0xFF) == 0x1F && (body[1] & 0xFF) == 0x8B;
+	}
+
+	private static boolean isSmile(byte[] body) {
+		return body.length >= SMILE_HEADER.length
+			&& body[0] == SMILE_HEADER[0] && body[1] == SMILE_HEADER[1] && body[2] == SMILE_HEADER[2];
+	}
+
+	private static byte[] gunzip(byte[] body) throws IOException {
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+			return in.readAllBytes();
+		}
+	}
+}
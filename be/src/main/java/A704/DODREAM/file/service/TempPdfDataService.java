@@ -1,5 +1,6 @@
 package A704.DODREAM.file.service;
 
+import A704.DODREAM.file.dto.TempSavePatchRequest;
 import A704.DODREAM.file.entity.UploadedFile;
 import A704.DODREAM.file.enums.PostStatus;
 import A704.DODREAM.file.repository.UploadedFileRepository;
@@ -7,82 +8,208 @@ import A704.DODREAM.global.exception.CustomException;
 import A704.DODREAM.global.exception.constant.ErrorCode;
 import A704.DODREAM.material.dto.PublishRequest;
 import A704.DODREAM.material.entity.Material;
+import A704.DODREAM.material.enums.LabelColor;
 import A704.DODREAM.material.repository.MaterialRepository;
 import A704.DODREAM.user.entity.User;
 import A704.DODREAM.user.repository.UserRepository;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+/**
+ * 에디터 임시 저장 (Redis)
+ * <p>
+ * 문서를 챕터 단위 Redis 해시로 저장한다 (필드 c:{챕터 키} = gzip JSON, base64).
+ * 챕터 키는 id가 있고 문서 안에서 유일하면 id, 아니면 위치(#순번)라 id가 없거나 겹치는 챕터도 빠지지 않는다.
+ * 자동 저장은 바뀐 챕터만 보내면 되고({@link #patch}), 전체 저장도 챕터 필드 단위로 나눠 쓴다.
+ * <p>
+ * 임시 저장 시 Material(DRAFT) 반영은 매번 하지 않고 디바운스 후 한 번만 한다 (write-behind).
+ * 대기 목록은 Redis ZSET(점수 = 반영 예정 시각)이라 서버가 재시작되거나 여러 대여도 누락/중복 없이 처리된다.
+ * 반영에 실패하면 잠시 뒤 다시 시도하도록 대기 목록에 되돌린다.
+ * <p>
+ * 한 번의 저장에서 바뀌는 해시 필드(챕터, 순서, 상태)는 Lua 스크립트 하나로 쓰므로, 동시에 저장해도 반쯤 섞인 문서가 보이지 않는다.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class TempPdfDataService {
 
-    private final UserRepository userRepository;
-    private final UploadedFileRepository uploadedFileRepository;
-    private final MaterialRepository materialRepository;
+  private static final Duration TTL = Duration.ofHours(24); // 24시간 보관
+
+  private static final String DRAFT_PENDING_KEY = "temp-pdf:draft-pending";
+  private static final String CHAPTER_FIELD_PREFIX = "c:";
+  private static final String ORDER_FIELD = "_order";     // 챕터 id 순서 (JSON 배열)
+  private static final String META_FIELD = "_meta";       // chapters 외 최상위 필드 (JSON)
+  private static final String DOC_FIELD = "_doc";         // chapters가 없는 구조는 문서 전체 (gzip)
+  private static final String TITLE_FIELD = "_title";
+  private static final String LABEL_FIELD = "_label";
+  private static final String SAVED_AT_FIELD = "_savedAt";
+  private static final String PENDING_SINCE_FIELD = "_pendingSince";
+
+  /**
+   * 해시 필드 한 번에 쓰기
+   * KEYS[1] = 임시 저장 해시
+   * ARGV = [replace(1이면 이번에 쓰지 않는 문서 필드 삭제), TTL(초), 지금(ms), 삭제 필드 수, 삭제 필드..., 필드, 값, ...]
+   * 상태 필드(_title, _label, _savedAt, _pendingSince)는 replace에서도 남긴다.
+   * 반환: 반영 대기 시작 시각 (_pendingSince)
+   */
+  private static final RedisScript<String> WRITE_FIELDS_SCRIPT = new DefaultRedisScript<>("""
+      local hash = KEYS[1]
+      local removeCount = tonumber(ARGV[4])
+      local first = 5 + removeCount
+      if ARGV[1] == '1' then
+        local keep = {_title = true, _label = true, _savedAt = true, _pendingSince = true}
+        for i = first, #ARGV, 2 do keep[ARGV[i]] = true end
+        for _, field in ipairs(redis.call('HKEYS', hash)) do
+          if not keep[field] then redis.call('HDEL', hash, field) end
+        end
+      end
+      for i = 5, first - 1 do redis.call('HDEL', hash, ARGV[i]) end
+      for i = first, #ARGV, 2 do redis.call('HSET', hash, ARGV[i], ARGV[i + 1]) end
+      redis.call('HSETNX', hash, '_pendingSince', ARGV[3])
+      redis.call('EXPIRE', hash, ARGV[2])
+      return redis.call('HGET', hash, '_pendingSince')
+      """, String.class);
+
+  private final UserRepository userRepository;
+  private final UploadedFileRepository uploadedFileRepository;
+  private final MaterialRepository materialRepository;
 
   private final StringRedisTemplate redis;
   private final ObjectMapper objectMapper;
+  private final StoredJsonCodec storedJsonCodec;
 
-  private static final Duration TTL = Duration.ofHours(24); // 24시간 보관
+  @Value("${temp-save.draft-debounce-ms:10000}")
+  private long draftDebounceMs;
+
+  @Value("${temp-save.draft-max-delay-ms:60000}")
+  private long draftMaxDelayMs;
 
   /**
-   * Redis 키 생성: temp-pdf:{pdfId}:{userId}
+   * Redis 키 생성: temp-pdf:v2:{pdfId}:{userId} (챕터 단위 해시)
    */
   private String key(Long pdfId, Long userId) {
+    return "temp-pdf:v2:%d:%d".formatted(pdfId, userId);
+  }
+
+  /**
+   * 이전 형식 키: temp-pdf:{pdfId}:{userId} (문서 전체 문자열, 24시간 내 자연 소멸)
+   */
+  private String legacyKey(Long pdfId, Long userId) {
     return "temp-pdf:%d:%d".formatted(pdfId, userId);
   }
 
   /**
-   * 임시 저장 데이터를 Redis에 저장
+   * 임시 저장 데이터를 Redis에 저장 (문서 전체)
    * @param pdfId PDF ID
    * @param userId 사용자 ID
    */
   public void save(Long pdfId, Long userId, PublishRequest request) {
-    try {
-        User teacher = userRepository.findById(userId)
-                .orElseThrow(()-> new CustomException(ErrorCode.USER_NOT_FOUND));
-
-        UploadedFile uploadedFile = uploadedFileRepository.findById(pdfId)
-                .orElseThrow(() -> new CustomException(ErrorCode.FILE_NOT_FOUND));
-
-        Optional<Material> materialOpt = materialRepository.findByUploadedFileIdAndDeletedAtIsNull(uploadedFile.getId());
-
-         Material material;
-        if(materialOpt.isPresent()){
-            material = materialOpt.get();
-            material.setTitle(request.getMaterialTitle());
-            material.setLabel(request.getLabelColor());
-            material.setUpdatedAt(LocalDateTime.now());
-            material.setPostStatus(PostStatus.DRAFT);
-        } else {
-            material = Material.builder()
-                    .uploadedFile(uploadedFile)
-                    .teacher(teacher)
-                    .title(request.getMaterialTitle())
-                    .label(request.getLabelColor())
-                    .postStatus(PostStatus.DRAFT)
-                    .build();
+    // 처음 저장할 때만 사용자/파일 확인 (이후 저장과 patch는 이미 확인된 임시 저장 해시가 있다)
+    if (!Boolean.TRUE.equals(redis.hasKey(key(pdfId, userId)))) {
+      verify(pdfId, userId);
+    }
+
+    Map<String, Object> editedJson = request.getEditedJson() != null ? request.getEditedJson() : Map.of();
+    Map<String, String> fields = new HashMap<>();
+
+    if (editedJson.get("chapters") instanceof List<?> chapters) {
+      Map<String, Integer> idCounts = new HashMap<>();
+      for (Object chapterObj : chapters) {
+        if (chapterObj instanceof Map<?, ?> chapter && chapter.get("id") != null) {
+          idCounts.merge(String.valueOf(chapter.get("id")), 1, Integer::sum);
         }
+      }
 
-        materialRepository.save(material);
-      String jsonString = objectMapper.writeValueAsString(request.getEditedJson());
-      redis.opsForValue().set(key(pdfId, userId), jsonString, TTL);
-      log.info("임시 저장 완료: pdfId={}, userId={}", pdfId, userId);
-    } catch (JsonProcessingException e) {
-      log.error("임시 저장 실패: pdfId={}, userId={}, error={}", pdfId, userId, e.getMessage());
-      throw new RuntimeException("임시 저장 중 JSON 변환 실패: " + e.getMessage());
+      List<String> order = new ArrayList<>();
+      for (int i = 0; i < chapters.size(); i++) {
+        if (chapters.get(i) instanceof Map<?, ?> chapter) {
+          Object id = chapter.get("id");
+          String chapterKey = id != null && idCounts.get(String.valueOf(id)) == 1 ? String.valueOf(id) : "#" + i;
+          order.add(chapterKey);
+          fields.put(CHAPTER_FIELD_PREFIX + chapterKey, compress(chapter));
+        }
+      }
+      Map<String, Object> meta = new LinkedHashMap<>(editedJson);
+      meta.remove("chapters");
+      fields.put(ORDER_FIELD, toJson(order));
+      fields.put(META_FIELD, toJson(meta));
+    } else {
+      fields.put(DOC_FIELD, compress(editedJson));
+    }
+
+    // 이번 문서에 없는 챕터 필드는 같은 스크립트에서 제거
+    writeFields(pdfId, userId, fields, true, List.of(), request.getMaterialTitle(), request.getLabelColor());
+    log.info("임시 저장 완료: pdfId={}, userId={}, fields={}", pdfId, userId, fields.size());
+  }
+
+  /**
+   * 바뀐 챕터만 임시 저장
+   * @param pdfId PDF ID
+   * @param userId 사용자 ID
+   */
+  public void patch(Long pdfId, Long userId, TempSavePatchRequest request) {
+    String key = key(pdfId, userId);
+    if (!Boolean.TRUE.equals(redis.hasKey(key))) {
+      // 처음 임시 저장이면 기준 문서가 없으므로 전체 저장이 필요하다
+      throw new CustomException(ErrorCode.TEMP_DATA_NOT_FOUND);
+    }
+    if (redis.opsForHash().hasKey(key, DOC_FIELD)) {
+      // chapters가 없는 구조로 저장된 문서는 챕터 단위로 고칠 수 없다 (get은 문서 전체 필드만 읽음)
+      throw new CustomException(ErrorCode.INVALID_INPUT);
+    }
+
+    List<String> order = readOrder(key);
+    Map<String, String> fields = new HashMap<>();
+
+    if (request.getChapters() != null) {
+      for (Map<String, Object> chapter : request.getChapters()) {
+        Object id = chapter.get("id");
+        if (id == null) {
+          throw new CustomException(ErrorCode.INVALID_INPUT);
+        }
+        String chapterId = String.valueOf(id);
+        fields.put(CHAPTER_FIELD_PREFIX + chapterId, compress(chapter));
+        if (!order.contains(chapterId)) {
+          order.add(chapterId);
+        }
+      }
+    }
+
+    List<String> removed = new ArrayList<>();
+    if (request.getRemovedChapterIds() != null) {
+      order.removeAll(request.getRemovedChapterIds());
+      request.getRemovedChapterIds().forEach(chapterId -> removed.add(CHAPTER_FIELD_PREFIX + chapterId));
+    }
+
+    if (request.getChapterOrder() != null) {
+      order = new ArrayList<>(request.getChapterOrder());
     }
+    fields.put(ORDER_FIELD, toJson(order));
+
+    writeFields(pdfId, userId, fields, false, removed, request.getMaterialTitle(), request.getLabelColor());
+    log.info("임시 저장(변경분) 완료: pdfId={}, userId={}, chapters={}", pdfId, userId, fields.size() - 1);
   }
 
   /**
@@ -92,18 +219,27 @@ public class TempPdfDataService {
    * @return 임시 저장된 JSON 데이터 (없으면 null)
    */
   public Map<String, Object> get(Long pdfId, Long userId) {
-    try {
-      String jsonString = redis.opsForValue().get(key(pdfId, userId));
-      if (jsonString == null) {
-        log.info("임시 저장 데이터 없음: pdfId={}, userId={}", pdfId, userId);
-        return null;
+    Map<Object, Object> fields = redis.opsForHash().entries(key(pdfId, userId));
+    if (fields.isEmpty()) {
+      return getLegacy(pdfId, userId);
+    }
+    log.info("임시 저장 데이터 조회: pdfId={}, userId={}", pdfId, userId);
+
+    if (fields.containsKey(DOC_FIELD)) {
+      return decompress((String)fields.get(DOC_FIELD));
+    }
+
+    Map<String, Object> document = new LinkedHashMap<>(fromJson((String)fields.get(META_FIELD),
+        new TypeReference<LinkedHashMap<String, Object>>() {}));
+    List<Map<String, Object>> chapters = new ArrayList<>();
+    for (String chapterId : readOrder(fields)) {
+      Object chapter = fields.get(CHAPTER_FIELD_PREFIX + chapterId);
+      if (chapter != null) {
+        chapters.add(decompress((String)chapter));
       }
-      log.info("임시 저장 데이터 조회: pdfId={}, userId={}", pdfId, userId);
-      return objectMapper.readValue(jsonString, Map.class);
-    } catch (JsonProcessingException e) {
-      log.error("임시 저장 데이터 조회 실패: pdfId={}, userId={}, error={}", pdfId, userId, e.getMessage());
-      throw new RuntimeException("임시 저장 데이터 읽기 실패: " + e.getMessage());
     }
+    document.put("chapters", chapters);
+    return document;
   }
 
   /**
@@ -112,8 +248,8 @@ public class TempPdfDataService {
    * @param userId 사용자 ID
    */
   public void delete(Long pdfId, Long userId) {
-    Boolean deleted = redis.delete(key(pdfId, userId));
-    if (Boolean.TRUE.equals(deleted)) {
+    Long deleted = redis.delete(List.of(key(pdfId, userId), legacyKey(pdfId, userId)));
+    if (deleted != null && deleted > 0) {
       log.info("임시 저장 데이터 삭제 완료: pdfId={}, userId={}", pdfId, userId);
     } else {
       log.warn("임시 저장 데이터 삭제 실패 (데이터 없음): pdfId={}, userId={}", pdfId, userId);
@@ -127,7 +263,179 @@ public class TempPdfDataService {
    * @return 존재 여부
    */
   public boolean exists(Long pdfId, Long userId) {
-    Boolean exists = redis.hasKey(key(pdfId, userId));
-    return Boolean.TRUE.equals(exists);
+    return Boolean.TRUE.equals(redis.hasKey(key(pdfId, userId)))
+        || Boolean.TRUE.equals(redis.hasKey(legacyKey(pdfId, userId)));
+  }
+
+  /**
+   * 디바운스가 끝난 임시 저장을 Material(DRAFT)에 반영
+   * ZREM에 성공한 노드만 처리하므로 여러 대에서 돌아도 한 번만 반영된다.
+   * 반영에 실패하면 draftMaxDelayMs 뒤에 다시 시도하도록 되돌린다 (그사이 새로 저장돼 예약돼 있으면 그 시각을 유지).
+   */
+  @Scheduled(fixedDelayString = "${temp-save.draft-flush-interval-ms:2000}")
+  public void flushDrafts() {
+    Set<String> due = redis.opsForZSet().rangeByScore(DRAFT_PENDING_KEY, 0, System.currentTimeMillis());
+    if (due == null || due.isEmpty()) {
+      return;
+    }
+    for (String member : due) {
+      Long removed = redis.opsForZSet().remove(DRAFT_PENDING_KEY, member);
+      if (removed == null || removed == 0) {
+        continue; // 다른 노드가 가져감
+      }
+      String[] ids = member.split(":");
+      Long pdfId = Long.valueOf(ids[0]);
+      Long userId = Long.valueOf(ids[1]);
+      try {
+        upsertDraft(pdfId, userId);
+      } catch (Exception e) {
+        redis.opsForZSet().addIfAbsent(DRAFT_PENDING_KEY, member, System.currentTimeMillis() + draftMaxDelayMs);
+        log.error("임시 저장 Material 반영 실패 (다시 시도 예약): pdfId={}, userId={}, error={}", pdfId, userId,
+            e.getMessage());
+      }
+    }
+  }
+
+  // ===== 내부 =====
+
+  /**
+   * 필드 쓰기 + TTL 갱신 + Material 반영 예약 (디바운스, 최대 지연 draftMaxDelayMs)
+   *
+   * @param replace: 이번에 쓰지 않는 문서 필드 삭제 (전체 저장)
+   * @param removed: 삭제할 필드 (변경분 저장에서 삭제된 챕터)
+   */
+  private void writeFields(Long pdfId, Long userId, Map<String, String> fields, boolean replace,
+      List<String> removed, String title, LabelColor label) {
+    long now = System.currentTimeMillis();
+
+    fields.put(SAVED_AT_FIELD, String.valueOf(now));
+    if (title != null) {
+      fields.put(TITLE_FIELD, title);
+    }
+    if (label != null) {
+      fields.put(LABEL_FIELD, label.name());
+    }
+
+    List<String> args = new ArrayList<>(4 + removed.size() + fields.size() * 2);
+    args.add(replace ? "1" : "0");
+    args.add(String.valueOf(TTL.toSeconds()));
+    args.add(String.valueOf(now));
+    args.add(String.valueOf(removed.size()));
+    args.addAll(removed);
+    fields.forEach((field, value) -> {
+      args.add(field);
+      args.add(value);
+    });
+    String pendingSince = redis.execute(WRITE_FIELDS_SCRIPT, List.of(key(pdfId, userId)), args.toArray());
+
+    long deadline = pendingSince != null ? Long.parseLong(pendingSince) + draftMaxDelayMs : now;
+    redis.opsForZSet().add(DRAFT_PENDING_KEY, pdfId + ":" + userId, Math.min(now + draftDebounceMs, deadline));
+  }
+
+  /**
+   * 사용자와 파일이 있는지 확인 (처음 임시 저장할 때)
+   */
+  private void verify(Long pdfId, Long userId) {
+    if (!userRepository.existsById(userId)) {
+      throw new CustomException(ErrorCode.USER_NOT_FOUND);
+    }
+    if (!uploadedFileRepository.existsById(pdfId)) {
+      throw new CustomException(ErrorCode.FILE_NOT_FOUND);
+    }
+  }
+
+  /**
+   * Material 임시 저장 상태 반영 (기존 save의 upsert, 반영 시점의 최신 제목/라벨 사용)
+   */
+  private void upsertDraft(Long pdfId, Long userId) {
+    String key = key(pdfId, userId);
+    List<Object> values = redis.opsForHash().multiGet(key, List.of(TITLE_FIELD, LABEL_FIELD, SAVED_AT_FIELD));
+    if (values.get(2) == null) {
+      return; // 이미 삭제/만료된 임시 저장
+    }
+    String title = (String)values.get(0);
+    LabelColor label = values.get(1) != null ? LabelColor.valueOf((String)values.get(1)) : null;
+    LocalDateTime savedAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong((String)values.get(2))),
+        ZoneId.systemDefault());
+
+    Optional<Material> materialOpt = materialRepository.findByUploadedFileIdAndDeletedAtIsNull(pdfId);
+
+    Material material;
+    if (materialOpt.isPresent()) {
+      material = materialOpt.get();
+      // 마지막 임시 저장 이후에 발행됐으면 발행 상태를 되돌리지 않는다
+      if (material.getPostStatus() == PostStatus.PUBLISHED
+          && material.getUpdatedAt() != null && material.getUpdatedAt().isAfter(savedAt)) {
+        redis.opsForHash().delete(key, PENDING_SINCE_FIELD);
+        return;
+      }
+      material.setTitle(title);
+      material.setLabel(label);
+      material.setUpdatedAt(LocalDateTime.now());
+      material.setPostStatus(PostStatus.DRAFT);
+    } else {
+      User teacher = userRepository.getReferenceById(userId);
+      UploadedFile uploadedFile = uploadedFileRepository.getReferenceById(pdfId);
+      material = Material.builder()
+          .uploadedFile(uploadedFile)
+          .teacher(teacher)
+          .title(title)
+          .label(label)
+          .postStatus(PostStatus.DRAFT)
+          .build();
+    }
+
+    materialRepository.save(material);
+    // 반영한 뒤에 대기 시작 시각을 지운다 (실패하면 다시 시도할 때도 같은 최대 지연을 따름)
+    redis.opsForHash().delete(key, PENDING_SINCE_FIELD);
+    log.info("임시 저장 Material 반영: pdfId={}, userId={}", pdfId, userId);
+  }
+
+  private Map<String, Object> getLegacy(Long pdfId, Long userId) {
+    String jsonString = redis.opsForValue().get(legacyKey(pdfId, userId));
+    if (jsonString == null) {
+      log.info("임시 저장 데이터 없음: pdfId={}, userId={}", pdfId, userId);
+      return null;
+    }
+    log.info("임시 저장 데이터 조회 (이전 형식): pdfId={}, userId={}", pdfId, userId);
+    return fromJson(jsonString, new TypeReference<LinkedHashMap<String, Object>>() {});
+  }
+
+  private List<String> readOrder(String key) {
+    Object order = redis.opsForHash().get(key, ORDER_FIELD);
+    return order != null ? new ArrayList<>(fromJson((String)order, new TypeReference<List<String>>() {}))
+        : new ArrayList<>();
+  }
+
+  private List<String> readOrder(Map<Object, Object> fields) {
+    Object order = fields.get(ORDER_FIELD);
+    return order != null ? fromJson((String)order, new TypeReference<List<String>>() {}) : List.of();
+  }
+
+  private String compress(Object value) {
+    return Base64.getEncoder().encodeToString(
+        storedJsonCodec.encode(value, StoredJsonCodec.Format.SMILE_GZIP).body());
+  }
+
+  private Map<String, Object> decompress(String value) {
+    return storedJsonCodec.decode(Base64.getDecoder().decode(value)).data();
+  }
+
+  private String toJson(Object value) {
+    try {
+      return objectMapper.writeValueAsString(value);
+    } catch (JsonProcessingException e) {
+      log.error("임시 저장 실패: error={}", e.getMessage());
+      throw new RuntimeException("임시 저장 중 JSON 변환 실패: " + e.getMessage());
+    }
+  }
+
+  private <T> T fromJson(String json, TypeReference<T> type) {
+    try {
+      return objectMapper.readValue(json, type);
+    } catch (JsonProcessingException e) {
+      log.error("임시 저장 데이터 조회 실패: error={}", e.getMessage());
+      throw new RuntimeException("임시 저장 데이터 읽기 실패: " + e.getMessage());
+    }
   }
 }
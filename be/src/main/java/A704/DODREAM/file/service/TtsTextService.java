@@ -0,0 +1,313 @@
+package A704.DODREAM.file.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import A704.DODREAM.file.dto.MaterialDocument;
+import A704.DODREAM.file.entity.UploadedFile;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+/**
+ * 읽기용 TXT(TTS 텍스트) 산출물
+ * <p>
+ * 파싱/발행 시점에 한 번 만들어 S3에 저장하고, 조회는 S3 객체를 그대로 흘려보낸다 (Range 요청 지원).
+ * tts-text/{fileId}/{sha256}.txt: 책 전체 텍스트 (UTF-8, 압축 없음 - 바이트 범위 = 파일 범위)
+ * tts-text/{fileId}/{sha256}.index.json: 챕터별 바이트 범위 (앱이 챕터 단위로 Range 요청)
+ * <p>
+ * 내용 해시 키라 한 번 쓰면 바뀌지 않는다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TtsTextService {
+
+	private static final String TTS_PREFIX = "tts-text/";
+	private static final String TEXT_SUFFIX = ".txt";
+	private static final String INDEX_SUFFIX = ".index.json";
+	private static final Pattern SINGLE_RANGE = Pattern.compile("bytes=(\\d+-\\d*|-\\d+)");
+
+	private final S3Client s3Client;
+	private final StoredJsonCodec storedJsonCodec;
+	private final ParsedJsonStore parsedJsonStore;
+
+	@Value("${aws.s3.bucket}")
+	private String bucketName;
+
+	/**
+	 * S3 텍스트 스트림 (응답 헤더용 정보 포함)
+	 *
+	 * @param body:          S3 본문 (호출자가 닫음, 416이면 null)
+	 * @param status:        응답 상태 (200 전체, 206 범위, 416 범위를 만족할 수 없음)
+	 * @param contentLength: 이번 응답 바이트 수
+	 * @param contentRange:  206이면 "bytes a-b/total", 416이면 "bytes *\/total", 아니면 null
+	 * @param eTag:          텍스트 객체 ETag
+	 */
+	public record TextStream(ResponseInputStream<GetObjectResponse> body, int status, long contentLength,
+							 String contentRange, String eTag) {
+
+		/**
+		 * 응답 본문 (S3 스트림을 그대로 복사, 끝나면 연결 종료)
+		 */
+		public StreamingResponseBody toBody() {
+			return out -> {
+				if (body == null) {
+					return;
+				}
+				try (body) {
+					body.transferTo(out);
+				}
+			};
+		}
+	}
+
+	/**
+	 * 자료 JSON으로 TTS 텍스트 생성 후 저장
+	 *
+	 * @return 텍스트 객체 S3 키
+	 */
+	public String generate(UploadedFile uploadedFile, MaterialDocument document) {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * 1024);
+		List<Map<String, Object>> chapters = new ArrayList<>();
+
+		try (Writer writer = new OutputStreamWriter(buffer, StandardCharsets.UTF_8)) {
+			render(uploadedFile, document, writer, buffer, chapters);
+		} catch (IOException e) {
+			throw new RuntimeException("TTS 텍스트 생성 실패: " + e.getMessage());
+		}
+
+		byte[] text = buffer.toByteArray();
+		String textKey = TTS_PREFIX + uploadedFile.getId() + "/" + sha256(text) + TEXT_SUFFIX;
+
+		Map<String, Object> index = new LinkedHashMap<>();
+		index.put("textKey", textKey);
+		index.put("length", text.length);
+		index.put("chapters", chapters);
+
+		s3Client.putObject(PutObjectRequest.builder()
+			.bucket(bucketName)
+			.key(textKey)
+			.contentType("text/plain; charset=UTF-8")
+			.build(), RequestBody.fromBytes(text));
+
+		String indexKey = indexKeyOf(textKey);
+		StoredJsonCodec.Encoded encoded = storedJsonCodec.encode(index, storedJsonCodec.formatFor(indexKey));
+		s3Client.putObject(PutObjectRequest.builder()
+			.bucket(bucketName)
+			.key(indexKey)
+			.contentType(encoded.contentType())
+			.contentEncoding(encoded.contentEncoding())
+			.metadata(encoded.metadata(Map.of()))
+			.build(), RequestBody.fromBytes(encoded.body()));
+
+		log.info("✅ TTS 텍스트 저장 완료: fileId={}, bytes={}, chapters={}", uploadedFile.getId(), text.length,
+			chapters.size());
+		return textKey;
+	}
+
+	/**
+	 * 텍스트 객체 열기
+	 *
+	 * @param range: HTTP Range 헤더 (단일 범위만 S3에 전달, 여러 범위나 파일 밖 범위는 416, 형식이 틀리면 무시하고 전체 응답)
+	 */
+	public TextStream open(String textKey, String range) {
+		GetObjectRequest.Builder request = GetObjectRequest.builder()
+			.bucket(bucketName)
+			.key(textKey);
+		if (range != null) {
+			String trimmed = range.trim();
+			if (trimmed.startsWith("bytes=") && trimmed.contains(",")) {
+				return unsatisfiable(textKey);
+			}
+			if (SINGLE_RANGE.matcher(trimmed).matches()) {
+				request.range(trimmed);
+			}
+		}
+
+		ResponseInputStream<GetObjectResponse> object;
+		try {
+			object = s3Client.getObject(request.build());
+		} catch (S3Exception e) {
+			if (e.statusCode() == 416) {
+				return unsatisfiable(textKey);
+			}
+			throw e;
+		}
+		GetObjectResponse response = object.response();
+		int status = response.contentRange() != null ? 206 : 200;
+		return new TextStream(object, status, response.contentLength(), response.contentRange(), response.eTag());
+	}
+
+	/**
+	 * 챕터별 바이트 범위 (id, title, start, end - end는 포함하지 않음)
+	 */
+	public Map<String, Object> getIndex(String textKey) {
+		return parsedJsonStore.get(indexKeyOf(textKey));
+	}
+
+	/**
+	 * 텍스트 + 챕터 인덱스 키 (삭제용)
+	 */
+	public static List<String> keysOf(String textKey) {
+		return textKey != null ? List.of(textKey, indexKeyOf(textKey)) : List.of();
+	}
+
+	public static String indexKeyOf(String textKey) {
+		return textKey.substring(0, textKey.length() - TEXT_SUFFIX.length()) + INDEX_SUFFIX;
+	}
+
+	// ===== 내부 =====
+
+	/**
+	 * 416 응답 (Content-Range: bytes *\/전체 길이)
+	 */
+	private TextStream unsatisfiable(String textKey) {
+		HeadObjectResponse head = s3Client.headObject(HeadObjectRequest.builder()
+			.bucket(bucketName)
+			.key(textKey)
+			.build());
+		return new TextStream(null, 416, 0, "bytes */" + head.contentLength(), head.eTag());
+	}
+
+	/**
+	 * 읽기 최적화 TXT 렌더링 (챕터 시작/끝 바이트 위치 기록)
+	 */
+	private void render(UploadedFile uploadedFile, MaterialDocument document, Writer text,
+		ByteArrayOutputStream buffer, List<Map<String, Object>> chapters) throws IOException {
+
+		// -----------------------------
+		// 파일명
+		// -----------------------------
+		text.append("파일명: ").append(uploadedFile.getOriginalFileName()).append("\n\n");
+
+		// -----------------------------
+		// 목차
+		// -----------------------------
+		if (!document.indexes().isEmpty()) {
+			text.append("목차\n\n");
+			for (String index : document.indexes()) {
+				text.append(index).append("\n");
+			}
+			text.append("\n");
+		}
+
+		// -----------------------------
+		// 본문 내용
+		// -----------------------------
+		for (MaterialDocument.Chapter chapter : document.chapters()) {
+			text.flush();
+			long start = buffer.size();
+
+			// index + index_title
+			if (chapter.id() != null && chapter.title() != null) {
+				text.append(chapter.id()).append(" ").append(chapter.title()).append("\n\n");
+			}
+
+			// 발행된 자료 본문
+			if (chapter.content() != null && !chapter.content().isBlank()) {
+				text.append(chapter.content()).append("\n\n");
+			}
+
+			// titles
+			for (MaterialDocument.Heading title : chapter.headings()) {
+				if (title.title() != null) {
+					text.append(title.title()).append("\n");
+				}
+
+				// s_titles
+				for (MaterialDocument.Heading sTitle : title.children()) {
+					if (sTitle.title() != null) {
+						text.append("  ").append(sTitle.title()).append("\n");
+					}
+					if (sTitle.contents() != null && !sTitle.contents().isBlank()) {
+						text.append("    ").append(sTitle.contents()).append("\n");
+					}
+
+					// ss_titles
+					for (MaterialDocument.Heading ssTitle : sTitle.children()) {
+						if (ssTitle.title() != null) {
+							text.append("    - ").append(ssTitle.title()).append("\n");
+						}
+						if (ssTitle.contents() != null && !ssTitle.contents().isBlank()) {
+							text.append("      ").append(ssTitle.contents()).append("\n");
+						}
+					}
+					text.append("\n");
+				}
+
+				text.append("\n");
+			}
+
+			// concept_checks (발행된 자료는 퀴즈 qa)
+			List<MaterialDocument.ConceptCheck> conceptChecks = chapter.qa().isEmpty()
+				? chapter.conceptChecks()
+				: List.of(new MaterialDocument.ConceptCheck(null, chapter.qa()));
+
+			for (MaterialDocument.ConceptCheck conceptCheck : conceptChecks) {
+				// title (예: "개념 Check")
+				if (conceptCheck.title() != null) {
+					text.append(conceptCheck.title()).append("\n");
+				}
+
+				for (MaterialDocument.QuestionAnswer qa : conceptCheck.questions()) {
+					if (qa.question() != null && !qa.question().isBlank()) {
+						text.append("  질문: ").append(qa.question()).append("\n");
+					}
+					if (qa.answer() != null && !qa.answer().isBlank()) {
+						text.append("  답: ").append(qa.answer()).append("\n");
+					}
+					text.append("\n");
+				}
+
+				text.append("\n");
+			}
+
+			text.flush();
+			Map<String, Object> entry = new LinkedHashMap<>();
+			entry.put("id", chapter.id());
+			entry.put("title", chapter.title() != null ? chapter.title() : "");
+			entry.put("start", start);
+			entry.put("end", (long)buffer.size());
+			chapters.add(entry);
+		}
+
+		// -----------------------------
+		// 메타데이터
+		// -----------------------------
+		if (uploadedFile.getParsedAt() != null) {
+			text.append("\n파싱 일시: ").append(uploadedFile.getParsedAt().toString()).append("\n");
+		}
+	}
+
+	private static String sha256(byte[] body) {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
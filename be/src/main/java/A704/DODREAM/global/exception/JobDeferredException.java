@@ -0,0 +1,17 @@
+package A704.DODREAM.global.exception;
+
+import lombok.Getter;
+
+/**
+ * 작업을 지금 처리할 수 없어 잠시 뒤로 미뤄야 할 때 사용 (재시도 횟수에 포함하지 않음)
+ * 예: 같은 내용의 PDF를 다른 작업이 파싱 중인 경우
+ */
+@Getter
+public class JobDeferredException extends RuntimeException {
+	private final long delaySeconds;
+
+	public JobDeferredException(String message, long delaySeconds) {
+		super(message);
+		this.delaySeconds = delaySeconds;
+	}
+}
@@ -41,9 +41,16 @@ public enum ErrorCode {
     FILE_UPLOAD_FAILED("FILE_500", "파일 업로드에 실패했습니다."),
     INVALID_FILE_EXTENSION("FILE_400", "잘못된 형식의 파일입니다."),
     FILE_PARSING_FAILED("FILE_400", "파싱된 JSON이 없습니다."),
+    FILE_TOO_LARGE("FILE_413", "파일 크기가 허용 범위를 초과했습니다."),
+    TEMP_DATA_NOT_FOUND("FILE_409", "임시 저장 데이터가 없습니다. 전체 임시 저장 후 변경분을 보내주세요."),
+
+    // 작업 관련 (JOB)
+    JOB_NOT_FOUND("JOB_404", "작업을 찾을 수 없습니다."),
+    PARSE_IN_PROGRESS("JOB_409", "같은 PDF를 다른 작업이 파싱 중입니다. 잠시 후 다시 시도해주세요."),
 
     //자료 관련 (MATERIAL)
     MATERIAL_NOT_FOUND("MATERIAL_404", "자료를 찾을 수 없습니다."),
+    MATERIAL_VERSION_NOT_FOUND("MATERIAL_404", "자료 버전을 찾을 수 없습니다."),
 
     // 북마크 관련 (BOOKMARK)
     CONTENT_NOT_FOUND("BOOKMARK_404", "콘텐츠를 찾을 수 없습니다."),
@@ -75,6 +75,7 @@ public class GlobalExceptionHandler {
         if (code.contains("403")) return HttpStatus.FORBIDDEN;
         if (code.contains("409")) return HttpStatus.CONFLICT;
         if (code.contains("410")) return HttpStatus.GONE;
+        if (code.contains("413")) return HttpStatus.PAYLOAD_TOO_LARGE;
         if (code.contains("500")) return HttpStatus.INTERNAL_SERVER_ERROR;
         return HttpStatus.BAD_REQUEST;
     }
@@ -1,13 +1,19 @@
 package A704.DODREAM.material.controller;
 
 import A704.DODREAM.auth.dto.request.UserPrincipal;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import A704.DODREAM.file.service.TtsTextService;
 import A704.DODREAM.material.dto.MaterialShareListResponse;
 import A704.DODREAM.material.dto.MaterialShareRequest;
 import A704.DODREAM.material.dto.MaterialShareResponse;
@@ -17,7 +23,9 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 @Tag(name = "Material Share", description = "학습 자료 공유 API")
@@ -88,15 +96,102 @@ public class MaterialShareController {
 
     @Operation(
             summary = "공유받은 자료 JSON 조회 (학생/앱)",
-            description = "공유받은 학습 자료의 JSON 데이터를 조회합니다."
+            description = "공유받은 학습 자료의 현재 발행 버전 JSON을 조회합니다. Accept-Encoding에 gzip이 있으면 압축해서 응답합니다.\n\n" +
+                    "발행 버전이 있으면 ETag를 함께 내려주며, If-None-Match가 같으면 304를 응답합니다."
     )
     @GetMapping("/shared/{materialId}/json")
-    public ResponseEntity<Map<String, Object>> getSharedMaterialJson(
+    public ResponseEntity<StreamingResponseBody> getSharedMaterialJson(
+            @AuthenticationPrincipal UserPrincipal userPrincipal,
+            @PathVariable Long materialId,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        Long studentId = userPrincipal.userId();
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+
+        MaterialShareService.SharedJson json =
+                materialShareService.streamSharedMaterialJson(studentId, materialId, gzip, ifNoneMatch);
+
+        // 공유 해제 여부는 매번 확인해야 하므로 캐시는 하되 재검증
+        ResponseEntity.BodyBuilder response = (json.body() == null
+                ? ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                : ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .cacheControl(CacheControl.noCache().cachePrivate());
+        if (json.eTag() != null) {
+            response.eTag(json.eTag());
+        }
+        if (json.body() == null) {
+            return response.build();
+        }
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(json.body());
+    }
+
+    @Operation(
+            summary = "공유받은 자료 챕터 목록 조회 (학생/앱)",
+            description = "챕터 id, 타입, 제목, 섹션 수만 조회합니다. 본문은 챕터별로 조회하세요."
+    )
+    @GetMapping("/shared/{materialId}/manifest")
+    public ResponseEntity<Map<String, Object>> getSharedMaterialManifest(
+            @AuthenticationPrincipal UserPrincipal userPrincipal,
+            @PathVariable Long materialId
+    ) {
+        Long studentId = userPrincipal.userId();
+        return ResponseEntity.ok(materialShareService.getSharedMaterialManifest(studentId, materialId));
+    }
+
+    @Operation(
+            summary = "공유받은 자료 챕터 조회 (학생/앱)",
+            description = "챕터 하나의 JSON 데이터를 조회합니다."
+    )
+    @GetMapping("/shared/{materialId}/chapters/{chapterId}")
+    public ResponseEntity<Map<String, Object>> getSharedMaterialChapter(
+            @AuthenticationPrincipal UserPrincipal userPrincipal,
+            @PathVariable Long materialId,
+            @PathVariable String chapterId
+    ) {
+        Long studentId = userPrincipal.userId();
+        return ResponseEntity.ok(materialShareService.getSharedMaterialChapter(studentId, materialId, chapterId));
+    }
+
+    @Operation(
+            summary = "공유받은 자료 읽기용 TXT 조회 (학생/앱, TTS)",
+            description = "현재 발행 버전의 읽기용 TXT를 스트리밍합니다. Range 요청을 지원하므로 " +
+                    "전체를 받기 전에 읽기 시작하거나, 챕터 목록의 바이트 범위로 챕터만 받을 수 있습니다."
+    )
+    @GetMapping("/shared/{materialId}/tts-text")
+    public ResponseEntity<StreamingResponseBody> getSharedTtsText(
+            @AuthenticationPrincipal UserPrincipal userPrincipal,
+            @PathVariable Long materialId,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range
+    ) {
+        Long studentId = userPrincipal.userId();
+        TtsTextService.TextStream text = materialShareService.openSharedTtsText(studentId, materialId, range);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(text.status())
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                .contentLength(text.contentLength())
+                .eTag(text.eTag());
+        if (text.contentRange() != null) {
+            response.header(HttpHeaders.CONTENT_RANGE, text.contentRange());
+        }
+        return response.body(text.toBody());
+    }
+
+    @Operation(
+            summary = "공유받은 자료 읽기용 TXT 챕터 목록 (학생/앱, TTS)",
+            description = "TXT 안에서 챕터별 바이트 범위(start 포함, end 미포함)를 조회합니다."
+    )
+    @GetMapping("/shared/{materialId}/tts-text/chapters")
+    public ResponseEntity<Map<String, Object>> getSharedTtsTextChapters(
             @AuthenticationPrincipal UserPrincipal userPrincipal,
             @PathVariable Long materialId
     ) {
         Long studentId = userPrincipal.userId();
-        Map<String, Object> jsonData = materialShareService.getSharedMaterialJson(studentId, materialId);
-        return ResponseEntity.ok(jsonData);
+        return ResponseEntity.ok(materialShareService.getSharedTtsTextChapters(studentId, materialId));
     }
 }
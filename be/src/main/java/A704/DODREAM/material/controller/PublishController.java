@@ -1,10 +1,12 @@
 package A704.DODREAM.material.controller;
 
 import A704.DODREAM.auth.dto.request.UserPrincipal;
+import A704.DODREAM.material.dto.MaterialVersionResponse;
 import A704.DODREAM.material.dto.PublishRequest;
 import A704.DODREAM.material.dto.PublishResponseDto;
 import A704.DODREAM.material.dto.PublishedMaterialListResponse;
 import A704.DODREAM.material.dto.UpdateLabelRequest;
+import A704.DODREAM.material.service.MaterialVersionService;
 import A704.DODREAM.material.service.PublishService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -15,6 +17,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Map;
 
 @Tag(name = "Publishing API", description = "자료 발행 API")
@@ -25,6 +28,7 @@ import java.util.Map;
 public class PublishController {
 
     private final PublishService publishService;
+    private final MaterialVersionService materialVersionService;
 
 	@Operation(summary = "자료 발행하기", description = "에디터에서 자료 수정 후 발행 버튼 클릭 시 호출해야 합니다. \n\n" +
 		"기존에 있는 자료 수정 후 재발행할 때에도 사용가능합니다.")
@@ -87,4 +91,29 @@ public class PublishController {
 
         return ResponseEntity.ok("자료가 삭제되었습니다.");
     }
+
+    @Operation(summary = "자료 발행 버전 목록 조회", description = "발행할 때마다 만들어진 버전 목록을 최신순으로 조회합니다.")
+    @GetMapping("/{materialId}/versions")
+    public ResponseEntity<List<MaterialVersionResponse>> getVersions(
+            @AuthenticationPrincipal UserPrincipal userPrincipal,
+            @PathVariable Long materialId
+    ){
+        return ResponseEntity.ok(materialVersionService.getVersions(materialId, userPrincipal.userId()));
+    }
+
+    @Operation(summary = "자료 버전 롤백", description = "학생에게 보이는 자료를 이전 발행 버전으로 되돌립니다. \n\n" +
+            "에디터의 작업 중인 JSON은 바뀌지 않습니다.")
+    @PostMapping("/{materialId}/versions/{versionId}/rollback")
+    public ResponseEntity<MaterialVersionResponse> rollbackVersion(
+            @AuthenticationPrincipal UserPrincipal userPrincipal,
+            @PathVariable Long materialId,
+            @PathVariable Long versionId,
+            HttpServletRequest httpServletRequest
+    ){
+        // 롤백한 버전 기준으로 임베딩을 다시 맞출 때 요청자 권한으로 FastAPI 호출
+        String authorizationHeader = httpServletRequest.getHeader("Authorization");
+
+        return ResponseEntity.ok(materialVersionService.rollback(materialId, userPrincipal.userId(), versionId,
+                authorizationHeader));
+    }
 }
@@ -0,0 +1,32 @@
+package A704.DODREAM.material.dto;
+
+import java.time.LocalDateTime;
+
+import A704.DODREAM.material.entity.MaterialVersion;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MaterialVersionResponse {
+
+	private Long versionId;
+	private int versionNo;
+	private int chapterCount;
+	private boolean current;
+	private LocalDateTime createdAt;
+
+	public static MaterialVersionResponse of(MaterialVersion version, Long currentVersionId) {
+		return MaterialVersionResponse.builder()
+			.versionId(version.getId())
+			.versionNo(version.getVersionNo())
+			.chapterCount(version.getChapterCount())
+			.current(version.getId().equals(currentVersionId))
+			.createdAt(version.getCreatedAt())
+			.build();
+	}
+}
@@ -74,10 +74,28 @@ public class Material {
     @Column(name = "deleted_at")
     private LocalDateTime deletedAt;
 
+    // 현재 발행 버전 (재발행/롤백은 이 포인터만 바꾼다, 아직 버전이 없으면 통짜 JSON으로 조회)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "current_version_id")
+    private MaterialVersion currentVersion;
+
+    // 마지막으로 임베딩에 반영된 챕터별 내용 해시 (JSON: {"keying": 키 규칙, "hashes": {"챕터 키": "sha256"}}), 재발행 시 바뀐 챕터만 임베딩
+    @Column(name = "embedded_chapter_hashes", columnDefinition = "TEXT")
+    private String embeddedChapterHashes;
+
+    // 발행 순번 (발행/롤백할 때마다 증가, 후처리 작업 키로 써서 같은 내용의 재발행도 매번 처리하고 이전 발행의 늦은 작업은 건너뛴다)
+    @Column(name = "publish_seq", nullable = false)
+    @Builder.Default
+    private long publishSeq = 0;
+
     public void softDelete(){
         this.deletedAt = LocalDateTime.now();
     }
 
+    public long nextPublishSeq() {
+        return ++this.publishSeq;
+    }
+
     public boolean isDeleted() {
         return this.deletedAt != null;
     }
@@ -0,0 +1,94 @@
+package A704.DODREAM.material.entity;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * 발행 버전 (불변)
+ * <p>
+ * 발행할 때마다 하나씩 생기며, manifest와 챕터 객체는 내용 해시 키라 이전 버전과 같은 챕터는 공유한다.
+ * 한 번 만들어진 버전의 manifest/챕터 객체는 바뀌지 않으므로 버전 id(또는 manifest 키)로 영구 캐시해도 된다.
+ * 통짜 발행 JSON, 읽기용 TXT, 개념 Check 항목도 버전마다 내용 해시 키 스냅샷을 가리키므로
+ * 현재 버전 전환(재발행, 롤백)은 {@link Material#getCurrentVersion()} 포인터만 바꾸면 모든 산출물이 함께 바뀐다.
+ */
+@Entity
+@Table(name = "material_versions",
+	uniqueConstraints = {
+		@UniqueConstraint(name = "uk_material_version_no", columnNames = {"material_id", "version_no"}),
+		@UniqueConstraint(name = "uk_material_version_manifest", columnNames = {"material_id", "manifest_s3_key"})
+	}
+)
+@EntityListeners(AuditingEntityListener.class)
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor
+@Builder
+public class MaterialVersion {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "material_id", nullable = false)
+	private Material material;
+
+	@Column(name = "version_no", nullable = false)
+	private int versionNo;
+
+	// 버전 manifest (내용 해시 키)
+	@Column(name = "manifest_s3_key", nullable = false, length = 300)
+	private String manifestS3Key;
+
+	// 이 버전의 통짜 발행 JSON 스냅샷 (버전 도입 직후 만들어진 행은 null)
+	@Column(name = "json_s3_key", length = 300)
+	private String jsonS3Key;
+
+	// 이 버전의 읽기용 TXT (TTS 텍스트)
+	@Column(name = "tts_text_s3_key", length = 300)
+	private String ttsTextS3Key;
+
+	// 이 버전의 개념 Check 항목
+	@Column(name = "concept_check_items_s3_key", length = 300)
+	private String conceptCheckItemsS3Key;
+
+	@Column(name = "chapter_count", nullable = false)
+	private int chapterCount;
+
+	@Column(name = "published_by")
+	private Long publishedBy;
+
+	@CreatedDate
+	@Column(name = "created_at", updatable = false)
+	private LocalDateTime createdAt;
+
+	/**
+	 * 스냅샷 키가 없는 이전 행을 같은 manifest로 재발행할 때 한 번만 채움 (이미 있으면 바꾸지 않음)
+	 */
+	public void fillSnapshotKeys(String jsonS3Key, String conceptCheckItemsS3Key) {
+		if (this.jsonS3Key != null) {
+			return;
+		}
+		this.jsonS3Key = jsonS3Key;
+		this.conceptCheckItemsS3Key = conceptCheckItemsS3Key;
+	}
+}
@@ -1,9 +1,16 @@
 package A704.DODREAM.material.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 
 import A704.DODREAM.material.entity.Material;
+import A704.DODREAM.material.entity.MaterialVersion;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.LockModeType;
 
 import java.util.List;
 import java.util.Optional;
@@ -13,10 +20,31 @@ public interface MaterialRepository extends JpaRepository<Material, Long> {
 
     Optional<Material> findByUploadedFileIdAndDeletedAtIsNull(Long pdfId);
 
+    // 발행 순번 증가용 행 잠금 (같은 자료의 동시 발행/롤백이 같은 순번을 받지 않도록)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM Material m WHERE m.uploadedFile.id = :pdfId AND m.deletedAt IS NULL")
+    Optional<Material> findByUploadedFileIdForUpdate(@Param("pdfId") Long pdfId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM Material m WHERE m.id = :id AND m.teacher.id = :teacherId AND m.deletedAt IS NULL")
+    Optional<Material> findOwnedForUpdate(@Param("id") Long id, @Param("teacherId") Long teacherId);
+
     @Query("SELECT m FROM Material m " +
             "JOIN FETCH m.uploadedFile " +
             "WHERE m.teacher.id = :id " +
             "AND m.deletedAt IS NULL " +
             "ORDER BY m.createdAt DESC")
     List<Material> findAllByTeacherIdWithUploadedFile(Long id);
+
+    // 임베딩 후처리 작업 결과 반영 (발행 트랜잭션과 엔티티 전체를 덮어쓰지 않도록 컬럼 단위 갱신)
+    @Transactional
+    @Modifying
+    @Query("UPDATE Material m SET m.embeddedChapterHashes = :hashes WHERE m.id = :id")
+    int updateEmbeddedChapterHashes(@Param("id") Long id, @Param("hashes") String hashes);
+
+    // 현재 버전 전환 (재발행 완료, 롤백)
+    @Transactional
+    @Modifying
+    @Query("UPDATE Material m SET m.currentVersion = :version WHERE m.id = :id")
+    int updateCurrentVersion(@Param("id") Long id, @Param("version") MaterialVersion version);
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package A704.DODREAM.material.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import A704.DODREAM.material.entity.MaterialVersion;
+
+@Repository
+public interface MaterialVersionRepository extends JpaRepository<MaterialVersion, Long> {
+
+	List<MaterialVersion> findByMaterialIdOrderByVersionNoDesc(Long materialId);
+
+	Optional<MaterialVersion> findTopByMaterialIdOrderByVersionNoDesc(Long materialId);
+
+	// 같은 내용의 버전 (후처리 작업 재실행 시 중복 생성 방지)
+	Optional<MaterialVersion> findByMaterialIdAndManifestS3Key(Long materialId, String manifestS3Key);
+
+	Optional<MaterialVersion> findByIdAndMaterialId(Long id, Long materialId);
+}
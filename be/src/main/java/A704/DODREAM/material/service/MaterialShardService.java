@@ -0,0 +1,379 @@
+package A704.DODREAM.material.service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import A704.DODREAM.file.entity.UploadedFile;
+import A704.DODREAM.file.repository.S3TombstoneRepository;
+import A704.DODREAM.file.repository.UploadedFileRepository;
+import A704.DODREAM.file.service.JsonProjectionReader;
+import A704.DODREAM.file.service.JsonSelector;
+import A704.DODREAM.file.service.ParsedJsonStore;
+import A704.DODREAM.file.service.StoredJsonCodec;
+import A704.DODREAM.file.service.TtsTextService;
+import A704.DODREAM.global.exception.CustomException;
+import A704.DODREAM.global.exception.constant.ErrorCode;
+import A704.DODREAM.material.entity.Material;
+import A704.DODREAM.material.entity.MaterialVersion;
+import A704.DODREAM.material.repository.MaterialRepository;
+import A704.DODREAM.material.repository.MaterialVersionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+/**
+ * 발행 자료의 챕터 단위 저장 (manifest + 챕터별 객체)
+ * <p>
+ * material-shards/{fileId}/manifests/{sha256}.json: 버전 하나의 챕터 목록(id, type, title, 섹션 수, 해시, 키)
+ * material-shards/{fileId}/chapters/{sha256}.json: 챕터 하나 (내용 해시 키라 버전 간에 공유, 바뀐 챕터만 새로 저장)
+ * published-json/{fileId}/{sha256}.json: 발행 시점의 통짜 JSON (후처리 작업과 학생 앱 JSON 응답이 읽음)
+ * <p>
+ * 두 객체 모두 내용 해시 키라 한 번 쓰면 바뀌지 않는다. 어떤 manifest를 읽을지는 {@link MaterialVersion}이 정한다.
+ * 아직 버전이 없는 자료는 통짜 JSON(jsonS3Key)에서 읽는다.
+ * <p>
+ * 순서: 새 챕터/manifest 저장 → 버전 포인터 전환 → (보존 개수를 넘은) 이전 버전 객체는 지연 삭제.
+ * 정리 대상이던 객체를 새 버전이 다시 쓰면 저장 전에 삭제 예약을 취소한다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MaterialShardService {
+
+	private static final String SHARD_PREFIX = "material-shards/";
+	private static final String PUBLISHED_PREFIX = "published-json/";
+
+	private final S3Client s3Client;
+	private final ObjectMapper objectMapper;
+	private final ParsedJsonStore parsedJsonStore;
+	private final StoredJsonCodec storedJsonCodec;
+	private final JsonProjectionReader jsonProjectionReader;
+	private final MaterialRepository materialRepository;
+	private final MaterialVersionRepository materialVersionRepository;
+	private final UploadedFileRepository uploadedFileRepository;
+	private final S3TombstoneRepository s3TombstoneRepository;
+
+	@Value("${aws.s3.bucket}")
+	private String bucketName;
+
+	/**
+	 * 저장된 버전 manifest
+	 *
+	 * @param manifestKey:  manifest S3 키 (내용 해시 키)
+	 * @param chapterCount: 챕터 수
+	 */
+	public record StoredManifest(String manifestKey, int chapterCount) {
+	}
+
+	/**
+	 * 발행된 JSON을 챕터 단위로 저장 (기존 객체는 덮어쓰거나 지우지 않음)
+	 *
+	 * @param uploadedFile:        대상 파일
+	 * @param editedJson:          발행 JSON ({"chapters": [...]})
+	 * @param previousManifestKey: 현재 버전의 manifest (같은 챕터 객체는 다시 올리지 않음, 없으면 null)
+	 * @return 저장된 manifest (chapters가 없는 구조면 null)
+	 */
+	public StoredManifest publish(UploadedFile uploadedFile, Map<String, Object> editedJson,
+		String previousManifestKey) {
+		Object chaptersObj = editedJson.get("chapters");
+		if (!(chaptersObj instanceof List<?> chapters)) {
+			log.warn("⚠️ chapters가 없는 JSON 구조라 챕터 분할 저장을 건너뜁니다: fileId={}", uploadedFile.getId());
+			return null;
+		}
+
+		String prefix = SHARD_PREFIX + uploadedFile.getId();
+		Set<String> previousKeys = chapterKeys(previousManifestKey);
+
+		List<Map<?, ?>> stored = new ArrayList<>();
+		List<Map<String, Object>> entries = new ArrayList<>();
+		int totalSections = 0;
+
+		for (Object chapterObj : chapters) {
+			if (!(chapterObj instanceof Map<?, ?> chapter)) {
+				continue;
+			}
+			String hash = sha256(toJson(chapter));
+
+			Map<String, Object> entry = entryOf(chapter);
+			entry.put("hash", hash);
+			entry.put("key", prefix + "/chapters/" + hash + ".json");
+			entries.add(entry);
+			stored.add(chapter);
+			totalSections += (int)entry.get("sections");
+		}
+
+		Map<String, Object> manifest = new LinkedHashMap<>();
+		manifest.put("chapterCount", entries.size());
+		manifest.put("totalSections", totalSections);
+		manifest.put("chapters", entries);
+		String manifestKey = prefix + "/manifests/" + sha256(toJson(manifest)) + ".json";
+
+		// 이전 버전 정리로 삭제 예약된 객체를 다시 쓰는 경우 먼저 예약을 취소한다 (진행 중인 삭제는 끝난 뒤 다시 저장)
+		Set<String> keys = new HashSet<>();
+		entries.forEach(entry -> keys.add((String)entry.get("key")));
+		keys.add(manifestKey);
+		s3TombstoneRepository.deleteByS3KeyIn(keys);
+
+		// 내용 해시가 같으면 이미 같은 객체가 있으므로 다시 올리지 않는다
+		Set<String> uploadedKeys = new HashSet<>();
+		for (int i = 0; i < entries.size(); i++) {
+			String chapterKey = (String)entries.get(i).get("key");
+			if (!previousKeys.contains(chapterKey) && uploadedKeys.add(chapterKey)) {
+				put(chapterKey, stored.get(i));
+			}
+		}
+		int uploaded = uploadedKeys.size();
+
+		if (!manifestKey.equals(previousManifestKey)) {
+			put(manifestKey, manifest);
+		}
+
+		log.info("✅ 챕터 분할 저장 완료: fileId={}, chapters={}, 새로 저장={}", uploadedFile.getId(), entries.size(),
+			uploaded);
+		return new StoredManifest(manifestKey, entries.size());
+	}
+
+	/**
+	 * 발행 JSON 스냅샷 저장 (에디터가 계속 고치는 작업 중인 JSON과 달리 한 번 쓰면 바뀌지 않음)
+	 * <p>
+	 * 학생 앱 JSON 응답의 envelope(materialId, materialTitle, filename, parsedAt)까지 넣어 두므로
+	 * 공유 자료 JSON 응답은 저장된 gzip 바이트를 그대로 내려보낸다. (나머지 읽는 쪽은 chapters만 봄)
+	 *
+	 * @param material:   발행 자료 (저장되어 id가 있어야 함)
+	 * @param editedJson: 발행 JSON
+	 * @return 스냅샷 S3 키 (내용 해시 키)
+	 */
+	public String storePublishedJson(Material material, Map<String, Object> editedJson) {
+		UploadedFile uploadedFile = material.getUploadedFile();
+
+		Map<String, Object> snapshot = new LinkedHashMap<>();
+		snapshot.put("materialId", material.getId());
+		snapshot.put("materialTitle", material.getTitle());
+		snapshot.put("filename", uploadedFile.getOriginalFileName());
+		snapshot.put("parsedAt", uploadedFile.getParsedAt() != null ? uploadedFile.getParsedAt() : LocalDateTime.now());
+		editedJson.forEach(snapshot::putIfAbsent);
+
+		String key = PUBLISHED_PREFIX + uploadedFile.getId() + "/" + sha256(toJson(snapshot)) + ".json";
+
+		// 정리 대상이던 같은 내용의 스냅샷이면 삭제 예약부터 취소
+		s3TombstoneRepository.deleteByS3KeyIn(Set.of(key));
+		put(key, snapshot);
+		return key;
+	}
+
+	/**
+	 * 현재 버전의 manifest 조회 (버전이 없으면 통짜 JSON으로 만든 요약)
+	 */
+	public Map<String, Object> getManifest(Material material) {
+		MaterialVersion version = material.getCurrentVersion();
+		if (version != null) {
+			return parsedJsonStore.get(version.getManifestS3Key());
+		}
+
+		UploadedFile uploadedFile = material.getUploadedFile();
+		if (uploadedFile.getJsonS3Key() == null) {
+			throw new RuntimeException("파싱된 JSON이 없습니다.");
+		}
+
+		// 요약에 필요한 필드만 읽는다 (본문/문항은 건너뜀)
+		List<Map<String, Object>> entries = new ArrayList<>();
+		boolean found = jsonProjectionReader.forEach(uploadedFile.getJsonS3Key(),
+			JsonSelector.array("chapters").fields("id", "type", "title"),
+			chapter -> entries.add(entryOf(chapter)));
+		if (!found || entries.isEmpty()) {
+			throw new CustomException(ErrorCode.INVALID_JSON_STRUCTURE);
+		}
+
+		int totalSections = entries.stream().mapToInt(entry -> (int)entry.get("sections")).sum();
+		return Map.of("chapterCount", entries.size(), "totalSections", totalSections, "chapters", entries);
+	}
+
+	/**
+	 * 현재 버전의 챕터 하나 조회 (버전이 있으면 해당 챕터 객체만 읽음)
+	 *
+	 * @param chapterId: 챕터 id
+	 * @return 챕터 JSON (수정하지 말 것, 캐시 객체일 수 있음)
+	 */
+	@SuppressWarnings("unchecked")
+	public Map<String, Object> getChapter(Material material, String chapterId) {
+		MaterialVersion version = material.getCurrentVersion();
+		if (version != null) {
+			Map<String, Object> manifest = parsedJsonStore.get(version.getManifestS3Key());
+			for (Map<String, Object> entry : (List<Map<String, Object>>)manifest.get("chapters")) {
+				if (chapterId.equals(entry.get("id"))) {
+					return parsedJsonStore.get((String)entry.get("key"));
+				}
+			}
+			throw new CustomException(ErrorCode.CONTENT_NOT_FOUND);
+		}
+
+		// 통짜 JSON은 전체를 읽지 않고 해당 챕터까지만 토큰 단위로 읽는다
+		UploadedFile uploadedFile = material.getUploadedFile();
+		if (uploadedFile.getJsonS3Key() == null) {
+			throw new RuntimeException("파싱된 JSON이 없습니다.");
+		}
+		return jsonProjectionReader.first(uploadedFile.getJsonS3Key(),
+				JsonSelector.array("chapters").where("id", chapterId))
+			.orElseThrow(() -> new CustomException(ErrorCode.CONTENT_NOT_FOUND));
+	}
+
+	/**
+	 * 챕터별 내용 해시 (챕터 객체 키와 같은 해시라 재발행 시 바뀐 챕터를 판별하는 데 사용)
+	 * <p>
+	 * 챕터 키는 id가 있고 문서 안에서 유일하면 id, 없거나 겹치면 "#순서"를 쓴다.
+	 * (id 없는 챕터끼리 "null" 하나로 합쳐지지 않도록, FastAPI가 청크 메타데이터 chapter_key에 같은 규칙으로 기록)
+	 *
+	 * @param publishedJson: 발행 JSON ({"chapters": [...]})
+	 * @return 챕터 키 → sha256 (발행 순서 유지)
+	 */
+	public Map<String, String> chapterHashes(Map<String, Object> publishedJson) {
+		Map<String, String> hashes = new LinkedHashMap<>();
+		if (!(publishedJson.get("chapters") instanceof List<?> chapters)) {
+			return hashes;
+		}
+
+		Map<String, Integer> idCounts = new HashMap<>();
+		for (Object chapterObj : chapters) {
+			if (chapterObj instanceof Map<?, ?> chapter && chapter.get("id") != null) {
+				idCounts.merge(String.valueOf(chapter.get("id")), 1, Integer::sum);
+			}
+		}
+
+		for (int i = 0; i < chapters.size(); i++) {
+			if (chapters.get(i) instanceof Map<?, ?> chapter) {
+				Object id = chapter.get("id");
+				String key = id != null && idCounts.get(String.valueOf(id)) == 1 ? String.valueOf(id) : "#" + i;
+				hashes.put(key, sha256(toJson(chapter)));
+			}
+		}
+		return hashes;
+	}
+
+	/**
+	 * 버전이 가리키는 객체 전체 키 (manifest, 챕터 객체, 발행 JSON 스냅샷, 읽기용 TXT, 개념 Check 항목)
+	 */
+	public Set<String> keysOf(List<MaterialVersion> versions) {
+		Set<String> keys = new HashSet<>();
+		for (MaterialVersion version : versions) {
+			keys.addAll(chapterKeys(version.getManifestS3Key()));
+			keys.add(version.getManifestS3Key());
+			keys.addAll(TtsTextService.keysOf(version.getTtsTextS3Key()));
+			if (version.getJsonS3Key() != null) {
+				keys.add(version.getJsonS3Key());
+			}
+			if (version.getConceptCheckItemsS3Key() != null) {
+				keys.add(version.getConceptCheckItemsS3Key());
+			}
+		}
+		return keys;
+	}
+
+	/**
+	 * 파일의 자료에 남아 있는 모든 버전과 작업 중인 JSON 기준 산출물이 가리키는 객체 (지연 삭제 직전 확인용, 삭제된 자료면 빈 집합)
+	 */
+	public Set<String> referencedKeys(Long uploadedFileId) {
+		Set<String> keys = new HashSet<>();
+		materialRepository.findByUploadedFileIdAndDeletedAtIsNull(uploadedFileId).ifPresent(material -> {
+			keys.addAll(keysOf(materialVersionRepository.findByMaterialIdOrderByVersionNoDesc(material.getId())));
+			uploadedFileRepository.findById(uploadedFileId).ifPresent(file -> {
+				keys.addAll(TtsTextService.keysOf(file.getTtsTextS3Key()));
+				if (file.getConceptCheckItemsS3Key() != null) {
+					keys.add(file.getConceptCheckItemsS3Key());
+				}
+			});
+		});
+		return keys;
+	}
+
+	/**
+	 * 버전 객체 키의 파일 ID ("material-shards/{fileId}/...", "published-json/{fileId}/...", "tts-text/{fileId}/...",
+	 * "concept-check-json/{fileId}/...", 아니면 null)
+	 */
+	public static Long fileIdOf(String s3Key) {
+		String[] parts = s3Key.split("/", 3);
+		if (parts.length < 3) {
+			return null;
+		}
+		try {
+			return Long.valueOf(parts[1]);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	// ===== 내부 =====
+
+	@SuppressWarnings("unchecked")
+	private Set<String> chapterKeys(String manifestKey) {
+		Set<String> keys = new HashSet<>();
+		if (manifestKey == null) {
+			return keys;
+		}
+		try {
+			Map<String, Object> manifest = parsedJsonStore.get(manifestKey);
+			for (Map<String, Object> entry : (List<Map<String, Object>>)manifest.get("chapters")) {
+				keys.add((String)entry.get("key"));
+			}
+		} catch (Exception e) {
+			log.warn("⚠️ manifest 조회 실패: {}, {}", manifestKey, e.getMessage());
+		}
+		return keys;
+	}
+
+	/**
+	 * manifest 항목 (섹션 수: 퀴즈 챕터는 진행률에서 제외되므로 0, 나머지는 챕터당 1)
+	 */
+	private Map<String, Object> entryOf(Map<?, ?> chapter) {
+		Object type = chapter.get("type") != null ? chapter.get("type") : "content";
+
+		Map<String, Object> entry = new LinkedHashMap<>();
+		entry.put("id", String.valueOf(chapter.get("id")));
+		entry.put("type", type);
+		entry.put("title", chapter.get("title") != null ? chapter.get("title") : "");
+		entry.put("sections", "quiz".equals(type) ? 0 : 1);
+		return entry;
+	}
+
+	private void put(String key, Object value) {
+		StoredJsonCodec.Encoded encoded = storedJsonCodec.encode(value, storedJsonCodec.formatFor(key));
+		s3Client.putObject(PutObjectRequest.builder()
+			.bucket(bucketName)
+			.key(key)
+			.contentType(encoded.contentType())
+			.contentEncoding(encoded.contentEncoding())
+			.metadata(encoded.metadata(Map.of()))
+			.build(), RequestBody.fromBytes(encoded.body()));
+	}
+
+	private byte[] toJson(Object value) {
+		try {
+			return objectMapper.writeValueAsBytes(value);
+		} catch (JsonProcessingException e) {
+			throw new RuntimeException("JSON 직렬화 실패: " + e.getMessage());
+		}
+	}
+
+	private static String sha256(byte[] body) {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -1,5 +1,8 @@
 package A704.DODREAM.material.service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -7,15 +10,25 @@ import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import A704.DODREAM.file.entity.UploadedFile;
 import A704.DODREAM.file.repository.UploadedFileRepository;
+import A704.DODREAM.file.service.JsonProjectionReader;
+import A704.DODREAM.file.service.ParsedJsonStore;
+import A704.DODREAM.file.service.StoredJsonCodec;
+import A704.DODREAM.file.service.TtsTextService;
 import A704.DODREAM.global.exception.CustomException;
 import A704.DODREAM.global.exception.constant.ErrorCode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import A704.DODREAM.fcm.dto.FcmResponse;
 import A704.DODREAM.fcm.dto.FcmSendRequest;
@@ -25,6 +38,7 @@ import A704.DODREAM.material.dto.MaterialShareRequest;
 import A704.DODREAM.material.dto.MaterialShareResponse;
 import A704.DODREAM.material.entity.Material;
 import A704.DODREAM.material.entity.MaterialShare;
+import A704.DODREAM.material.entity.MaterialVersion;
 import A704.DODREAM.material.repository.MaterialRepository;
 import A704.DODREAM.material.repository.MaterialShareRepository;
 import A704.DODREAM.user.entity.Classroom;
@@ -49,6 +63,10 @@ public class MaterialShareService {
 	private final UserRepository userRepository;
 	private final ClassroomRepository classroomRepository;
 	private final UploadedFileRepository uploadedFileRepository;
+	private final MaterialShardService materialShardService;
+	private final StoredJsonCodec storedJsonCodec;
+	private final ParsedJsonStore parsedJsonStore;
+	private final TtsTextService ttsTextService;
 	private final S3Client s3Client;
 	private final ObjectMapper objectMapper;
 
@@ -243,53 +261,202 @@ public class MaterialShareService {
 			.build();
 	}
 
-	public Map<String, Object> getSharedMaterialJson(Long studentId, Long materialId) {
-		// 1. 공유 권한 확인
-		MaterialShare share = materialShareRepository.findByStudentIdAndMaterialId(studentId, materialId)
-				.orElseThrow(() -> new RuntimeException("공유받지 않은 자료입니다."));
+	/**
+	 * 공유받은 자료의 챕터 목록만 조회 (본문 없이 manifest)
+	 */
+	public Map<String, Object> getSharedMaterialManifest(Long studentId, Long materialId) {
+		Material material = getSharedMaterial(studentId, materialId);
+		Map<String, Object> manifest = materialShardService.getManifest(material);
+
+		return Map.of(
+				"materialId", materialId,
+				"materialTitle", material.getTitle(),
+				"chapterCount", manifest.get("chapterCount"),
+				"totalSections", manifest.get("totalSections"),
+				"chapters", manifest.get("chapters")
+		);
+	}
 
-		// 2. Material 조회
-		Material material = share.getMaterial();
+	/**
+	 * 공유받은 자료의 챕터 하나 조회
+	 */
+	public Map<String, Object> getSharedMaterialChapter(Long studentId, Long materialId, String chapterId) {
+		Material material = getSharedMaterial(studentId, materialId);
+		return materialShardService.getChapter(material, chapterId);
+	}
 
-		// 3. UploadedFile 조회
-		UploadedFile uploadedFile = material.getUploadedFile();
+	/**
+	 * 공유받은 자료의 읽기용 TXT 열기 (Range 요청이면 해당 범위만)
+	 */
+	public TtsTextService.TextStream openSharedTtsText(Long studentId, Long materialId, String range) {
+		Material material = getSharedMaterial(studentId, materialId);
+		return ttsTextService.open(sharedTtsTextKey(material), range);
+	}
 
-		if (uploadedFile == null) {
-			throw new RuntimeException("업로드된 파일이 없습니다.");
+	/**
+	 * 공유받은 자료의 읽기용 TXT 챕터별 바이트 범위
+	 */
+	public Map<String, Object> getSharedTtsTextChapters(Long studentId, Long materialId) {
+		Material material = getSharedMaterial(studentId, materialId);
+		return ttsTextService.getIndex(sharedTtsTextKey(material));
+	}
+
+	/**
+	 * 현재 버전의 읽기용 TXT 키 (산출물이 없는 기존 자료는 한 번 만들어 둔다)
+	 */
+	private String sharedTtsTextKey(Material material) {
+		String ttsTextKey = MaterialVersionService.ttsTextKeyOf(material);
+		if (ttsTextKey != null) {
+			return ttsTextKey;
 		}
 
-		if (uploadedFile.getJsonS3Key() == null) {
+		UploadedFile uploadedFile = material.getUploadedFile();
+		String jsonKey = MaterialVersionService.jsonKeyOf(material);
+		if (jsonKey == null) {
 			throw new RuntimeException("파싱된 JSON이 없습니다.");
 		}
+		ttsTextKey = ttsTextService.generate(uploadedFile, parsedJsonStore.getDocument(jsonKey));
+		uploadedFileRepository.updateTtsTextS3Key(uploadedFile.getId(), ttsTextKey);
+		return ttsTextKey;
+	}
 
-		// 4. S3에서 JSON 가져오기
-		try {
-			GetObjectRequest getRequest = GetObjectRequest.builder()
-					.bucket(bucketName)
-					.key(uploadedFile.getJsonS3Key())
-					.build();
+	private Material getSharedMaterial(Long studentId, Long materialId) {
+		MaterialShare share = materialShareRepository.findByStudentIdAndMaterialId(studentId, materialId)
+				.orElseThrow(() -> new RuntimeException("공유받지 않은 자료입니다."));
+
+		if (share.getMaterial().getUploadedFile() == null) {
+			throw new RuntimeException("업로드된 파일이 없습니다.");
+		}
+		return share.getMaterial();
+	}
+
+	/**
+	 * 공유 자료 JSON 응답
+	 *
+	 * @param body: 응답 본문 (If-None-Match가 맞아 304로 응답할 때는 null)
+	 * @param eTag: 발행 스냅샷 기준 약한 ETag (스냅샷이 없는 이전 자료면 null)
+	 */
+	public record SharedJson(StreamingResponseBody body, String eTag) {
+	}
 
-			ResponseInputStream<GetObjectResponse> response = s3Client.getObject(getRequest);
-			String jsonString = new String(response.readAllBytes());
+	/**
+	 * 공유받은 자료 JSON (학생 앱)
+	 * <p>
+	 * 현재 발행 버전의 스냅샷은 응답 형태(envelope + chapters) 그대로 gzip JSON으로 저장돼 있으므로
+	 * 요청마다 파싱/압축하지 않고 S3 바이트를 그대로 보낸다. (gzip을 받지 못하는 클라이언트만 압축을 풀어서 전송)
+	 * 스냅샷 키는 내용 해시라 ETag로 쓰고, 같은 버전을 다시 요청하면 S3를 읽지 않고 304로 응답한다.
+	 * 스냅샷이 없는 이전 자료는 작업 중인 JSON에서 토큰 단위로 chapters만 응답에 복사하고,
+	 * 앞뒤 envelope 필드만 JsonGenerator로 직접 쓴다.
+	 *
+	 * @param gzip:        클라이언트가 gzip을 받을 수 있으면 압축해서 전송
+	 * @param ifNoneMatch: 요청의 If-None-Match 헤더 (없으면 null)
+	 */
+	public SharedJson streamSharedMaterialJson(Long studentId, Long materialId, boolean gzip, String ifNoneMatch) {
+		Material material = getSharedMaterial(studentId, materialId);
+
+		MaterialVersion version = material.getCurrentVersion();
+		if (version != null && version.getJsonS3Key() != null) {
+			String snapshotKey = version.getJsonS3Key();
+			String eTag = "W/\"" + snapshotKey.substring(snapshotKey.lastIndexOf('/') + 1) + "\"";
+			if (ifNoneMatch != null && ifNoneMatch.contains(eTag.substring(2))) {
+				return new SharedJson(null, eTag);
+			}
+			return new SharedJson(streamSnapshot(snapshotKey, gzip), eTag);
+		}
+
+		UploadedFile uploadedFile = material.getUploadedFile();
 
-			Map<String, Object> jsonData = objectMapper.readValue(jsonString, Map.class);
+		String jsonKey = uploadedFile.getJsonS3Key();
+		if (jsonKey == null) {
+			throw new RuntimeException("파싱된 JSON이 없습니다.");
+		}
 
-			List<Map<String, Object>> chapters = (List<Map<String, Object>>) jsonData.get("chapters");
+		// 스트리밍은 트랜잭션 밖에서 실행되므로 envelope 값은 미리 꺼내둔다
+		String materialTitle = material.getTitle();
+		String filename = uploadedFile.getOriginalFileName();
+		LocalDateTime parsedAt = uploadedFile.getParsedAt() != null ? uploadedFile.getParsedAt() : LocalDateTime.now();
 
-			if (chapters == null) {
+		// chapters 위치까지 먼저 읽어서 구조 오류는 응답 전에 예외로 처리
+		ResponseInputStream<GetObjectResponse> object = s3Client.getObject(GetObjectRequest.builder()
+				.bucket(bucketName)
+				.key(jsonKey)
+				.build());
+		JsonParser parser;
+		try {
+			parser = storedJsonCodec.openParser(object);
+			if (!JsonProjectionReader.seekArray(parser, List.of("chapters"))) {
 				throw new CustomException(ErrorCode.INVALID_JSON_STRUCTURE);
 			}
+		} catch (IOException e) {
+			closeQuietly(object);
+			throw new RuntimeException("JSON 조회 실패: " + e.getMessage());
+		} catch (RuntimeException e) {
+			closeQuietly(object);
+			throw e;
+		}
+
+		StreamingResponseBody body = out -> {
+			OutputStream target = gzip ? new GZIPOutputStream(out, 8192) : out;
+			try (parser; object) {
+				JsonGenerator generator = objectMapper.getFactory().createGenerator(target);
+				generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+				generator.writeStartObject();
+				generator.writeObjectField("materialId", materialId);
+				generator.writeObjectField("materialTitle", materialTitle);
+				generator.writeObjectField("filename", filename);
+				generator.writeObjectField("parsedAt", parsedAt);
+				generator.writeFieldName("chapters");
+				generator.copyCurrentStructure(parser);
+				generator.writeEndObject();
+				generator.close();
+
+				if (target instanceof GZIPOutputStream gzipOut) {
+					gzipOut.finish();
+				}
+			}
+		};
+		return new SharedJson(body, null);
+	}
 
-			return Map.of(
-					"materialId", materialId,
-					"materialTitle", material.getTitle(),
-					"filename", uploadedFile.getOriginalFileName(),
-					"parsedAt", uploadedFile.getParsedAt() != null ? uploadedFile.getParsedAt() : LocalDateTime.now(),
-					"chapters", chapters
-			);
+	/**
+	 * 발행 스냅샷 전송 (JSON_GZIP이면 저장된 바이트 그대로, 다른 형식이면 JSON으로 옮겨 씀)
+	 */
+	private StreamingResponseBody streamSnapshot(String snapshotKey, boolean gzip) {
+		ResponseInputStream<GetObjectResponse> object = s3Client.getObject(GetObjectRequest.builder()
+				.bucket(bucketName)
+				.key(snapshotKey)
+				.build());
+		boolean storedAsGzipJson = "gzip".equals(object.response().contentEncoding());
+
+		return out -> {
+			try (object) {
+				if (storedAsGzipJson) {
+					InputStream source = gzip ? object : new GZIPInputStream(object, 8192);
+					source.transferTo(out);
+					return;
+				}
 
-		} catch (Exception e) {
-			throw new RuntimeException("JSON 조회 실패: " + e.getMessage());
+				OutputStream target = gzip ? new GZIPOutputStream(out, 8192) : out;
+				try (JsonParser parser = storedJsonCodec.openParser(object)) {
+					JsonGenerator generator = objectMapper.getFactory().createGenerator(target);
+					generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+					parser.nextToken();
+					generator.copyCurrentStructure(parser);
+					generator.close();
+				}
+				if (target instanceof GZIPOutputStream gzipOut) {
+					gzipOut.finish();
+				}
+			}
+		};
+	}
+
+	private void closeQuietly(ResponseInputStream<GetObjectResponse> object) {
+		try {
+			object.close();
+		} catch (IOException ignored) {
+			// 응답 전 실패 정리
 		}
 	}
 
@@ -0,0 +1,202 @@
+package A704.DODREAM.material.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import A704.DODREAM.file.enums.JobType;
+import A704.DODREAM.file.service.DocumentJobService;
+import A704.DODREAM.file.service.S3GarbageCollector;
+import A704.DODREAM.global.exception.CustomException;
+import A704.DODREAM.global.exception.constant.ErrorCode;
+import A704.DODREAM.material.dto.MaterialVersionResponse;
+import A704.DODREAM.material.entity.Material;
+import A704.DODREAM.material.entity.MaterialVersion;
+import A704.DODREAM.material.repository.MaterialRepository;
+import A704.DODREAM.material.repository.MaterialVersionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 자료 발행 버전 관리
+ * <p>
+ * 챕터 분할 저장이 끝나면 버전을 만들고 현재 버전 포인터를 옮긴다. 롤백도 포인터만 옮기므로 S3 쓰기가 없다.
+ * 읽는 쪽은 항상 완성된 버전 하나만 보므로 재발행 중에도 반쯤 바뀐 상태가 보이지 않는다.
+ * (챕터, 통짜 JSON, 읽기용 TXT, 개념 Check 항목 모두 버전 기준. 임베딩은 롤백할 때 해당 버전 JSON으로 다시 맞춘다)
+ * 최근 버전 몇 개(와 현재 버전)만 남기고, 나머지 버전의 객체는 이전 manifest를 읽는 중인 요청을 위해 일정 시간 뒤에 지운다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MaterialVersionService {
+
+	private final MaterialRepository materialRepository;
+	private final MaterialVersionRepository materialVersionRepository;
+	private final MaterialShardService materialShardService;
+	private final S3GarbageCollector s3GarbageCollector;
+	private final DocumentJobService documentJobService;
+
+	@Value("${publish.version.retain:20}")
+	private int retainCount;
+
+	@Value("${publish.version.prune-delay-minutes:60}")
+	private long pruneDelayMinutes;
+
+	/**
+	 * 현재 버전의 manifest 키 (버전이 없으면 null)
+	 */
+	@Transactional(readOnly = true)
+	public String currentManifestKey(Long materialId) {
+		Material material = findMaterial(materialId);
+		return material.getCurrentVersion() != null ? material.getCurrentVersion().getManifestS3Key() : null;
+	}
+
+	/**
+	 * 저장된 manifest로 버전을 만들고 현재 버전으로 전환 (같은 manifest의 버전이 있으면 재사용)
+	 *
+	 * @param jsonS3Key:              발행 JSON 스냅샷
+	 * @param ttsTextS3Key:           읽기용 TXT
+	 * @param conceptCheckItemsS3Key: 개념 Check 항목
+	 */
+	@Transactional
+	public MaterialVersion activate(Long materialId, MaterialShardService.StoredManifest manifest, String jsonS3Key,
+		String ttsTextS3Key, String conceptCheckItemsS3Key, Long publishedBy) {
+		Material material = findMaterial(materialId);
+
+		MaterialVersion version = materialVersionRepository
+			.findByMaterialIdAndManifestS3Key(materialId, manifest.manifestKey())
+			.orElseGet(() -> materialVersionRepository.save(MaterialVersion.builder()
+				.material(material)
+				.versionNo(materialVersionRepository.findTopByMaterialIdOrderByVersionNoDesc(materialId)
+					.map(latest -> latest.getVersionNo() + 1)
+					.orElse(1))
+				.manifestS3Key(manifest.manifestKey())
+				.chapterCount(manifest.chapterCount())
+				.jsonS3Key(jsonS3Key)
+				.ttsTextS3Key(ttsTextS3Key)
+				.conceptCheckItemsS3Key(conceptCheckItemsS3Key)
+				.publishedBy(publishedBy)
+				.build()));
+		version.fillSnapshotKeys(jsonS3Key, conceptCheckItemsS3Key);
+
+		materialRepository.updateCurrentVersion(materialId, version);
+		log.info("✅ 자료 버전 전환: materialId={}, version={} (id={})", materialId, version.getVersionNo(),
+			version.getId());
+
+		prune(material, version);
+		return version;
+	}
+
+	/**
+	 * 보존 개수를 넘은 오래된 버전 정리 (행은 바로 지우고, 다른 버전이 쓰지 않는 객체만 지연 삭제 예약)
+	 */
+	private void prune(Material material, MaterialVersion current) {
+		List<MaterialVersion> pruned = materialVersionRepository
+			.findByMaterialIdOrderByVersionNoDesc(material.getId()).stream()
+			.skip(retainCount)
+			.filter(version -> !version.getId().equals(current.getId()))
+			.toList();
+		if (pruned.isEmpty()) {
+			return;
+		}
+
+		Set<String> keys = materialShardService.keysOf(pruned);
+		materialVersionRepository.deleteAllInBatch(pruned);
+		keys.removeAll(materialShardService.referencedKeys(material.getUploadedFile().getId()));
+
+		s3GarbageCollector.tombstone(keys, S3GarbageCollector.REASON_VERSION_PRUNED,
+			Duration.ofMinutes(pruneDelayMinutes));
+		log.info("🧹 오래된 자료 버전 정리: materialId={}, versions={}, objects={}", material.getId(), pruned.size(),
+			keys.size());
+	}
+
+	/**
+	 * 현재 버전의 읽기용 TXT 키 (버전이 없으면 작업 중인 JSON 기준 TXT)
+	 */
+	public static String ttsTextKeyOf(Material material) {
+		MaterialVersion version = material.getCurrentVersion();
+		if (version != null && version.getTtsTextS3Key() != null) {
+			return version.getTtsTextS3Key();
+		}
+		return material.getUploadedFile().getTtsTextS3Key();
+	}
+
+	/**
+	 * 현재 버전의 발행 JSON 키 (스냅샷이 없는 자료는 작업 중인 JSON)
+	 */
+	public static String jsonKeyOf(Material material) {
+		MaterialVersion version = material.getCurrentVersion();
+		if (version != null && version.getJsonS3Key() != null) {
+			return version.getJsonS3Key();
+		}
+		return material.getUploadedFile().getJsonS3Key();
+	}
+
+	/**
+	 * 버전 목록 (최신순)
+	 */
+	@Transactional(readOnly = true)
+	public List<MaterialVersionResponse> getVersions(Long materialId, Long teacherId) {
+		Material material = findOwnedMaterial(materialId, teacherId);
+		Long currentVersionId = material.getCurrentVersion() != null ? material.getCurrentVersion().getId() : null;
+
+		return materialVersionRepository.findByMaterialIdOrderByVersionNoDesc(materialId).stream()
+			.map(version -> MaterialVersionResponse.of(version, currentVersionId))
+			.toList();
+	}
+
+	/**
+	 * 이전 버전으로 롤백 (현재 버전 포인터만 변경, 임베딩은 해당 버전 JSON 기준으로 다시 맞추는 작업 등록)
+	 * 발행 순번을 올리므로 롤백 전에 등록된 발행 후처리 작업이 늦게 끝나도 롤백한 버전을 덮어쓰지 않는다.
+	 */
+	@Transactional
+	public MaterialVersionResponse rollback(Long materialId, Long teacherId, Long versionId,
+		String authorizationHeader) {
+		Material material = materialRepository.findOwnedForUpdate(materialId, teacherId)
+			.orElseThrow(() -> new CustomException(ErrorCode.FORBIDDEN));
+
+		MaterialVersion version = materialVersionRepository.findByIdAndMaterialId(versionId, materialId)
+			.orElseThrow(() -> new CustomException(ErrorCode.MATERIAL_VERSION_NOT_FOUND));
+
+		// 잠근 엔티티를 직접 바꾼다 (벌크 업데이트 후 같은 엔티티를 flush하면 이전 포인터로 덮어쓰므로)
+		long publishSeq = material.nextPublishSeq();
+		material.setCurrentVersion(version);
+		log.info("↩️ 자료 버전 롤백: materialId={}, version={}", materialId, version.getVersionNo());
+
+		if (version.getJsonS3Key() == null || authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
+			log.warn("⚠️ 롤백한 버전의 JSON 스냅샷 또는 JWT 토큰이 없어 임베딩을 다시 맞추지 않습니다: materialId={}, version={}",
+				materialId, version.getVersionNo());
+		} else {
+			documentJobService.enqueue(JobType.EMBEDDING_CREATE, material.getUploadedFile().getId(), teacherId,
+				authorizationHeader, Map.of(
+					"materialId", materialId,
+					"jsonS3Key", version.getJsonS3Key(),
+					"publishSeq", publishSeq
+				), "embedding:" + materialId + ":" + publishSeq);
+		}
+		return MaterialVersionResponse.of(version, version.getId());
+	}
+
+	/**
+	 * 자료의 모든 버전 (삭제 시 객체 정리용)
+	 */
+	@Transactional(readOnly = true)
+	public List<MaterialVersion> getAllVersions(Long materialId) {
+		return materialVersionRepository.findByMaterialIdOrderByVersionNoDesc(materialId);
+	}
+
+	private Material findMaterial(Long materialId) {
+		return materialRepository.findById(materialId)
+			.orElseThrow(() -> new CustomException(ErrorCode.MATERIAL_NOT_FOUND));
+	}
+
+	private Material findOwnedMaterial(Long materialId, Long teacherId) {
+		return materialRepository.findByIdAndTeacherIdAndDeletedAtIsNull(materialId, teacherId)
+			.orElseThrow(() -> new CustomException(ErrorCode.FORBIDDEN));
+	}
+}
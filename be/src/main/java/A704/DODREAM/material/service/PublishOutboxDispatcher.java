@@ -0,0 +1,528 @@
+package A704.DODREAM.material.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import A704.DODREAM.file.dto.MaterialDocument;
+import A704.DODREAM.file.entity.DocumentJob;
+import A704.DODREAM.file.entity.UploadedFile;
+import A704.DODREAM.file.repository.UploadedFileRepository;
+import A704.DODREAM.file.service.CloudFrontService;
+import A704.DODREAM.file.service.ConceptCheckService;
+import A704.DODREAM.file.service.DocumentJobService;
+import A704.DODREAM.file.service.JsonProjectionReader;
+import A704.DODREAM.file.service.JsonSelector;
+import A704.DODREAM.file.service.ParsedJsonStore;
+import A704.DODREAM.file.service.S3GarbageCollector;
+import A704.DODREAM.file.service.StoredJsonCodec;
+import A704.DODREAM.file.service.TtsTextService;
+import A704.DODREAM.global.exception.JobDeferredException;
+import A704.DODREAM.material.entity.Material;
+import A704.DODREAM.material.repository.MaterialRepository;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+/**
+ * 자료 발행 후처리 (outbox 작업 실행)
+ * <p>
+ * 발행 트랜잭션은 발행 JSON 스냅샷 저장 + Material/퀴즈 DB + 후처리 작업 등록까지만 하고,
+ * 작업 중인 JSON 반영 / 챕터 분할 저장(+ 읽기용 TXT) / quiz JSON 저장 / 임베딩 생성은
+ * {@link A704.DODREAM.file.service.DocumentJobWorker}가 이 클래스를 통해 재시도(지수 백오프)와 함께 실행한다.
+ * <p>
+ * 발행 후처리 작업은 작업에 기록된 발행 JSON 스냅샷을 읽어 처리하므로 몇 번 실행돼도 결과가 같고,
+ * 실행 전에 에디터가 작업 중인 JSON을 고쳐도 영향을 받지 않는다.
+ * 임베딩 요청은 노드당 동시 호출 수를 제한하고, 자리가 없으면 작업을 잠시 미룬다.
+ * 재발행 시에는 마지막으로 임베딩한 버전의 챕터 해시와 비교해 추가/변경/삭제된 챕터만 delta 엔드포인트로 보내고,
+ * 챕터 해시는 FastAPI의 Celery 작업이 성공한 것을 확인한 뒤에 기록한다.
+ */
+@Slf4j
+@Service
+public class PublishOutboxDispatcher {
+
+	private static final JsonSelector QUIZ_CHAPTERS = JsonSelector.array("chapters").where("type", "quiz");
+	private static final String EMBEDDING_TASK_ID = "embeddingTaskId"; // 제출한 Celery 작업 ID (작업 파라미터에 기록)
+	private static final String HASH_KEYING = "chapter-key-v1"; // 챕터 해시 키 규칙 (유일한 id, 아니면 "#순서")
+
+	private final DocumentJobService documentJobService;
+	private final UploadedFileRepository uploadedFileRepository;
+	private final MaterialRepository materialRepository;
+	private final MaterialShardService materialShardService;
+	private final MaterialVersionService materialVersionService;
+	private final ParsedJsonStore parsedJsonStore;
+	private final JsonProjectionReader jsonProjectionReader;
+	private final StoredJsonCodec storedJsonCodec;
+	private final TtsTextService ttsTextService;
+	private final ConceptCheckService conceptCheckService;
+	private final CloudFrontService cloudFrontService;
+	private final S3GarbageCollector s3GarbageCollector;
+	private final TransactionTemplate transactionTemplate;
+	private final S3Client s3Client;
+	private final WebClient webClient;
+	private final ObjectMapper objectMapper;
+	private final Semaphore embeddingSlots;
+	private final long embeddingDeferSeconds;
+	private final long embeddingPollSeconds;
+	private final Duration embeddingTimeout;
+	private final String bucketName;
+	private final String fastApiUrl;
+
+	public PublishOutboxDispatcher(
+		DocumentJobService documentJobService,
+		UploadedFileRepository uploadedFileRepository,
+		MaterialRepository materialRepository,
+		MaterialShardService materialShardService,
+		MaterialVersionService materialVersionService,
+		ParsedJsonStore parsedJsonStore,
+		JsonProjectionReader jsonProjectionReader,
+		StoredJsonCodec storedJsonCodec,
+		TtsTextService ttsTextService,
+		ConceptCheckService conceptCheckService,
+		CloudFrontService cloudFrontService,
+		S3GarbageCollector s3GarbageCollector,
+		TransactionTemplate transactionTemplate,
+		S3Client s3Client,
+		WebClient webClient,
+		ObjectMapper objectMapper,
+		@Value("${publish.outbox.embedding-concurrency:2}") int embeddingConcurrency,
+		@Value("${publish.outbox.embedding-defer-seconds:5}") long embeddingDeferSeconds,
+		@Value("${publish.outbox.embedding-poll-seconds:15}") long embeddingPollSeconds,
+		@Value("${publish.outbox.embedding-timeout-minutes:30}") long embeddingTimeoutMinutes,
+		@Value("${aws.s3.bucket}") String bucketName,
+		@Value("${fastapi.url}") String fastApiUrl) {
+		this.documentJobService = documentJobService;
+		this.uploadedFileRepository = uploadedFileRepository;
+		this.materialRepository = materialRepository;
+		this.materialShardService = materialShardService;
+		this.materialVersionService = materialVersionService;
+		this.parsedJsonStore = parsedJsonStore;
+		this.jsonProjectionReader = jsonProjectionReader;
+		this.storedJsonCodec = storedJsonCodec;
+		this.ttsTextService = ttsTextService;
+		this.conceptCheckService = conceptCheckService;
+		this.cloudFrontService = cloudFrontService;
+		this.s3GarbageCollector = s3GarbageCollector;
+		this.transactionTemplate = transactionTemplate;
+		this.s3Client = s3Client;
+		this.webClient = webClient;
+		this.objectMapper = objectMapper;
+		this.embeddingSlots = new Semaphore(embeddingConcurrency);
+		this.embeddingDeferSeconds = embeddingDeferSeconds;
+		this.embeddingPollSeconds = embeddingPollSeconds;
+		this.embeddingTimeout = Duration.ofMinutes(embeddingTimeoutMinutes);
+		this.bucketName = bucketName;
+		this.fastApiUrl = fastApiUrl;
+	}
+
+	public void dispatch(DocumentJob job) {
+		Map<String, Object> payload = documentJobService.payloadOf(job);
+		switch (job.getType()) {
+			case PUBLISH_JSON -> publishWorkingJson(job, payload);
+			case PUBLISH_SHARDS -> publishShards(job, payload);
+			case PUBLISH_QUIZ_JSON -> publishQuizJson(job, payload);
+			case EMBEDDING_CREATE -> createEmbedding(job, payload);
+			case TTS_TEXT -> generateTtsText(job);
+			case CONCEPT_CHECK -> generateConceptCheck(job);
+			default -> throw new IllegalArgumentException("발행 후처리 작업이 아닙니다: " + job.getType());
+		}
+	}
+
+	/**
+	 * 발행한 JSON을 작업 중인 JSON 키에 반영 (발행 요청이 올려 둔 스테이징 객체를 복사)
+	 * <p>
+	 * 발행 요청과 같은 Material 행 잠금을 잡고 발행 순번을 확인한 뒤 복사하므로,
+	 * 동시 발행의 쓰기가 순번과 다르게 덮어쓰지 않고 더 최근 발행이 있으면 건너뛴다.
+	 */
+	private void publishWorkingJson(DocumentJob job, Map<String, Object> payload) {
+		UploadedFile uploadedFile = findFile(job);
+		String stagedKey = String.valueOf(payload.get("stagedJsonS3Key"));
+
+		transactionTemplate.executeWithoutResult(status -> {
+			Optional<Material> material = materialRepository.findByUploadedFileIdForUpdate(uploadedFile.getId());
+			if (material.isPresent() && !isSuperseded(job, material.get(), payload)) {
+				try {
+					s3Client.copyObject(CopyObjectRequest.builder()
+						.sourceBucket(bucketName)
+						.sourceKey(stagedKey)
+						.destinationBucket(bucketName)
+						.destinationKey(uploadedFile.getJsonS3Key())
+						.build());
+				} catch (NoSuchKeyException e) {
+					// 반영을 마치고 완료 기록 전에 재시도된 경우 (스테이징 객체는 이미 정리됨)
+					log.warn("⚠️ 스테이징 JSON이 없어 반영을 건너뜁니다: jobId={}, key={}", job.getId(), stagedKey);
+					return;
+				}
+				parsedJsonStore.invalidate(uploadedFile.getJsonS3Key());
+				log.info("✅ 작업 중인 JSON 반영 완료: fileId={}, publishSeq={}", uploadedFile.getId(),
+					payload.get("publishSeq"));
+			}
+			s3GarbageCollector.tombstone(Set.of(stagedKey), S3GarbageCollector.REASON_ORPHAN);
+		});
+	}
+
+	/**
+	 * 챕터 분할 저장 (manifest + 챕터 객체) + 읽기용 TXT·개념 Check 항목 생성 후 새 버전으로 전환
+	 */
+	private void publishShards(DocumentJob job, Map<String, Object> payload) {
+		Material material = findMaterial(payload);
+		if (isSuperseded(job, material, payload)) {
+			return;
+		}
+		UploadedFile uploadedFile = findFile(job);
+		Long materialId = material.getId();
+		String jsonKey = publishedJsonKey(uploadedFile, payload);
+		Map<String, Object> publishedJson = parsedJsonStore.get(jsonKey);
+		MaterialDocument document = parsedJsonStore.getDocument(jsonKey);
+
+		MaterialShardService.StoredManifest manifest = materialShardService.publish(uploadedFile, publishedJson,
+			materialVersionService.currentManifestKey(materialId));
+		String ttsTextKey = ttsTextService.generate(uploadedFile, document);
+		String conceptCheckItemsKey = conceptCheckService.generate(uploadedFile, document);
+		uploadedFileRepository.updateTtsTextS3Key(uploadedFile.getId(), ttsTextKey);
+		uploadedFileRepository.updateConceptCheckItemsS3Key(uploadedFile.getId(), conceptCheckItemsKey);
+
+		if (manifest != null) {
+			materialVersionService.activate(materialId, manifest, jsonKey, ttsTextKey, conceptCheckItemsKey,
+				job.getUserId());
+		}
+	}
+
+	/**
+	 * 읽기용 TXT 생성 (파싱 직후, 작업 중인 JSON 기준)
+	 */
+	private void generateTtsText(DocumentJob job) {
+		UploadedFile uploadedFile = findFile(job);
+		String ttsTextKey = ttsTextService.generate(uploadedFile,
+			parsedJsonStore.getDocument(uploadedFile.getJsonS3Key()));
+		uploadedFileRepository.updateTtsTextS3Key(uploadedFile.getId(), ttsTextKey);
+	}
+
+	/**
+	 * 개념 Check 항목 저장 (파싱 직후, 작업 중인 JSON 기준)
+	 */
+	private void generateConceptCheck(DocumentJob job) {
+		UploadedFile uploadedFile = findFile(job);
+		String itemsKey = conceptCheckService.generate(uploadedFile,
+			parsedJsonStore.getDocument(uploadedFile.getJsonS3Key()));
+		uploadedFileRepository.updateConceptCheckItemsS3Key(uploadedFile.getId(), itemsKey);
+	}
+
+	/**
+	 * type: "quiz"인 챕터만 별도 JSON으로 저장 (발행 JSON에서 quiz 챕터만 토큰 단위로 읽음)
+	 */
+	private void publishQuizJson(DocumentJob job, Map<String, Object> payload) {
+		if (isSuperseded(job, findMaterial(payload), payload)) {
+			return;
+		}
+		UploadedFile uploadedFile = findFile(job);
+
+		List<Map<String, Object>> quizChapters = new ArrayList<>();
+		jsonProjectionReader.forEach(publishedJsonKey(uploadedFile, payload), QUIZ_CHAPTERS, quizChapters::add);
+
+		if (quizChapters.isEmpty()) {
+			log.info("⚠️ Quiz 데이터가 없어서 별도 저장하지 않습니다. fileId={}", uploadedFile.getId());
+			return;
+		}
+
+		// S3 키 생성: quiz-json/{userId}/{pdfId}_quiz.json
+		String quizJsonS3Key = String.format("quiz-json/%s/%s_quiz.json", job.getUserId(), uploadedFile.getId());
+		StoredJsonCodec.Encoded encoded = storedJsonCodec.encode(Map.of("chapters", quizChapters),
+			storedJsonCodec.formatFor(quizJsonS3Key));
+
+		s3Client.putObject(PutObjectRequest.builder()
+				.bucket(bucketName)
+				.key(quizJsonS3Key)
+				.contentType(encoded.contentType())
+				.contentEncoding(encoded.contentEncoding())
+				.metadata(encoded.metadata(Map.of(
+					"original-pdf", uploadedFile.getS3Key(),
+					"published-at", LocalDateTime.now().toString(),
+					"owner", job.getUserId().toString(),
+					"type", "quiz-only"
+				)))
+				.build(),
+			RequestBody.fromBytes(encoded.body()));
+		parsedJsonStore.invalidate(quizJsonS3Key);
+
+		uploadedFileRepository.updateQuestionJsonS3Key(uploadedFile.getId(), quizJsonS3Key);
+		log.info("✅ Quiz 데이터 S3 저장 완료 [S3 Key: {}]", quizJsonS3Key);
+	}
+
+	/**
+	 * FastAPI 임베딩 생성 요청 (Idempotency-Key로 같은 발행의 중복 요청 표시)
+	 * <p>
+	 * 이전에 임베딩한 챕터 해시가 없으면 전체 생성, 있으면 바뀐 챕터만 delta 요청.
+	 * 비교 기준은 "마지막으로 임베딩에 성공한 버전"이라 중간 발행의 작업이 실패해도 누락 없이 따라잡는다.
+	 * FastAPI는 Celery 작업 ID만 돌려주고(202) 실제 임베딩은 나중에 끝나므로, 제출 후에는 작업을 미뤄 가며 상태를 확인하고
+	 * Celery 작업이 성공한 뒤에만 챕터 해시를 기록한다.
+	 */
+	private void createEmbedding(DocumentJob job, Map<String, Object> payload) {
+		String authorization = documentJobService.authorizationFor(job);
+		if (authorization == null) {
+			throw new RuntimeException("FastAPI 인증을 위한 JWT 토큰이 없습니다.");
+		}
+
+		if (payload.get(EMBEDDING_TASK_ID) != null) {
+			awaitEmbedding(job, payload, authorization);
+			return;
+		}
+
+		Material material = findMaterial(payload);
+		if (isSuperseded(job, material, payload)) {
+			return;
+		}
+		// 같은 자료의 이전 임베딩이 아직 FastAPI에서 처리 중이면 그 결과(챕터 해시)가 기록된 뒤에 비교한다
+		if (documentJobService.hasEarlierInFlight(job, EMBEDDING_TASK_ID)) {
+			throw new JobDeferredException("같은 자료의 이전 임베딩 작업 진행 중", embeddingPollSeconds);
+		}
+		UploadedFile uploadedFile = findFile(job);
+		Long materialId = material.getId();
+
+		String jsonKey = publishedJsonKey(uploadedFile, payload);
+		Map<String, String> currentHashes = materialShardService.chapterHashes(parsedJsonStore.get(jsonKey));
+		Map<String, String> previousHashes = readHashes(material.getEmbeddedChapterHashes());
+
+		// FastAPI가 다운로드할 수 있도록 JSON S3 Key에 대한 CloudFront URL 생성
+		String jsonCloudFrontUrl = cloudFrontService.generateSignedUrl(jsonKey);
+
+		String path;
+		Map<String, Object> body;
+		if (previousHashes == null) {
+			path = "/rag/embeddings/create";
+			body = Map.of(
+				"document_id", materialId.toString(),
+				"s3_url", jsonCloudFrontUrl
+			);
+		} else {
+			ChapterDelta delta = ChapterDelta.of(previousHashes, currentHashes);
+			if (delta.isEmpty()) {
+				log.info("ℹ️ 바뀐 챕터가 없어 임베딩을 건너뜁니다: materialId={}", materialId);
+				return;
+			}
+			path = "/rag/embeddings/delta";
+			body = Map.of(
+				"document_id", materialId.toString(),
+				"s3_url", jsonCloudFrontUrl,
+				"upserted_chapter_keys", delta.upserted(),
+				"removed_chapter_keys", delta.removed()
+			);
+			log.info("✅ 임베딩 delta 요청: materialId={}, 추가/변경={}, 삭제={}",
+				materialId, delta.upserted().size(), delta.removed().size());
+		}
+
+		// 동시 실행 한도는 FastAPI에 제출하는 동안만 잡는다 (완료 대기는 작업을 미뤄서 처리)
+		if (!embeddingSlots.tryAcquire()) {
+			throw new JobDeferredException("임베딩 요청 동시 실행 한도 초과", embeddingDeferSeconds);
+		}
+		String taskId;
+		try {
+			taskId = requestEmbedding(job, authorization, path, body);
+		} finally {
+			embeddingSlots.release();
+		}
+
+		Map<String, Object> submitted = new LinkedHashMap<>(payload);
+		submitted.put(EMBEDDING_TASK_ID, taskId);
+		submitted.put("submittedAt", System.currentTimeMillis());
+		submitted.put("targetHashes", writeHashes(currentHashes));
+		if (!documentJobService.updatePayload(job, submitted)) {
+			throw new RuntimeException("리스를 잃어 임베딩 작업 ID를 기록하지 못했습니다: taskId=" + taskId);
+		}
+		throw new JobDeferredException("임베딩 완료 대기: taskId=" + taskId, embeddingPollSeconds);
+	}
+
+	/**
+	 * 제출한 임베딩 작업 상태 확인
+	 * 성공하면 챕터 해시를 기록하고, 실패/시간 초과면 작업 ID를 지운 뒤 실패 처리해 재시도 때 다시 제출한다.
+	 */
+	private void awaitEmbedding(DocumentJob job, Map<String, Object> payload, String authorization) {
+		Long materialId = Long.valueOf(String.valueOf(payload.get("materialId")));
+		String taskId = String.valueOf(payload.get(EMBEDDING_TASK_ID));
+		String status = embeddingStatus(authorization, taskId);
+
+		switch (status) {
+			case "SUCCESS" -> {
+				materialRepository.updateEmbeddedChapterHashes(materialId, String.valueOf(payload.get("targetHashes")));
+				log.info("✅ 임베딩 완료, 챕터 해시 기록: materialId={}, taskId={}", materialId, taskId);
+			}
+			case "FAILURE", "REVOKED" -> throw resubmit(job, payload, "임베딩 작업 실패: taskId=" + taskId);
+			default -> {
+				long submittedAt = Long.parseLong(String.valueOf(payload.get("submittedAt")));
+				if (System.currentTimeMillis() - submittedAt > embeddingTimeout.toMillis()) {
+					throw resubmit(job, payload, "임베딩 작업 시간 초과: taskId=" + taskId + ", status=" + status);
+				}
+				throw new JobDeferredException("임베딩 진행 중: taskId=" + taskId + ", status=" + status,
+					embeddingPollSeconds);
+			}
+		}
+	}
+
+	/**
+	 * 제출 기록을 지우고 실패로 돌려줌 (백오프 후 재시도에서 다시 제출)
+	 */
+	private RuntimeException resubmit(DocumentJob job, Map<String, Object> payload, String reason) {
+		Map<String, Object> reset = new LinkedHashMap<>(payload);
+		reset.remove(EMBEDDING_TASK_ID);
+		reset.remove("submittedAt");
+		reset.remove("targetHashes");
+		documentJobService.updatePayload(job, reset);
+		return new RuntimeException(reason);
+	}
+
+	/**
+	 * (main.py의 root_path="/ai" 기준) FastAPI 임베딩 엔드포인트 호출
+	 *
+	 * @return Celery 작업 ID
+	 */
+	private String requestEmbedding(DocumentJob job, String authorization, String path, Map<String, Object> body) {
+		ResponseEntity<Map> fastApiResponse = webClient.post().uri(fastApiUrl + path)
+			.header("Authorization", authorization)
+			.header("Idempotency-Key", job.getIdempotencyKey())
+			.bodyValue(body)
+			.retrieve()
+			.onStatus(status -> status.is4xxClientError() || status.is5xxServerError(),
+				clientResponse -> clientResponse.bodyToMono(String.class)
+					.map(errorBody -> new RuntimeException("FastAPI 에러: " + errorBody)))
+			.toEntity(Map.class)
+			.block();
+
+		if (fastApiResponse == null || fastApiResponse.getBody() == null
+			|| fastApiResponse.getBody().get("task_id") == null) {
+			throw new RuntimeException("FastAPI 응답에 task_id가 없습니다.");
+		}
+		log.info("✅ FastAPI 임베딩 요청 성공: {} {}", path, fastApiResponse.getBody());
+		return String.valueOf(fastApiResponse.getBody().get("task_id"));
+	}
+
+	/**
+	 * Celery 임베딩 작업 상태 (PENDING, STARTED, RETRY, SUCCESS, FAILURE ...)
+	 */
+	private String embeddingStatus(String authorization, String taskId) {
+		Map<?, ?> response = webClient.get().uri(fastApiUrl + "/rag/embeddings/status/{taskId}", taskId)
+			.header("Authorization", authorization)
+			.retrieve()
+			.onStatus(status -> status.is4xxClientError() || status.is5xxServerError(),
+				clientResponse -> clientResponse.bodyToMono(String.class)
+					.map(errorBody -> new RuntimeException("FastAPI 에러: " + errorBody)))
+			.bodyToMono(Map.class)
+			.block();
+
+		if (response == null || response.get("status") == null) {
+			throw new RuntimeException("FastAPI 임베딩 상태 응답이 비어있습니다: taskId=" + taskId);
+		}
+		return String.valueOf(response.get("status"));
+	}
+
+	/**
+	 * 기록된 챕터 해시 (키 규칙이 다른 이전 형식이면 null → 전체 재생성)
+	 */
+	private Map<String, String> readHashes(String json) {
+		if (json == null || json.isBlank()) {
+			return null;
+		}
+		try {
+			JsonNode root = objectMapper.readTree(json);
+			if (!HASH_KEYING.equals(root.path("keying").asText())) {
+				log.info("ℹ️ 이전 형식의 임베딩 챕터 해시라 전체 임베딩으로 진행합니다.");
+				return null;
+			}
+			return objectMapper.convertValue(root.path("hashes"), new TypeReference<LinkedHashMap<String, String>>() {
+			});
+		} catch (JsonProcessingException | IllegalArgumentException e) {
+			// 깨진 값이면 전체 재생성으로 복구
+			log.warn("⚠️ 임베딩 챕터 해시 파싱 실패, 전체 임베딩으로 진행: {}", e.getMessage());
+			return null;
+		}
+	}
+
+	private String writeHashes(Map<String, String> hashes) {
+		try {
+			return objectMapper.writeValueAsString(Map.of("keying", HASH_KEYING, "hashes", hashes));
+		} catch (JsonProcessingException e) {
+			throw new RuntimeException("챕터 해시 직렬화 실패", e);
+		}
+	}
+
+	/**
+	 * 이전/현재 챕터 해시 비교 결과
+	 */
+	private record ChapterDelta(List<String> upserted, List<String> removed) {
+
+		static ChapterDelta of(Map<String, String> previous, Map<String, String> current) {
+			List<String> upserted = new ArrayList<>();
+			current.forEach((key, hash) -> {
+				if (!hash.equals(previous.get(key))) {
+					upserted.add(key);
+				}
+			});
+			List<String> removed = new ArrayList<>();
+			for (String key : previous.keySet()) {
+				if (!current.containsKey(key)) {
+					removed.add(key);
+				}
+			}
+			return new ChapterDelta(upserted, removed);
+		}
+
+		boolean isEmpty() {
+			return upserted.isEmpty() && removed.isEmpty();
+		}
+	}
+
+	/**
+	 * 더 최근 발행이 있으면 이 발행의 작업은 건너뜀 (재시도가 늦게 끝난 이전 발행이 최신 결과를 덮어쓰지 않도록)
+	 */
+	private boolean isSuperseded(DocumentJob job, Material material, Map<String, Object> payload) {
+		Object publishSeq = payload.get("publishSeq");
+		if (publishSeq == null || material.getPublishSeq() <= Long.parseLong(String.valueOf(publishSeq))) {
+			return false;
+		}
+		log.info("⏭️ 더 최근 발행이 있어 이전 발행 작업을 건너뜁니다: jobId={}, type={}, publishSeq={}, 최신={}",
+			job.getId(), job.getType(), publishSeq, material.getPublishSeq());
+		return true;
+	}
+
+	/**
+	 * 작업에 기록된 발행 JSON 스냅샷 (스냅샷 도입 전에 등록된 작업이면 작업 중인 JSON)
+	 */
+	private String publishedJsonKey(UploadedFile uploadedFile, Map<String, Object> payload) {
+		Object jsonS3Key = payload.get("jsonS3Key");
+		return jsonS3Key != null ? String.valueOf(jsonS3Key) : uploadedFile.getJsonS3Key();
+	}
+
+	private Material findMaterial(Map<String, Object> payload) {
+		Long materialId = Long.valueOf(String.valueOf(payload.get("materialId")));
+		return materialRepository.findById(materialId)
+			.orElseThrow(() -> new RuntimeException("Material not found: " + materialId));
+	}
+
+	private UploadedFile findFile(DocumentJob job) {
+		UploadedFile uploadedFile = uploadedFileRepository.findById(job.getUploadedFileId())
+			.orElseThrow(() -> new RuntimeException("PDF not found"));
+		if (uploadedFile.getJsonS3Key() == null) {
+			throw new RuntimeException("발행된 JSON이 없습니다.");
+		}
+		return uploadedFile;
+	}
+}
@@ -1,7 +1,11 @@
 package A704.DODREAM.material.service;
 
 import A704.DODREAM.file.enums.PostStatus;
-import A704.DODREAM.file.service.CloudFrontService;
+import A704.DODREAM.file.enums.JobType;
+import A704.DODREAM.file.service.DocumentJobService;
+import A704.DODREAM.file.service.S3GarbageCollector;
+import A704.DODREAM.file.service.StoredJsonCodec;
+import A704.DODREAM.file.service.TtsTextService;
 import A704.DODREAM.material.dto.PublishRequest;
 import A704.DODREAM.material.dto.PublishResponseDto;
 import A704.DODREAM.file.entity.UploadedFile;
@@ -10,26 +14,22 @@ import A704.DODREAM.global.exception.CustomException;
 import A704.DODREAM.global.exception.constant.ErrorCode;
 import A704.DODREAM.material.dto.PublishedMaterialListResponse;
 import A704.DODREAM.material.entity.Material;
+import A704.DODREAM.material.entity.MaterialVersion;
 import A704.DODREAM.material.enums.LabelColor;
 import A704.DODREAM.material.repository.MaterialRepository;
 import A704.DODREAM.quiz.service.QuizService;
 import A704.DODREAM.user.entity.User;
 import A704.DODREAM.user.repository.UserRepository;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
-import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
 
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 
-import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Stream;
@@ -43,16 +43,18 @@ public class PublishService {
 	private final MaterialRepository materialRepository;
 	private final UploadedFileRepository uploadedFileRepository;
 	private final S3Client s3Client;
-	private final ObjectMapper objectMapper;
-	private final WebClient webClient; // (WebClientConfig Bean으로 생성되었다고 가정)
-	private final CloudFrontService cloudFrontService; // (CloudFrontService Bean으로 생성되었다고 가정)
 	private final QuizService quizService;
+	private final MaterialShardService materialShardService;
+	private final MaterialVersionService materialVersionService;
+	private final S3GarbageCollector s3GarbageCollector;
+	private final DocumentJobService documentJobService;
+	private final StoredJsonCodec storedJsonCodec;
 
 	@Value("${aws.s3.bucket}")
 	private String bucketName;
 
-	@Value("${fastapi.url}")
-	private String fastApiUrl;
+	@Value("${aws.s3.upload-prefix:pdfs}")
+	private String uploadPrefix;
 
 	@Transactional
 	public PublishResponseDto publishJsonWithIds(
@@ -76,74 +78,14 @@ public class PublishService {
 				throw new CustomException(ErrorCode.FILE_PARSING_FAILED);
 			}
 
-			// ... (기존 S3 업로드 로직) ...
-			String jsonString = objectMapper.writerWithDefaultPrettyPrinter()
-				.writeValueAsString(publishRequest.getEditedJson());
+			// 작업 중인 JSON 키는 발행 순번 순서로 후처리 작업(PUBLISH_JSON)이 덮어쓰고 캐시도 그때 비운다.
+			// 여기서는 새 스테이징 키에만 올리므로 발행이 롤백돼도 작업 중인 JSON과 캐시는 그대로다.
+			String stagedJsonKey = stageWorkingJson(uploadedFile, userId, publishRequest.getEditedJson());
 
-			PutObjectRequest putRequest = PutObjectRequest.builder()
-				// ... (기존 PutRequest 설정) ...
-				.bucket(bucketName)
-				.key(uploadedFile.getJsonS3Key())
-				.contentType("application/json")
-				.metadata(Map.of(
-					"original-pdf", uploadedFile.getS3Key(),
-					"parsed-at", uploadedFile.getParsedAt() != null
-						? uploadedFile.getParsedAt().toString() : "",
-					"published-at", LocalDateTime.now().toString(),
-					"owner", userId.toString()
-				))
-				.build();
+			// 읽는 쪽은 후처리 작업이 새 버전으로 전환할 때까지 이전 버전을 그대로 본다
 
-			s3Client.putObject(
-				putRequest,
-				RequestBody.fromString(jsonString, StandardCharsets.UTF_8)
-			);
-
-			// --- (신규) type: "quiz"인 데이터만 필터링하여 별도 S3에 저장 ---
-			try {
-				List<Map<String, Object>> quizChapters = filterQuizChapters(publishRequest.getEditedJson());
-
-				if (!quizChapters.isEmpty()) {
-					// Quiz 데이터를 새로운 JSON 구조로 생성
-					Map<String, Object> quizJson = Map.of("chapters", quizChapters);
-					String quizJsonString = objectMapper.writerWithDefaultPrettyPrinter()
-						.writeValueAsString(quizJson);
-
-					// S3 키 생성: quiz-json/{userId}/{pdfId}_quiz.json
-					String quizJsonS3Key = String.format("quiz-json/%s/%s_quiz.json", userId, pdfId);
-
-					// S3에 Quiz JSON 저장
-					PutObjectRequest quizPutRequest = PutObjectRequest.builder()
-						.bucket(bucketName)
-						.key(quizJsonS3Key)
-						.contentType("application/json")
-						.metadata(Map.of(
-							"original-pdf", uploadedFile.getS3Key(),
-							"published-at", LocalDateTime.now().toString(),
-							"owner", userId.toString(),
-							"type", "quiz-only"
-						))
-						.build();
-
-					s3Client.putObject(
-						quizPutRequest,
-						RequestBody.fromString(quizJsonString, StandardCharsets.UTF_8)
-					);
-
-					// DB에 Quiz JSON S3 키 저장
-					uploadedFile.setQuestionJsonS3Key(quizJsonS3Key);
-
-					log.info("✅ Quiz 데이터 S3 저장 완료 [S3 Key: {}]", quizJsonS3Key);
-				} else {
-					log.info("⚠️ Quiz 데이터가 없어서 별도 저장하지 않습니다.");
-				}
-			} catch (Exception quizError) {
-				// Quiz 저장 실패는 발행 자체를 롤백하지 않음
-				log.error("❗️ Quiz 데이터 저장 실패: {}", quizError.getMessage(), quizError);
-			}
-			// --- (신규) Quiz 필터링 및 저장 종료 ---
-
-			Optional<Material> materialOpt = materialRepository.findByUploadedFileIdAndDeletedAtIsNull(uploadedFile.getId());
+			// 발행 순번을 올리므로 같은 자료의 동시 발행은 행 잠금으로 직렬화
+			Optional<Material> materialOpt = materialRepository.findByUploadedFileIdForUpdate(uploadedFile.getId());
 
 			// Material material; // (수정) 밖으로 이동
 			if(materialOpt.isPresent()){
@@ -162,10 +104,15 @@ public class PublishService {
 					.build();
 			}
 
-			// (중요) FastAPI에 document_id(Material ID)를 보내야 하므로,
-			// S3 업로드와 Material 저장을 먼저 수행합니다.
+			long publishSeq = material.nextPublishSeq();
+
+			// (중요) 임베딩 후처리 작업에 document_id(Material ID)를 넘겨야 하므로 Material을 먼저 저장합니다.
 			materialRepository.save(material);
 
+			// 후처리 작업과 학생 앱은 에디터가 계속 고치는 위 JSON이 아니라 이 발행 시점의 스냅샷을 읽는다
+			String publishedJsonKey = materialShardService.storePublishedJson(material,
+				publishRequest.getEditedJson());
+
 			log.info("✅ 자료 발행 및 Material 저장 완료 [Material ID: {}]", material.getId());
 
 			// ===============================================================
@@ -193,49 +140,11 @@ public class PublishService {
 			}
 			// ===============================================================
 
-			// --- (신규) FastAPI 임베딩 생성 API 호출 ---
-			try {
-				log.info("FastAPI 임베딩 생성을 호출합니다... (Document ID: {})", material.getId());
-
-				// 1. FastAPI가 다운로드할 수 있도록 JSON S3 Key에 대한 CloudFront URL 생성
-				String jsonCloudFrontUrl = cloudFrontService.generateSignedUrl(uploadedFile.getJsonS3Key());
-
-				// 2. FastAPI 엔드포인트 및 요청 바디 정의
-				String fastApiEndpoint = fastApiUrl + "/rag/embeddings/create"; // (main.py의 root_path="/ai" 기준)
-
-				Map<String, String> fastApiRequest = Map.of(
-					"document_id", material.getId().toString(),
-					"s3_url", jsonCloudFrontUrl
-				);
-
-				// 3. WebClient로 FastAPI 호출 (컨트롤러에서 받은 JWT 토큰 전달)
-				if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
-					throw new RuntimeException("FastAPI 인증을 위한 JWT 토큰이 없습니다.");
-				}
-
-				ResponseEntity<Map> fastApiResponse = webClient.post().uri(fastApiEndpoint)
-					.header("Authorization", authorizationHeader) // "Bearer <token>"
-					.bodyValue(fastApiRequest)
-					.retrieve()
-					.onStatus(status -> status.is4xxClientError() || status.is5xxServerError(),
-						clientResponse -> clientResponse.bodyToMono(String.class)
-							.map(errorBody -> new RuntimeException("FastAPI 에러: " + errorBody)))
-					.toEntity(Map.class)
-					.block(); // (참고) 동기식 호출입니다.
-
-				if (fastApiResponse == null || fastApiResponse.getBody() == null) {
-					throw new RuntimeException("FastAPI 응답이 비어있습니다.");
-				}
-
-				log.info("✅ FastAPI 임베딩 생성 요청 성공: {}", fastApiResponse.getBody());
-
-			} catch (Exception fastApiError) {
-				// (중요) 임베딩 실패가 '발행' 자체를 롤백해서는 안 됨.
-				// 에러를 로깅하고 관리자에게 알림을 보낼 수 있지만, 여기서는 계속 진행.
-				log.error("❗️ [WARNING] FastAPI 임베딩 생성 호출 실패: {}", fastApiError.getMessage(), fastApiError);
-				// 이 에러를 다시 throw하지 않음으로써, S3 업로드와 Material 저장은 롤백되지 않음.
-			}
-			// --- (신규) FastAPI 호출 종료 ---
+			// --- 후처리 작업 등록 (outbox) ---
+			// Material/퀴즈와 같은 트랜잭션으로 커밋되고, 워커가 재시도와 함께 실행한다.
+			// 키에 발행 순번을 넣어 발행마다 한 번씩 처리한다. (이전 내용으로 되돌린 재발행도 다시 처리)
+			enqueuePublishJobs(uploadedFile, material, userId, publishSeq, publishedJsonKey, stagedJsonKey,
+				authorizationHeader);
 		} catch (Exception e) {
 			log.error("JSON 발행 실패: pdfId={}, error={}", pdfId, e.getMessage(), e);
 			throw new RuntimeException("JSON 발행 실패: " + e.getMessage());
@@ -336,59 +245,81 @@ public class PublishService {
 
         UploadedFile uploadedFile = material.getUploadedFile();
 
+        // S3 객체는 삭제 예약만 하고 실제 삭제는 배치로 (원본 PDF 공유 여부는 삭제 직전에 다시 확인)
+        Set<String> s3Keys = new LinkedHashSet<>();
         Stream.of(
                         uploadedFile.getS3Key(),
                         uploadedFile.getJsonS3Key(),
-                        uploadedFile.getConceptCheckJsonS3Key()
+                        uploadedFile.getConceptCheckJsonS3Key(),
+                        uploadedFile.getQuestionJsonS3Key(),
+                        uploadedFile.getConceptCheckItemsS3Key()
                 )
                 .filter(Objects::nonNull)
-                .forEach(s3Key -> {
-                    try {
-                        DeleteObjectRequest deleteRequest = DeleteObjectRequest.builder()
-                                .bucket(bucketName)
-                                .key(s3Key)
-                                .build();
-                        s3Client.deleteObject(deleteRequest);
-                        log.info("S3 파일 삭제 완료: {}", s3Key);
-                    } catch (Exception e) {
-                        log.error("S3 파일 삭제 실패: {}, 에러: {}", s3Key, e.getMessage());
-                    }
-                });
+                .forEach(s3Keys::add);
+        s3Keys.addAll(TtsTextService.keysOf(uploadedFile.getTtsTextS3Key()));
+
+        List<MaterialVersion> versions = materialVersionService.getAllVersions(material.getId());
+        s3Keys.addAll(materialShardService.keysOf(versions));
+        s3GarbageCollector.tombstone(s3Keys, S3GarbageCollector.REASON_MATERIAL_DELETED);
 
         material.softDelete();
         materialRepository.save(material);
     }
 
 	/**
-	 * editedJson에서 type이 "quiz"인 chapters만 필터링하는 메서드
+	 * 발행할 작업 중인 JSON을 스테이징 키에 업로드 (작업 중인 JSON과 같은 저장 형식)
+	 * 롤백이나 작업 유실로 남은 객체는 업로드 prefix 고아 정리(S3GarbageCollector.reconcile)가 지운다.
 	 *
-	 * @param editedJson 발행 요청에서 받은 전체 JSON 데이터
-	 * @return type: "quiz"인 chapter 목록
+	 * @return 스테이징 S3 키
 	 */
-	private List<Map<String, Object>> filterQuizChapters(Map<String, Object> editedJson) {
-		List<Map<String, Object>> quizChapters = new ArrayList<>();
-
-		// editedJson에서 chapters 배열 가져오기
-		Object chaptersObj = editedJson.get("chapters");
+	private String stageWorkingJson(UploadedFile uploadedFile, Long userId, Map<String, Object> editedJson) {
+		String stagedKey = uploadPrefix + "/staging/" + UUID.randomUUID() + ".json";
+		StoredJsonCodec.Encoded encoded = storedJsonCodec.encode(editedJson,
+			storedJsonCodec.formatFor(uploadedFile.getJsonS3Key()));
 
-		if (chaptersObj == null || !(chaptersObj instanceof List)) {
-			log.warn("⚠️ editedJson에 'chapters' 배열이 없습니다.");
-			return quizChapters;
-		}
-
-		List<Map<String, Object>> chapters = (List<Map<String, Object>>) chaptersObj;
-
-		// type이 "quiz"인 항목만 필터링
-		for (Map<String, Object> chapter : chapters) {
-			Object typeObj = chapter.get("type");
+		s3Client.putObject(PutObjectRequest.builder()
+				.bucket(bucketName)
+				.key(stagedKey)
+				.contentType(encoded.contentType())
+				.contentEncoding(encoded.contentEncoding())
+				.metadata(encoded.metadata(Map.of(
+					"original-pdf", uploadedFile.getS3Key(),
+					"parsed-at", uploadedFile.getParsedAt() != null
+						? uploadedFile.getParsedAt().toString() : "",
+					"published-at", LocalDateTime.now().toString(),
+					"owner", userId.toString()
+				)))
+				.build(),
+			RequestBody.fromBytes(encoded.body()));
+		return stagedKey;
+	}
 
-			if (typeObj != null && "quiz".equals(typeObj.toString())) {
-				quizChapters.add(chapter);
-			}
+	/**
+	 * 발행 후처리 작업 등록 (작업 중인 JSON 반영, 챕터 분할 저장, quiz JSON 저장, 임베딩 생성)
+	 */
+	private void enqueuePublishJobs(UploadedFile uploadedFile, Material material, Long userId, long publishSeq,
+		String publishedJsonKey, String stagedJsonKey, String authorizationHeader) {
+		String version = material.getId() + ":" + publishSeq;
+		Map<String, Object> payload = Map.of(
+			"materialId", material.getId(),
+			"jsonS3Key", publishedJsonKey,
+			"publishSeq", publishSeq
+		);
+
+		documentJobService.enqueue(JobType.PUBLISH_JSON, uploadedFile.getId(), userId, null,
+			Map.of("materialId", material.getId(), "stagedJsonS3Key", stagedJsonKey, "publishSeq", publishSeq),
+			"publish-json:" + version);
+		documentJobService.enqueue(JobType.PUBLISH_SHARDS, uploadedFile.getId(), userId, null, payload,
+			"publish-shards:" + version);
+		documentJobService.enqueue(JobType.PUBLISH_QUIZ_JSON, uploadedFile.getId(), userId, null, payload,
+			"publish-quiz:" + version);
+
+		if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
+			log.error("❗️ [WARNING] FastAPI 인증을 위한 JWT 토큰이 없어 임베딩 생성을 등록하지 않습니다. materialId={}",
+				material.getId());
+			return;
 		}
-
-		log.info("🔍 전체 chapters: {}개, quiz type: {}개", chapters.size(), quizChapters.size());
-
-		return quizChapters;
+		documentJobService.enqueue(JobType.EMBEDDING_CREATE, uploadedFile.getId(), userId, authorizationHeader,
+			payload, "embedding:" + version);
 	}
 }
@@ -1,11 +1,16 @@
 package A704.DODREAM.report.service;
 
+import A704.DODREAM.file.dto.MaterialDocument;
+import A704.DODREAM.file.service.JsonProjectionReader;
+import A704.DODREAM.file.service.JsonSelector;
+import A704.DODREAM.file.service.ParsedJsonStore;
 import A704.DODREAM.global.exception.CustomException;
 import A704.DODREAM.global.exception.constant.ErrorCode;
 import A704.DODREAM.material.entity.Material;
 import A704.DODREAM.material.entity.MaterialShare;
 import A704.DODREAM.material.repository.MaterialRepository;
 import A704.DODREAM.material.repository.MaterialShareRepository;
+import A704.DODREAM.material.service.MaterialVersionService;
 import A704.DODREAM.progress.entity.StudentMaterialProgress;
 import A704.DODREAM.report.dto.AverageProgressResponse;
 import A704.DODREAM.report.dto.ChapterProgressDto;
@@ -14,20 +19,13 @@ import A704.DODREAM.report.dto.UpdateProgressResponse;
 import A704.DODREAM.report.repository.StudentMaterialProgressRepository;
 import A704.DODREAM.user.entity.User;
 import A704.DODREAM.user.repository.UserRepository;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import software.amazon.awssdk.core.ResponseInputStream;
-import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.GetObjectRequest;
-import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 /**
  * 학습 진행률 리포트 서비스
@@ -39,15 +37,14 @@ import java.util.Map;
 @Transactional(readOnly = true)
 public class ProgressReportService {
 
+    private static final JsonSelector CHAPTER_TYPES = JsonSelector.array("chapters").fields("type");
+
     private final StudentMaterialProgressRepository progressRepository;
     private final MaterialRepository materialRepository;
     private final MaterialShareRepository materialShareRepository;
     private final UserRepository userRepository;
-    private final S3Client s3Client;
-    private final ObjectMapper objectMapper;
-
-    @Value("${aws.s3.bucket}")
-    private String bucketName;
+    private final ParsedJsonStore parsedJsonStore;
+    private final JsonProjectionReader jsonProjectionReader;
 
     /**
      * 특정 학생의 특정 교재에 대한 진행률 리포트 조회
@@ -122,66 +119,48 @@ public class ProgressReportService {
     }
 
     /**
-     * S3에서 Material JSON 가져오기
+     * 교재 표준 모델 조회 (캐시 → S3, 기존 JSON 구조는 읽을 때 변환)
      */
-    private Map<String, Object> getMaterialJsonFromS3(Material material) {
+    private MaterialDocument getMaterialDocument(Material material) {
+        String s3Key = getMaterialDocumentKey(material);
+        try {
+            return parsedJsonStore.getDocument(s3Key);
+        } catch (CustomException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("S3에서 JSON 조회 실패: materialId={}, error={}",
+                    material.getId(), e.getMessage(), e);
+            throw new RuntimeException("JSON 조회 실패: " + e.getMessage());
+        }
+    }
+
+    private String getMaterialDocumentKey(Material material) {
         if (material.getUploadedFile() == null) {
             log.error("UploadedFile이 null입니다. materialId={}", material.getId());
             throw new CustomException(ErrorCode.FILE_PARSING_FAILED);
         }
 
-        if (material.getUploadedFile().getJsonS3Key() == null) {
+        // 현재 발행 버전의 JSON 스냅샷 (롤백하면 함께 바뀜)
+        String jsonKey = MaterialVersionService.jsonKeyOf(material);
+        if (jsonKey == null) {
             log.error("JSON S3 Key가 null입니다. materialId={}, fileId={}",
                     material.getId(), material.getUploadedFile().getId());
             throw new CustomException(ErrorCode.FILE_PARSING_FAILED);
         }
 
-        try {
-            String s3Key = material.getUploadedFile().getJsonS3Key();
-            log.info("S3에서 JSON 조회 시도: bucket={}, key={}", bucketName, s3Key);
-
-            GetObjectRequest getRequest = GetObjectRequest.builder()
-                    .bucket(bucketName)
-                    .key(s3Key)
-                    .build();
-
-            ResponseInputStream<GetObjectResponse> response = s3Client.getObject(getRequest);
-            String jsonString = new String(response.readAllBytes());
-
-            log.info("S3에서 JSON 조회 성공: materialId={}, size={} bytes",
-                    material.getId(), jsonString.length());
-
-            return objectMapper.readValue(jsonString, Map.class);
-        } catch (Exception e) {
-            log.error("S3에서 JSON 조회 실패: materialId={}, error={}",
-                    material.getId(), e.getMessage(), e);
-            throw new RuntimeException("JSON 조회 실패: " + e.getMessage());
-        }
+        return jsonKey;
     }
 
     /**
      * currentPage를 콘텐츠 페이지로 변환 (퀴즈 챕터 제외)
      * 예: 챕터 1-3(콘텐츠), 4(퀴즈), 5-6(콘텐츠) → currentPage=5 → contentPage=4
      */
-    private int convertToContentPage(List<Map<String, Object>> chapters, int currentPage) {
+    private int convertToContentPage(List<MaterialDocument.Chapter> chapters, int currentPage) {
         int quizCountBeforeCurrent = 0;
 
         // currentPage 이전에 나온 퀴즈 챕터 개수 계산
         for (int i = 0; i < Math.min(currentPage, chapters.size()); i++) {
-            Map<String, Object> chapter = chapters.get(i);
-
-            // 챕터 타입 확인
-            String chapterType;
-            if (chapter.containsKey("index")) {
-                // 이전 구조
-                List<Map<String, Object>> conceptChecks = (List<Map<String, Object>>) chapter.get("concept_checks");
-                chapterType = (conceptChecks != null && !conceptChecks.isEmpty()) ? "quiz" : "content";
-            } else {
-                // 새로운 구조
-                chapterType = (String) chapter.getOrDefault("type", "content");
-            }
-
-            if ("quiz".equals(chapterType)) {
+            if (chapters.get(i).isQuiz()) {
                 quizCountBeforeCurrent++;
             }
         }
@@ -196,10 +175,10 @@ public class ProgressReportService {
 
     /**
      * 챕터별 진행률 계산
-     * 두 가지 JSON 구조를 모두 지원
+     * 섹션 수는 표준 모델 변환 시 계산된 값 사용 (퀴즈 챕터는 0)
      */
     private List<ChapterProgressDto> calculateChapterProgress(
-            List<Map<String, Object>> chapters,
+            List<MaterialDocument.Chapter> chapters,
             StudentMaterialProgress progress) {
 
         List<ChapterProgressDto> result = new ArrayList<>();
@@ -210,33 +189,15 @@ public class ProgressReportService {
         int cumulativeSections = 0;
 
         for (int i = 0; i < chapters.size(); i++) {
-            Map<String, Object> chapter = chapters.get(i);
-
-            // 챕터 ID와 제목 추출 (두 가지 구조 지원)
-            String chapterId;
-            String chapterTitle;
-            String chapterType;
-
-            if (chapter.containsKey("index")) {
-                // 이전 구조
-                chapterId = (String) chapter.get("index");
-                chapterTitle = (String) chapter.get("index_title");
-                // concept_checks가 있으면 quiz 타입으로 간주
-                List<Map<String, Object>> conceptChecks = (List<Map<String, Object>>) chapter.get("concept_checks");
-                chapterType = (conceptChecks != null && !conceptChecks.isEmpty()) ? "quiz" : "content";
-            } else {
-                // 새로운 구조
-                chapterId = (String) chapter.get("id");
-                chapterTitle = (String) chapter.get("title");
-                chapterType = (String) chapter.getOrDefault("type", "content");
-            }
+            MaterialDocument.Chapter chapter = chapters.get(i);
+            String chapterType = chapter.isQuiz() ? "quiz" : "content";
 
             // 퀴즈 챕터는 진행률 계산에서 제외
-            if ("quiz".equals(chapterType)) {
+            if (chapter.isQuiz()) {
                 // 퀴즈 챕터는 섹션 수 0으로 설정하고 cumulativeSections에 포함하지 않음
                 result.add(ChapterProgressDto.builder()
-                        .chapterId(chapterId)
-                        .chapterTitle(chapterTitle)
+                        .chapterId(chapter.id())
+                        .chapterTitle(chapter.title())
                         .chapterType(chapterType)
                         .chapterNumber(i + 1)
                         .totalSections(0)
@@ -247,8 +208,7 @@ public class ProgressReportService {
                 continue; // 다음 챕터로
             }
 
-            // Section 수 계산 (구조에 맞게 자동 판별)
-            int totalSections = calculateSectionsFromChapter(chapter);
+            int totalSections = chapter.sections();
 
             // 현재 진행 상황에 따른 완료된 섹션 계산
             int completedSections;
@@ -281,8 +241,8 @@ public class ProgressReportService {
                     : 0.0;
 
             result.add(ChapterProgressDto.builder()
-                    .chapterId(chapterId)
-                    .chapterTitle(chapterTitle)
+                    .chapterId(chapter.id())
+                    .chapterTitle(chapter.title())
                     .chapterType(chapterType)
                     .chapterNumber(i + 1)
                     .totalSections(totalSections)
@@ -297,113 +257,6 @@ public class ProgressReportService {
         return result;
     }
 
-    /**
-     * 챕터에서 섹션 수 계산
-     * 두 가지 JSON 구조를 모두 지원:
-     * 1. 이전 구조: titles, s_titles, ss_titles, concept_checks
-     * 2. 새로운 구조: 단순 chapters 배열 (각 chapter = 1 섹션)
-     */
-    private int calculateSectionsFromChapter(Map<String, Object> chapter) {
-        // 구조 판별: "index" 키가 있으면 이전 구조, "id" 키가 있으면 새로운 구조
-        if (chapter.containsKey("index") && chapter.containsKey("index_title")) {
-            // 이전 구조 (parsedData.data)
-            return calculateSectionsFromOldStructure(chapter);
-        } else if (chapter.containsKey("id") && chapter.containsKey("title")) {
-            // 새로운 구조 (chapters)
-            return calculateSectionsFromNewStructure(chapter);
-        } else {
-            log.warn("알 수 없는 챕터 구조: keys={}", chapter.keySet());
-            return 1; // 최소 1 섹션
-        }
-    }
-
-    /**
-     * 이전 JSON 구조에서 섹션 수 계산
-     * titles, s_titles, ss_titles, concept_checks를 모두 카운팅
-     */
-    private int calculateSectionsFromOldStructure(Map<String, Object> chapter) {
-        int sectionCount = 0;
-
-        String chapterId = (String) chapter.get("index");
-        String chapterTitle = (String) chapter.get("index_title");
-
-        // 1. titles 배열 처리
-        List<Map<String, Object>> titles = (List<Map<String, Object>>) chapter.get("titles");
-        if (titles != null) {
-            log.debug("챕터 [{}] titles 개수: {}", chapterId, titles.size());
-
-            for (int i = 0; i < titles.size(); i++) {
-                Map<String, Object> title = titles.get(i);
-                int titleSections = 0;
-
-                // title 자체도 하나의 섹션
-                sectionCount++;
-                titleSections++;
-
-                // s_titles 배열 처리
-                List<Map<String, Object>> sTitles = (List<Map<String, Object>>) title.get("s_titles");
-                if (sTitles != null) {
-                    for (Map<String, Object> sTitle : sTitles) {
-                        // s_title도 하나의 섹션
-                        sectionCount++;
-                        titleSections++;
-
-                        // ss_titles 배열 처리
-                        List<Map<String, Object>> ssTitles = (List<Map<String, Object>>) sTitle.get("ss_titles");
-                        if (ssTitles != null) {
-                            // 각 ss_title도 하나의 섹션
-                            sectionCount += ssTitles.size();
-                            titleSections += ssTitles.size();
-                        }
-                    }
-                }
-
-                log.debug("  - title[{}]: {} → {} 섹션", i, title.get("title"), titleSections);
-            }
-        }
-
-        // 2. concept_checks 배열 처리 (퀴즈는 진행률에서 제외)
-        List<Map<String, Object>> conceptChecks = (List<Map<String, Object>>) chapter.get("concept_checks");
-        boolean hasConceptChecks = conceptChecks != null && !conceptChecks.isEmpty();
-        if (hasConceptChecks) {
-            log.debug("챕터 [{}] concept_checks 개수: {} (진행률 계산에서 제외)", chapterId, conceptChecks.size());
-            // 퀴즈는 진행률 계산에서 제외하므로 카운팅하지 않음
-            // sectionCount += conceptChecks.size();
-        }
-
-        // 퀴즈만 있고 콘텐츠가 없는 챕터는 0 섹션 반환
-        if (sectionCount == 0 && hasConceptChecks) {
-            log.info("챕터 [{}] {} - 0 섹션 (퀴즈 전용 챕터, 진행률 제외)", chapterId, chapterTitle);
-            return 0;
-        }
-
-        log.info("챕터 [{}] {} - 총 {} 섹션 (이전 구조)", chapterId, chapterTitle, sectionCount);
-
-        // 콘텐츠가 있는 경우 최소 1개 섹션 보장
-        return Math.max(1, sectionCount);
-    }
-
-    /**
-     * 새로운 JSON 구조에서 섹션 수 계산
-     * 각 chapter가 1개의 섹션 (퀴즈는 제외)
-     */
-    private int calculateSectionsFromNewStructure(Map<String, Object> chapter) {
-        String chapterId = (String) chapter.get("id");
-        String chapterTitle = (String) chapter.get("title");
-        String chapterType = (String) chapter.get("type");
-
-        // 퀴즈 챕터는 진행률 계산에서 제외
-        if ("quiz".equals(chapterType)) {
-            log.info("챕터 [{}] {} (type: quiz) - 0 섹션 (퀴즈 제외)", chapterId, chapterTitle);
-            return 0;
-        }
-
-        log.info("챕터 [{}] {} (type: {}) - 1 섹션 (새로운 구조)", chapterId, chapterTitle, chapterType);
-
-        // 새로운 구조에서는 각 chapter가 1개의 섹션
-        return 1;
-    }
-
     /**
      * 학습 진행률 업데이트
      */
@@ -483,55 +336,26 @@ public class ProgressReportService {
     }
 
     /**
-     * JSON에서 chapters 추출 (3가지 패턴 모두 지원)
-     * 패턴 1: parsedData.data (이전 구조)
-     * 패턴 2: data (이전 구조)
-     * 패턴 3: chapters (새로운 구조 - EC2)
+     * 총 섹션 수 계산 (퀴즈 제외)
+     * 발행된 자료는 챕터 type만 토큰 단위로 읽고, 파싱 결과 구조는 표준 모델의 섹션 수를 사용
      */
-    private List<Map<String, Object>> extractChapters(Map<String, Object> jsonData) {
-        log.info("=== extractChapters 시작 ===");
-        log.info("JSON 최상위 keys: {}", jsonData.keySet());
-
-        // 패턴 1: parsedData.data 구조 (이전)
-        Map<String, Object> parsedData = (Map<String, Object>) jsonData.get("parsedData");
-        if (parsedData != null) {
-            log.info("패턴 1 시도: parsedData 존재, keys: {}", parsedData.keySet());
-            List<Map<String, Object>> chapters = (List<Map<String, Object>>) parsedData.get("data");
-            if (chapters != null) {
-                log.info("✅ 패턴 1 성공: parsedData.data에서 {} 개의 챕터 발견", chapters.size());
-                return chapters;
-            }
-        }
-
-        // 패턴 2: 직접 data 구조 (이전)
-        List<Map<String, Object>> chapters = (List<Map<String, Object>>) jsonData.get("data");
-        if (chapters != null) {
-            log.info("✅ 패턴 2 성공: data에서 {} 개의 챕터 발견", chapters.size());
-            return chapters;
-        }
+    private int calculateTotalSections(Material material) {
+        String s3Key = getMaterialDocumentKey(material);
 
-        // 패턴 3: 직접 chapters 구조 (새로운 - EC2)
-        chapters = (List<Map<String, Object>>) jsonData.get("chapters");
-        if (chapters != null) {
-            log.info("✅ 패턴 3 성공: chapters에서 {} 개의 챕터 발견 (새로운 JSON 구조)", chapters.size());
-            return chapters;
+        int[] total = {0};
+        boolean published = jsonProjectionReader.forEach(s3Key, CHAPTER_TYPES, chapter -> {
+            if (!"quiz".equals(chapter.get("type"))) {
+                total[0]++;
+            }
+        });
+        if (!published) {
+            total[0] = getMaterialDocument(material).chapters().stream()
+                    .mapToInt(MaterialDocument.Chapter::sections)
+                    .sum();
         }
 
-        log.error("❌ 모든 패턴 실패: chapters를 찾을 수 없습니다.");
-        throw new CustomException(ErrorCode.INVALID_JSON_STRUCTURE);
-    }
-
-    /**
-     * 총 섹션 수 계산 (퀴즈 제외)
-     */
-    private int calculateTotalSections(List<Map<String, Object>> chapters) {
-        int total = 0;
-        for (Map<String, Object> chapter : chapters) {
-            // calculateSectionsFromChapter가 퀴즈일 경우 0을 반환하도록 되어 있음
-            total += calculateSectionsFromChapter(chapter);
-        }
-        log.info("전체 섹션 수 계산 완료: {} 섹션 (퀴즈 제외)", total);
-        return total;
+        log.info("전체 섹션 수 계산 완료: {} 섹션 (퀴즈 제외)", total[0]);
+        return total[0];
     }
 
     /**
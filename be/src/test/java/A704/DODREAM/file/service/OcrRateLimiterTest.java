@@ -0,0 +1,101 @@
+package A704.DODREAM.file.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Mono;
+
+class OcrRateLimiterTest {
+
+	private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private long now = 1_000 * MS;
+
+	@Test
+	void burstIsGrantedWithoutWaiting() {
+		OcrRateLimiter limiter = new OcrRateLimiter(5, 3, () -> now);
+
+		assertEquals(0, limiter.reserve());
+		assertEquals(0, limiter.reserve());
+		assertEquals(0, limiter.reserve());
+		assertEquals(200 * MS, limiter.reserve());
+	}
+
+	@Test
+	void concurrentWaitersAreSpacedInReservationOrder() {
+		OcrRateLimiter limiter = new OcrRateLimiter(5, 1, () -> now);
+
+		assertEquals(0, limiter.reserve());
+		// 같은 순간에 몰려도 앞 예약이 빚을 남겨 간격이 벌어진다
+		assertEquals(200 * MS, limiter.reserve());
+		assertEquals(400 * MS, limiter.reserve());
+		assertEquals(600 * MS, limiter.reserve());
+	}
+
+	@Test
+	void tokensRefillAtConfiguredRate() {
+		OcrRateLimiter limiter = new OcrRateLimiter(5, 3, () -> now);
+		drain(limiter, 3);
+
+		now += 400 * MS;
+
+		assertEquals(0, limiter.reserve());
+		assertEquals(0, limiter.reserve());
+		assertEquals(200 * MS, limiter.reserve());
+	}
+
+	@Test
+	void idleTimeRefillsOnlyUpToBurst() {
+		OcrRateLimiter limiter = new OcrRateLimiter(5, 2, () -> now);
+		drain(limiter, 2);
+
+		now += 10_000 * MS;
+
+		assertEquals(0, limiter.reserve());
+		assertEquals(0, limiter.reserve());
+		assertEquals(200 * MS, limiter.reserve());
+	}
+
+	@Test
+	void debtIsRepaidBeforeNewTokensAreGranted() {
+		OcrRateLimiter limiter = new OcrRateLimiter(5, 1, () -> now);
+		drain(limiter, 3); // 토큰 -2 (400ms 빚)
+
+		now += 200 * MS;
+
+		assertEquals(400 * MS, limiter.reserve());
+		now += 600 * MS;
+		assertEquals(0, limiter.reserve());
+	}
+
+	@Test
+	void burstBelowOneIsClampedToOne() {
+		OcrRateLimiter limiter = new OcrRateLimiter(2, 0, () -> now);
+
+		assertEquals(0, limiter.reserve());
+		assertEquals(500 * MS, limiter.reserve());
+	}
+
+	@Test
+	void acquireReservesOnlyWhenSubscribed() {
+		OcrRateLimiter limiter = new OcrRateLimiter(1000, 1, () -> now);
+
+		Mono<Void> first = limiter.acquire();
+		Mono<Void> second = limiter.acquire();
+
+		first.block();
+		// second는 아직 구독 전이라 예약하지 않음 → 여기서 1ms 빚
+		assertEquals(MS, limiter.reserve());
+		second.block();
+		assertEquals(3 * MS, limiter.reserve());
+	}
+
+	private static void drain(OcrRateLimiter limiter, int count) {
+		for (int i = 0; i < count; i++) {
+			limiter.reserve();
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package A704.DODREAM.file.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import A704.DODREAM.file.dto.PageOcrResult;
+
+class PackedWordsTest {
+
+	@Test
+	void emptyPageRoundTrips() {
+		PackedWords words = PackedWords.read(PackedWords.encode(List.of()));
+
+		assertTrue(words.isEmpty());
+		assertEquals(0, words.size());
+		assertEquals(List.of(), words.toWordInfos());
+	}
+
+	@Test
+	void wordsRoundTripInOrder() {
+		List<PageOcrResult.WordInfo> original = List.of(
+			word("제목", 0.9876, 100, 200, 180, 200, 180, 230, 100, 230, 0),
+			word("본문", 0.5, 190, 200, 260, 201, 259, 231, 189, 230, 1));
+
+		PackedWords words = PackedWords.read(PackedWords.encode(original));
+
+		assertEquals(2, words.size());
+		assertEquals(original, words.toWordInfos());
+		assertEquals(30, words.height(0));
+		assertTrue(words.hasBox(1));
+		assertTrue(words.hasConfidence(1));
+	}
+
+	@Test
+	void negativeDeltasAndOffsetsRoundTrip() {
+		// 다음 줄 첫 단어(x1 감소), 기울어진 상자(x4 < x1), 음수 좌표, 순서 역행
+		List<PageOcrResult.WordInfo> original = List.of(
+			word("a", 0.99, 900, 500, 950, 498, 951, 530, 899, 532, 7),
+			word("b", 0.99, 40, 540, 90, 541, 88, 570, 35, 569, 3),
+			word("c", 0.99, -12, -5, 20, -7, 21, 15, -15, 16, 0));
+
+		assertEquals(original, PackedWords.read(PackedWords.encode(original)).toWordInfos());
+	}
+
+	@Test
+	void nullCoordinatesAndConfidenceComeBackAsNull() {
+		PageOcrResult.WordInfo partial = PageOcrResult.WordInfo.builder()
+			.text("x")
+			.x1(10)
+			.y1(20)
+			.order(4)
+			.build();
+
+		PackedWords words = PackedWords.read(PackedWords.encode(List.of(partial)));
+		PageOcrResult.WordInfo decoded = words.word(0);
+
+		assertFalse(words.hasBox(0));
+		assertFalse(words.hasConfidence(0));
+		assertEquals(0d, words.confidence(0));
+		assertEquals(partial, decoded);
+		assertNull(decoded.getConfidence());
+		assertNull(decoded.getX2());
+		assertNull(decoded.getY4());
+	}
+
+	@Test
+	void nullOrderAndTextAreStoredAsMissingAndEmpty() {
+		PageOcrResult.WordInfo word = PageOcrResult.WordInfo.builder().confidence(0.8).build();
+
+		PageOcrResult.WordInfo decoded = PackedWords.read(PackedWords.encode(List.of(word))).word(0);
+
+		assertEquals("", decoded.getText());
+		assertNull(decoded.getOrder());
+		assertEquals(0.8, decoded.getConfidence());
+	}
+
+	@Test
+	void multiByteTextIsSlicedPerWord() {
+		List<PageOcrResult.WordInfo> original = List.of(
+			word("광합성", 0.9, 0, 0, 10, 0, 10, 10, 0, 10, 0),
+			word("", 0.9, 12, 0, 14, 0, 14, 10, 12, 10, 1),
+			word("😀x", 0.9, 16, 0, 30, 0, 30, 10, 16, 10, 2),
+			word("é", 0.9, 32, 0, 40, 0, 40, 10, 32, 10, 3));
+
+		PackedWords words = PackedWords.read(PackedWords.encode(original));
+
+		assertEquals("광합성", words.text(0));
+		assertEquals("", words.text(1));
+		assertEquals("😀x", words.text(2));
+		assertEquals("é", words.text(3));
+	}
+
+	@Test
+	void confidenceIsRoundedAndClampedAtZero() {
+		PackedWords words = PackedWords.read(PackedWords.encode(List.of(
+			word("a", 0.123456, 0, 0, 0, 0, 0, 0, 0, 0, 0),
+			word("b", -0.5, 0, 0, 0, 0, 0, 0, 0, 0, 1))));
+
+		assertEquals(0.1235, words.confidence(0));
+		assertEquals(0d, words.confidence(1));
+	}
+
+	@Test
+	void manyWordsGrowTheBuilder() {
+		PageOcrResult.WordInfo[] original = new PageOcrResult.WordInfo[100];
+		for (int i = 0; i < original.length; i++) {
+			original[i] = word("w" + i, 0.5, i * 300, i % 7, i * 300 + 50, i % 7, i * 300 + 50, 40, i * 300, 40, i);
+		}
+
+		assertEquals(Arrays.asList(original),
+			PackedWords.read(PackedWords.encode(Arrays.asList(original))).toWordInfos());
+	}
+
+	@Test
+	void truncatedBlobIsRejected() {
+		byte[] blob = PackedWords.encode(List.of(
+			word("단어", 0.9, 100, 200, 180, 200, 180, 230, 100, 230, 0)));
+
+		for (int length = 0; length < blob.length; length++) {
+			byte[] truncated = Arrays.copyOf(blob, length);
+			assertThrows(IllegalArgumentException.class, () -> PackedWords.read(truncated),
+				"length " + length);
+		}
+	}
+
+	@Test
+	void unknownVersionIsRejected() {
+		byte[] blob = PackedWords.encode(List.of());
+		blob[1] = 1;
+
+		assertThrows(IllegalArgumentException.class, () -> PackedWords.read(blob));
+	}
+
+	private static PageOcrResult.WordInfo word(String text, double confidence, int x1, int y1, int x2, int y2,
+		int x3, int y3, int x4, int y4, int order) {
+		return PageOcrResult.WordInfo.builder()
+			.text(text)
+			.confidence(confidence)
+			.x1(x1)
+			.y1(y1)
+			.x2(x2)
+			.y2(y2)
+			.x3(x3)
+			.y3(y3)
+			.x4(x4)
+			.y4(y4)
+			.order(order)
+			.build();
+	}
+}
@@ -0,0 +1,299 @@
+package A704.DODREAM.file.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import reactor.core.publisher.Flux;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ServiceClientConfiguration;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+class ParseResponseStreamerTest {
+
+	private static final String KEY = "json/1/parsed.json";
+	private static final int PART_SIZE = 5 * 1024 * 1024;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final RecordingS3Client s3Client = new RecordingS3Client();
+	private final ParseResponseStreamer streamer = new ParseResponseStreamer(s3Client, objectMapper, "bucket", 5);
+
+	@Test
+	void tokensSplitAcrossChunksAreReassembled() throws IOException {
+		String parsedData = """
+			{"indexes":["1","2"],"data":[
+			{"index":"1","index_title":"광합성","titles":[{"title":"빛 에너지 \\"인용\\" \\u00e9"}]},
+			{"index_title":"호흡","index":2.5,"content":null,"flag":true}
+			]}""";
+		String response = "{\"status\":\"ok\",\"meta\":{\"parsed_data\":1},\"parsed_data\":" + parsedData
+			+ ",\"elapsed\":12.5}";
+
+		for (int chunkSize : new int[] {1, 2, 3, 7, 64, Integer.MAX_VALUE}) {
+			RecordingS3Client s3 = new RecordingS3Client();
+			ParseResponseStreamer.StreamedParse result = new ParseResponseStreamer(s3, objectMapper, "bucket", 5)
+				.stream(chunked(response.getBytes(StandardCharsets.UTF_8), chunkSize), KEY, Map.of("owner", "7"));
+
+			assertEquals(objectMapper.readTree(parsedData), storedJson(s3), "chunk " + chunkSize);
+			assertEquals(List.of("1", "2"), result.indexes());
+			assertEquals("1,2", result.joinedIndexes());
+			assertEquals(List.of(new ParseResponseStreamer.ChapterSummary("1", "광합성"),
+				new ParseResponseStreamer.ChapterSummary("2.5", "호흡")), result.chapters());
+			assertEquals(s3.objects.get(KEY).length, result.size());
+			assertEquals(1, s3.puts);
+			assertEquals("7", s3.putMetadata.get("owner"));
+			assertEquals(StoredJsonCodec.Format.JSON_GZIP.marker(), s3.putMetadata.get(StoredJsonCodec.FORMAT_METADATA));
+		}
+	}
+
+	@Test
+	void missingIndexesAreNull() {
+		ParseResponseStreamer.StreamedParse result = streamer.stream(
+			chunked("{\"parsed_data\":{\"data\":[]}}".getBytes(StandardCharsets.UTF_8), 5), KEY, Map.of());
+
+		assertNull(result.indexes());
+		assertNull(result.joinedIndexes());
+		assertTrue(result.chapters().isEmpty());
+	}
+
+	@Test
+	void nonObjectParsedDataIsRejected() {
+		for (String parsedData : new String[] {"null", "\"text\"", "42", "[{\"index\":\"1\"}]", "[]"}) {
+			String response = "{\"parsed_data\":" + parsedData + ",\"status\":\"ok\"}";
+
+			RuntimeException e = assertThrows(RuntimeException.class,
+				() -> streamer.stream(chunked(response.getBytes(StandardCharsets.UTF_8), 4), KEY, Map.of()));
+
+			assertEquals("FastAPI 응답에 parsed_data가 없습니다.", e.getMessage(), parsedData);
+		}
+		assertEquals(0, s3Client.puts);
+		assertFalse(s3Client.multipartStarted);
+	}
+
+	@Test
+	void missingParsedDataIsRejected() {
+		assertThrows(RuntimeException.class,
+			() -> streamer.stream(chunked("{\"status\":\"ok\"}".getBytes(StandardCharsets.UTF_8), 3), KEY, Map.of()));
+		assertEquals(0, s3Client.puts);
+	}
+
+	@Test
+	void stringEncodedConceptChecksAndQuestionsAreExpanded() throws IOException {
+		String response = """
+			{"parsed_data":{"data":[{"index":"1",
+			"concept_checks":"[{\\"q\\":\\"광합성?\\",\\"choices\\":[1,2]}]",
+			"questions":["{\\"q\\":\\"a\\",\\"questions\\":\\"[3]\\"}", "plain", "[broken"],
+			"content":"[1,2]"}]}}""";
+
+		streamer.stream(chunked(response.getBytes(StandardCharsets.UTF_8), 5), KEY, Map.of());
+
+		JsonNode chapter = storedJson(s3Client).get("data").get(0);
+		assertEquals(objectMapper.readTree("[{\"q\":\"광합성?\",\"choices\":[1,2]}]"), chapter.get("concept_checks"));
+		assertEquals(objectMapper.readTree("{\"q\":\"a\",\"questions\":[3]}"), chapter.get("questions").get(0));
+		assertEquals("plain", chapter.get("questions").get(1).textValue());
+		assertEquals("[broken", chapter.get("questions").get(2).textValue());
+		assertEquals("[1,2]", chapter.get("content").textValue());
+	}
+
+	@Test
+	void resultWithinOnePartIsStoredWithSinglePut() throws IOException {
+		String parsedData = largeParsedData(20, 100_000); // 압축 후 1.5MB 안팎
+
+		ParseResponseStreamer.StreamedParse result = streamer.stream(
+			chunked(("{\"parsed_data\":" + parsedData + "}").getBytes(StandardCharsets.UTF_8), 8192), KEY, Map.of());
+
+		assertTrue(result.size() < PART_SIZE);
+		assertEquals(1, s3Client.puts);
+		assertFalse(s3Client.multipartStarted);
+		assertEquals(objectMapper.readTree(parsedData), storedJson(s3Client));
+	}
+
+	@Test
+	void resultLargerThanOnePartIsUploadedInPartSizedParts() throws IOException {
+		String parsedData = largeParsedData(100, 100_000); // 압축 후 7MB 안팎
+
+		ParseResponseStreamer.StreamedParse result = streamer.stream(
+			chunked(("{\"parsed_data\":" + parsedData + "}").getBytes(StandardCharsets.UTF_8), 8192), KEY, Map.of());
+
+		assertEquals(0, s3Client.puts);
+		assertTrue(s3Client.completed);
+		assertFalse(s3Client.aborted);
+		assertTrue(s3Client.partSizes.size() >= 2);
+		for (int part = 0; part < s3Client.partSizes.size() - 1; part++) {
+			assertEquals(PART_SIZE, s3Client.partSizes.get(part));
+		}
+		int last = s3Client.partSizes.get(s3Client.partSizes.size() - 1);
+		assertTrue(last > 0 && last <= PART_SIZE);
+		assertEquals(s3Client.objects.get(KEY).length, result.size());
+		assertEquals(objectMapper.readTree(parsedData), storedJson(s3Client));
+	}
+
+	@Test
+	void malformedJsonAfterUploadedPartsAbortsMultipartUpload() {
+		String response = "{\"parsed_data\":" + largeParsedData(100, 100_000) + ",\"status\":}";
+
+		assertThrows(RuntimeException.class, () -> streamer.stream(
+			chunked(response.getBytes(StandardCharsets.UTF_8), 8192), KEY, Map.of()));
+
+		assertTrue(s3Client.multipartStarted);
+		assertTrue(s3Client.aborted);
+		assertFalse(s3Client.completed);
+		assertEquals(0, s3Client.puts);
+	}
+
+	@Test
+	void malformedOrTruncatedSmallResponseIsNotStored() {
+		for (String response : new String[] {"{\"parsed_data\":{\"data\":[}}", "{\"parsed_data\":{\"data\":[]",
+			"not json"}) {
+			assertThrows(RuntimeException.class,
+				() -> streamer.stream(chunked(response.getBytes(StandardCharsets.UTF_8), 3), KEY, Map.of()),
+				response);
+		}
+		assertEquals(0, s3Client.puts);
+		assertFalse(s3Client.multipartStarted);
+	}
+
+	// ===== 내부 =====
+
+	private static Flux<DataBuffer> chunked(byte[] bytes, int chunkSize) {
+		List<DataBuffer> buffers = new ArrayList<>();
+		for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+			int length = Math.min(chunkSize, bytes.length - offset);
+			byte[] chunk = new byte[length];
+			System.arraycopy(bytes, offset, chunk, 0, length);
+			buffers.add(DefaultDataBufferFactory.sharedInstance.wrap(chunk));
+		}
+		return Flux.fromIterable(buffers);
+	}
+
+	/**
+	 * 잘 압축되지 않는 본문의 챕터 (고정 시드)
+	 */
+	private static String largeParsedData(int chapters, int contentLength) {
+		Random random = new Random(42);
+		String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789가나다라마바사아자차카타";
+		StringBuilder json = new StringBuilder("{\"indexes\":[],\"data\":[");
+		for (int chapter = 0; chapter < chapters; chapter++) {
+			if (chapter > 0) {
+				json.append(',');
+			}
+			json.append("{\"index\":\"").append(chapter).append("\",\"content\":\"");
+			for (int i = 0; i < contentLength; i++) {
+				json.append(alphabet.charAt(random.nextInt(alphabet.length())));
+			}
+			json.append("\"}");
+		}
+		return json.append("]}").toString();
+	}
+
+	private JsonNode storedJson(RecordingS3Client s3) throws IOException {
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(s3.objects.get(KEY)))) {
+			return objectMapper.readTree(in);
+		}
+	}
+
+	/**
+	 * 올린 바이트를 기록하는 S3 (PUT 한 번 또는 멀티파트)
+	 */
+	private static class RecordingS3Client implements S3Client {
+
+		private final Map<String, byte[]> objects = new HashMap<>();
+		private final List<Integer> partSizes = new ArrayList<>();
+		private final ByteArrayOutputStream multipart = new ByteArrayOutputStream();
+		private Map<String, String> putMetadata;
+		private int puts;
+		private boolean multipartStarted;
+		private boolean completed;
+		private boolean aborted;
+
+		@Override
+		public PutObjectResponse putObject(PutObjectRequest request, RequestBody body) {
+			puts++;
+			putMetadata = request.metadata();
+			objects.put(request.key(), read(body));
+			return PutObjectResponse.builder().build();
+		}
+
+		@Override
+		public CreateMultipartUploadResponse createMultipartUpload(CreateMultipartUploadRequest request) {
+			multipartStarted = true;
+			return CreateMultipartUploadResponse.builder().uploadId("upload-1").build();
+		}
+
+		@Override
+		public UploadPartResponse uploadPart(UploadPartRequest request, RequestBody body) {
+			byte[] bytes = read(body);
+			assertEquals(request.contentLength(), (long)bytes.length);
+			assertEquals(partSizes.size() + 1, request.partNumber());
+			partSizes.add(bytes.length);
+			multipart.writeBytes(bytes);
+			return UploadPartResponse.builder().eTag("etag-" + request.partNumber()).build();
+		}
+
+		@Override
+		public CompleteMultipartUploadResponse completeMultipartUpload(CompleteMultipartUploadRequest request) {
+			assertEquals(partSizes.size(), request.multipartUpload().parts().size());
+			completed = true;
+			objects.put(request.key(), multipart.toByteArray());
+			return CompleteMultipartUploadResponse.builder().build();
+		}
+
+		@Override
+		public AbortMultipartUploadResponse abortMultipartUpload(AbortMultipartUploadRequest request) {
+			aborted = true;
+			return AbortMultipartUploadResponse.builder().build();
+		}
+
+		@Override
+		public S3ServiceClientConfiguration serviceClientConfiguration() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public String serviceName() {
+			return "s3";
+		}
+
+		@Override
+		public void close() {
+		}
+
+		private static byte[] read(RequestBody body) {
+			try {
+				return body.contentStreamProvider().newStream().readAllBytes();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,180 @@
+package A704.DODREAM.file.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+
+class StoredJsonCodecTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final StoredJsonCodec codec = new StoredJsonCodec(objectMapper);
+
+	@Test
+	void jsonGzipIsCompactGzipReadableOverHttp() throws IOException {
+		StoredJsonCodec.Encoded encoded = codec.encode(document(), StoredJsonCodec.Format.JSON_GZIP);
+
+		assertEquals("application/json", encoded.contentType());
+		assertEquals("gzip", encoded.contentEncoding());
+		// CloudFront에서 받은 클라이언트가 gzip만 풀면 일반 JSON이어야 함
+		byte[] raw = gunzip(encoded.body());
+		assertArrayEquals(objectMapper.writeValueAsBytes(document()), raw);
+
+		StoredJsonCodec.Decoded decoded = codec.decode(encoded.body());
+		assertEquals(document(), decoded.data());
+		assertEquals(raw.length, decoded.size());
+		assertTrue(decoded.upToDate());
+	}
+
+	@Test
+	void smileGzipRoundTripsWithoutContentEncoding() throws IOException {
+		StoredJsonCodec.Encoded encoded = codec.encode(document(), StoredJsonCodec.Format.SMILE_GZIP);
+
+		assertEquals("application/x-jackson-smile", encoded.contentType());
+		assertNull(encoded.contentEncoding());
+		byte[] raw = gunzip(encoded.body());
+		assertArrayEquals(new byte[] {':', ')', '\n'}, Arrays.copyOf(raw, 3));
+
+		StoredJsonCodec.Decoded decoded = codec.decode(encoded.body());
+		assertEquals(document(), decoded.data());
+		assertEquals(raw.length, decoded.size());
+		assertTrue(decoded.upToDate());
+	}
+
+	@Test
+	void legacyPrettyPrintedJsonIsReadAndMarkedForRewrite() throws IOException {
+		byte[] legacy = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(document());
+
+		StoredJsonCodec.Decoded decoded = codec.decode(legacy);
+
+		assertEquals(document(), decoded.data());
+		assertEquals(legacy.length, decoded.size());
+		assertFalse(decoded.upToDate());
+	}
+
+	@Test
+	void uncompressedSmileIsRecognizedByHeader() throws IOException {
+		byte[] smile = new SmileMapper().writeValueAsBytes(document());
+
+		StoredJsonCodec.Decoded decoded = codec.decode(smile);
+
+		assertEquals(document(), decoded.data());
+		assertFalse(decoded.upToDate());
+	}
+
+	@Test
+	void openParserSniffsEveryStoredFormat() throws IOException {
+		List<byte[]> stored = List.of(
+			codec.encode(document(), StoredJsonCodec.Format.JSON_GZIP).body(),
+			codec.encode(document(), StoredJsonCodec.Format.SMILE_GZIP).body(),
+			objectMapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(document()),
+			new SmileMapper().writeValueAsBytes(document()));
+
+		for (int i = 0; i < stored.size(); i++) {
+			// 한 바이트씩만 내주는 스트림에서도 매직 바이트 판별 후 처음부터 읽혀야 함
+			try (JsonParser parser = codec.openParser(new TrickleInputStream(stored.get(i)))) {
+				assertEquals(document(), objectMapper.readValue(parser, Map.class), "format " + i);
+			}
+		}
+	}
+
+	@Test
+	void inputsShorterThanMagicBytesAreReadAsJson() throws IOException {
+		byte[] tiny = "{}".getBytes(StandardCharsets.UTF_8);
+
+		assertEquals(Map.of(), codec.decode(tiny).data());
+		try (JsonParser parser = codec.openParser(new ByteArrayInputStream(tiny))) {
+			assertEquals(Map.of(), objectMapper.readValue(parser, Map.class));
+		}
+	}
+
+	@Test
+	void corruptBodyIsRejected() {
+		byte[] garbage = "not json".getBytes(StandardCharsets.UTF_8);
+
+		RuntimeException e = assertThrows(RuntimeException.class, () -> codec.decode(garbage));
+		assertTrue(e.getMessage().startsWith("JSON 파싱 실패"));
+
+		byte[] truncatedGzip = Arrays.copyOf(codec.encode(document(), StoredJsonCodec.Format.JSON_GZIP).body(), 12);
+		assertThrows(RuntimeException.class, () -> codec.decode(truncatedGzip));
+	}
+
+	@Test
+	void metadataAddsFormatMarkerWithoutTouchingInput() {
+		Map<String, String> original = Map.of("owner", "7");
+
+		Map<String, String> merged = codec.encode(Map.of(), StoredJsonCodec.Format.SMILE_GZIP).metadata(original);
+
+		assertEquals(Map.of("owner", "7", StoredJsonCodec.FORMAT_METADATA, "smile+gzip"), merged);
+		assertEquals(Map.of("owner", "7"), original);
+	}
+
+	@Test
+	void onlyServerReadKeysUseSmile() {
+		assertEquals(StoredJsonCodec.Format.SMILE_GZIP, codec.formatFor("material-shards/1/3.bin"));
+		assertEquals(StoredJsonCodec.Format.SMILE_GZIP, codec.formatFor("concept-check-json/1.json"));
+		assertEquals(StoredJsonCodec.Format.JSON_GZIP, codec.formatFor("json/1/parsed.json"));
+		assertEquals(StoredJsonCodec.Format.JSON_GZIP, codec.formatFor("published-json/material-shards/1.json"));
+	}
+
+	private static Map<String, Object> document() {
+		Map<String, Object> chapter = new LinkedHashMap<>();
+		chapter.put("index", "1");
+		chapter.put("index_title", "광합성 😀");
+		chapter.put("page", 3);
+		chapter.put("score", 0.75);
+		chapter.put("content", null);
+		chapter.put("tags", List.of("a", "b"));
+
+		Map<String, Object> document = new LinkedHashMap<>();
+		document.put("indexes", List.of("1"));
+		document.put("data", List.of(chapter));
+		return document;
+	}
+
+	private static byte[] gunzip(byte[] body) throws IOException {
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+			return in.readAllBytes();
+		}
+	}
+
+	/**
+	 * read 호출마다 최대 1바이트만 반환 (S3 응답 스트림의 짧은 read 재현)
+	 */
+	private static class TrickleInputStream extends InputStream {
+
+		private final ByteArrayInputStream delegate;
+
+		TrickleInputStream(byte[] body) {
+			this.delegate = new ByteArrayInputStream(body);
+		}
+
+		@Override
+		public int read() {
+			return delegate.read();
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			return delegate.read(b, off, Math.min(len, 1));
+		}
+	}
+}
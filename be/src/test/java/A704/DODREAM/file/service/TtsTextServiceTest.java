@@ -0,0 +1,197 @@
+package A704.DODREAM.file.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ServiceClientConfiguration;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+class TtsTextServiceTest {
+
+	private static final String TEXT_KEY = "tts-text/1/abc.txt";
+	private static final byte[] TEXT = "파일명: 과학.pdf\n\n1 광합성\n\n".getBytes(StandardCharsets.UTF_8);
+	private static final String ETAG = "\"etag-1\"";
+
+	private final TextS3Client s3Client = new TextS3Client();
+	private final TtsTextService service = new TtsTextService(s3Client, new StoredJsonCodec(new ObjectMapper()), null);
+
+	TtsTextServiceTest() {
+		ReflectionTestUtils.setField(service, "bucketName", "bucket");
+	}
+
+	@Test
+	void withoutRangeWholeObjectIsStreamed() throws IOException {
+		TtsTextService.TextStream stream = service.open(TEXT_KEY, null);
+
+		GetObjectRequest request = s3Client.gets.get(0);
+		assertEquals("bucket", request.bucket());
+		assertEquals(TEXT_KEY, request.key());
+		assertNull(request.range());
+		assertEquals(200, stream.status());
+		assertEquals(TEXT.length, stream.contentLength());
+		assertNull(stream.contentRange());
+		assertEquals(ETAG, stream.eTag());
+		assertArrayEquals(TEXT, body(stream));
+	}
+
+	@Test
+	void singleRangeIsForwardedToS3() throws IOException {
+		TtsTextService.TextStream stream = service.open(TEXT_KEY, "bytes=4-9");
+
+		assertEquals("bytes=4-9", s3Client.gets.get(0).range());
+		assertEquals(206, stream.status());
+		assertEquals(6, stream.contentLength());
+		assertEquals("bytes 4-9/" + TEXT.length, stream.contentRange());
+		assertArrayEquals(slice(4, 10), body(stream));
+	}
+
+	@Test
+	void openEndedAndSuffixRangesAreForwarded() throws IOException {
+		TtsTextService.TextStream openEnded = service.open(TEXT_KEY, " bytes=10- ");
+		TtsTextService.TextStream suffix = service.open(TEXT_KEY, "bytes=-5");
+
+		assertEquals("bytes=10-", s3Client.gets.get(0).range());
+		assertEquals("bytes=-5", s3Client.gets.get(1).range());
+		assertArrayEquals(slice(10, TEXT.length), body(openEnded));
+		assertArrayEquals(slice(TEXT.length - 5, TEXT.length), body(suffix));
+		assertEquals("bytes " + (TEXT.length - 5) + "-" + (TEXT.length - 1) + "/" + TEXT.length,
+			suffix.contentRange());
+	}
+
+	@Test
+	void multipleRangesAreUnsatisfiableWithoutGet() throws IOException {
+		TtsTextService.TextStream stream = service.open(TEXT_KEY, "bytes=0-1, 5-6");
+
+		assertTrue(s3Client.gets.isEmpty());
+		assertEquals(416, stream.status());
+		assertEquals(0, stream.contentLength());
+		assertEquals("bytes */" + TEXT.length, stream.contentRange());
+		assertEquals(ETAG, stream.eTag());
+		assertNull(stream.body());
+		assertArrayEquals(new byte[0], body(stream));
+	}
+
+	@Test
+	void rangeBeyondEndIsUnsatisfiable() {
+		TtsTextService.TextStream stream = service.open(TEXT_KEY, "bytes=" + TEXT.length + "-");
+
+		assertEquals(1, s3Client.gets.size());
+		assertEquals(416, stream.status());
+		assertEquals("bytes */" + TEXT.length, stream.contentRange());
+		assertNull(stream.body());
+	}
+
+	@Test
+	void malformedRangeIsIgnored() throws IOException {
+		for (String range : new String[] {"", "items=0-5", "bytes=abc", "bytes=5", "bytes=-", "bytes=1-2-3"}) {
+			TtsTextService.TextStream stream = service.open(TEXT_KEY, range);
+
+			assertNull(s3Client.gets.get(s3Client.gets.size() - 1).range(), range);
+			assertEquals(200, stream.status(), range);
+			assertArrayEquals(TEXT, body(stream));
+		}
+	}
+
+	@Test
+	void otherS3ErrorsPropagate() {
+		S3Exception e = assertThrows(S3Exception.class, () -> service.open("tts-text/1/missing.txt", null));
+
+		assertEquals(404, e.statusCode());
+	}
+
+	private static byte[] body(TtsTextService.TextStream stream) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		stream.toBody().writeTo(out);
+		return out.toByteArray();
+	}
+
+	private static byte[] slice(int from, int to) {
+		byte[] slice = new byte[to - from];
+		System.arraycopy(TEXT, from, slice, 0, slice.length);
+		return slice;
+	}
+
+	/**
+	 * TEXT_KEY 하나만 가진 S3 (단일 Range 해석, 파일 밖이면 416)
+	 */
+	private static class TextS3Client implements S3Client {
+
+		private final List<GetObjectRequest> gets = new ArrayList<>();
+
+		@Override
+		public ResponseInputStream<GetObjectResponse> getObject(GetObjectRequest request) {
+			gets.add(request);
+			if (!TEXT_KEY.equals(request.key())) {
+				throw (S3Exception)S3Exception.builder().statusCode(404).message("NoSuchKey").build();
+			}
+
+			int start = 0;
+			int end = TEXT.length - 1;
+			String range = request.range();
+			if (range != null) {
+				String[] bounds = range.substring("bytes=".length()).split("-", -1);
+				if (bounds[0].isEmpty()) {
+					start = Math.max(0, TEXT.length - Integer.parseInt(bounds[1]));
+				} else {
+					start = Integer.parseInt(bounds[0]);
+					if (!bounds[1].isEmpty()) {
+						end = Math.min(end, Integer.parseInt(bounds[1]));
+					}
+				}
+				if (start >= TEXT.length) {
+					throw (S3Exception)S3Exception.builder().statusCode(416).message("InvalidRange").build();
+				}
+			}
+
+			byte[] body = slice(start, end + 1);
+			GetObjectResponse response = GetObjectResponse.builder()
+				.contentLength((long)body.length)
+				.contentRange(range != null ? "bytes " + start + "-" + end + "/" + TEXT.length : null)
+				.eTag(ETAG)
+				.build();
+			return new ResponseInputStream<>(response, AbortableInputStream.create(new ByteArrayInputStream(body)));
+		}
+
+		@Override
+		public HeadObjectResponse headObject(HeadObjectRequest request) {
+			assertEquals(TEXT_KEY, request.key());
+			return HeadObjectResponse.builder().contentLength((long)TEXT.length).eTag(ETAG).build();
+		}
+
+		@Override
+		public S3ServiceClientConfiguration serviceClientConfiguration() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public String serviceName() {
+			return "s3";
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}